@@ -0,0 +1,151 @@
+package controller;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exception.ManagerSaveException;
+import exception.NotFoundException;
+import exception.ParsingException;
+import exception.ValidationException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.Type;
+import service.TaskBatch;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.List;
+
+// POST /batch - пакет изменений одним запросом, применяется целиком либо не применяется совсем:
+// [{"action": "create", "type": "SUBTASK", "task": {...}},
+//  {"action": "update", "type": "TASK", "task": {... "id": 5}},
+//  {"action": "remove", "type": "EPIC", "id": 3},
+//  {"action": "view", "type": "TASK", "id": 5}]    - просмотр: задача переносится в конец истории
+// В ответ - id задачи каждой операции (у созданных - выданный менеджером)
+public class BatchHandler extends CommonHandler implements HttpHandler {
+
+    public BatchHandler(TaskManager manager) {
+        CommonHandler.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Endpoint endpoint = getEndpoint(exchange);
+            if (endpoint == Endpoint.POST) {
+                try {
+                    TaskBatch batch = parseBatch(getBodyRequest(exchange));
+                    List<Integer> ids = manager.applyBatch(batch);
+                    sendGetResponse(exchange, ids, 200);
+                } catch (ValidationException e) {    // пересечение по времени и т.п. - пакет не применен
+                    ErrorHandler.handle(exchange, e);
+                } catch (ManagerSaveException e) {    // задачи или эпика из операции не существует
+                    ErrorHandler.handle(exchange, e);
+                } catch (NotFoundException e) {    // просматриваемой задачи нет
+                    ErrorHandler.handle(exchange, e);
+                } catch (ParsingException e) {
+                    ErrorHandler.handle(exchange, e);
+                } catch (JsonSyntaxException e) {
+                    ErrorHandler.handle(exchange, e);
+                }
+            } else {
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
+            }
+        } catch (Exception e) {
+            ErrorHandler.handle(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private TaskBatch parseBatch(String body) throws IOException {
+        JsonElement jsonElement = JsonParser.parseString(body);
+        if (!jsonElement.isJsonArray()) {
+            throw new ParsingException("В тело запроса передан не JSON массив операций!");
+        }
+        TaskBatch batch = new TaskBatch();
+        int number = 0;
+        for (JsonElement element : jsonElement.getAsJsonArray()) {
+            number++;
+            if (!element.isJsonObject()) {
+                throw new ParsingException("Операция " + number + " пакета не JSON объект!");
+            }
+            JsonObject operation = element.getAsJsonObject();
+            TaskBatch.Action action = parseEnum(TaskBatch.Action.class, operation, "action", number);
+            Type type = parseEnum(Type.class, operation, "type", number);
+            if (type != Type.TASK && type != Type.SUBTASK && type != Type.EPIC) {
+                throw new ParsingException("Операция " + number + " пакета: неверный тип " + type);
+            }
+            if (action == TaskBatch.Action.REMOVE || action == TaskBatch.Action.VIEW) {
+                if (!operation.has("id") || !operation.get("id").isJsonPrimitive()) {
+                    throw new ParsingException("Операция " + number + " пакета: не указан id задачи");
+                }
+                if (action == TaskBatch.Action.REMOVE) {
+                    batch.remove(type, operation.get("id").getAsInt());
+                } else {
+                    batch.view(type, operation.get("id").getAsInt());
+                }
+                continue;
+            }
+            if (!operation.has("task") || !operation.get("task").isJsonObject()) {
+                throw new ParsingException("Операция " + number + " пакета: не указана задача");
+            }
+            String taskJson = operation.get("task").toString();
+            // проверки тела те же, что у одиночного POST: создание - без id, обновление - с id
+            boolean withoutId = checkBodyPOST_Request(taskJson);
+            if (withoutId == (action == TaskBatch.Action.UPDATE)) {
+                throw new ParsingException("Операция " + number + " пакета: id задачи указывается только " +
+                        "при обновлении");
+            }
+            Task task = parseTask(taskJson, type);
+            if (action == TaskBatch.Action.CREATE) {
+                batch.create(task);
+            } else {
+                batch.update(task);
+            }
+        }
+        return batch;
+    }
+
+    // задача из JSON с теми же значениями по умолчанию, что и в TaskHandler, SubtaskHandler и EpicHandler
+    private Task parseTask(String taskJson, Type type) {
+        Task task;
+        switch (type) {
+            case SUBTASK:
+                task = getGson().fromJson(taskJson, Subtask.class);
+                break;
+            case EPIC:
+                task = getGson().fromJson(taskJson, Epic.class);
+                task.setEpicId(0);
+                break;
+            default:
+                task = getGson().fromJson(taskJson, Task.class);
+                task.setEpicId(0);
+        }
+        task.setTaskType(type);
+        task.setEmptySubtasks();
+        if (task.getStatus() == null) {
+            task.setStatus(TaskStatus.NEW);
+        }
+        return task;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumClass, JsonObject operation, String field,
+                                                   int number) throws ParsingException {
+        if (!operation.has(field) || !operation.get(field).isJsonPrimitive()) {
+            throw new ParsingException("Операция " + number + " пакета: не указано поле " + field);
+        }
+        String value = operation.get(field).getAsString();
+        try {
+            return Enum.valueOf(enumClass, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException("Операция " + number + " пакета: неверное значение " + field + "=" + value);
+        }
+    }
+}
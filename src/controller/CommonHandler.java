@@ -1,6 +1,7 @@
 package controller;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import converter.DurationAdapter;
 import converter.TimeAdapter;
@@ -8,13 +9,21 @@ import exception.ParsingException;
 import model.Task;
 import model.TaskStatus;
 import model.Type;
+import service.TaskCollection;
 import service.TaskManager;
+import service.TaskQuery;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 // Абстрактный класс Handler для HttpTaskServer
 // Содержит в себе общие методы и переменные для унаследованных Handlers
@@ -23,41 +32,304 @@ public abstract class CommonHandler {
 
     protected static TaskManager manager;
 
+    private static final Gson GSON = createGson(false);
+    private static final Gson PRETTY_GSON = createGson(true);
+    private static final String PRETTY_PARAM = "pretty";
+    private static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
+    private static final String[] PAGE_PARAMS = {"limit", "after", "status", "from", "to", "epicId"};
+    private static final ResponseCache RESPONSE_CACHE = new ResponseCache();
+    // таблица маршрутов всех обработчиков: новый эндпоинт - новая строка таблицы
+    private static final Router ROUTER = new Router()
+            .route("GET", "/tasks", Endpoint.GET_TASKS)    // получение всех задач
+            .route("GET", "/tasks/{id}", Endpoint.GET_TASK_BY_ID)    // получение одной задачи
+            .route("POST", "/tasks", Endpoint.POST)    // создание или обновление задачи
+            .route("DELETE", "/tasks/{id}", Endpoint.DELETE_TASK)    // удаление задачи
+            .route("GET", "/subtasks", Endpoint.GET_SUBTASKS)    // получение всех подзадач
+            .route("GET", "/subtasks/{id}", Endpoint.GET_SUBTASK_BY_ID)    // получение одной подзадачи
+            .route("POST", "/subtasks", Endpoint.POST)
+            .route("DELETE", "/subtasks/{id}", Endpoint.DELETE_SUBTASK)
+            .route("GET", "/epics", Endpoint.GET_EPICS)    // получение всех эпиков
+            .route("GET", "/epics/{id}", Endpoint.GET_EPIC_BY_ID)    // получение одного эпика
+            .route("GET", "/epics/{id}/subtasks", Endpoint.GET_EPIC_SUBTASKS)    // подзадачи эпика
+            .route("POST", "/epics", Endpoint.POST)
+            .route("DELETE", "/epics/{id}", Endpoint.DELETE_EPIC)
+            .route("GET", "/history", Endpoint.GET_HISTORY)    // получение истории
+            .route("GET", "/prioritized", Endpoint.GET_PRIORITIZED_TASKS)    // задачи по временному приоритету
+            .route("GET", "/slots", Endpoint.GET_SLOTS)    // свободные промежутки расписания
+            .route("POST", "/batch", Endpoint.POST)    // пакет изменений
+            .route("GET", "/export", Endpoint.GET_EXPORT)    // выгрузка всей доски в NDJSON
+            .route("POST", "/import", Endpoint.POST)    // загрузка доски из NDJSON
+            .route("GET", "/metrics", Endpoint.GET_METRICS);    // метрики сервера
+
     // отправка ответа на запрос (ответ, содержащий тело ответа)
-    protected static void sendGetResponse(HttpExchange httpExchange, String jsonText, int code) throws IOException {
-        byte[] response = jsonText.getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = httpExchange.getResponseBody()) {
-            httpExchange.getResponseHeaders().add("Content-Type", "application/json");
-            httpExchange.sendResponseHeaders(code, response.length);
-            os.write(response);
+    // объект сериализуется сразу в поток ответа, без промежуточных String и byte[]
+    protected static void sendGetResponse(HttpExchange httpExchange, Object body, int code) throws IOException {
+        sendJsonResponse(httpExchange, objectBody(() -> body), code);
+    }
+
+    // условный GET списка коллекции: ETag строится по версии коллекции в менеджере.
+    // Если клиент прислал тот же ETag в If-None-Match - ответ 304 без тела, данные менеджера не читаются;
+    // если ответ той же версии уже есть в кэше - отдаются готовые байты; иначе тело пишется потоком
+    // и по пути сохраняется в кэш. Версия читается до обхода данных, а менеджер увеличивает её после
+    // изменения, поэтому по версии никогда не сохранится ответ старее этой версии
+    protected static void sendVersionedResponse(HttpExchange httpExchange, TaskCollection collection,
+                                                JsonBody body) throws IOException {
+        boolean pretty = isPrettyRequested(httpExchange);
+        String key = httpExchange.getRequestURI().getPath() + "?" + httpExchange.getRequestURI().getRawQuery() +
+                (pretty ? "#pretty" : "");
+        long version = manager.getVersion(collection);
+        String etag = RESPONSE_CACHE.etag(manager, key, version);
+        httpExchange.getResponseHeaders().set("ETag", etag);
+        if (isNotModified(httpExchange, etag)) {
+            httpExchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        byte[] cached = RESPONSE_CACHE.get(manager, key, version);
+        if (cached != null) {
+            httpExchange.sendResponseHeaders(200, cached.length);
+            try (OutputStream out = httpExchange.getResponseBody()) {
+                out.write(cached);
+            }
+            return;
+        }
+        try {
+            body = body.prepare();    // после чтения версии: данные не старее версии в ETag
+        } catch (RuntimeException e) {    // ответом будет ошибка - ETag к ней не относится
+            httpExchange.getResponseHeaders().remove("ETag");
+            throw e;
+        }
+        httpExchange.sendResponseHeaders(200, 0);
+        ResponseCache.Recorder recorder = ResponseCache.record(httpExchange.getResponseBody());
+        writeBody(recorder, pretty ? PRETTY_GSON : GSON, body);
+        byte[] recorded = recorder.toByteArray();
+        if (recorded != null) {    // большие ответы не кэшируются
+            RESPONSE_CACHE.put(manager, key, version, recorded);
         }
     }
 
+    // тело JSON-ответа: пишется сразу в JsonWriter потока ответа
+    protected interface JsonBody {
+        void write(Gson gson, JsonWriter writer) throws IOException;
+
+        // подготовка перед отправкой заголовков ответа (см. preparedBody)
+        default JsonBody prepare() {
+            return this;
+        }
+    }
+
+    // объект целиком (значение получается только при записи тела)
+    protected static JsonBody objectBody(Supplier<?> value) {
+        return (gson, writer) -> {
+            Object object = value.get();
+            if (object == null) {
+                gson.toJson(JsonNull.INSTANCE, writer);
+            } else {
+                gson.toJson(object, object.getClass(), writer);
+            }
+        };
+    }
+
+    // объект, получение которого может завершиться ошибкой (например, устаревший курсор страницы):
+    // в sendVersionedResponse значение получается после чтения версии, но до заголовков ответа,
+    // поэтому ошибку еще можно вернуть статусом
+    protected static JsonBody preparedBody(Supplier<?> value) {
+        return new JsonBody() {
+            @Override
+            public void write(Gson gson, JsonWriter writer) throws IOException {
+                prepare().write(gson, writer);
+            }
+
+            @Override
+            public JsonBody prepare() {
+                Object object = value.get();
+                return objectBody(() -> object);
+            }
+        };
+    }
+
+    // потоковый JSON-массив: элементы пишутся в тело ответа по одному, по мере обхода source,
+    // поэтому ни список, ни строка со всем ответом в памяти не собираются - память на запрос не зависит
+    // от размера коллекции (source - например, manager::forEachSubtask)
+    protected static JsonBody arrayBody(Consumer<Consumer<Object>> source) {
+        return (gson, writer) -> {
+            writer.beginArray();
+            source.accept(element -> gson.toJson(element, element.getClass(), writer));
+            writer.endArray();
+        };
+    }
+
+    private static void sendJsonResponse(HttpExchange httpExchange, JsonBody body, int code) throws IOException {
+        Gson gson = isPrettyRequested(httpExchange) ? PRETTY_GSON : GSON;
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(code, 0);    // длина заранее неизвестна - тело уходит частями (chunked)
+        writeBody(httpExchange.getResponseBody(), gson, body);
+    }
+
+    private static void writeBody(OutputStream out, Gson gson, JsonBody body) throws IOException {
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), RESPONSE_BUFFER_SIZE))) {
+            try {
+                body.write(gson, writer);
+            } catch (JsonIOException e) {    // ошибка записи в поток ответа (например, клиент отключился)
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // If-None-Match: список ETag через запятую (слабые W/"..." сравниваются так же) либо *
+    private static boolean isNotModified(HttpExchange exchange, String etag) {
+        List<String> values = exchange.getRequestHeaders().get("If-None-Match");
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String tag : value.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(etag) || tag.equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     // отправка пустого ответа на запрос (без тела ответа)
     protected static void sendEmptyResponse(HttpExchange httpExchange, int code) throws IOException {
         httpExchange.getResponseHeaders().add("Content-Type", "application/json");
         httpExchange.sendResponseHeaders(code, 0);
     }
 
-    // создания объекта gson для парсинга из Json и обратно
+    // объект gson для парсинга из Json и обратно: Gson неизменяем и потокобезопасен,
+    // поэтому создается один раз, а не на каждый запрос
     protected static Gson getGson() {
+        return GSON;
+    }
+
+    private static Gson createGson(boolean prettyPrinting) {
         GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.setPrettyPrinting();
+        if (prettyPrinting) {
+            gsonBuilder.setPrettyPrinting();
+        }
         gsonBuilder.serializeNulls();
         gsonBuilder.registerTypeAdapter(LocalDateTime.class, new TimeAdapter());
         gsonBuilder.registerTypeAdapter(Duration.class, new DurationAdapter());
         return gsonBuilder.create();
     }
 
-    // получение id из URI
-    protected static int getIdURI(HttpExchange exchange) throws IOException {
-        String[] pathParts = exchange.getRequestURI().getPath().split("/");
+    // по умолчанию ответ компактный, с отступами - только по запросу клиента:
+    // параметр /tasks?pretty (или pretty=true) либо заголовок Accept: application/json; pretty=true
+    protected static boolean isPrettyRequested(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.equals(PRETTY_PARAM) || param.equals(PRETTY_PARAM + "=true")) {
+                    return true;
+                }
+            }
+        }
+        List<String> accept = exchange.getRequestHeaders().get("Accept");
+        if (accept != null) {
+            for (String value : accept) {
+                if (value.replace(" ", "").toLowerCase().contains(PRETTY_PARAM + "=true")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // значение параметра запроса (?name=value), null - параметра нет
+    protected static String getQueryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String param : query.split("&")) {
+            int eq = param.indexOf('=');
+            String key = eq < 0 ? param : param.substring(0, eq);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : param.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    // целочисленный параметр запроса не меньше min, если параметра нет - defaultValue
+    protected static int getIntQueryParam(HttpExchange exchange, String name, int defaultValue, int min)
+            throws ParsingException {
+        String value = getQueryParam(exchange, name);
+        if (value == null) {
+            return defaultValue;
+        }
         try {
-            return Integer.parseInt(pathParts[2]);
-        } catch (NumberFormatException exception) {
-            ErrorHandler.handle(exchange, exception);
+            int result = Integer.parseInt(value);
+            if (result >= min) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+            // ответим одной ошибкой ниже
+        }
+        throw new ParsingException("Параметр " + name + " должен быть целым числом не меньше " + min +
+                ": " + value);
+    }
+
+    // страница списка: /tasks?status=NEW&from=01.02.2024 10:00&to=2024-02-02T00:00&epicId=1&after=100&limit=50
+    // (after - id последней задачи предыдущей страницы, его возвращает поле next ответа).
+    // null - параметров страницы нет, список отдается целиком, как раньше
+    protected static TaskQuery getTaskQuery(HttpExchange exchange) throws ParsingException {
+        boolean paged = false;
+        for (String name : PAGE_PARAMS) {
+            paged |= getQueryParam(exchange, name) != null;
+        }
+        if (!paged) {
+            return null;
+        }
+        TaskQuery query = TaskQuery.firstPage()
+                .withLimit(getIntQueryParam(exchange, "limit", TaskQuery.DEFAULT_LIMIT, 1))
+                .withAfter(getIntQueryParam(exchange, "after", 0, 0));
+        String status = getQueryParam(exchange, "status");
+        if (status != null) {
+            try {
+                query = query.withStatus(TaskStatus.valueOf(status.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new ParsingException("Неизвестный статус задачи: " + status);
+            }
+        }
+        LocalDateTime from = getTimeQueryParam(exchange, "from");
+        LocalDateTime to = getTimeQueryParam(exchange, "to");
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ParsingException("Параметр from должен быть раньше to");
+        }
+        query = query.withWindow(from, to);
+        if (getQueryParam(exchange, "epicId") != null) {
+            query = query.withEpicId(getIntQueryParam(exchange, "epicId", 0, 1));
+        }
+        return query;
+    }
+
+    // время в параметре запроса: dd.MM.yyyy HH:mm, как в теле задачи, либо ISO (2024-02-01T10:00)
+    protected static LocalDateTime getTimeQueryParam(HttpExchange exchange, String name) throws ParsingException {
+        String value = getQueryParam(exchange, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, TimeAdapter.DATE_TIME_FORMAT_1);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException ignored) {
+                throw new ParsingException("Неверный формат даты в параметре " + name + ": " + value +
+                        " необходим dd.MM.yyyy HH:mm");
+            }
         }
-        return -1;
     }
 
     // получение тела запроса в формате строки
@@ -95,62 +367,19 @@ public abstract class CommonHandler {
         return false;
     }
 
+    // маршрут запроса: эндпоинт и id из пути (Router.endpoint, Router.id)
+    protected static long getRoute(HttpExchange exchange) {
+        return ROUTER.match(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+    }
+
     // определение эндпоинтов
-    protected Endpoint getEndpoint(HttpExchange exchange) throws IOException {
-        try {
-            String mode = exchange.getRequestMethod();
-            String[] paths = exchange.getRequestURI().getPath().split("/");
-
-            switch (mode) {
-                case "GET":
-                    if (paths[1].equals("tasks") && paths.length == 2) {    // путь заканчивается на tasks
-                        return Endpoint.GET_TASKS;    // получение всех задач
-                    }
-                    if (paths[1].equals("tasks") && paths.length == 3) {    // путь заканчивается id задачи
-                        return Endpoint.GET_TASK_BY_ID;    // получение одной задачи
-                    }
-                    if (paths[1].equals("subtasks") && paths.length == 2) {    // путь заканчивается на subtasks
-                        return Endpoint.GET_SUBTASKS;     // получение всех подзадач
-                    }
-                    if (paths[1].equals("subtasks") && paths.length == 3) {    // путь заканчивается id подзадачи
-                        return Endpoint.GET_SUBTASK_BY_ID;    // получение одной подзадач
-                    }
-                    if (paths[1].equals("epics") && paths.length == 2) {    // путь заканчивается на epics
-                        return Endpoint.GET_EPICS;    // получение всех эпиков
-                    }
-                    if (paths[1].equals("epics") && paths.length == 3) {    // путь заканчивается id эпика
-                        return Endpoint.GET_EPIC_BY_ID;    // получение одного эпика
-                    }
-                    if (paths[1].equals("epics") && paths.length == 4 && paths[3].equals("subtasks")) {
-                        return Endpoint.GET_EPIC_SUBTASKS;    // путь указывает на получение подзадач к определенному эпику
-                    }
-                    if (paths[1].equals("history") && paths.length == 2) {    // путь заканчивается на history
-                        return Endpoint.GET_HISTORY;    // получение истории
-                    }
-                    if (paths[1].equals("prioritized") && paths.length == 2) {    // путь заканчивается на prioritized
-                        return Endpoint.GET_PRIORITIZED_TASKS;    // получение задач по временному приоритету
-                    }
-                    return Endpoint.UNKNOWN;    // если запрос GET но ни один из вариантов не подошел
-                case "POST":                // Для запросов типа POST дополнительного разграничения не требуется
-                    return Endpoint.POST;   // определение пути при создании createContext в классе HttpTaskServer
-                case "DELETE":
-                    if (paths[1].equals("tasks") && paths.length == 3) {    // путь заканчивается id задачи
-                        return Endpoint.DELETE_TASK;    // удаление задачи
-                    }
-                    if (paths[1].equals("subtasks") && paths.length == 3) {    // путь заканчивается id подзадачи
-                        return Endpoint.DELETE_SUBTASK;    // удаление подзадачи
-                    }
-                    if (paths[1].equals("epics") && paths.length == 3) {    // путь заканчивается id эпика
-                        return Endpoint.DELETE_EPIC;    // удаление эпика
-                    }
-                    return Endpoint.UNKNOWN;    // если запрос DELETE ни к одному из вариантов не подошел
-                default:
-                    return Endpoint.UNKNOWN;
-            }
-        } catch (Exception e) {
-            ErrorHandler.handle(exchange, e);
-        }
-        return Endpoint.UNKNOWN;
+    protected Endpoint getEndpoint(HttpExchange exchange) {
+        return Router.endpoint(getRoute(exchange));
+    }
+
+    // эндпоинт по методу и пути запроса (его же используют метрики как метку запроса)
+    static Endpoint endpointOf(String mode, String path) {
+        return Router.endpoint(ROUTER.match(mode, path));
     }
 
     // перечисление всех возможных эндпоинтов
@@ -168,6 +397,9 @@ public abstract class CommonHandler {
         DELETE_EPIC,
         GET_HISTORY,
         GET_PRIORITIZED_TASKS,
+        GET_EXPORT,
+        GET_METRICS,
+        GET_SLOTS,
         UNKNOWN
     }
 
@@ -11,7 +11,9 @@ import model.Epic;
 import model.Subtask;
 import model.TaskStatus;
 import model.Type;
+import service.TaskCollection;
 import service.TaskManager;
+import service.TaskQuery;
 
 import java.io.IOException;
 import java.util.List;
@@ -26,15 +28,23 @@ public class EpicHandler extends CommonHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
-            Endpoint endpoint = getEndpoint(exchange);
-            switch (endpoint) {
+            long route = getRoute(exchange);    // эндпоинт и id из пути - за одно сопоставление
+            switch (Router.endpoint(route)) {
                 case GET_EPICS:    // получаем все эпики
-                    sendGetResponse(exchange, getGson().toJson(manager.getEpicList()), 200);
+                    try {
+                        TaskQuery query = getTaskQuery(exchange);    // с параметрами страницы - только одна страница
+                        // ETag по версии коллекции: неизмененный список не читается повторно
+                        sendVersionedResponse(exchange, TaskCollection.EPICS, query == null
+                                ? arrayBody(manager::forEachEpic)    // весь список - потоком
+                                : objectBody(() -> manager.getEpicsPage(query)));
+                    } catch (ParsingException e) {    // неверные параметры страницы
+                        ErrorHandler.handle(exchange, e);
+                    }
                     break;
                 case GET_EPIC_BY_ID:    // получаем эпик по id
                     try {
-                        int id = getIdURI(exchange);
-                        sendGetResponse(exchange, getGson().toJson(manager.getEpic(id)), 200);
+                        int id = Router.id(route);
+                        sendGetResponse(exchange, manager.getEpic(id), 200);
                     } catch (NotFoundException e) {    // если обратились по id которого не существует
                         ErrorHandler.handle(exchange, e);
                     }
@@ -64,15 +74,15 @@ public class EpicHandler extends CommonHandler implements HttpHandler {
                     break;
                 case GET_EPIC_SUBTASKS:
                     try {
-                        int id = getIdURI(exchange);
+                        int id = Router.id(route);
                         List<Subtask> listSubtasksFromEpic = manager.getListSubtasksFromEpic(id);
-                        sendGetResponse(exchange, getGson().toJson(listSubtasksFromEpic), 200);
+                        sendGetResponse(exchange, listSubtasksFromEpic, 200);
                     } catch (NotFoundException e) {    // если обратились по id которого не существует
                         ErrorHandler.handle(exchange, e);
                     }
                     break;
                 case DELETE_EPIC:
-                    int deleteId = getIdURI(exchange);
+                    int deleteId = Router.id(route);
                     try {
                         manager.removeEpic(deleteId);
                         sendEmptyResponse(exchange, 200);
@@ -81,8 +91,8 @@ public class EpicHandler extends CommonHandler implements HttpHandler {
                     }
                     break;
                 default:
-                    sendGetResponse(exchange, getGson().toJson("Страница по пути: " +
-                            exchange.getRequestURI().toString() + " не найдена!"), 404);
+                    sendGetResponse(exchange, "Страница по пути: " +
+                            exchange.getRequestURI().toString() + " не найдена!", 404);
             }    // при остальных исключениях проваливаемся в общий Exception класса ErrorHandler
         } catch (Exception e) {
             ErrorHandler.handle(exchange, e);
@@ -6,47 +6,68 @@ import exception.ManagerSaveException;
 import exception.NotFoundException;
 import exception.ParsingException;
 import exception.ValidationException;
+import service.AsyncLogger;
 
 import java.io.IOException;
 
+// Ответы с ошибкой. Каждая ошибка пишется в асинхронный журнал (stderr): ошибки клиента (4xx) - одной строкой
+// без стека и с лимитом записей в секунду, 500 - с полным стеком
 public class ErrorHandler extends CommonHandler {
 
+    private static final AsyncLogger LOG = new AsyncLogger(System.err);
 
     public static void handle(HttpExchange exchange, NotFoundException e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson(e.getMessage()), 404);
+        log(exchange, e, 404);
+        sendGetResponse(exchange, e.getMessage(), 404);
     }
 
     public static void handle(HttpExchange exchange, NumberFormatException e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson("По данному id ресурс не найден"), 404);
+        log(exchange, e, 404);
+        sendGetResponse(exchange, "По данному id ресурс не найден", 404);
     }
 
     public static void handle(HttpExchange exchange, JsonSyntaxException e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson(e.getMessage()), 400);
+        log(exchange, e, 400);
+        sendGetResponse(exchange, e.getMessage(), 400);
     }
 
 
     public static void handle(HttpExchange exchange, ValidationException e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson(e.getMessage()), 406);
+        log(exchange, e, 406);
+        sendGetResponse(exchange, e.getMessage(), 406);
     }
 
     public static void handle(HttpExchange exchange, ManagerSaveException e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson(e.getMessage()), 400);
+        if (e.getCause() != null) {    // сбой записи файла менеджера - ошибка сервера, а не запроса
+            log(exchange, e, 500);
+            sendGetResponse(exchange, e.getMessage(), 500);
+            return;
+        }
+        log(exchange, e, 400);
+        sendGetResponse(exchange, e.getMessage(), 400);
     }
 
     public static void handle(HttpExchange exchange, ParsingException e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson(e.getMessage()), 400);
+        log(exchange, e, 400);
+        sendGetResponse(exchange, e.getMessage(), 400);
     }
 
 
     public static void handle(HttpExchange exchange, Exception e) throws IOException {
-        e.printStackTrace();
-        sendGetResponse(exchange, getGson().toJson(e), 500);
+        log(exchange, e, 500);
+        // дерево JSON строим заранее: если исключение не сериализуется, заголовки ответа еще не отправлены
+        sendGetResponse(exchange, getGson().toJsonTree(e), 500);
     }
 
+    // запись об ошибке запроса: статус ответа, метод и путь - отдельными полями
+    static void log(HttpExchange exchange, Exception e, int status) {
+        LOG.log(status >= 500 ? AsyncLogger.Level.ERROR : AsyncLogger.Level.WARN, e.getMessage(), e,
+                "status", String.valueOf(status),
+                "method", exchange.getRequestMethod(),
+                "path", exchange.getRequestURI().getPath());
+    }
+
+    static long getDroppedLogRecords() {
+        return LOG.getDropped();
+    }
 }
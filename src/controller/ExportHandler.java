@@ -0,0 +1,47 @@
+package controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import converter.NdjsonFormat;
+import service.TaskManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+// GET /export - вся доска в NDJSON (см. NdjsonFormat): эпики, задачи, подзадачи и строка истории.
+// Строки пишутся в тело ответа по мере обхода менеджера, ответ загружается обратно через POST /import
+public class ExportHandler extends CommonHandler implements HttpHandler {
+
+    static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    public ExportHandler(TaskManager manager) {
+        CommonHandler.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Endpoint endpoint = getEndpoint(exchange);
+            if (Objects.requireNonNull(endpoint) == Endpoint.GET_EXPORT) {
+                exchange.getResponseHeaders().add("Content-Type", NDJSON_CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, 0);    // длина заранее неизвестна - тело уходит частями
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                        StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)) {
+                    NdjsonFormat.export(manager, out);
+                }
+            } else {
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
+            }
+        } catch (Exception e) {
+            ErrorHandler.handle(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package controller;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import converter.CSVFormat;
+import exception.ParsingException;
+import service.TaskCollection;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -18,12 +20,17 @@ public class HistoryHandler extends CommonHandler implements HttpHandler {
         try {
             Endpoint endpoint = getEndpoint(exchange);
             if (Objects.requireNonNull(endpoint) == Endpoint.GET_HISTORY) {
-                // история в формате строки (так удобнее)
-                sendGetResponse(exchange,
-                        getGson().toJson(CSVFormat.historyToString(manager.getHistoryManager())), 200);
+                // история в формате строки (так удобнее), /history?limit=N - только N последних просмотров
+                try {
+                    int limit = getIntQueryParam(exchange, "limit", Integer.MAX_VALUE, 1);
+                    sendVersionedResponse(exchange, TaskCollection.HISTORY, objectBody(() ->
+                            CSVFormat.historyToString(manager.getHistoryManager().getHistory(limit))));
+                } catch (ParsingException e) {    // неверный параметр limit
+                    ErrorHandler.handle(exchange, e);
+                }
             } else {
-                sendGetResponse(exchange, getGson().toJson("Страница по пути: " +
-                        exchange.getRequestURI().toString() + " не найдена!"), 404);
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
             }
         } catch (Exception e) {
             ErrorHandler.handle(exchange, e);
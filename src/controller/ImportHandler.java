@@ -0,0 +1,101 @@
+package controller;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import converter.NdjsonImporter;
+import exception.ManagerSaveException;
+import exception.ParsingException;
+import exception.ValidationException;
+import service.TaskManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// POST /import - загрузка NDJSON (формат GET /export) из тела запроса по мере его чтения, пакетами
+// (см. NdjsonImporter). Ответ - тоже NDJSON: строка прогресса после каждого примененного пакета
+// {"lines":1000,"tasks":600,"subtasks":300,"epics":100,"history":0,"batches":1,"done":false}
+// и итоговая строка с "done":true. Пока ни один пакет не применен, ошибка возвращается обычным статусом
+// (400, 406), после начала ответа - последней строкой {"error":"..."}; примененные пакеты остаются в менеджере
+public class ImportHandler extends CommonHandler implements HttpHandler {
+
+    public ImportHandler(TaskManager manager) {
+        CommonHandler.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Endpoint endpoint = getEndpoint(exchange);
+            if (endpoint == Endpoint.POST) {
+                ProgressResponse response = new ProgressResponse(exchange);
+                try {
+                    NdjsonImporter importer = new NdjsonImporter(manager);
+                    response.write(importer.readFrom(new InputStreamReader(exchange.getRequestBody(),
+                            StandardCharsets.UTF_8), response::write));
+                } catch (ValidationException e) {    // пересечение по времени - пакет не применен
+                    if (!response.fail(e)) {
+                        ErrorHandler.handle(exchange, e);
+                    }
+                } catch (ManagerSaveException e) {
+                    if (!response.fail(e)) {
+                        ErrorHandler.handle(exchange, e);
+                    }
+                } catch (ParsingException e) {    // ошибка в строке файла
+                    if (!response.fail(e)) {
+                        ErrorHandler.handle(exchange, e);
+                    }
+                }
+            } else {
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
+            }
+        } catch (Exception e) {
+            ErrorHandler.handle(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ответ со строками прогресса: заголовки отправляются с первой строкой
+    private static class ProgressResponse {
+
+        private final HttpExchange exchange;
+        private Writer out;
+
+        ProgressResponse(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        void write(NdjsonImporter.Progress progress) throws IOException {
+            writeLine(getGson().toJson(progress));
+        }
+
+        // false - ответ еще не начат, ошибку можно вернуть статусом
+        boolean fail(Exception e) throws IOException {
+            if (out == null) {
+                return false;
+            }
+            ErrorHandler.log(exchange, e, 200);    // статус 200 уже отправлен, ошибка - строкой ответа
+            JsonObject error = new JsonObject();
+            error.addProperty("error", e.getMessage());
+            writeLine(error.toString());
+            return true;
+        }
+
+        private void writeLine(String line) throws IOException {
+            if (out == null) {
+                exchange.getResponseHeaders().add("Content-Type", ExportHandler.NDJSON_CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, 0);
+                out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            }
+            out.write(line);
+            out.write('\n');
+            out.flush();    // клиент видит прогресс сразу, а не в конце загрузки
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package controller;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Фильтр контекстов сервера: замеряет время обработки запроса и считает байты тела ответа
+// (поток ответа подменяется счетчиком до вызова обработчика), результат - в RequestMetrics
+public class MetricsFilter extends Filter {
+
+    private final RequestMetrics metrics;
+
+    public MetricsFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long begin = System.nanoTime();
+        CountingOutputStream body = new CountingOutputStream(exchange.getResponseBody());
+        exchange.setStreams(null, body);
+        int status = -1;
+        try {
+            chain.doFilter(exchange);
+            status = exchange.getResponseCode();
+        } finally {
+            CommonHandler.Endpoint endpoint = CommonHandler.endpointOf(exchange.getRequestMethod(),
+                    exchange.getRequestURI().getPath());
+            metrics.record(exchange.getHttpContext().getPath(), endpoint, status, System.nanoTime() - begin,
+                    body.count);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Метрики запросов по эндпоинтам";
+    }
+
+    // поток ответа одного запроса - его пишет один поток, поэтому счетчик обычный
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);    // без побайтовой записи FilterOutputStream
+            count += len;
+        }
+    }
+}
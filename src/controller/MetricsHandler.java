@@ -0,0 +1,152 @@
+package controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import service.FileBackedTaskManager;
+import service.FlushStatistics;
+import service.JournaledTaskManager;
+import service.LatencyHistogram;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+
+// GET /metrics - метрики сервера в текстовом формате Prometheus (text/plain; version=0.0.4):
+// число запросов, ошибок и байт ответов по эндпоинтам, гистограмма времени обработки и её процентили
+// p50, p95, p99, а для файловых менеджеров - время и размер записи файла (у журнала - сброса на диск)
+public class MetricsHandler extends CommonHandler implements HttpHandler {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final RequestMetrics metrics;
+
+    public MetricsHandler(TaskManager manager, RequestMetrics metrics) {
+        CommonHandler.manager = manager;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Endpoint endpoint = getEndpoint(exchange);
+            if (Objects.requireNonNull(endpoint) == Endpoint.GET_METRICS) {
+                byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } else {
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
+            }
+        } catch (Exception e) {
+            ErrorHandler.handle(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String render() {
+        StringBuilder sb = new StringBuilder();
+        header(sb, "kanban_http_requests_total", "counter", "Число запросов по эндпоинтам");
+        for (RequestMetrics.Series series : metrics.getSeries()) {
+            sample(sb, "kanban_http_requests_total", labels(series), series.requests.sum());
+        }
+        header(sb, "kanban_http_errors_total", "counter", "Число ответов со статусом 4xx, 5xx и необработанных запросов");
+        for (RequestMetrics.Series series : metrics.getSeries()) {
+            sample(sb, "kanban_http_errors_total", labels(series), series.errors.sum());
+        }
+        header(sb, "kanban_http_response_bytes_total", "counter", "Байт в телах ответов");
+        for (RequestMetrics.Series series : metrics.getSeries()) {
+            sample(sb, "kanban_http_response_bytes_total", labels(series), series.bytes.sum());
+        }
+        header(sb, "kanban_http_request_duration_seconds", "histogram", "Время обработки запроса");
+        for (RequestMetrics.Series series : metrics.getSeries()) {
+            histogram(sb, "kanban_http_request_duration_seconds", labels(series), series.latency);
+        }
+        header(sb, "kanban_http_request_duration_quantile_seconds", "gauge",
+                "Процентили времени обработки запроса по гистограмме");
+        for (RequestMetrics.Series series : metrics.getSeries()) {
+            quantiles(sb, "kanban_http_request_duration_quantile_seconds", labels(series), series.latency);
+        }
+        header(sb, "kanban_log_dropped_total", "counter", "Отброшенные записи журнала ошибок");
+        sample(sb, "kanban_log_dropped_total", "", ErrorHandler.getDroppedLogRecords());
+
+        FlushStatistics statistics = null;
+        if (manager instanceof FileBackedTaskManager) {
+            statistics = ((FileBackedTaskManager) manager).getFlushStatistics();
+        } else if (manager instanceof JournaledTaskManager) {
+            statistics = ((JournaledTaskManager) manager).getCommitStatistics();
+        }
+        if (statistics != null) {
+            header(sb, "kanban_save_duration_seconds", "histogram", "Время записи файла менеджера");
+            histogram(sb, "kanban_save_duration_seconds", "", statistics.getDurations());
+            header(sb, "kanban_save_duration_quantile_seconds", "gauge", "Процентили времени записи файла");
+            quantiles(sb, "kanban_save_duration_quantile_seconds", "", statistics.getDurations());
+            header(sb, "kanban_save_failures_total", "counter", "Неудачные записи файла");
+            sample(sb, "kanban_save_failures_total", "", statistics.getFailures());
+            header(sb, "kanban_save_changes_total", "counter", "Изменений менеджера, сохраненных в файл");
+            sample(sb, "kanban_save_changes_total", "", statistics.getSavedChanges());
+            header(sb, "kanban_save_file_bytes", "gauge", "Размер последнего записанного файла");
+            sample(sb, "kanban_save_file_bytes", "", statistics.getLastBytes());
+        }
+        return sb.toString();
+    }
+
+    private static String labels(RequestMetrics.Series series) {
+        return "context=\"" + series.context + "\",endpoint=\"" + series.endpoint + "\"";
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(String.format(Locale.ROOT, "%.6f", value)).append('\n');
+    }
+
+    // корзины гистограммы накопительно (le - верхняя граница в секундах), сумма и число значений
+    private static void histogram(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long[] bounds = LatencyHistogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i];
+            sample(sb, name + "_bucket", prefix + "le=\"" + seconds(bounds[i]) + "\"", cumulative);
+        }
+        cumulative += counts[bounds.length];
+        sample(sb, name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+        sample(sb, name + "_sum", labels, histogram.getTotalNanos() / 1e9);
+        sample(sb, name + "_count", labels, cumulative);
+    }
+
+    private static void quantiles(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : QUANTILES) {
+            sample(sb, name, prefix + "quantile=\"" + quantile + "\"", histogram.getQuantileNanos(quantile) / 1e9);
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9).replaceAll("0+$", "").replaceAll("\\.$", ".0");
+    }
+}
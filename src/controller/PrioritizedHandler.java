@@ -2,7 +2,11 @@ package controller;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import exception.NotFoundException;
+import exception.ParsingException;
+import service.TaskCollection;
 import service.TaskManager;
+import service.TaskQuery;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -17,10 +21,27 @@ public class PrioritizedHandler extends CommonHandler implements HttpHandler {
         try {
             Endpoint endpoint = getEndpoint(exchange);
             if (Objects.requireNonNull(endpoint) == Endpoint.GET_PRIORITIZED_TASKS) {
-                sendGetResponse(exchange, getGson().toJson(manager.getPrioritizedTasks()), 200);
+                try {
+                    // /prioritized?from=..&to=..&limit=..&after=.. - страница временного окна по времени начала,
+                    // курсор after - id последней задачи предыдущей страницы (поле next ответа)
+                    TaskQuery query = getTaskQuery(exchange);
+                    if (query == null) {    // весь список - потоком
+                        sendVersionedResponse(exchange, TaskCollection.PRIORITIZED,
+                                arrayBody(manager::forEachPrioritized));
+                    } else {
+                        // страница читается после версии коллекции, но до заголовков ответа:
+                        // устаревший курсор - ошибка 404, а не обрыв ответа
+                        sendVersionedResponse(exchange, TaskCollection.PRIORITIZED,
+                                preparedBody(() -> manager.getPrioritizedPage(query)));
+                    }
+                } catch (ParsingException e) {    // неверные параметры страницы
+                    ErrorHandler.handle(exchange, e);
+                } catch (NotFoundException e) {    // задачи курсора уже нет среди приоритетных
+                    ErrorHandler.handle(exchange, e);
+                }
             } else {
-                sendGetResponse(exchange, getGson().toJson("Страница по пути: " +
-                        exchange.getRequestURI().toString() + " не найдена!"), 404);
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
             }
         } catch (Exception e) {
             ErrorHandler.handle(exchange, e);
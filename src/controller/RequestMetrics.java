@@ -0,0 +1,49 @@
+package controller;
+
+import service.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики запросов сервера по эндпоинтам: число запросов и ошибок (статус 4xx/5xx или исключение),
+// гистограмма времени обработки и число байт тела ответов.
+// Метки ряда - контекст сервера (/tasks, /batch...) и значение CommonHandler.Endpoint: у POST эндпоинт один
+// на все контексты. Счетчики без блокировок (LongAdder, LatencyHistogram), ряд создается один раз
+// при первом запросе, дальше запись - только чтение ConcurrentHashMap и атомарные сложения
+public class RequestMetrics {
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    void record(String context, CommonHandler.Endpoint endpoint, int status, long nanos, long bytes) {
+        String key = context + " " + endpoint;
+        Series target = series.get(key);
+        if (target == null) {
+            target = series.computeIfAbsent(key, k -> new Series(context, endpoint));
+        }
+        target.requests.increment();
+        if (status >= 400 || status < 0) {    // -1 - ответ так и не отправлен
+            target.errors.increment();
+        }
+        target.bytes.add(bytes);
+        target.latency.record(nanos);
+    }
+
+    Iterable<Series> getSeries() {
+        return series.values();
+    }
+
+    static class Series {
+        final String context;
+        final CommonHandler.Endpoint endpoint;
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        Series(String context, CommonHandler.Endpoint endpoint) {
+            this.context = context;
+            this.endpoint = endpoint;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package controller;
+
+import service.TaskManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Кэш сериализованных ответов на GET списков. Ключ - путь с параметрами запроса (и вариант форматирования),
+// запись действительна, пока не изменилась версия коллекции в менеджере: по той же версии клиенту
+// отдаются готовые байты без обхода задач и без Gson.
+// Кэш ограничен по числу записей и по суммарному размеру, большие ответы не кэшируются - они отдаются потоком.
+// Эпоха меняется вместе с менеджером (и при перезапуске сервера), поэтому ETag прежнего менеджера с той же
+// версией не совпадет с новым.
+class ResponseCache {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final int MAX_ENTRY_BYTES = 1024 * 1024;
+    private static final long MAX_TOTAL_BYTES = 8L * 1024 * 1024;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private TaskManager owner;
+    private String epoch;
+    private long totalBytes;
+
+    // ETag ответа по ключу и версии коллекции (в кавычках, как требует заголовок)
+    synchronized String etag(TaskManager manager, String key, long version) {
+        checkOwner(manager);
+        return "\"" + epoch + "-" + version + "-" + Integer.toHexString(key.hashCode()) + "\"";
+    }
+
+    // сохраненный ответ той же версии либо null
+    synchronized byte[] get(TaskManager manager, String key, long version) {
+        checkOwner(manager);
+        Entry entry = entries.get(key);
+        return entry != null && entry.version == version ? entry.body : null;
+    }
+
+    synchronized void put(TaskManager manager, String key, long version, byte[] body) {
+        checkOwner(manager);
+        Entry previous = entries.put(key, new Entry(version, body));
+        if (previous != null) {
+            totalBytes -= previous.body.length;
+        }
+        totalBytes += body.length;
+        // вытесняются записи, которые дольше всех не читали
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > MAX_ENTRIES || totalBytes > MAX_TOTAL_BYTES) && iterator.hasNext()) {
+            totalBytes -= iterator.next().body.length;
+            iterator.remove();
+        }
+    }
+
+    // поток ответа, который по пути сохраняет копию тела, пока она не больше MAX_ENTRY_BYTES
+    static Recorder record(OutputStream out) {
+        return new Recorder(out);
+    }
+
+    private void checkOwner(TaskManager manager) {
+        if (owner != manager) {
+            owner = manager;
+            epoch = Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 16);
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+
+    private static class Entry {
+        final long version;
+        final byte[] body;
+
+        Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
+    static class Recorder extends FilterOutputStream {
+
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private Recorder(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (keep(1)) {
+                copy.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);    // без побайтовой записи FilterOutputStream
+            if (keep(len)) {
+                copy.write(b, off, len);
+            }
+        }
+
+        // тело ответа целиком либо null, если оно оказалось больше предела
+        byte[] toByteArray() {
+            return copy == null ? null : copy.toByteArray();
+        }
+
+        private boolean keep(int len) {
+            if (copy != null && copy.size() + len > MAX_ENTRY_BYTES) {
+                copy = null;
+            }
+            return copy != null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package controller;
+
+import controller.CommonHandler.Endpoint;
+
+import java.util.Arrays;
+
+// Маршрутизатор запросов: таблица маршрутов (метод + шаблон пути вида /epics/{id}/subtasks -> эндпоинт)
+// один раз при старте собирается в дерево сегментов пути.
+// Запрос сопоставляется за один проход по символам пути - без split, регулярных выражений и создания объектов:
+// результат упакован в long (эндпоинт и id из пути), id разбирается сразу в int.
+// Литеральный сегмент имеет приоритет перед {id}; id - только цифры в пределах int, иначе маршрут не найден.
+// Один завершающий "/" не учитывается (/tasks/ - то же, что /tasks)
+class Router {
+
+    private static final String ID_PARAM = "{id}";
+    private static final String[] METHODS = {"GET", "POST", "DELETE", "PUT", "PATCH"};
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();    // values() каждый раз копирует массив
+    static final long NOT_FOUND = pack(Endpoint.UNKNOWN, 0);
+
+    private final Node root = new Node();
+
+    // добавление маршрута в таблицу (только при сборке, до обработки запросов)
+    Router route(String method, String template, Endpoint endpoint) {
+        int methodIndex = methodIndex(method);
+        if (methodIndex < 0) {
+            throw new IllegalArgumentException("Неподдерживаемый метод маршрута: " + method);
+        }
+        if (template.isEmpty() || template.charAt(0) != '/') {
+            throw new IllegalArgumentException("Шаблон маршрута должен начинаться с /: " + template);
+        }
+        Node node = root;
+        boolean hasId = false;
+        for (String segment : template.substring(1).split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals(ID_PARAM)) {
+                if (hasId) {
+                    throw new IllegalArgumentException("В шаблоне маршрута больше одного {id}: " + template);
+                }
+                hasId = true;
+                if (node.param == null) {
+                    node.param = new Node();
+                }
+                node = node.param;
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.endpoints[methodIndex] != null) {
+            throw new IllegalArgumentException("Маршрут " + method + " " + template + " уже задан");
+        }
+        node.endpoints[methodIndex] = endpoint;
+        return this;
+    }
+
+    // сопоставление метода и пути запроса; если маршрута нет - NOT_FOUND (эндпоинт UNKNOWN)
+    long match(String method, String path) {
+        int methodIndex = methodIndex(method);
+        if (methodIndex < 0 || path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return NOT_FOUND;
+        }
+        int end = path.length();
+        if (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        Node node = root;
+        int id = 0;
+        int start = 1;
+        while (start < end) {
+            int slash = path.indexOf('/', start);
+            int segmentEnd = slash < 0 || slash > end ? end : slash;
+            Node next = node.findLiteral(path, start, segmentEnd);
+            if (next == null) {
+                if (node.param == null) {
+                    return NOT_FOUND;
+                }
+                id = parseId(path, start, segmentEnd);
+                if (id < 0) {
+                    return NOT_FOUND;
+                }
+                next = node.param;
+            }
+            node = next;
+            start = segmentEnd + 1;
+        }
+        Endpoint endpoint = node.endpoints[methodIndex];
+        return endpoint == null ? NOT_FOUND : pack(endpoint, id);
+    }
+
+    static Endpoint endpoint(long route) {
+        return ENDPOINTS[(int) (route >>> 32)];
+    }
+
+    // id из шаблона {id}; у маршрутов без id - 0
+    static int id(long route) {
+        return (int) route;
+    }
+
+    private static long pack(Endpoint endpoint, int id) {
+        return ((long) endpoint.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // строка метода сравнивается с константами без выделения памяти (hashCode строки кэшируется)
+    private static int methodIndex(String method) {
+        switch (method) {
+            case "GET":
+                return 0;
+            case "POST":
+                return 1;
+            case "DELETE":
+                return 2;
+            case "PUT":
+                return 3;
+            case "PATCH":
+                return 4;
+            default:
+                return -1;
+        }
+    }
+
+    // неотрицательный int из цифр сегмента [start, end), иначе -1
+    private static int parseId(String path, int start, int end) {
+        if (start == end || end - start > 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    // узел дерева: литеральные сегменты-потомки, потомок {id} и эндпоинты по методам для пути, оканчивающегося здесь
+    private static class Node {
+
+        private String[] literals = new String[0];
+        private Node[] children = new Node[0];
+        private Node param;
+        private final Endpoint[] endpoints = new Endpoint[METHODS.length];
+
+        private Node literalChild(String segment) {
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) {
+                    return children[i];
+                }
+            }
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            literals[literals.length - 1] = segment;
+            children[children.length - 1] = new Node();
+            return children[children.length - 1];
+        }
+
+        private Node findLiteral(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < literals.length; i++) {
+                String literal = literals[i];
+                if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+}
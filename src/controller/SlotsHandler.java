@@ -0,0 +1,65 @@
+package controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exception.ParsingException;
+import exception.ValidationException;
+import model.TimeSlot;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// GET /slots?duration=30&after=01.02.2024 09:00&before=01.02.2024 18:00&limit=5 - самые ранние свободные
+// промежутки расписания, куда помещается задача длительностью duration минут: клиент берет startTime
+// из ответа вместо подбора времени повторными POST. after по умолчанию - текущее время, before - не ограничен.
+// Один запрос проходит не больше 10 000 занятых интервалов расписания: если промежутков в ответе меньше limit,
+// следующий поиск начинают с окончания последнего из них; если за этот предел не найдено ни одного - 406
+// с временем в сообщении, с которого нужно продолжить (after)
+public class SlotsHandler extends CommonHandler implements HttpHandler {
+
+    static final int DEFAULT_LIMIT = 10;
+
+    public SlotsHandler(TaskManager manager) {
+        CommonHandler.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Endpoint endpoint = getEndpoint(exchange);
+            if (endpoint == Endpoint.GET_SLOTS) {
+                try {
+                    if (getQueryParam(exchange, "duration") == null) {
+                        throw new ParsingException("Не указан параметр duration - длительность задачи в минутах");
+                    }
+                    int duration = getIntQueryParam(exchange, "duration", 0, 1);
+                    int limit = getIntQueryParam(exchange, "limit", DEFAULT_LIMIT, 1);
+                    LocalDateTime after = getTimeQueryParam(exchange, "after");
+                    if (after == null) {
+                        after = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+                    }
+                    LocalDateTime before = getTimeQueryParam(exchange, "before");
+                    if (before != null && !after.isBefore(before)) {
+                        throw new ParsingException("Параметр after должен быть раньше before");
+                    }
+                    List<TimeSlot> slots = manager.findFreeSlots(duration, after, before, limit);
+                    sendGetResponse(exchange, slots, 200);
+                } catch (ParsingException e) {    // неверные параметры поиска
+                    ErrorHandler.handle(exchange, e);
+                } catch (ValidationException e) {    // предел просмотра расписания исчерпан
+                    ErrorHandler.handle(exchange, e);
+                }
+            } else {
+                sendGetResponse(exchange, "Страница по пути: " +
+                        exchange.getRequestURI().toString() + " не найдена!", 404);
+            }
+        } catch (Exception e) {
+            ErrorHandler.handle(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -10,7 +10,9 @@ import model.Subtask;
 import model.Task;
 import model.TaskStatus;
 import model.Type;
+import service.TaskCollection;
 import service.TaskManager;
+import service.TaskQuery;
 
 import java.io.IOException;
 
@@ -24,15 +26,25 @@ public class SubtaskHandler extends CommonHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
-            Endpoint endpoint = getEndpoint(exchange);
-            switch (endpoint) {
+            long route = getRoute(exchange);    // эндпоинт и id из пути - за одно сопоставление
+            switch (Router.endpoint(route)) {
                 case GET_SUBTASKS:    // получаем все подзадачи
-                    sendGetResponse(exchange, getGson().toJson(manager.getSubtaskList()), 200);
+                    try {
+                        TaskQuery query = getTaskQuery(exchange);    // с параметрами страницы - только одна страница
+                        // ETag по версии коллекции: неизмененный список не читается повторно
+                        sendVersionedResponse(exchange, TaskCollection.SUBTASKS, query == null
+                                ? arrayBody(manager::forEachSubtask)    // весь список - потоком
+                                : preparedBody(() -> manager.getSubtasksPage(query)));    // устаревший курсор - 404
+                    } catch (ParsingException e) {    // неверные параметры страницы
+                        ErrorHandler.handle(exchange, e);
+                    } catch (NotFoundException e) {    // задачи курсора окна уже нет среди приоритетных
+                        ErrorHandler.handle(exchange, e);
+                    }
                     break;
                 case GET_SUBTASK_BY_ID:    // получаем подзадачу по id
                     try {
-                        int id = getIdURI(exchange);
-                        sendGetResponse(exchange, getGson().toJson(manager.getSubtask(id)), 200);
+                        int id = Router.id(route);
+                        sendGetResponse(exchange, manager.getSubtask(id), 200);
                     } catch (NotFoundException e) {    // если обратились по id которого не существует
                         ErrorHandler.handle(exchange, e);
                     }
@@ -61,7 +73,7 @@ public class SubtaskHandler extends CommonHandler implements HttpHandler {
                     }
                     break;
                 case DELETE_SUBTASK:
-                    int deleteId = getIdURI(exchange);
+                    int deleteId = Router.id(route);
                     try {
                         manager.removeSubtask(deleteId);
                         sendEmptyResponse(exchange, 200);
@@ -70,8 +82,8 @@ public class SubtaskHandler extends CommonHandler implements HttpHandler {
                     }
                     break;
                 default:
-                    sendGetResponse(exchange, getGson().toJson("Страница по пути: " +
-                            exchange.getRequestURI().toString() + " не найдена!"), 404);
+                    sendGetResponse(exchange, "Страница по пути: " +
+                            exchange.getRequestURI().toString() + " не найдена!", 404);
             }    // при остальных исключениях проваливаемся в общий Exception класса ErrorHandler
         } catch (Exception e) {
             ErrorHandler.handle(exchange, e);
@@ -7,7 +7,9 @@ import exception.NotFoundException;
 import exception.ParsingException;
 import exception.ValidationException;
 import model.Task;
+import service.TaskCollection;
 import service.TaskManager;
+import service.TaskQuery;
 
 import java.io.IOException;
 
@@ -22,15 +24,25 @@ public class TaskHandler extends CommonHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange httpExchange) throws IOException {
         try {
-            Endpoint endpoint = getEndpoint(httpExchange);
-            switch (endpoint) {
+            long route = getRoute(httpExchange);    // эндпоинт и id из пути - за одно сопоставление
+            switch (Router.endpoint(route)) {
                 case GET_TASKS:    // получаем все задачи
-                    sendGetResponse(httpExchange, getGson().toJson(manager.getTasksList()), 200);
+                    try {
+                        TaskQuery query = getTaskQuery(httpExchange);    // с параметрами страницы - только одна страница
+                        // ETag по версии коллекции: неизмененный список не читается повторно
+                        sendVersionedResponse(httpExchange, TaskCollection.TASKS, query == null
+                                ? arrayBody(manager::forEachTask)    // весь список - потоком
+                                : preparedBody(() -> manager.getTasksPage(query)));    // устаревший курсор - 404
+                    } catch (ParsingException e) {    // неверные параметры страницы
+                        ErrorHandler.handle(httpExchange, e);
+                    } catch (NotFoundException e) {    // задачи курсора окна уже нет среди приоритетных
+                        ErrorHandler.handle(httpExchange, e);
+                    }
                     break;
                 case GET_TASK_BY_ID:    // получаем задачу по id
                     try {
-                        int id = getIdURI(httpExchange);
-                        sendGetResponse(httpExchange, getGson().toJson(manager.getTask(id)), 200);
+                        int id = Router.id(route);
+                        sendGetResponse(httpExchange, manager.getTask(id), 200);
                     } catch (NotFoundException e) {    // если обратились по id которого не существует
                         ErrorHandler.handle(httpExchange, e);
                     }
@@ -58,7 +70,7 @@ public class TaskHandler extends CommonHandler implements HttpHandler {
                     }
                     break;
                 case DELETE_TASK:
-                    int deleteId = getIdURI(httpExchange);
+                    int deleteId = Router.id(route);
                     try {
                         manager.removeTask(deleteId);
                         sendEmptyResponse(httpExchange, 200);
@@ -67,8 +79,8 @@ public class TaskHandler extends CommonHandler implements HttpHandler {
                     }
                     break;
                 default:
-                    sendGetResponse(httpExchange, getGson().toJson("Страница по пути: " +
-                            httpExchange.getRequestURI().toString() + " не найдена!"), 404);
+                    sendGetResponse(httpExchange, "Страница по пути: " +
+                            httpExchange.getRequestURI().toString() + " не найдена!", 404);
             }    // при остальных исключениях проваливаемся в общий Exception класса ErrorHandler
         } catch (Exception e) {
             ErrorHandler.handle(httpExchange, e);
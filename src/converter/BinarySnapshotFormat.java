@@ -0,0 +1,293 @@
+package converter;
+
+import model.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Двоичный снимок менеджера задач - альтернатива CSVFormat для быстрого запуска на больших досках.
+// Файл пишется последовательно, а читается через отображение в память (FileChannel.map):
+//   заголовок:  "KNBN", версия формата, число строк в таблице строк, число записей,
+//               число приоритетных задач, число задач в истории, последний выданный id;
+//   таблица строк: наименования и описания без повторов (длина в байтах + UTF-8);
+//   записи задач фиксированной длины RECORD_SIZE: эпики, задачи, подзадачи (в порядке подзадач эпика);
+//   id приоритетных задач по времени начала и id истории от первого просмотра к последнему.
+public class BinarySnapshotFormat {
+
+    public static final int MAGIC = 0x4B4E424E;    // "KNBN"
+    public static final short VERSION = 1;
+
+    // id(4) тип(1) статус(1) флаги(2) наименование(4) описание(4) эпик(4) начало(8) длительность(8)
+    static final int RECORD_SIZE = 36;
+    static final int HEADER_SIZE = 4 + 2 + 2 + 4 * 5;
+
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    // задача осталась только в истории (например, после очистки списка задач)
+    private static final short FLAG_HISTORY_ONLY = 1;
+
+    // коды типов и статусов в файле не зависят от порядка констант в перечислениях
+    private static final Type[] TYPES = {null, Type.TASK, Type.SUBTASK, Type.EPIC};
+    private static final TaskStatus[] STATUSES = {TaskStatus.NEW, TaskStatus.IN_PROGRESS, TaskStatus.DONE};
+
+    // проверка по первым байтам, что файл - двоичный снимок
+    public static boolean isBinarySnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 4) {
+                return false;
+            }
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // дочитываем 4 байта
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    // запись снимка: задачи в maps менеджера, подзадачи - в порядке привязки к эпикам,
+    // historyOnly - задачи, которые есть только в истории
+    public static void write(OutputStream outputStream, Snapshot snapshot) throws IOException {
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<Task> records = snapshot.getRecords();
+        int[] nameIds = new int[records.size()];
+        int[] descriptionIds = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            nameIds[i] = intern(records.get(i).getName(), stringIndex, strings);
+            descriptionIds[i] = intern(records.get(i).getDescription(), stringIndex, strings);
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeInt(strings.size());
+        out.writeInt(records.size());
+        out.writeInt(snapshot.getPrioritizedIds().length);
+        out.writeInt(snapshot.getHistoryIds().length);
+        out.writeInt(snapshot.getLastId());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            Task task = records.get(i);
+            out.writeInt(task.getId());
+            out.writeByte(typeCode(task.getTaskType()));
+            out.writeByte(statusCode(task.getStatus()));
+            out.writeShort(snapshot.isHistoryOnly(i) ? FLAG_HISTORY_ONLY : 0);
+            out.writeInt(nameIds[i]);
+            out.writeInt(descriptionIds[i]);
+            out.writeInt(task.getTaskType() == Type.SUBTASK ? task.getEpicId() : 0);
+            out.writeLong(task.getStartTime() == null ? NO_START_TIME
+                    : task.getStartTime().toEpochSecond(ZoneOffset.UTC) / 60);
+            out.writeLong(task.getDurationToMinutes());
+        }
+        for (int id : snapshot.getPrioritizedIds()) {
+            out.writeInt(id);
+        }
+        for (int id : snapshot.getHistoryIds()) {
+            out.writeInt(id);
+        }
+        out.flush();
+    }
+
+    // чтение снимка через отображение файла в память
+    public static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Снимок больше 2 ГБ не поддерживается: " + file.getFileName());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Файл не является двоичным снимком: " + file.getFileName());
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия снимка " + version + ": " + file.getFileName());
+            }
+            buffer.getShort();
+            int stringCount = buffer.getInt();
+            int recordCount = buffer.getInt();
+            int prioritizedCount = buffer.getInt();
+            int historyCount = buffer.getInt();
+            int lastId = buffer.getInt();
+
+            String[] strings = new String[stringCount];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < stringCount; i++) {
+                int length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+            List<Task> records = new ArrayList<>(recordCount);
+            boolean[] historyOnly = new boolean[recordCount];
+            for (int i = 0; i < recordCount; i++) {
+                int id = buffer.getInt();
+                Type type = TYPES[buffer.get()];
+                TaskStatus status = STATUSES[buffer.get()];
+                historyOnly[i] = (buffer.getShort() & FLAG_HISTORY_ONLY) != 0;
+                String name = string(strings, buffer.getInt());
+                String description = string(strings, buffer.getInt());
+                int epicId = buffer.getInt();
+                long startMinutes = buffer.getLong();
+                long duration = buffer.getLong();
+                Task task;
+                switch (type) {
+                    case SUBTASK:
+                        task = new Subtask(name, description, epicId);
+                        break;
+                    case EPIC:
+                        task = new Epic(name, description);
+                        break;
+                    default:
+                        task = new Task(name, description);
+                }
+                task.setId(id);
+                task.setStatus(status);
+                if (startMinutes != NO_START_TIME) {
+                    task.setStartTime(LocalDateTime.ofEpochSecond(startMinutes * 60, 0, ZoneOffset.UTC));
+                }
+                task.setDurationOfMinutes(duration);
+                records.add(task);
+            }
+            int[] prioritizedIds = readIds(buffer, prioritizedCount);
+            int[] historyIds = readIds(buffer, historyCount);
+            return new Snapshot(records, historyOnly, prioritizedIds, historyIds, lastId);
+        }
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static int[] readIds(MappedByteBuffer buffer, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = buffer.getInt();
+        }
+        return ids;
+    }
+
+    // индекс строки в таблице строк, для null - NO_STRING
+    private static int intern(String value, Map<String, Integer> stringIndex, List<String> strings) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            stringIndex.put(value, index);
+            strings.add(value);
+        }
+        return index;
+    }
+
+    private static int typeCode(Type type) {
+        for (int i = 1; i < TYPES.length; i++) {
+            if (TYPES[i] == type) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Тип задачи не поддерживается в снимке: " + type);
+    }
+
+    private static int statusCode(TaskStatus status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i;
+            }
+        }
+        return 0;    // задача без статуса сохраняется как NEW
+    }
+
+    // состояние менеджера в снимке
+    public static class Snapshot {
+
+        private final List<Task> records;
+        private final boolean[] historyOnly;
+        private final int[] prioritizedIds;
+        private final int[] historyIds;
+        private final int lastId;
+
+        public Snapshot(List<Task> records, boolean[] historyOnly, int[] prioritizedIds, int[] historyIds,
+                        int lastId) {
+            this.records = records;
+            this.historyOnly = historyOnly;
+            this.prioritizedIds = prioritizedIds;
+            this.historyIds = historyIds;
+            this.lastId = lastId;
+        }
+
+        // снимок из коллекций менеджера: задачи из истории, которых нет среди текущих, помечаются отдельно
+        public static Snapshot of(Collection<Epic> epics, Collection<Task> tasks, List<Subtask> subtasks,
+                                  List<Task> historyFromFirst, List<Task> prioritized, int lastId) {
+            List<Task> records = new ArrayList<>(epics.size() + tasks.size() + subtasks.size());
+            records.addAll(epics);
+            records.addAll(tasks);
+            records.addAll(subtasks);
+            Map<Integer, Boolean> present = new HashMap<>(records.size() * 2);
+            for (Task task : records) {
+                present.put(task.getId(), Boolean.TRUE);
+            }
+            int current = records.size();
+            for (Task task : historyFromFirst) {
+                if (!present.containsKey(task.getId())) {
+                    records.add(task);
+                }
+            }
+            boolean[] historyOnly = new boolean[records.size()];
+            for (int i = current; i < records.size(); i++) {
+                historyOnly[i] = true;
+            }
+            return new Snapshot(records, historyOnly, ids(prioritized), ids(historyFromFirst), lastId);
+        }
+
+        private static int[] ids(List<? extends Task> list) {
+            int[] ids = new int[list.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = list.get(i).getId();
+            }
+            return ids;
+        }
+
+        public List<Task> getRecords() {
+            return records;
+        }
+
+        public boolean isHistoryOnly(int index) {
+            return historyOnly[index];
+        }
+
+        public int[] getPrioritizedIds() {
+            return prioritizedIds;
+        }
+
+        public int[] getHistoryIds() {
+            return historyIds;
+        }
+
+        public int getLastId() {
+            return lastId;
+        }
+    }
+}
@@ -11,43 +11,153 @@ import java.util.List;
 public class CSVFormat {
 
     // Получение задачи (подзадачи, эпика) из строки
+    // поля выделяются по позициям запятых - без регулярных выражений и промежуточного массива строк
     public static Task taskFromString(String value, Type type) {
-        String[] parts = value.split(",");
-        int id = Integer.parseInt(parts[0]);
-        TaskStatus status = TaskStatus.valueOf(parts[3]);
-        LocalDateTime startTime;
-        if (parts[6].equals("null")) {
-            startTime = null;
-        } else {
-            startTime = LocalDateTime.parse(parts[6], TimeAdapter.DATE_TIME_FORMAT_1);
+        int idEnd = nextComma(value, 0);
+        int typeEnd = nextComma(value, idEnd + 1);
+        int nameEnd = nextComma(value, typeEnd + 1);
+        int statusEnd = nextComma(value, nameEnd + 1);
+        int descriptionEnd = nextComma(value, statusEnd + 1);
+        int epicEnd = nextComma(value, descriptionEnd + 1);
+        int startTimeEnd = nextComma(value, epicEnd + 1);
+        int durationEnd = value.indexOf(',', startTimeEnd + 1);
+        if (durationEnd < 0) {
+            durationEnd = value.length();
         }
-        long duration = Integer.parseInt(parts[7]);
+        int id = Integer.parseInt(value, 0, idEnd, 10);
+        String name = value.substring(typeEnd + 1, nameEnd);
+        TaskStatus status = statusFromString(value, nameEnd + 1, statusEnd);
+        String description = value.substring(statusEnd + 1, descriptionEnd);
+        LocalDateTime startTime = dateTimeFromString(value, epicEnd + 1, startTimeEnd);
+        long duration = Long.parseLong(value, startTimeEnd + 1, durationEnd, 10);
+        Task task;
         switch (type) {
             case TASK:
-                Task task = new Task(parts[2], parts[4]);
-                task.setId(id);
-                task.setStatus(status);
-                task.setStartTime(startTime);
-                task.setDurationOfMinutes(duration);
-                return task;
+                task = new Task(name, description);
+                break;
             case EPIC:
-                Epic epic = new Epic(parts[2], parts[4]);
-                epic.setId(id);
-                epic.setStatus(status);
-                epic.setStartTime(startTime);
-                epic.setDurationOfMinutes(duration);
-                return epic;
+                task = new Epic(name, description);
+                break;
             case SUBTASK:
-                int epicId = Integer.parseInt(parts[5]);
-                Subtask subtask = new Subtask(parts[2], parts[4], epicId);
-                subtask.setId(id);
-                subtask.setStatus(status);
-                subtask.setStartTime(startTime);
-                subtask.setDurationOfMinutes(duration);
-                return subtask;
+                int epicId = Integer.parseInt(value, descriptionEnd + 1, epicEnd, 10);
+                task = new Subtask(name, description, epicId);
+                break;
             default:
                 return null;
         }
+        task.setId(id);
+        task.setStatus(status);
+        task.setStartTime(startTime);
+        task.setDurationOfMinutes(duration);
+        return task;
+    }
+
+    // Получение задачи (подзадачи, эпика) из текущей строки CsvLineReader без промежуточной строки файла,
+    // null - если тип в строке не задача, подзадача или эпик
+    public static Task taskFromLine(CsvLineReader line) {
+        if (line.getFieldCount() < 8) {
+            throw new IllegalArgumentException("В строке не хватает полей: " + line.getLine());
+        }
+        Task task;
+        if (line.fieldEquals(1, Type.TASK.name())) {
+            task = new Task(line.getString(2), line.getString(4));
+        } else if (line.fieldEquals(1, Type.SUBTASK.name())) {
+            task = new Subtask(line.getString(2), line.getString(4), line.getInt(5));
+        } else if (line.fieldEquals(1, Type.EPIC.name())) {
+            task = new Epic(line.getString(2), line.getString(4));
+        } else {
+            Type.valueOf(line.getString(1));    // неизвестный тип - исключение, известный, но не задача - null
+            return null;
+        }
+        task.setId(line.getInt(0));
+        task.setStatus(statusFromLine(line));
+        task.setStartTime(line.getDateTime(6));
+        task.setDurationOfMinutes(line.getLong(7));
+        return task;
+    }
+
+    // Получение обратной последовательности вызова истории из строки HISTORY в CsvLineReader
+    public static List<Integer> historyFromLine(CsvLineReader line) {
+        List<Integer> numbersHistory = new ArrayList<>(line.getFieldCount());
+        for (int i = line.getFieldCount() - 1; i >= 1; i--) {    // первое поле - "HISTORY"
+            numbersHistory.add(line.getInt(i));
+        }
+        return numbersHistory;
+    }
+
+    private static TaskStatus statusFromLine(CsvLineReader line) {
+        for (TaskStatus status : TaskStatus.values()) {
+            if (line.fieldEquals(3, status.name())) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный статус задачи: " + line.getString(3));
+    }
+
+    // тип задачи из второго поля строки
+    public static Type typeFromString(String value) {
+        int typeBegin = nextComma(value, 0) + 1;
+        int typeEnd = nextComma(value, typeBegin);
+        for (Type type : Type.values()) {
+            String name = type.name();
+            if (name.length() == typeEnd - typeBegin && value.startsWith(name, typeBegin)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип задачи: " + value.substring(typeBegin, typeEnd));
+    }
+
+    // совпадает ли первое поле строки с field (заголовок "id" или строка "HISTORY")
+    public static boolean firstFieldEquals(String value, String field) {
+        return value.startsWith(field) && (value.length() == field.length() || value.charAt(field.length()) == ',');
+    }
+
+    private static int nextComma(String value, int from) {
+        int comma = value.indexOf(',', from);
+        if (comma < 0) {
+            throw new IllegalArgumentException("В строке не хватает полей: " + value);
+        }
+        return comma;
+    }
+
+    private static TaskStatus statusFromString(String value, int begin, int end) {
+        for (TaskStatus status : TaskStatus.values()) {
+            String name = status.name();
+            if (name.length() == end - begin && value.startsWith(name, begin)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный статус задачи: " + value.substring(begin, end));
+    }
+
+    // разбор времени в формате dd.MM.yyyy HH:mm по позициям символов, без DateTimeFormatter
+    private static LocalDateTime dateTimeFromString(String value, int begin, int end) {
+        if (end - begin == 4 && value.startsWith("null", begin)) {
+            return null;
+        }
+        if (end - begin != 16 || value.charAt(begin + 2) != '.' || value.charAt(begin + 5) != '.'
+                || value.charAt(begin + 10) != ' ' || value.charAt(begin + 13) != ':') {
+            // нестандартная запись - разбираем форматтером, он же сообщит об ошибке
+            return LocalDateTime.parse(value.substring(begin, end), TimeAdapter.DATE_TIME_FORMAT_1);
+        }
+        return LocalDateTime.of(
+                digits(value, begin + 6, 4),
+                digits(value, begin + 3, 2),
+                digits(value, begin, 2),
+                digits(value, begin + 11, 2),
+                digits(value, begin + 14, 2));
+    }
+
+    private static int digits(String value, int begin, int count) {
+        int result = 0;
+        for (int i = begin; i < begin + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Неверный формат времени: " + value);
+            }
+            result = result * 10 + digit;
+        }
+        return result;
     }
 
     // Сохранение задачи в строку
@@ -67,22 +177,30 @@ public class CSVFormat {
     // Получение обратной последовательности вызова истории
     public static List<Integer> historyFromString(String value) {
         LinkedList<Integer> numbersHistory = new LinkedList<>();
-        String[] parts = value.split(",");
-        for (int i = 1; i < parts.length; i++) {    // начинаем с единицы, чтобы в выборку не попала "ИСТОРИЯ"
+        int begin = value.indexOf(',') + 1;    // пропускаем первое поле, чтобы в выборку не попала "ИСТОРИЯ"
+        while (begin > 0 && begin < value.length()) {
+            int end = value.indexOf(',', begin);
+            if (end < 0) {
+                end = value.length();
+            }
             try {
-                int receivedId = Integer.parseInt(parts[i]);
+                int receivedId = Integer.parseInt(value, begin, end, 10);
                 numbersHistory.addFirst(receivedId);    // добавляем в лист вызов истории в обратном порядке
             } catch (Exception e) {
                 System.out.println(e.getCause() + e.getMessage());
                 break;
             }
+            begin = end + 1;
         }
         return numbersHistory;
     }
 
     // Сохранение менеджера истории в строку, состоящую из последовательности id задач
     public static String historyToString(HistoryManager manager) {
-        ArrayList<Task> history = (ArrayList<Task>) manager.getHistory();
+        return historyToString(manager.getHistory());
+    }
+
+    public static String historyToString(List<Task> history) {
         StringBuilder sb = new StringBuilder();
         sb.append(Type.HISTORY).append(",");
         for (Task task : history) {
@@ -0,0 +1,204 @@
+package converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+// Построчное чтение CSV файла без создания строк на каждую строку файла.
+// Файл читается в байтовый буфер большими блоками, границы полей находятся одним проходом по байтам,
+// а в String декодируются только поля, которые действительно нужны как строки (наименование и описание).
+// Числа и время в формате dd.MM.yyyy HH:mm разбираются прямо из байтов.
+public class CsvLineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;    // начало непрочитанных данных в буфере
+    private int limit;       // конец прочитанных из файла данных
+    private boolean endOfStream;
+
+    // текущая строка: поле i занимает байты [fieldStarts[i], fieldEnds[i])
+    private int lineStart;
+    private int lineEnd;
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    private int fieldCount;
+
+    public CsvLineReader(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+        this.fieldStarts = new int[16];
+        this.fieldEnds = new int[16];
+    }
+
+    // переход к следующей строке, false - строки закончились
+    public boolean next() throws IOException {
+        int scan = position;
+        while (true) {
+            while (scan < limit && buffer[scan] != '\n') {
+                scan++;
+            }
+            if (scan < limit) {
+                break;    // нашли конец строки
+            }
+            if (endOfStream) {
+                if (position == limit) {
+                    return false;
+                }
+                break;    // последняя строка без перевода строки
+            }
+            int shift = position;
+            fill();
+            scan -= shift;
+        }
+        lineStart = position;
+        lineEnd = scan;
+        position = scan < limit ? scan + 1 : scan;
+        if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+            lineEnd--;    // файл мог быть записан с переводом строки Windows
+        }
+        splitFields();
+        return true;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    // строка не содержит ничего, кроме пробельных символов
+    public boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer[i] != ' ' && buffer[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // сравнение поля со строкой из латинских символов (тип, статус, заголовок)
+    public boolean fieldEquals(int field, String value) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getString(int field) {
+        return new String(buffer, fieldStarts[field], fieldEnds[field] - fieldStarts[field], StandardCharsets.UTF_8);
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Число вне диапазона int: " + getString(field));
+        }
+        return (int) value;
+    }
+
+    public long getLong(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            throw new NumberFormatException("Неверное число: " + getString(field));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Неверное число: " + getString(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // время в формате dd.MM.yyyy HH:mm или null, если в поле записано "null"
+    public LocalDateTime getDateTime(int field) {
+        if (fieldEquals(field, "null")) {
+            return null;
+        }
+        int s = fieldStarts[field];
+        if (fieldEnds[field] - s != 16 || buffer[s + 2] != '.' || buffer[s + 5] != '.'
+                || buffer[s + 10] != ' ' || buffer[s + 13] != ':') {
+            // нестандартная запись - разбираем форматтером, он же сообщит об ошибке
+            return LocalDateTime.parse(getString(field), TimeAdapter.DATE_TIME_FORMAT_1);
+        }
+        return LocalDateTime.of(digits(s + 6, 4), digits(s + 3, 2), digits(s, 2),
+                digits(s + 11, 2), digits(s + 14, 2));
+    }
+
+    // текущая строка целиком (для сообщений об ошибках)
+    public String getLine() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Неверный формат времени: " + getLine());
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void splitFields() {
+        fieldCount = 0;
+        int start = lineStart;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer[i] == ',') {
+                addField(start, i);
+                start = i + 1;
+            }
+        }
+        addField(start, lineEnd);
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    // сдвигаем непрочитанный остаток в начало буфера (при длинной строке - увеличиваем буфер) и дочитываем файл
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package converter;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.Type;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Построчный JSON (NDJSON) для переноса доски между окружениями: одна строка - одна задача, подзадача или эпик
+// с теми же полями, что и строка CSV (CSVFormat):
+// {"type":"SUBTASK","id":5,"name":"...","status":"NEW","description":"...","epicId":3,
+//  "startTime":"01.02.2024 10:00","duration":30}
+// История - последней строкой, начиная с самого свежего просмотра: {"type":"HISTORY","ids":[7,5,3]}.
+// В строку истории попадают только выгруженные задачи: просмотры задач, которых в менеджере уже нет
+// (подзадачи удаленного эпика, очищенные задачи), не переносятся - создать такие задачи при загрузке нельзя
+// Эпики выгружаются раньше подзадач, поэтому при загрузке (NdjsonImporter) epicId разрешаются за один проход.
+public class NdjsonFormat {
+
+    // выгрузка менеджера потоком: строки пишутся по одной при обходе коллекций, без списков и общей строки
+    public static void export(TaskManager manager, Writer out) throws IOException {
+        BitSet exported = new BitSet();    // id выгруженных строк - для отбора просмотров истории
+        try {
+            manager.forEachEpic(epic -> writeLine(out, epic, exported));
+            manager.forEachTask(task -> writeLine(out, task, exported));
+            manager.forEachSubtask(subtask -> writeLine(out, subtask, exported));
+        } catch (UncheckedIOException e) {    // ошибка записи в поток (например, клиент отключился)
+            throw e.getCause();
+        }
+        List<Task> history = manager.getHistoryManager().getHistory();
+        List<Task> exportedHistory = new ArrayList<>(history.size());
+        for (Task task : history) {
+            if (exported.get(task.getId())) {
+                exportedHistory.add(task);
+            }
+        }
+        writeHistory(out, exportedHistory);
+    }
+
+    // строка задачи (подзадачи, эпика) вместе с переводом строки
+    public static void writeTask(Writer out, Task task) throws IOException {
+        JsonWriter writer = new JsonWriter(out);    // JsonWriter не буферизует - пишет сразу в out
+        writer.beginObject();
+        writer.name("type").value(task.getTaskType().name());
+        writer.name("id").value(task.getId());
+        writer.name("name").value(task.getName());
+        writer.name("status").value(task.getStatus().name());
+        writer.name("description").value(task.getDescription());
+        if (task.getTaskType() == Type.SUBTASK) {
+            writer.name("epicId").value(task.getEpicId());
+        }
+        if (task.getTaskType() != Type.EPIC) {    // время эпика считается по подзадачам
+            writer.name("startTime");
+            if (task.getStartTime() == null) {
+                writer.nullValue();
+            } else {
+                writer.value(task.getStartTime().format(TimeAdapter.DATE_TIME_FORMAT_1));
+            }
+            writer.name("duration").value(task.getDurationToMinutes());
+        }
+        writer.endObject();
+        out.write('\n');
+    }
+
+    public static void writeHistory(Writer out, List<Task> history) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        writer.name("type").value(Type.HISTORY.name());
+        writer.name("ids").beginArray();
+        for (Task task : history) {
+            writer.value(task.getId());
+        }
+        writer.endArray();
+        writer.endObject();
+        out.write('\n');
+    }
+
+    // тип объекта строки
+    public static Type typeFromJson(JsonObject object) {
+        String type = getString(object, "type");
+        try {
+            return Type.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    // задача (подзадача, эпик) из строки с id и epicId исходного менеджера
+    public static Task taskFromJson(JsonObject object, Type type) {
+        String name = getString(object, "name");
+        String description = getString(object, "description");
+        Task task;
+        switch (type) {
+            case TASK:
+                task = new Task(name, description);
+                break;
+            case SUBTASK:
+                task = new Subtask(name, description, getInt(object, "epicId"));
+                break;
+            case EPIC:
+                task = new Epic(name, description);
+                break;
+            default:
+                throw new IllegalArgumentException("Строка типа " + type + " не задача");
+        }
+        task.setId(getInt(object, "id"));
+        if (object.has("status")) {
+            String status = getString(object, "status");
+            try {
+                task.setStatus(TaskStatus.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный статус задачи: " + status);
+            }
+        }
+        if (type != Type.EPIC) {
+            task.setStartTime(getTime(object, "startTime"));
+            task.setDurationOfMinutes(object.has("duration") ? getLong(object, "duration") : 0);
+        }
+        return task;
+    }
+
+    // id истории из строки HISTORY, начиная с самого свежего просмотра
+    public static int[] historyFromJson(JsonObject object) {
+        JsonElement element = object.get("ids");
+        if (element == null || !element.isJsonArray()) {
+            throw new IllegalArgumentException("В строке истории нет массива ids");
+        }
+        JsonArray array = element.getAsJsonArray();
+        int[] ids = new int[array.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = toInt(array.get(i), "ids");
+        }
+        return ids;
+    }
+
+    private static void writeLine(Writer out, Task task, BitSet exported) {
+        try {
+            writeTask(out, task);
+            exported.set(task.getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String getString(JsonObject object, String field) {
+        JsonElement element = object.get(field);
+        if (element == null || !element.isJsonPrimitive()) {
+            throw new IllegalArgumentException("Не указано поле " + field);
+        }
+        return element.getAsString();
+    }
+
+    private static int getInt(JsonObject object, String field) {
+        return toInt(object.get(field), field);
+    }
+
+    private static long getLong(JsonObject object, String field) {
+        JsonElement element = object.get(field);
+        if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть числом");
+        }
+        return element.getAsLong();
+    }
+
+    private static int toInt(JsonElement element, String field) {
+        if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть целым числом");
+        }
+        return element.getAsInt();
+    }
+
+    // время как в CSV и в теле задачи: dd.MM.yyyy HH:mm, отсутствие - null (или строка "null")
+    private static LocalDateTime getTime(JsonObject object, String field) {
+        JsonElement element = object.get(field);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        String value = getString(object, field);
+        if (value.equals("null")) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, TimeAdapter.DATE_TIME_FORMAT_1);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Неверный формат даты: " + value + " необходим dd.MM.yyyy HH:mm");
+        }
+    }
+}
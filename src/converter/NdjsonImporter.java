@@ -0,0 +1,254 @@
+package converter;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import exception.ManagerSaveException;
+import exception.ParsingException;
+import exception.ValidationException;
+import model.Task;
+import model.Type;
+import service.IntHashMap;
+import service.TaskBatch;
+import service.TaskManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Загрузка NDJSON (NdjsonFormat) в менеджер: строки читаются по одной и копятся в пакет изменений (TaskBatch),
+// который применяется каждые batchSize строк - в памяти не больше одного пакета, а каждая задача проходит
+// обычные проверки менеджера, включая пересечение по времени с приоритетными задачами.
+// Задачи получают новые id менеджера, старые id запоминаются, чтобы перевести epicId подзадач и историю.
+// Подзадача должна идти в файле после своего эпика (так пишет NdjsonFormat.export).
+// Пакеты, примененные до ошибки, остаются в менеджере - сколько строк загружено, видно по прогрессу.
+// id строки истории проверяются сразу при её чтении, а сама история применяется одним пакетом просмотров
+// (файловый менеджер сохраняет его одной записью, а не после каждого просмотра)
+public class NdjsonImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final Integer PENDING = 0;    // id еще не выдан: задача в неприменённом пакете
+
+    private final TaskManager manager;
+    private final int batchSize;
+    // старый id -> новый id менеджера
+    private final IntHashMap<Integer> taskIds;
+    private final IntHashMap<Integer> subtaskIds;
+    private final IntHashMap<Integer> epicIds;
+    private final List<Integer> batchOldIds;
+    private final Progress progress;
+    private TaskBatch batch;
+    private int batchFirstLine;
+    private int[] history;
+    private Listener listener;
+
+    // вызывается после каждого примененного пакета
+    public interface Listener {
+        void onProgress(Progress progress) throws IOException;
+    }
+
+    public NdjsonImporter(TaskManager manager) {
+        this(manager, DEFAULT_BATCH_SIZE);
+    }
+
+    public NdjsonImporter(TaskManager manager, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета должен быть больше нуля: " + batchSize);
+        }
+        this.manager = manager;
+        this.batchSize = batchSize;
+        this.taskIds = new IntHashMap<>();
+        this.subtaskIds = new IntHashMap<>();
+        this.epicIds = new IntHashMap<>();
+        this.batchOldIds = new ArrayList<>();
+        this.progress = new Progress();
+        this.batch = new TaskBatch();
+    }
+
+    public Progress readFrom(Reader reader, Listener listener) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.listener = listener;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            progress.lines++;
+            if (line.isBlank()) {
+                continue;
+            }
+            accept(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+        flush();
+        restoreHistory();
+        progress.done = true;
+        return progress;
+    }
+
+    private void accept(String line) throws IOException {
+        try {
+            JsonElement element = JsonParser.parseString(line);
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("строка не JSON объект");
+            }
+            JsonObject object = element.getAsJsonObject();
+            Type type = NdjsonFormat.typeFromJson(object);
+            if (type == Type.HISTORY) {
+                history = NdjsonFormat.historyFromJson(object);
+                for (int oldId : history) {
+                    if (!taskIds.containsKey(oldId) && !subtaskIds.containsKey(oldId) && !epicIds.containsKey(oldId)) {
+                        throw new IllegalArgumentException("в истории указан id=" + oldId
+                                + ", которого нет выше по файлу");
+                    }
+                }
+                return;
+            }
+            Task task = NdjsonFormat.taskFromJson(object, type);
+            int oldId = task.getId();
+            if (taskIds.containsKey(oldId) || subtaskIds.containsKey(oldId) || epicIds.containsKey(oldId)) {
+                throw new IllegalArgumentException("id=" + oldId + " уже встречался в файле");
+            }
+            task.setId(0);    // новый id выдаст менеджер (сбрасывается раньше epicId - они не должны совпадать)
+            if (type == Type.SUBTASK) {
+                task.setEpicId(resolveEpic(task.getEpicId()));
+            }
+            if (batch.isEmpty()) {
+                batchFirstLine = progress.lines;
+            }
+            batch.create(task);
+            batchOldIds.add(oldId);
+            idsOf(type).put(oldId, PENDING);
+        } catch (JsonParseException | IllegalArgumentException e) {
+            throw new ParsingException("Строка " + progress.lines + ": " + e.getMessage());
+        }
+    }
+
+    // новый id эпика подзадачи: если эпик еще в пакете - пакет применяется, чтобы эпик получил id
+    private int resolveEpic(int oldEpicId) throws IOException {
+        Integer epicId = epicIds.get(oldEpicId);
+        if (PENDING.equals(epicId)) {
+            flush();
+            epicId = epicIds.get(oldEpicId);
+        }
+        if (epicId == null) {
+            throw new IllegalArgumentException("эпик с id=" + oldEpicId + " не найден выше по файлу");
+        }
+        return epicId;
+    }
+
+    private void flush() throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Integer> ids;
+        try {
+            ids = manager.applyBatch(batch);
+        } catch (ValidationException e) {
+            throw new ValidationException(linesPrefix() + e.getMessage());
+        } catch (ManagerSaveException e) {
+            if (e.getCause() != null) {
+                throw new ManagerSaveException(linesPrefix() + e.getMessage(), e.getCause());
+            }
+            throw new ManagerSaveException(linesPrefix() + e.getMessage());
+        }
+        List<TaskBatch.Operation> operations = batch.getOperations();
+        for (int i = 0; i < ids.size(); i++) {
+            Type type = operations.get(i).getType();
+            idsOf(type).put(batchOldIds.get(i).intValue(), ids.get(i));
+            switch (type) {
+                case SUBTASK:
+                    progress.subtasks++;
+                    break;
+                case EPIC:
+                    progress.epics++;
+                    break;
+                default:
+                    progress.tasks++;
+            }
+        }
+        progress.batches++;
+        batch = new TaskBatch();
+        batchOldIds.clear();
+        listener.onProgress(progress);
+    }
+
+    // просмотры повторяются от самого старого к самому свежему, так что порядок истории сохраняется;
+    // все id уже проверены при чтении строки истории, а задачи к этому моменту созданы
+    private void restoreHistory() {
+        if (history == null || history.length == 0) {
+            return;
+        }
+        TaskBatch views = new TaskBatch();
+        for (int i = history.length - 1; i >= 0; i--) {
+            int oldId = history[i];
+            if (taskIds.containsKey(oldId)) {
+                views.view(Type.TASK, taskIds.get(oldId));
+            } else if (subtaskIds.containsKey(oldId)) {
+                views.view(Type.SUBTASK, subtaskIds.get(oldId));
+            } else {
+                views.view(Type.EPIC, epicIds.get(oldId));
+            }
+        }
+        manager.applyBatch(views);
+        progress.history += views.size();
+    }
+
+    private IntHashMap<Integer> idsOf(Type type) {
+        switch (type) {
+            case SUBTASK:
+                return subtaskIds;
+            case EPIC:
+                return epicIds;
+            default:
+                return taskIds;
+        }
+    }
+
+    private String linesPrefix() {
+        return "Строки " + batchFirstLine + "-" + progress.lines + ": ";
+    }
+
+    // сколько загружено: прочитано строк, создано задач, подзадач и эпиков, восстановлено просмотров истории
+    public static class Progress {
+
+        private int lines;
+        private int tasks;
+        private int subtasks;
+        private int epics;
+        private int history;
+        private int batches;
+        private boolean done;
+
+        public int getLines() {
+            return lines;
+        }
+
+        public int getTasks() {
+            return tasks;
+        }
+
+        public int getSubtasks() {
+            return subtasks;
+        }
+
+        public int getEpics() {
+            return epics;
+        }
+
+        public int getHistory() {
+            return history;
+        }
+
+        public int getBatches() {
+            return batches;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package converter;
+
+import service.FileBackedTaskManager;
+import service.PersistenceConfig;
+
+import java.io.File;
+
+// Перевод файла FileBackedTaskManager между CSV и двоичным снимком.
+// Запуск: java converter.SnapshotConverter <исходный файл> <новый файл> <CSV|BINARY>
+public class SnapshotConverter {
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Использование: SnapshotConverter <исходный файл> <новый файл> <CSV|BINARY>");
+            return;
+        }
+        File source = new File(args[0]);
+        File target = new File(args[1]);
+        PersistenceConfig.StorageFormat format = PersistenceConfig.StorageFormat.valueOf(args[2].toUpperCase());
+        long begin = System.nanoTime();
+        FileBackedTaskManager.convert(source, target, format);
+        System.out.println("Файл " + source.getName() + " записан в формате " + format + " в " + target.getName()
+                + " за " + (System.nanoTime() - begin) / 1_000_000 + " мс");
+    }
+}
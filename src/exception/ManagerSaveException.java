@@ -1,9 +1,11 @@
 package exception;
 
 // IOException
+// без причины - ошибка клиента (задачи для обновления или удаления нет), стек не заполняется;
+// с причиной - сбой записи файла или журнала менеджера, стек сохраняется (HTTP ответ 500, а не 400)
 public class ManagerSaveException extends RuntimeException {
     public ManagerSaveException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public ManagerSaveException(String message, Throwable cause) {
@@ -1,9 +1,11 @@
 package exception;
 
+// ожидаемая ошибка клиента (нет задачи с таким id): стек не заполняется - при переборе несуществующих id
+// исключение создается на каждый запрос, а стек в ответе и журнале не нужен
 public class NotFoundException extends RuntimeException {
 
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public NotFoundException(String message, Throwable cause) {
@@ -2,8 +2,14 @@ package exception;
 
 import java.io.IOException;
 
+// ошибка разбора данных клиента - без стека (у IOException нет конструктора с writableStackTrace)
 public class ParsingException extends IOException {
     public ParsingException(String message) {
         super(message);
     }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
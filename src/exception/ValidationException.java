@@ -1,8 +1,9 @@
 package exception;
 
+// ошибка проверки данных клиента (пересечение по времени и т.п.) - без стека, как NotFoundException
 public class ValidationException extends RuntimeException {
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public ValidationException(String massege, Throwable cause) {
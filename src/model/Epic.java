@@ -3,17 +3,34 @@ package model;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Epic extends Task {
 
+    // показатели по подзадачам для расчета статуса и времени эпика (в JSON и CSV не попадают)
+    private transient EpicStatistics statistics;
+    // позиция каждой подзадачи в списке по её id: замена и удаление подзадачи - без поиска по списку
+    private transient Map<Integer, Integer> positions;
+
 
     public Epic(String name, String description) {
         super(name, description);
         this.subtasks = new ArrayList<>();
         this.taskType = Type.EPIC;
+        this.statistics = new EpicStatistics();
+    }
+
+    // копия эпика со своим списком подзадач - для чтения эпика, пока другие потоки меняют оригинал
+    public Epic(Epic epic) {
+        super(epic.name, epic.description);
+        this.id = epic.id;
+        this.status = epic.status;
+        this.taskType = Type.EPIC;
+        this.epicId = epic.epicId;
+        this.startTime = epic.startTime;
+        this.duration = epic.duration;
+        this.subtasks = epic.subtasks == null ? new ArrayList<>() : new ArrayList<>(epic.subtasks);
     }
 
 
@@ -26,33 +43,75 @@ public class Epic extends Task {
             if (subtask.getId() == this.id) return;    // id эпика и подзадачи должны различаться
         }
         this.subtasks = subtasks;
+        positions = null;
+        calculateTimesEpic();    // список заменен целиком - пересчитываем показатели заново
     }
 
     @Override
     public void setEmptySubtasks() {
         this.subtasks = new ArrayList<>();
+        getPositions().clear();
+        getStatistics().clear();
     }
 
+    // добавление подзадачи в эпик с пересчетом статуса и времени только по этой подзадаче
+    public void addSubtask(Subtask subtask) {
+        getPositions().put(subtask.getId(), subtasks.size());
+        subtasks.add(subtask);
+        getStatistics().put(subtask);
+        applyStatistics();
+    }
+
+    // замена подзадачи её новой версией (с тем же id)
+    public void updateSubtask(Subtask subtask) {
+        int index = positionOf(subtask.getId());
+        if (index == -1) {
+            addSubtask(subtask);
+            return;
+        }
+        subtasks.set(index, subtask);
+        getStatistics().put(subtask);
+        applyStatistics();
+    }
+
+    // на место удаленной подзадачи переносится последняя: порядок подзадач в списке эпика после удаления
+    // может измениться (менеджер хранит id подзадач эпика по возрастанию - см. getListSubtasksFromEpic)
+    public void removeSubtask(Subtask subtask) {
+        int index = positionOf(subtask.getId());
+        if (index != -1) {
+            Subtask last = subtasks.remove(subtasks.size() - 1);
+            positions.remove(subtask.getId());
+            if (index < subtasks.size()) {
+                subtasks.set(index, last);
+                positions.put(last.getId(), index);
+            }
+        }
+        getStatistics().remove(subtask.getId());
+        applyStatistics();
+    }
+
+    public void clearSubtasks() {
+        setEmptySubtasks();
+        applyStatistics();
+    }
+
+    // полный пересчет статуса и времени эпика по списку подзадач
+    // (нужен, если подзадачи меняли напрямую, в обход менеджера)
     public void calculateTimesEpic() {
-        LocalDateTime[] endTime = new LocalDateTime[1];
-        Optional<LocalDateTime> minStartTime = subtasks.stream()
-                .map(subtask -> subtask.startTime)
-                .filter(Objects::nonNull)
-                .min(Comparator.naturalOrder());
-        Optional<LocalDateTime> maxEndTime = subtasks.stream()
-                .filter(subtask -> subtask.startTime != null)
-                .map(subtask -> subtask.startTime.plus(subtask.duration))
-                .max(Comparator.naturalOrder());
-        startTime = minStartTime.orElse(null);
-        endTime[0] = maxEndTime.orElse(null);
-        if (startTime != null) {
-            duration = Duration.between(startTime, endTime[0]);
+        positions = null;
+        EpicStatistics statistics = getStatistics();
+        statistics.clear();
+        for (Subtask subtask : subtasks) {
+            statistics.put(subtask);
         }
+        applyStatistics();
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        calculateTimesEpic();
+        if (startTime == null) {
+            return null;
+        }
         return super.getEndTime();
     }
 
@@ -61,6 +120,54 @@ public class Epic extends Task {
         return super.getDurationToMinutes();
     }
 
+    // эпик, полученный из JSON или скопированный, создается без показателей - собираем их при первом обращении
+    private EpicStatistics getStatistics() {
+        if (statistics == null) {
+            statistics = new EpicStatistics();
+            if (subtasks == null) {
+                subtasks = new ArrayList<>();
+            }
+            for (Subtask subtask : subtasks) {
+                statistics.put(subtask);
+            }
+        }
+        return statistics;
+    }
+
+    // позиция подзадачи в списке или -1; если список меняли в обход эпика, индекс позиций собирается заново
+    private int positionOf(int subtaskId) {
+        Integer index = getPositions().get(subtaskId);
+        if (positions.size() != subtasks.size()
+                || (index != null && (index >= subtasks.size() || subtasks.get(index).getId() != subtaskId))) {
+            positions = null;
+            index = getPositions().get(subtaskId);
+        }
+        return index == null ? -1 : index;
+    }
+
+    private Map<Integer, Integer> getPositions() {
+        if (positions == null) {
+            positions = new HashMap<>();
+            if (subtasks == null) {
+                subtasks = new ArrayList<>();
+            }
+            for (int i = 0; i < subtasks.size(); i++) {
+                positions.put(subtasks.get(i).getId(), i);
+            }
+        }
+        return positions;
+    }
+
+    private void applyStatistics() {
+        status = statistics.getStatus();
+        startTime = statistics.getStartTime();
+        if (startTime != null) {
+            duration = Duration.between(startTime, statistics.getEndTime());
+        } else {
+            duration = Duration.ZERO;
+        }
+    }
+
 
     @Override
     public String toString() {
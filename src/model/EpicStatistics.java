@@ -0,0 +1,97 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Накопительные показатели эпика по его подзадачам: количество подзадач в каждом статусе,
+// минимальное время начала и максимальное время окончания.
+// Изменение одной подзадачи обновляет показатели за O(log k) без обхода всего списка подзадач эпика.
+class EpicStatistics {
+
+    private final int[] statusCounts;
+    // мультимножества времени начала и окончания (время -> количество подзадач с таким временем)
+    private final TreeMap<LocalDateTime, Integer> startTimes;
+    private final TreeMap<LocalDateTime, Integer> endTimes;
+    // вклад каждой подзадачи запоминаем отдельно: подзадачу могут изменить "на месте" до обновления,
+    // а вычитать из показателей нужно именно то, что было добавлено
+    private final Map<Integer, Contribution> contributions;
+
+    EpicStatistics() {
+        this.statusCounts = new int[TaskStatus.values().length];
+        this.startTimes = new TreeMap<>();
+        this.endTimes = new TreeMap<>();
+        this.contributions = new HashMap<>();
+    }
+
+    // добавление или замена вклада подзадачи
+    void put(Subtask subtask) {
+        remove(subtask.getId());
+        Contribution contribution = new Contribution(subtask);
+        contributions.put(subtask.getId(), contribution);
+        statusCounts[contribution.status.ordinal()]++;
+        if (contribution.startTime != null) {
+            startTimes.merge(contribution.startTime, 1, Integer::sum);
+            endTimes.merge(contribution.endTime, 1, Integer::sum);
+        }
+    }
+
+    void remove(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+        statusCounts[contribution.status.ordinal()]--;
+        if (contribution.startTime != null) {
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+    }
+
+    void clear() {
+        contributions.clear();
+        startTimes.clear();
+        endTimes.clear();
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = 0;
+        }
+    }
+
+    // статус эпика: нет подзадач или все NEW - NEW, все DONE - DONE, в остальных случаях IN_PROGRESS
+    TaskStatus getStatus() {
+        int total = contributions.size();
+        if (total == statusCounts[TaskStatus.NEW.ordinal()]) {
+            return TaskStatus.NEW;
+        }
+        if (total == statusCounts[TaskStatus.DONE.ordinal()]) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    // снимок показателей подзадачи на момент добавления в эпик
+    private static class Contribution {
+        final TaskStatus status;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+
+        Contribution(Subtask subtask) {
+            this.status = subtask.getStatus() == null ? TaskStatus.NEW : subtask.getStatus();
+            this.startTime = subtask.getStartTime();
+            this.endTime = startTime == null ? null : startTime.plusMinutes(subtask.getDurationToMinutes());
+        }
+    }
+}
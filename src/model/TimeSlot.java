@@ -0,0 +1,44 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Свободный промежуток расписания приоритетных задач [startTime, endTime):
+// задача, начатая в startTime и закончившаяся не позже endTime, ни с чем не пересечется.
+// endTime == null - после startTime расписание свободно
+public class TimeSlot {
+
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    public TimeSlot(LocalDateTime startTime, LocalDateTime endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TimeSlot timeSlot = (TimeSlot) o;
+        return Objects.equals(startTime, timeSlot.startTime) && Objects.equals(endTime, timeSlot.endTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startTime, endTime);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSlot{startTime=" + startTime + ", endTime=" + endTime + "}";
+    }
+}
@@ -1,5 +1,6 @@
 package server;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import controller.*;
 import service.Managers;
@@ -7,25 +8,40 @@ import service.TaskManager;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 public class HttpTaskServer {
 
     private HttpServer server;
+    private ExecutorService executor;
     private final TaskManager manager;
+    private final ServerConfig config;
+    private final RequestMetrics metrics = new RequestMetrics();
     public static final int PORT = 8080;
 
 
     // конструктор для тестов
     public HttpTaskServer(TaskManager manager) {
+        this(manager, ServerConfig.defaults());
+    }
+
+    public HttpTaskServer(TaskManager manager, ServerConfig config) {
         this.manager = manager;
+        this.config = config;
+        checkThreadSafety(manager, config);
         createServ();
     }
 
     // продуктивный конструктор
     public HttpTaskServer() {
         // перед созданием и запуском сервера загружаем данные в память из файла - создаем экземпляр всего TaskManager
-        this.manager = Managers.getBackedManager();
+        // (с параметром -Dkanban.journal=true - из снимка и журнала изменений)
+        this.manager = Boolean.getBoolean("kanban.journal") ? Managers.getJournaledManager()
+                : Managers.getBackedManager();
+        this.config = ServerConfig.fromSystemProperties();
+        checkThreadSafety(manager, config);
         createServ();
     }
 
@@ -37,25 +53,75 @@ public class HttpTaskServer {
 
     public void createServ() {
         try {
-            server = HttpServer.create(new InetSocketAddress(8080), 0);
+            server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
         // прописываем все возможные пути по которым будет запускаться обработка запросов
-        server.createContext("/tasks", new TaskHandler(manager));
-        server.createContext("/subtasks", new SubtaskHandler(manager));
-        server.createContext("/epics", new EpicHandler(manager));
-        server.createContext("/history", new HistoryHandler(manager));
-        server.createContext("/prioritized", new PrioritizedHandler(manager));
+        createContext("/tasks", new TaskHandler(manager));
+        createContext("/subtasks", new SubtaskHandler(manager));
+        createContext("/epics", new EpicHandler(manager));
+        createContext("/history", new HistoryHandler(manager));
+        createContext("/prioritized", new PrioritizedHandler(manager));
+        createContext("/slots", new SlotsHandler(manager));
+        createContext("/batch", new BatchHandler(manager));
+        createContext("/export", new ExportHandler(manager));
+        createContext("/import", new ImportHandler(manager));
+        createContext("/metrics", new MetricsHandler(manager, metrics));
+        executor = createExecutor(config);
+        server.setExecutor(executor);    // null - запросы обрабатывает поток диспетчера HttpServer
+    }
+
+    // каждый контекст проходит через фильтр метрик
+    private void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(new MetricsFilter(metrics));
     }
 
     public void start() {
         server.start();
-        System.out.println("Сервер трекера задач запущен на порту " + PORT);
+        System.out.println("Сервер трекера задач запущен на порту " + config.getPort()
+                + " (потоки: " + config.getExecutorMode() + ")");
     }
 
     public void stop() {
         server.stop(0);
-        System.out.println("Сервер трекера задач остановлен на порту " + PORT);
+        if (executor != null) {
+            executor.shutdown();
+        }
+        System.out.println("Сервер трекера задач остановлен на порту " + config.getPort());
+    }
+
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    // в многопоточных режимах запросы читают и меняют менеджер параллельно - нужен потокобезопасный менеджер
+    private static void checkThreadSafety(TaskManager manager, ServerConfig config) {
+        if (config.getExecutorMode() != ServerConfig.ExecutorMode.SINGLE && !manager.isThreadSafe()) {
+            throw new IllegalArgumentException("Режим потоков " + config.getExecutorMode()
+                    + " требует потокобезопасного менеджера, а " + manager.getClass().getSimpleName()
+                    + " им не является");
+        }
+    }
+
+    private static ExecutorService createExecutor(ServerConfig config) {
+        switch (config.getExecutorMode()) {
+            case FIXED:
+                return Executors.newFixedThreadPool(config.getThreads());
+            case PER_REQUEST:
+                return newPerRequestExecutor();
+            default:
+                return null;
+        }
+    }
+
+    // виртуальные потоки появились только в Java 21, проект собирается под Java 11 -
+    // если JVM их поддерживает, берем их через рефлексию, иначе создаем поток (или берем свободный) на запрос
+    private static ExecutorService newPerRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
     }
 }
@@ -0,0 +1,70 @@
+package server;
+
+// Настройки HTTP сервера трекера задач: порт, размер очереди входящих соединений
+// и режим потоков, в которых обрабатываются запросы.
+// Многопоточные режимы работают только с потокобезопасным менеджером (TaskManager.isThreadSafe()):
+// ConcurrentTaskManager или менеджеры с файловым хранилищем - иначе HttpTaskServer не создается.
+public class ServerConfig {
+
+    public enum ExecutorMode {
+        SINGLE,         // все запросы обрабатывает единственный поток диспетчера HttpServer
+        FIXED,          // пул из заданного числа потоков
+        PER_REQUEST     // отдельный (виртуальный, если JVM их поддерживает) поток на каждый запрос
+    }
+
+    private final int port;
+    private final int backlog;
+    private final ExecutorMode executorMode;
+    private final int threads;
+
+    public ServerConfig(int port, int backlog, ExecutorMode executorMode, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Число потоков сервера должно быть больше нуля: " + threads);
+        }
+        this.port = port;
+        this.backlog = backlog;
+        this.executorMode = executorMode;
+        this.threads = threads;
+    }
+
+    // прежнее поведение сервера: порт 8080, очередь по умолчанию, один поток
+    public static ServerConfig defaults() {
+        return new ServerConfig(HttpTaskServer.PORT, 0, ExecutorMode.SINGLE,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    // настройки из параметров запуска, например: -Dkanban.port=8081 -Dkanban.executor=FIXED -Dkanban.threads=8
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig defaults = defaults();
+        return new ServerConfig(
+                Integer.getInteger("kanban.port", defaults.port),
+                Integer.getInteger("kanban.backlog", defaults.backlog),
+                ExecutorMode.valueOf(System.getProperty("kanban.executor", defaults.executorMode.name())),
+                Integer.getInteger("kanban.threads", defaults.threads));
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerConfig{" +
+                "port=" + port
+                + ", backlog=" + backlog
+                + ", executorMode=" + executorMode
+                + ", threads=" + threads + '}';
+    }
+}
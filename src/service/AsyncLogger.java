@@ -0,0 +1,197 @@
+package service;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Асинхронный структурированный журнал: вызывающий поток только кладет запись в ограниченную очередь,
+// а запись в поток вывода (по умолчанию stderr) делает отдельный поток - обработчик запроса не ждет консоль.
+// Каждая запись - строка JSON: {"time":"...","level":"WARN","message":"...","status":"404",...}
+// Записи INFO и WARN ограничены числом в секунду; ERROR не ограничивается (в них стек - его нельзя терять).
+// Если очередь заполнена или лимит исчерпан, запись отбрасывается - число отброшенных пишется отдельной строкой
+public class AsyncLogger implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_RECORDS_PER_SECOND = 100;
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final BlockingQueue<Record> queue;
+    private final int recordsPerSecond;
+    private final Writer out;
+    private final Thread writer;
+    // окно лимита одним значением: (номер секунды << 32) | число записей в ней - смена секунды и сброс
+    // счетчика происходят одной атомарной операцией, конкурентные записи не теряются
+    private final AtomicLong window = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long reportedDropped;    // только поток записи
+    private volatile boolean closed;
+
+    public enum Level {
+        INFO,
+        WARN,
+        ERROR
+    }
+
+    public AsyncLogger(OutputStream out) {
+        this(out, DEFAULT_CAPACITY, DEFAULT_RECORDS_PER_SECOND);
+    }
+
+    public AsyncLogger(OutputStream out, int capacity, int recordsPerSecond) {
+        if (capacity < 1 || recordsPerSecond < 1) {
+            throw new IllegalArgumentException("Размер очереди и лимит записей должны быть больше нуля");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.recordsPerSecond = recordsPerSecond;
+        this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        this.writer = new Thread(this::writeLoop, "async-logger");
+        writer.setDaemon(true);    // журнал не должен мешать остановке приложения
+        writer.start();
+    }
+
+    // поля - пары ключ, значение; стек ошибки пишется только для ERROR
+    public void log(Level level, String message, Throwable error, String... fields) {
+        if (closed || (level != Level.ERROR && !tryAcquire()) ||
+                !queue.offer(new Record(level, message, error, fields))) {
+            dropped.increment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // записи, уже стоящие в очереди, дописываются; новые отбрасываются
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean tryAcquire() {
+        long second = (System.nanoTime() / SECOND) & 0xFFFFFFFFL;
+        while (true) {
+            long current = window.get();
+            long records = (current >>> 32) == second ? current & 0xFFFFFFFFL : 0;
+            if (records >= recordsPerSecond) {
+                return false;
+            }
+            if (window.compareAndSet(current, (second << 32) | (records + 1))) {
+                return true;
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Record record;
+            try {
+                record = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                record = null;
+            }
+            if (record != null) {
+                write(record);
+            }
+            if (closed) {    // остаток очереди и выход
+                drain();
+                return;
+            }
+            if (record == null) {
+                // секунда без записей: отчет об отброшенных - одной строкой за всю серию, а не на каждую паузу
+                reportDropped();
+            }
+            if (queue.isEmpty()) {
+                flush();
+            }
+        }
+    }
+
+    private void drain() {
+        Record record;
+        while ((record = queue.poll()) != null) {
+            write(record);
+        }
+        reportDropped();
+        flush();
+    }
+
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total > reportedDropped) {
+            write(new Record(Level.WARN, "Отброшено записей журнала: " + (total - reportedDropped), null,
+                    new String[0]));
+            reportedDropped = total;
+        }
+    }
+
+    private void write(Record record) {
+        try {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("time").value(Instant.ofEpochMilli(record.time).toString());
+            json.name("level").value(record.level.name());
+            json.name("message").value(record.message);
+            for (int i = 0; i + 1 < record.fields.length; i += 2) {
+                json.name(record.fields[i]).value(record.fields[i + 1]);
+            }
+            if (record.error != null) {
+                json.name("error").value(record.error.getClass().getName());
+                if (record.error.getCause() != null) {
+                    json.name("cause").value(String.valueOf(record.error.getCause()));
+                }
+                if (record.level == Level.ERROR) {
+                    StringWriter trace = new StringWriter();
+                    record.error.printStackTrace(new PrintWriter(trace));
+                    json.name("trace").value(trace.toString());
+                }
+            }
+            json.endObject();
+            out.write('\n');
+        } catch (IOException e) {    // вывод журнала недоступен - записи теряются, обработчики не затрагиваются
+            dropped.increment();
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            dropped.increment();
+        }
+    }
+
+    private static class Record {
+
+        private final long time;
+        private final Level level;
+        private final String message;
+        private final Throwable error;
+        private final String[] fields;
+
+        Record(Level level, String message, Throwable error, String[] fields) {
+            this.time = System.currentTimeMillis();
+            this.level = level;
+            this.message = message;
+            this.error = error;
+            this.fields = fields;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package service;
+
+import exception.ManagerSaveException;
+import exception.NotFoundException;
+import exception.ValidationException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.Type;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Проверка пакета изменений до его применения: каждая операция проверяется теми же правилами, что и
+// одиночный вызов менеджера, но по состоянию "менеджер + предыдущие операции пакета".
+// Само состояние менеджера не меняется - изменения пакета накладываются поверх него:
+// - removed - id, удаленные пакетом (вместе с подзадачами удаленных эпиков);
+// - released - id, чьи прежние интервалы в приоритетных задачах пакет убирает или заменяет;
+// - planned - новые интервалы задач и подзадач пакета (у созданных - временные отрицательные id);
+// - epicOf - эпик подзадач, созданных или перенесенных пакетом.
+// Если проверка прошла, применение пакета методами менеджера уже не может завершиться ошибкой.
+class BatchValidator {
+
+    // состояние менеджера до применения пакета
+    interface Target {
+
+        boolean contains(Type type, int id);
+
+        // id подзадач эпика
+        void forEachSubtaskId(int epicId, IntConsumer action);
+
+        // id приоритетной задачи, с которой пересекается интервал task (кроме ignored), либо 0
+        int findCrossed(Task task, IntPredicate ignored);
+    }
+
+    private final Target target;
+    private final Set<Integer> removed;
+    private final Set<Integer> released;
+    private final TimeIntervalIndex planned;
+    private final Map<Integer, Integer> epicOf;
+    private int provisionalId;
+    private int number;
+
+    private BatchValidator(Target target) {
+        this.target = target;
+        this.removed = new HashSet<>();
+        this.released = new HashSet<>();
+        this.planned = new TimeIntervalIndex();
+        this.epicOf = new HashMap<>();
+    }
+
+    static void validate(TaskBatch batch, Target target) {
+        BatchValidator validator = new BatchValidator(target);
+        for (TaskBatch.Operation operation : batch.getOperations()) {
+            validator.number++;
+            switch (operation.getAction()) {
+                case CREATE:
+                    validator.checkCreate(operation.getType(), operation.getTask());
+                    break;
+                case UPDATE:
+                    validator.checkUpdate(operation.getType(), operation.getTask());
+                    break;
+                case VIEW:
+                    validator.checkView(operation.getType(), operation.getId());
+                    break;
+                default:
+                    validator.checkRemove(operation.getType(), operation.getId());
+            }
+        }
+    }
+
+    private void checkCreate(Type type, Task task) {
+        if (target.contains(type, task.getId()) && !removed.contains(task.getId())) {
+            throw new ValidationException(prefix() + name(type) + " c id=" + task.getId() + " уже создана!");
+        }
+        if (type == Type.EPIC) {
+            return;
+        }
+        int id = --provisionalId;
+        if (type == Type.SUBTASK) {
+            checkEpicId(task.getEpicId());
+            epicOf.put(id, task.getEpicId());
+        }
+        plan(id, task);
+    }
+
+    private void checkUpdate(Type type, Task task) {
+        int id = task.getId();
+        if (!exists(type, id)) {
+            throw new ManagerSaveException(prefix() + name(type) + " с id=" + id + " для обновления не существует!");
+        }
+        if (type == Type.EPIC) {
+            // id подзадач обновляемого эпика не должны совпадать с id эпиков
+            if (((Epic) task).getSubtasks() != null) {
+                for (Subtask subtask : ((Epic) task).getSubtasks()) {
+                    if (target.contains(Type.EPIC, subtask.getId())) {
+                        throw new ValidationException(prefix() +
+                                "Обновляемый эпик равен одной из существующих подзадач!");
+                    }
+                }
+            }
+            return;
+        }
+        if (type == Type.SUBTASK) {
+            checkEpicId(task.getEpicId());
+            epicOf.put(id, task.getEpicId());
+        }
+        released.add(id);
+        planned.remove(id);
+        plan(id, task);
+    }
+
+    // просматривать можно задачу, которая была в менеджере до пакета и не удалена им
+    // (id созданных пакетом задач выдаются только при применении)
+    private void checkView(Type type, int id) {
+        if (!exists(type, id)) {
+            throw new NotFoundException(prefix() + name(type) + " с id = " + id + " не найдена");
+        }
+    }
+
+    private void checkRemove(Type type, int id) {
+        if (!exists(type, id)) {
+            throw new ManagerSaveException(prefix() + name(type) + " с id = " + id + " для удаления не существует!");
+        }
+        removed.add(id);
+        if (type != Type.EPIC) {
+            release(id);
+            epicOf.remove(id);
+            return;
+        }
+        // вместе с эпиком удаляются его подзадачи: бывшие в эпике до пакета (если пакет их не перенес)
+        // и созданные или перенесенные в него пакетом
+        target.forEachSubtaskId(id, subtaskId -> {
+            if (!epicOf.containsKey(subtaskId)) {
+                removed.add(subtaskId);
+                release(subtaskId);
+            }
+        });
+        Iterator<Map.Entry<Integer, Integer>> iterator = epicOf.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Integer> entry = iterator.next();
+            if (entry.getValue() == id) {
+                removed.add(entry.getKey());
+                release(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void checkEpicId(Integer epicId) {
+        if (epicId == null || target.contains(Type.SUBTASK, epicId) || !exists(Type.EPIC, epicId)) {
+            throw new ManagerSaveException(prefix() + "В подзадаче неверно указан epicId=" + epicId +
+                    " Эпика с таким id не существует!");
+        }
+    }
+
+    // новый интервал задачи не должен пересекаться ни с интервалами пакета,
+    // ни с оставшимися интервалами менеджера
+    private void plan(int id, Task task) {
+        if (!TimeIntervalIndex.isScheduled(task)) {
+            return;
+        }
+        Task interval = new Task(task.getName(), task.getDescription());
+        interval.setId(id);
+        interval.setStartTime(task.getStartTime());
+        interval.setDurationOfMinutes(task.getDurationToMinutes());
+        if (planned.findCrossed(interval) != null || target.findCrossed(interval, released::contains) != 0) {
+            throw new ValidationException(prefix() + "Имеется пересечение по времени выполнения с другими задачами!");
+        }
+        planned.add(interval);
+    }
+
+    private void release(int id) {
+        released.add(id);
+        planned.remove(id);
+    }
+
+    private boolean exists(Type type, int id) {
+        return target.contains(type, id) && !removed.contains(id);
+    }
+
+    private String prefix() {
+        return "Операция " + number + " пакета: ";
+    }
+
+    private static String name(Type type) {
+        switch (type) {
+            case SUBTASK:
+                return "Подзадача";
+            case EPIC:
+                return "Эпик";
+            default:
+                return "Задача";
+        }
+    }
+}
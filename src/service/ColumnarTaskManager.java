@@ -0,0 +1,901 @@
+package service;
+
+import exception.ManagerSaveException;
+import exception.NotFoundException;
+import exception.ValidationException;
+import model.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+// Менеджер задач с хранением по столбцам (struct-of-arrays) для досок с миллионами задач.
+// Задача не хранится объектом: её поля разложены по массивам, номер строки в массивах равен id задачи.
+// - тип, статус и признаки строки - byte, id эпика - int;
+// - начало и окончание - long минуты от эпохи (у задачи без времени начала в столбце окончания
+//   лежит только продолжительность), секунды не хранятся - время в приложении задается с точностью до минуты;
+// - наименования и описания - ссылки в общий пул строк, одинаковые строки хранятся один раз;
+// - подзадачи эпика и история просмотров - двусвязные списки на тех же массивах id.
+// Объекты Task, Subtask и Epic создаются только на границе API: методы возвращают копии,
+// а изменения копий попадают в менеджер только через update-методы.
+// Как и InMemoryTaskManager, менеджер не потокобезопасен.
+public class ColumnarTaskManager implements TaskManager {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final byte FREE = 0;    // строка не занята
+    private static final Type[] TYPES = {null, Type.TASK, Type.SUBTASK, Type.EPIC};
+    private static final TaskStatus[] STATUSES = {TaskStatus.NEW, TaskStatus.IN_PROGRESS, TaskStatus.DONE};
+
+    private static final byte LIVE = 1;          // задача есть в менеджере
+    private static final byte IN_HISTORY = 2;    // задача есть в истории (удаленная задача может остаться в истории)
+
+    private byte[] types;
+    private byte[] statuses;
+    private byte[] flags;
+    private int[] epicIds;
+    private int[] names;
+    private int[] descriptions;
+    private long[] starts;
+    private long[] ends;
+    // у подзадачи - соседние подзадачи того же эпика, у эпика - первая (linkNext) и последняя (linkPrev) подзадача
+    private int[] linkPrev;
+    private int[] linkNext;
+    // история от первого просмотра (historyFirst) к последнему (historyLast)
+    private int[] historyPrev;
+    private int[] historyNext;
+    private int historyFirst;
+    private int historyLast;
+    private int historySize;
+    private final int historyCapacity;    // при переполнении вытесняется самый старый просмотр
+    private long historyVersion;
+
+    private final StringPool strings;
+    private final MinuteIntervalIndex prioritized;
+    // id задач и подзадач по типу и статусу для постраничной выдачи; эпики - только по типу,
+    // их статус рассчитывается по подзадачам при чтении
+    private final TaskIdIndex taskIds;
+    private final HistoryManager historyView;
+    // версии коллекций увеличиваются в конце каждого изменяющего метода
+    private final VersionCounters versions;
+    private final int[] counts;    // количество задач каждого типа в менеджере
+    private int identifier;
+    private int maxId;
+
+    public ColumnarTaskManager() {
+        this(InMemoryHistoryManager.UNLIMITED);
+    }
+
+    public ColumnarTaskManager(int historyCapacity) {
+        if (historyCapacity < 1) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля: " + historyCapacity);
+        }
+        this.historyCapacity = historyCapacity;
+        this.strings = new StringPool();
+        this.prioritized = new MinuteIntervalIndex();
+        this.taskIds = new TaskIdIndex();
+        this.historyView = new ColumnarHistory();
+        this.versions = new VersionCounters();
+        this.counts = new int[TYPES.length];
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        if (isLive(task.getId(), Type.TASK)) {
+            throw new ValidationException("Задача c id=" + task.getId() + " уже создана!");
+        }
+        insertNew(task, Type.TASK, 0);
+        versions.taskChanged();
+        return task;
+    }
+
+    @Override
+    public List<Task> getTasksList() {
+        return collect(Type.TASK);
+    }
+
+    // объекты создаются по одному прямо перед передачей в action
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        forEachLive(Type.TASK, action);
+    }
+
+    @Override
+    public TaskPage<Task> getTasksPage(TaskQuery query) {
+        return page(Type.TASK, query, id -> isLive(id, Type.TASK) ? materialize(id) : null);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        if (!isLive(id, Type.TASK)) {
+            throw new NotFoundException("Задача не найдена по id = " + id);
+        }
+        touchHistory(id);
+        return materialize(id);
+    }
+
+    @Override
+    public void clearTasks() {
+        clearType(Type.TASK);
+        versions.taskChanged();
+    }
+
+    @Override
+    public void updateTask(Task newTask) {
+        if (counts[typeCode(Type.TASK)] == 0) {
+            throw new ManagerSaveException("Задач для обновления не существует!");
+        }
+        int id = newTask.getId();
+        if (!isLive(id, Type.TASK)) {
+            throw new ManagerSaveException("Подзадачи с id=" + id + " для обновления не существует!" +
+                    " Выберете один из следующих id: " + joinIds(Type.TASK));
+        }
+        reschedule(id, newTask);
+        writeFields(id, newTask);
+        touchHistory(id);
+        versions.taskChanged();
+    }
+
+    @Override
+    public void removeTask(int id) {
+        if (!isLive(id, Type.TASK)) {
+            throw new ManagerSaveException("Задачи с id = " + id + " для удаления не существует!");
+        }
+        unschedule(id);
+        removeHistory(id);
+        release(id);
+        versions.taskChanged();
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        if (isLive(subtask.getId(), Type.SUBTASK)) {
+            throw new ValidationException("Подзадача c id=" + subtask.getId() + " уже создана!");
+        }
+        checkEpicId(subtask);
+        insertNew(subtask, Type.SUBTASK, subtask.getEpicId());
+        linkLastSubtask(subtask.getEpicId(), subtask.getId());
+        versions.subtaskChanged();
+        return subtask;
+    }
+
+    @Override
+    public List<Subtask> getSubtaskList() {
+        return collect(Type.SUBTASK);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        forEachLive(Type.SUBTASK, action);
+    }
+
+    // подзадачи одного эпика без временного окна берутся из связей подзадач эпика
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(TaskQuery query) {
+        IntFunction<Subtask> lookup = id -> isLive(id, Type.SUBTASK) ? (Subtask) materialize(id) : null;
+        Integer epicId = query.getEpicId();
+        if (epicId != null && !query.hasWindow()) {
+            TaskPage.Candidates candidates = new TaskPage.Candidates();
+            if (isLive(epicId, Type.EPIC)) {
+                for (int id = linkNext[epicId]; id != 0; id = linkNext[id]) {
+                    candidates.add(id);
+                }
+            }
+            return TaskPage.fromCandidates(candidates, query, lookup);
+        }
+        return page(Type.SUBTASK, query, lookup);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        if (!isLive(id, Type.SUBTASK)) {
+            throw new NotFoundException("Подзадача не найдена по id = " + id);
+        }
+        touchHistory(id);
+        return (Subtask) materialize(id);
+    }
+
+    @Override
+    public void clearSubtasks() {
+        for (int id = 1; id <= maxId; id++) {
+            if (isLive(id, Type.EPIC)) {
+                linkNext[id] = 0;
+                linkPrev[id] = 0;
+            }
+        }
+        clearType(Type.SUBTASK);
+        versions.subtaskChanged();
+    }
+
+    @Override
+    public void updateSubtask(Subtask newSubtask) {
+        checkEpicId(newSubtask);
+        if (counts[typeCode(Type.SUBTASK)] == 0) {
+            throw new ManagerSaveException("Подзадач для обновления не существует!");
+        }
+        int id = newSubtask.getId();
+        if (!isLive(id, Type.SUBTASK)) {
+            throw new ManagerSaveException("Подзадачи с id=" + id + " для обновления не существует!" +
+                    " Выберете один из следующих id: " + joinIds(Type.SUBTASK));
+        }
+        reschedule(id, newSubtask);
+        int newEpicId = newSubtask.getEpicId();
+        if (epicIds[id] != newEpicId) {    // подзадачу переносят в другой эпик
+            unlinkSubtask(id);
+            epicIds[id] = newEpicId;
+            linkLastSubtask(newEpicId, id);
+        }
+        writeFields(id, newSubtask);
+        touchHistory(id);
+        versions.subtaskChanged();
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        if (!isLive(id, Type.SUBTASK)) {
+            throw new ManagerSaveException("Подзадачи с id = " + id + " для удаления не существует!");
+        }
+        unlinkSubtask(id);
+        unschedule(id);
+        removeHistory(id);
+        release(id);
+        versions.subtaskChanged();
+    }
+
+    @Override
+    public List<Subtask> getListSubtasksFromEpic(int epicId) {
+        if (!isLive(epicId, Type.EPIC)) {
+            return new ArrayList<>();
+        }
+        return materializeSubtasks(epicId);
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        if (isLive(epic.getId(), Type.EPIC)) {
+            throw new ValidationException("Эпик с id=" + epic.getId() + " уже создан!, " +
+                    "для обновления Эпика необходимо обновлять привязанные к нему подзадачи");
+        }
+        // эпик создается без подзадач, его статус и время рассчитываются по подзадачам при чтении
+        epic.setId(generateID());
+        epic.setEmptySubtasks();
+        checkEpicStatus(epic);
+        insertRow(epic.getId(), Type.EPIC, 0);
+        writeFields(epic.getId(), epic);
+        touchHistory(epic.getId());
+        versions.epicChanged();
+        return epic;
+    }
+
+    @Override
+    public List<Epic> getEpicList() {
+        return collect(Type.EPIC);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        forEachLive(Type.EPIC, action);
+    }
+
+    // фильтр эпиков по времени: эпики, у которых в окно попадает хотя бы одна подзадача;
+    // статус эпика известен только после расчета по подзадачам, поэтому по статусу эпики проверяются при обходе
+    // эпики окна, как и в InMemoryTaskManager, - по id: отбираются и сортируются на каждый запрос
+    @Override
+    public TaskPage<Epic> getEpicsPage(TaskQuery query) {
+        IntFunction<Epic> lookup = id -> isLive(id, Type.EPIC) ? (Epic) materialize(id) : null;
+        if (query.hasWindow()) {
+            TaskPage.Candidates candidates = new TaskPage.Candidates();
+            forEachInWindow(query, id -> {
+                if (types[id] == typeCode(Type.SUBTASK)) {
+                    candidates.add(epicIds[id]);
+                }
+            });
+            return TaskPage.fromCandidates(candidates, query, lookup);
+        }
+        return TaskPage.fromIndex(taskIds.ids(Type.EPIC, null), query, lookup);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        if (!isLive(id, Type.EPIC)) {
+            throw new NotFoundException("Эпик с id = " + id + " не найден");
+        }
+        touchHistory(id);
+        return (Epic) materialize(id);
+    }
+
+    @Override
+    public void clearEpics() {
+        clearSubtasks();
+        clearType(Type.EPIC);
+        versions.epicChanged();
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        if (!isLive(id, Type.EPIC)) {
+            throw new ManagerSaveException("Подзадачи с id = " + id + " для удаления не существует!");
+        }
+        // подзадачи эпика удаляются вместе с ним (в истории они остаются, как и в InMemoryTaskManager)
+        int subtaskId = linkNext[id];
+        while (subtaskId != 0) {
+            int next = linkNext[subtaskId];
+            unschedule(subtaskId);
+            release(subtaskId);
+            subtaskId = next;
+        }
+        linkNext[id] = 0;
+        linkPrev[id] = 0;
+        removeHistory(id);
+        release(id);
+        versions.subtaskChanged();
+    }
+
+    // у эпика обновляются только наименование и описание - статус и время рассчитываются по подзадачам
+    @Override
+    public void updateEpic(Epic newEpic) {
+        for (Subtask newSubtask : newEpic.getSubtasks()) {
+            if (isLive(newSubtask.getId(), Type.EPIC)) {
+                throw new ValidationException("Обновляемый эпик равен одной из существующих подзадач!");
+            }
+        }
+        int id = newEpic.getId();
+        if (!isLive(id, Type.EPIC)) {
+            throw new NotFoundException("Эпик с id = " + id + " не найден");
+        }
+        newEpic.setSubtasks(materializeSubtasks(id));
+        writeFields(id, newEpic);
+        versions.epicChanged();
+    }
+
+    @Override
+    public Epic checkEpicStatus(Epic epic) {
+        if (epic.getSubtasks() == null) {
+            epic.setEmptySubtasks();
+        }
+        epic.calculateTimesEpic();
+        return epic;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyView.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> result = new ArrayList<>(prioritized.size());
+        prioritized.forEach(id -> result.add(materialize(id)));
+        return result;
+    }
+
+    @Override
+    public void forEachPrioritized(Consumer<? super Task> action) {
+        prioritized.forEach(id -> action.accept(materialize(id)));
+    }
+
+    @Override
+    public TaskPage<Task> getPrioritizedPage(TaskQuery query) {
+        return TaskPage.fromOrdered(walkWindow(query), query, this::materialize);
+    }
+
+    // обход задач временного окна после задачи-курсора в порядке времени начала
+    private Consumer<IntPredicate> walkWindow(TaskQuery query) {
+        int after = query.getAfter();
+        if (after != 0 && (after > maxId || (flags[after] & LIVE) == 0 || starts[after] == NO_TIME ||
+                types[after] == typeCode(Type.EPIC))) {
+            throw new NotFoundException("Задачи курсора с id=" + after + " нет среди приоритетных");
+        }
+        long from = query.getFrom() == null ? Long.MIN_VALUE : toMinutes(query.getFrom());
+        long to = query.getTo() == null ? Long.MAX_VALUE : toMinutes(query.getTo());
+        return action -> prioritized.forEachInWindow(from, to, after == 0 ? Long.MIN_VALUE : starts[after], action);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime after, LocalDateTime before, int limit) {
+        TimeIntervalIndex.checkSlotQuery(durationMinutes, after, before, limit);
+        List<TimeSlot> slots = new ArrayList<>();
+        long stopped = prioritized.forEachFreeSlot(durationMinutes, toMinutes(after), before == null
+                        ? Long.MAX_VALUE : toMinutes(before), limit, TimeIntervalIndex.MAX_SCANNED_INTERVALS,
+                (start, end) -> slots.add(new TimeSlot(fromMinutes(start),
+                        end == Long.MAX_VALUE ? null : fromMinutes(end))));
+        if (stopped != Long.MIN_VALUE) {
+            return TimeIntervalIndex.scanLimitReached(slots, fromMinutes(stopped),
+                    TimeIntervalIndex.MAX_SCANNED_INTERVALS);
+        }
+        return slots;
+    }
+
+    @Override
+    public HistoryManager getHistoryManager() {
+        return historyView;
+    }
+
+    // как в InMemoryTaskManager: проверка всего пакета по столбцам, затем применение обычными методами
+    @Override
+    public List<Integer> applyBatch(TaskBatch batch) {
+        BatchValidator.validate(batch, new BatchValidator.Target() {
+            @Override
+            public boolean contains(Type type, int id) {
+                return isLive(id, type);
+            }
+
+            @Override
+            public void forEachSubtaskId(int epicId, IntConsumer action) {
+                for (int id = linkNext[epicId]; id != 0; id = linkNext[id]) {
+                    action.accept(id);
+                }
+            }
+
+            @Override
+            public int findCrossed(Task task, IntPredicate ignored) {
+                long start = toMinutes(task.getStartTime());
+                return prioritized.findCrossed(task.getId(), start, start + task.getDurationToMinutes(), ignored);
+            }
+        });
+        return batch.applyTo(this);
+    }
+
+    @Override
+    public long getVersion(TaskCollection collection) {
+        if (collection == TaskCollection.HISTORY) {
+            return historyVersion;
+        }
+        return versions.get(collection);
+    }
+
+    // число строк таблицы с данными (задачи менеджера и задачи, оставшиеся только в истории)
+    public int getRowCount() {
+        int rows = 0;
+        for (int id = 1; id <= maxId; id++) {
+            if (types[id] != FREE) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // число различных строк в пуле наименований и описаний
+    public int getDistinctStringCount() {
+        return strings.size();
+    }
+
+    private int generateID() {
+        return ++identifier;
+    }
+
+    // новая задача или подзадача: выдаем id, проверяем время и только потом занимаем строку
+    private void insertNew(Task task, Type type, int epicId) {
+        task.setId(generateID());
+        int id = task.getId();
+        if (task.getStartTime() != null) {
+            long start = toMinutes(task.getStartTime());
+            long end = start + task.getDurationToMinutes();
+            ensureCapacity(id);
+            if (prioritized.findCrossed(id, start, end) != 0) {
+                identifier--;    // создание отменено - возвращаем id
+                throw new ValidationException("Имеется пересечение по времени выполнения с другими задачами!");
+            }
+            prioritized.add(id, start, end);
+        }
+        insertRow(id, type, epicId);
+        writeFields(id, task);
+        touchHistory(id);
+    }
+
+    private void insertRow(int id, Type type, int epicId) {
+        ensureCapacity(id);
+        types[id] = typeCode(type);
+        flags[id] = LIVE;
+        epicIds[id] = epicId;
+        names[id] = StringPool.NONE;
+        descriptions[id] = StringPool.NONE;
+        linkPrev[id] = 0;
+        linkNext[id] = 0;
+        counts[types[id]]++;
+        maxId = Math.max(maxId, id);
+    }
+
+    // запись полей задачи в столбцы (тип, id эпика и связи меняются отдельно)
+    private void writeFields(int id, Task task) {
+        int name = strings.intern(task.getName());
+        int description = strings.intern(task.getDescription());
+        strings.release(names[id]);
+        strings.release(descriptions[id]);
+        names[id] = name;
+        descriptions[id] = description;
+        statuses[id] = statusCode(task.getStatus());
+        Type type = TYPES[types[id]];
+        taskIds.put(type, id, type == Type.EPIC ? null : STATUSES[statuses[id]]);
+        if (task.getStartTime() == null) {
+            starts[id] = NO_TIME;
+            ends[id] = task.getDurationToMinutes();
+        } else {
+            starts[id] = toMinutes(task.getStartTime());
+            ends[id] = starts[id] + task.getDurationToMinutes();
+        }
+    }
+
+    // замена интервала задачи в индексе приоритетных с проверкой пересечения
+    private void reschedule(int id, Task newTask) {
+        if (newTask.getStartTime() == null) {
+            unschedule(id);
+            return;
+        }
+        long start = toMinutes(newTask.getStartTime());
+        long end = start + newTask.getDurationToMinutes();
+        if (prioritized.findCrossed(id, start, end) != 0) {
+            throw new ValidationException("Имеется пересечение по времени выполнения с другими задачами!");
+        }
+        unschedule(id);
+        prioritized.add(id, start, end);
+    }
+
+    private void unschedule(int id) {
+        if (starts[id] != NO_TIME && (flags[id] & LIVE) != 0) {
+            prioritized.remove(starts[id]);
+        }
+    }
+
+    // задача удалена из менеджера: строка освобождается, если задачи нет и в истории
+    private void release(int id) {
+        if ((flags[id] & LIVE) != 0) {
+            counts[types[id]]--;
+            flags[id] &= ~LIVE;
+            taskIds.remove(TYPES[types[id]], id);
+        }
+        if ((flags[id] & IN_HISTORY) == 0) {
+            strings.release(names[id]);
+            strings.release(descriptions[id]);
+            names[id] = StringPool.NONE;
+            descriptions[id] = StringPool.NONE;
+            types[id] = FREE;
+            flags[id] = 0;
+        }
+    }
+
+    private void clearType(Type type) {
+        byte code = typeCode(type);
+        for (int id = 1; id <= maxId; id++) {
+            if (types[id] == code && (flags[id] & LIVE) != 0) {
+                unschedule(id);
+                release(id);
+            }
+        }
+    }
+
+    private void checkEpicId(Subtask subtask) {
+        Integer epicId = subtask.getEpicId();
+        if (epicId == null || isLive(epicId, Type.SUBTASK) || !isLive(epicId, Type.EPIC)) {
+            throw new ManagerSaveException("В подзадаче неверно указан epicId=" + epicId +
+                    " Эпика с таким id не существует!");
+        }
+    }
+
+    private void linkLastSubtask(int epicId, int subtaskId) {
+        int last = linkPrev[epicId];
+        linkPrev[subtaskId] = last;
+        linkNext[subtaskId] = 0;
+        if (last == 0) {
+            linkNext[epicId] = subtaskId;
+        } else {
+            linkNext[last] = subtaskId;
+        }
+        linkPrev[epicId] = subtaskId;
+    }
+
+    private void unlinkSubtask(int subtaskId) {
+        int epicId = epicIds[subtaskId];
+        int prev = linkPrev[subtaskId];
+        int next = linkNext[subtaskId];
+        if (prev == 0) {
+            linkNext[epicId] = next;
+        } else {
+            linkNext[prev] = next;
+        }
+        if (next == 0) {
+            linkPrev[epicId] = prev;
+        } else {
+            linkPrev[next] = prev;
+        }
+        linkPrev[subtaskId] = 0;
+        linkNext[subtaskId] = 0;
+    }
+
+    // просмотр задачи переносит её в конец истории
+    private void touchHistory(int id) {
+        if (id != historyLast) {
+            historyVersion++;    // повторный просмотр последней задачи порядок не меняет
+        }
+        if (!unlinkHistory(id) && historySize == historyCapacity) {
+            removeHistory(historyFirst);
+        }
+        historyPrev[id] = historyLast;
+        historyNext[id] = 0;
+        if (historyLast == 0) {
+            historyFirst = id;
+        } else {
+            historyNext[historyLast] = id;
+        }
+        historyLast = id;
+        flags[id] |= IN_HISTORY;
+        historySize++;
+    }
+
+    private void removeHistory(int id) {
+        if (!unlinkHistory(id)) {
+            return;
+        }
+        historyVersion++;
+        if ((flags[id] & LIVE) == 0) {
+            release(id);    // задача была удалена из менеджера раньше - освобождаем строку
+        }
+    }
+
+    // false - задачи не было в истории
+    private boolean unlinkHistory(int id) {
+        if (id <= 0 || id > maxId || (flags[id] & IN_HISTORY) == 0) {
+            return false;
+        }
+        int prev = historyPrev[id];
+        int next = historyNext[id];
+        if (prev == 0) {
+            historyFirst = next;
+        } else {
+            historyNext[prev] = next;
+        }
+        if (next == 0) {
+            historyLast = prev;
+        } else {
+            historyPrev[next] = prev;
+        }
+        flags[id] &= ~IN_HISTORY;
+        historySize--;
+        return true;
+    }
+
+    private boolean isLive(int id, Type type) {
+        return id > 0 && id <= maxId && types[id] == typeCode(type) && (flags[id] & LIVE) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> collect(Type type) {
+        List<T> result = new ArrayList<>(counts[typeCode(type)]);
+        for (int id = 1; id <= maxId; id++) {
+            if (isLive(id, type)) {
+                result.add((T) materialize(id));
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> void forEachLive(Type type, Consumer<? super T> action) {
+        taskIds.ids(type, null).forEachAfter(0, id -> {
+            action.accept((T) materialize(id));
+            return true;
+        });
+    }
+
+    // страница задач или подзадач: с временным окном - по времени начала из индекса приоритетных задач
+    // (задачи другого типа отсеивает lookup), иначе - индекс id
+    private <T extends Task> TaskPage<T> page(Type type, TaskQuery query, IntFunction<T> lookup) {
+        if (query.hasWindow()) {
+            return TaskPage.fromOrdered(walkWindow(query), query, lookup);
+        }
+        return TaskPage.fromIndex(taskIds.ids(type, query.getStatus()), query, lookup);
+    }
+
+    private void forEachInWindow(TaskQuery query, IntConsumer action) {
+        prioritized.forEachCrossing(query.getFrom() == null ? Long.MIN_VALUE : toMinutes(query.getFrom()),
+                query.getTo() == null ? Long.MAX_VALUE : toMinutes(query.getTo()), action);
+    }
+
+    private String joinIds(Type type) {
+        StringBuilder billId = new StringBuilder();
+        for (int id = 1; id <= maxId; id++) {
+            if (isLive(id, type)) {
+                billId.append(id).append(",");
+            }
+        }
+        billId.deleteCharAt(billId.lastIndexOf(","));
+        return billId.toString();
+    }
+
+    // создание объекта задачи из строки таблицы
+    private Task materialize(int id) {
+        Type type = TYPES[types[id]];
+        Task task;
+        switch (type) {
+            case SUBTASK:
+                task = new Subtask(strings.get(names[id]), strings.get(descriptions[id]), epicIds[id]);
+                break;
+            case EPIC:
+                Epic epic = new Epic(strings.get(names[id]), strings.get(descriptions[id]));
+                epic.setId(id);
+                epic.setSubtasks((flags[id] & LIVE) != 0 ? materializeSubtasks(id) : new ArrayList<>());
+                return epic;
+            default:
+                task = new Task(strings.get(names[id]), strings.get(descriptions[id]));
+        }
+        task.setId(id);
+        task.setStatus(STATUSES[statuses[id]]);
+        if (starts[id] == NO_TIME) {
+            task.setDurationOfMinutes(ends[id]);
+        } else {
+            task.setStartTime(LocalDateTime.ofEpochSecond(starts[id] * 60, 0, ZoneOffset.UTC));
+            task.setDurationOfMinutes(ends[id] - starts[id]);
+        }
+        return task;
+    }
+
+    private ArrayList<Subtask> materializeSubtasks(int epicId) {
+        ArrayList<Subtask> result = new ArrayList<>();
+        for (int id = linkNext[epicId]; id != 0; id = linkNext[id]) {
+            result.add((Subtask) materialize(id));
+        }
+        return result;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < types.length) {
+            return;
+        }
+        int capacity = types.length;
+        while (capacity <= id) {
+            capacity += capacity >> 1;
+        }
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        linkPrev = Arrays.copyOf(linkPrev, capacity);
+        linkNext = Arrays.copyOf(linkNext, capacity);
+        historyPrev = Arrays.copyOf(historyPrev, capacity);
+        historyNext = Arrays.copyOf(historyNext, capacity);
+    }
+
+    private void allocate(int capacity) {
+        types = new byte[capacity];
+        statuses = new byte[capacity];
+        flags = new byte[capacity];
+        epicIds = new int[capacity];
+        names = new int[capacity];
+        descriptions = new int[capacity];
+        starts = new long[capacity];
+        ends = new long[capacity];
+        linkPrev = new int[capacity];
+        linkNext = new int[capacity];
+        historyPrev = new int[capacity];
+        historyNext = new int[capacity];
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromMinutes(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static byte typeCode(Type type) {
+        for (byte i = 1; i < TYPES.length; i++) {
+            if (TYPES[i] == type) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Тип задачи не поддерживается: " + type);
+    }
+
+    private static byte statusCode(TaskStatus status) {
+        for (byte i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i;
+            }
+        }
+        return 0;    // задача без статуса хранится как NEW
+    }
+
+    // история просмотров поверх столбцов historyPrev/historyNext
+    private class ColumnarHistory implements HistoryManager {
+
+        @Override
+        public void add(Task task) {
+            int id = task.getId();
+            if (id > 0 && id <= maxId && types[id] != FREE) {
+                touchHistory(id);
+            }
+        }
+
+        @Override
+        public void remove(int id) {
+            removeHistory(id);
+        }
+
+        // от последнего просмотра к первому, как в InMemoryHistoryManager
+        @Override
+        public List<Task> getHistory() {
+            return getHistory(historySize);
+        }
+
+        @Override
+        public List<Task> getHistory(int limit) {
+            List<Task> history = new ArrayList<>(Math.max(0, Math.min(limit, historySize)));
+            for (int id = historyLast; id != 0 && history.size() < limit; id = historyPrev[id]) {
+                history.add(materialize(id));
+            }
+            return history;
+        }
+
+        @Override
+        public long getVersion() {
+            return historyVersion;
+        }
+    }
+
+    // пул строк со счетчиком ссылок: одинаковые наименования и описания хранятся один раз,
+    // строка освобождается, когда на неё не осталось ссылок
+    private static class StringPool {
+
+        static final int NONE = -1;    // ссылка на null
+
+        private final Map<String, Integer> index = new HashMap<>();
+        private String[] values = new String[INITIAL_CAPACITY];
+        private int[] references = new int[INITIAL_CAPACITY];
+        private int[] freeSlots = new int[INITIAL_CAPACITY];
+        private int freeCount;
+        private int used;
+
+        int intern(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer slot = index.get(value);
+            if (slot == null) {
+                slot = freeCount > 0 ? freeSlots[--freeCount] : used++;
+                if (slot == values.length) {
+                    values = Arrays.copyOf(values, slot + (slot >> 1));
+                    references = Arrays.copyOf(references, values.length);
+                }
+                values[slot] = value;
+                index.put(value, slot);
+            }
+            references[slot]++;
+            return slot;
+        }
+
+        void release(int slot) {
+            if (slot == NONE || --references[slot] > 0) {
+                return;
+            }
+            index.remove(values[slot]);
+            values[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount + (freeCount >> 1));
+            }
+            freeSlots[freeCount++] = slot;
+        }
+
+        String get(int slot) {
+            return slot == NONE ? null : values[slot];
+        }
+
+        int size() {
+            return index.size();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Потокобезопасная IntMap для ConcurrentTaskManager.
+// Чтение без блокировок дает ConcurrentHashMap, поэтому здесь примитивные перегрузки только передают ключ
+// в обычные методы: для id вне кэша Integer ключ упаковывается, как и раньше.
+public class ConcurrentIntMap<V> extends ConcurrentHashMap<Integer, V> implements IntMap<V> {
+
+    private static final long serialVersionUID = 1L;    // ConcurrentHashMap сериализуем
+
+    @Override
+    public V get(int key) {
+        return super.get(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        return super.put(key, value);
+    }
+
+    @Override
+    public V remove(int key) {
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return super.containsKey(key);
+    }
+}
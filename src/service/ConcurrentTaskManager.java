@@ -0,0 +1,499 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TimeSlot;
+import model.Type;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Потокобезопасный менеджер задач для HttpTaskServer, обрабатывающего запросы в несколько потоков.
+// - задачи, подзадачи и эпики лежат в ConcurrentIntMap (на основе ConcurrentHashMap),
+//   поэтому чтение по id идет без блокировок;
+// - id выдаются атомарным счетчиком;
+// - индекс приоритетных задач закрыт блокировкой чтения/записи: списки читаются параллельно,
+//   а проверка пересечения и вставка интервала выполняются атомарно;
+// - эпик вместе с его подзадачами закрыт одной из полосатых блокировок (по id эпика),
+//   поэтому изменения подзадач разных эпиков друг друга не ждут;
+// - индекс id для постраничной выдачи закрыт своей блокировкой чтения/записи, страницы читаются параллельно.
+// Порядок захвата: блокировки эпиков (по возрастанию номера) -> индекс приоритетных -> индекс id -> история.
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int PRIORITIZED_BATCH = 256;
+
+    private final AtomicInteger idGenerator;
+    private final ReentrantReadWriteLock prioritizedLock;
+    private final ReentrantReadWriteLock taskIdsLock;
+    private final ReentrantLock[] stripes;
+
+    public ConcurrentTaskManager() {
+        super(new ConcurrentIntMap<>(), new ConcurrentIntMap<>(), new ConcurrentIntMap<>(),
+                new ConcurrentIntMap<>(), new SynchronizedHistoryManager(Managers.getDefaultHistory()));
+        this.idGenerator = new AtomicInteger();
+        this.prioritizedLock = new ReentrantReadWriteLock();
+        this.taskIdsLock = new ReentrantReadWriteLock();
+        this.stripes = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    protected int generateID() {
+        return idGenerator.incrementAndGet();
+    }
+
+    // возвращаем id, только если после него никто не успел получить следующий
+    @Override
+    protected void rollbackID(int id) {
+        idGenerator.compareAndSet(id, id - 1);
+    }
+
+    @Override
+    protected void addTaskByPriority(Task task) {
+        prioritizedLock.writeLock().lock();
+        try {
+            super.addTaskByPriority(task);
+        } finally {
+            prioritizedLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void removeTaskByPriority(int id) {
+        prioritizedLock.writeLock().lock();
+        try {
+            super.removeTaskByPriority(id);
+        } finally {
+            prioritizedLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        prioritizedLock.readLock().lock();
+        try {
+            return super.getPrioritizedTasks();
+        } finally {
+            prioritizedLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskPage<Task> getPrioritizedPage(TaskQuery query) {
+        prioritizedLock.readLock().lock();
+        try {
+            return super.getPrioritizedPage(query);
+        } finally {
+            prioritizedLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime after, LocalDateTime before, int limit) {
+        prioritizedLock.readLock().lock();
+        try {
+            return super.findFreeSlots(durationMinutes, after, before, limit);
+        } finally {
+            prioritizedLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void indexTask(Type type, Task task) {
+        taskIdsLock.writeLock().lock();
+        try {
+            super.indexTask(type, task);
+        } finally {
+            taskIdsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void unindexTask(Type type, int id) {
+        taskIdsLock.writeLock().lock();
+        try {
+            super.unindexTask(type, id);
+        } finally {
+            taskIdsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void clearTaskIds(Type type) {
+        taskIdsLock.writeLock().lock();
+        try {
+            super.clearTaskIds(type);
+        } finally {
+            taskIdsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskPage<Task> getTasksPage(TaskQuery query) {
+        lockPageIndexes();
+        try {
+            return super.getTasksPage(query);
+        } finally {
+            unlockPageIndexes();
+        }
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(TaskQuery query) {
+        if (query.getEpicId() != null && !query.hasWindow()) {
+            ReentrantLock lock = stripe(query.getEpicId());    // список подзадач эпика меняется под его блокировкой
+            lock.lock();
+            try {
+                return super.getSubtasksPage(query);
+            } finally {
+                lock.unlock();
+            }
+        }
+        lockPageIndexes();
+        try {
+            return super.getSubtasksPage(query);
+        } finally {
+            unlockPageIndexes();
+        }
+    }
+
+    // эпики отбираются под блокировками индексов, а копии снимаются уже после них - под блокировкой
+    // каждого эпика (блокировки эпиков по порядку захвата берутся раньше индексов)
+    @Override
+    public TaskPage<Epic> getEpicsPage(TaskQuery query) {
+        TaskPage<Epic> page;
+        lockPageIndexes();
+        try {
+            page = super.getEpicsPage(query);
+        } finally {
+            unlockPageIndexes();
+        }
+        List<Epic> copies = new ArrayList<>(page.getItems().size());
+        for (Epic epic : page.getItems()) {
+            copies.add(copyEpic(epic));
+        }
+        return new TaskPage<>(copies, page.getNext());
+    }
+
+    private void lockPageIndexes() {
+        prioritizedLock.readLock().lock();
+        taskIdsLock.readLock().lock();
+    }
+
+    private void unlockPageIndexes() {
+        taskIdsLock.readLock().unlock();
+        prioritizedLock.readLock().unlock();
+    }
+
+    // обход частями: блокировка чтения держится только пока копируется очередная часть ссылок,
+    // а не всё время, пока медленный клиент читает потоковый ответ
+    @Override
+    public void forEachPrioritized(Consumer<? super Task> action) {
+        List<Task> batch = new ArrayList<>(PRIORITIZED_BATCH);
+        LocalDateTime after = null;
+        do {
+            batch.clear();
+            prioritizedLock.readLock().lock();
+            try {
+                after = prioritizedTasks.forEachAfter(after, PRIORITIZED_BATCH, batch::add);
+            } finally {
+                prioritizedLock.readLock().unlock();
+            }
+            batch.forEach(action);
+        } while (batch.size() == PRIORITIZED_BATCH);
+    }
+
+    // задачи не привязаны к эпикам, для них используем те же полосы блокировок по id самой задачи
+    @Override
+    public void updateTask(Task newTask) {
+        ReentrantLock lock = stripe(newTask.getId());
+        lock.lock();
+        try {
+            super.updateTask(newTask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            super.removeTask(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clearTasks() {
+        lockAll();
+        try {
+            super.clearTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        ReentrantLock lock = stripe(subtask.getEpicId());
+        lock.lock();
+        try {
+            return super.createSubtask(subtask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask newSubtask) {
+        while (true) {
+            Subtask oldSubtask = subtasks.get(newSubtask.getId());
+            Integer oldEpicId = oldSubtask == null ? newSubtask.getEpicId() : oldSubtask.getEpicId();
+            ReentrantLock first = stripe(oldEpicId);
+            ReentrantLock second = stripe(newSubtask.getEpicId());
+            lockInOrder(oldEpicId, newSubtask.getEpicId());
+            try {
+                // пока ждали блокировку, подзадачу могли перенести в другой эпик - тогда повторяем
+                if (subtasks.get(newSubtask.getId()) == oldSubtask) {
+                    super.updateSubtask(newSubtask);
+                    return;
+                }
+            } finally {
+                first.unlock();
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        while (true) {
+            Subtask subtask = subtasks.get(id);
+            ReentrantLock lock = stripe(subtask == null ? null : subtask.getEpicId());
+            lock.lock();
+            try {
+                if (subtasks.get(id) == subtask) {
+                    super.removeSubtask(id);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        lockAll();
+        try {
+            super.clearSubtasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Subtask> getListSubtasksFromEpic(int epicId) {
+        ReentrantLock lock = stripe(epicId);
+        lock.lock();
+        try {
+            return super.getListSubtasksFromEpic(epicId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // эпик меняется вместе с подзадачами, поэтому наружу отдаем его копию, снятую под блокировкой эпика
+    @Override
+    public Epic getEpic(int id) {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            return new Epic(super.getEpic(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicList() {
+        List<Epic> epicList = new ArrayList<>(epics.size());
+        for (Epic epic : epics.values()) {
+            epicList.add(copyEpic(epic));
+        }
+        return epicList;
+    }
+
+    // копия эпика, снятая под его блокировкой
+    private Epic copyEpic(Epic epic) {
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return new Epic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        for (Epic epic : epics.values()) {
+            action.accept(copyEpic(epic));
+        }
+    }
+
+    // пакет проверяется и применяется под всеми блокировками эпиков и блокировкой записи приоритетных задач:
+    // между проверкой и применением никто не займет проверенное время и не удалит эпик.
+    // Вложенные вызовы методов менеджера берут те же блокировки повторно (они реентерабельны)
+    @Override
+    public List<Integer> applyBatch(TaskBatch batch) {
+        lockAll();
+        prioritizedLock.writeLock().lock();
+        try {
+            return super.applyBatch(batch);
+        } finally {
+            prioritizedLock.writeLock().unlock();
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        lockAll();
+        try {
+            super.clearEpics();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            super.removeEpic(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic newEpic) {
+        ReentrantLock lock = stripe(newEpic.getId());
+        lock.lock();
+        try {
+            super.updateEpic(newEpic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Epic checkEpicStatus(Epic epic) {
+        ReentrantLock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return super.checkEpicStatus(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private ReentrantLock stripe(Integer id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private int stripeIndex(Integer id) {
+        return id == null ? 0 : Math.floorMod(id, LOCK_STRIPES);
+    }
+
+    // две блокировки эпиков (при переносе подзадачи) всегда берем по возрастанию номера полосы
+    private void lockInOrder(Integer firstId, Integer secondId) {
+        int first = stripeIndex(firstId);
+        int second = stripeIndex(secondId);
+        stripes[Math.min(first, second)].lock();
+        if (first != second) {
+            stripes[Math.max(first, second)].lock();
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    // история меняется при каждом чтении задачи по id, поэтому все обращения к ней последовательны
+    private static class SynchronizedHistoryManager implements HistoryManager {
+
+        private final HistoryManager historyManager;
+
+        SynchronizedHistoryManager(HistoryManager historyManager) {
+            this.historyManager = historyManager;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            historyManager.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            historyManager.remove(id);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return historyManager.getHistory();
+        }
+
+        @Override
+        public synchronized List<Task> getHistory(int limit) {
+            return historyManager.getHistory(limit);
+        }
+
+        @Override
+        public synchronized long getVersion() {
+            return historyManager.getVersion();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SynchronizedHistoryManager that = (SynchronizedHistoryManager) o;
+            return historyManager.equals(that.historyManager);
+        }
+
+        @Override
+        public int hashCode() {
+            return historyManager.hashCode();
+        }
+    }
+}
@@ -1,92 +1,166 @@
 package service;
 
+import converter.BinarySnapshotFormat;
 import converter.CSVFormat;
+import converter.CsvLineReader;
+import exception.ManagerSaveException;
 import model.Epic;
 import model.Subtask;
 import model.Task;
+import model.TimeSlot;
 import model.Type;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+// Менеджер задач с резервной копией в CSV файле или в двоичном снимке (PersistenceConfig.StorageFormat).
+// Режим сохранения задается PersistenceConfig:
+// - SYNC и FSYNC перезаписывают файл сразу после изменения (FSYNC еще и дожидается сброса на диск);
+// - WRITE_BEHIND только отмечает изменения, а файл перезаписывает фоновый поток по таймеру
+//   или по достижении порога изменений - несколько изменений подряд сохраняются одной записью.
+// Файл всегда пишется во временный и затем заменяется целиком, чтобы при сбое не остался обрезанный файл.
+// Все методы синхронизированы (менеджер можно отдавать многопоточному HttpTaskServer):
+// снимок данных для фоновой записи снимается под той же блокировкой.
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
-    private static File backedFile;
+    private static final String HEADLINE = "id,type,name,status,description,epic,startTime,duration";
+
+    private final File backedFile;
+    private final PersistenceConfig config;
+    private final FlushStatistics flushStatistics;
+    // число изменений, еще не записанных в файл (под блокировкой this)
+    private int pendingChanges;
+    private boolean closed;
+    // во время пакета изменений файл не перезаписывается после каждой операции (под блокировкой this)
+    private boolean inBatch;
+    // фоновая запись: блокировка flushLock упорядочивает записи, чтобы старый снимок не затер новый
+    private final Object flushLock;
+    private final ScheduledExecutorService flushExecutor;
+    private final AtomicBoolean flushRequested;
+    private final Thread shutdownHook;
+    // история для внешних вызовов - под блокировкой менеджера
+    private final HistoryManager lockedHistory = new LockedHistoryManager(historyManager, this);
 
 
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceConfig.defaults());
+    }
+
+    public FileBackedTaskManager(File file, PersistenceConfig config) {
         super();
-        backedFile = file;
+        this.backedFile = file;
+        this.config = config;
+        this.flushStatistics = new FlushStatistics();
+        this.flushLock = new Object();
+        this.flushRequested = new AtomicBoolean();
+        if (config.getSaveMode() == PersistenceConfig.SaveMode.WRITE_BEHIND) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "kanban-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushExecutor.scheduleWithFixedDelay(this::backgroundFlush, config.getFlushIntervalMillis(),
+                    config.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+            // при завершении программы записываем то, что не успел записать фоновый поток
+            shutdownHook = new Thread(this::close, "kanban-write-behind-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } else {
+            flushExecutor = null;
+            shutdownHook = null;
+        }
     }
 
+    public static FileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, PersistenceConfig.defaults());
+    }
 
     // загрузка задач и истории из файла во время запуска программы
-    public static FileBackedTaskManager loadFromFile(File file) {
-        try (BufferedReader reader = new BufferedReader(
-                new FileReader(file, StandardCharsets.UTF_8))) {
-            FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file);
+    // загрузка выполняется за один проход по файлу: строки разбираются прямо из байтового буфера,
+    // а подзадачи привязываются к эпикам по индексу уже после чтения всех строк
+    // формат файла определяется по первым байтам: двоичный снимок читается через отображение в память
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceConfig config) {
+        try {
+            if (BinarySnapshotFormat.isBinarySnapshot(file.toPath())) {
+                return loadFromBinary(file, config);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка чтения файла: " + file.getName(), e);
+        }
+        try (CsvLineReader reader = new CsvLineReader(new FileInputStream(file))) {
+            FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file, config);
             int maxId = 0;
-            while (reader.ready()) {
-                String line = reader.readLine();
-                if (!line.isEmpty() && !line.isBlank()) {
-                    String[] parts = line.split(",");
-                    // по первому элементу массива определяем данные строки
-                    switch (parts[0]) {
-                        case "id":
-                            break;    // ничего не делаем
-                        case "HISTORY":
-                            // так как строка с историей идет последней при парсинге, то перед созданием истории
-                            List<Integer> historyNumbers = CSVFormat.historyFromString(line);
-                            for (Integer numId : historyNumbers) {
-                                try {
-                                    Task task = fileBackedTaskManager.tasksCollect.get(numId);
-                                    fileBackedTaskManager.historyManager.add(task);
-                                } catch (NullPointerException e) {
-                                    throw new RuntimeException("Считать историю по id: " + numId + " не удалось. ", e);
-                                }
-                            }
-                            // нужно добавить список с subtasks в каждый epic - используем метод обновления эпика.
-                            for (Epic epic : fileBackedTaskManager.epics.values()) {
-                                fileBackedTaskManager.updateEpic(epic);
-                            }
+            while (reader.next()) {
+                if (reader.isBlank()) {
+                    continue;
+                }
+                // по первому полю строки определяем данные строки
+                if (reader.fieldEquals(0, "id")) {
+                    continue;    // заголовок - ничего не делаем
+                }
+                if (reader.fieldEquals(0, Type.HISTORY.name())) {
+                    // строка с историей идет последней, все задачи из неё уже прочитаны
+                    List<Integer> historyNumbers = CSVFormat.historyFromLine(reader);
+                    for (Integer numId : historyNumbers) {
+                        try {
+                            Task task = fileBackedTaskManager.tasksCollect.get(numId);
+                            fileBackedTaskManager.historyManager.add(task);
+                        } catch (NullPointerException e) {
+                            throw new RuntimeException("Считать историю по id: " + numId + " не удалось. ", e);
+                        }
+                    }
+                    continue;
+                }
+                // остальные строки - задачи, подзадачи и эпики
+                try {
+                    Task receivedTask = CSVFormat.taskFromLine(reader);
+                    if (receivedTask == null) {
+                        String message = "Тип задачи не поддерживается при парсинге файла: " +
+                                file.getName() + " Строка: " + reader.getLine();
+                        System.out.println(message);
+                        continue;
+                    }
+                    int id = receivedTask.getId();
+                    if (id > maxId) maxId = id;
+                    fileBackedTaskManager.tasksCollect.put(id, receivedTask);
+                    switch (receivedTask.getTaskType()) {
+                        case TASK:
+                            fileBackedTaskManager.tasks.put(id, receivedTask);
+                            fileBackedTaskManager.restoreTaskByPriority(receivedTask);
+                            break;
+                        case SUBTASK:
+                            Subtask receivedSubtask = (Subtask) receivedTask;
+                            fileBackedTaskManager.subtasks.put(id, receivedSubtask);
+                            fileBackedTaskManager.linkSubtask(receivedSubtask.getEpicId(), id);
+                            fileBackedTaskManager.restoreTaskByPriority(receivedSubtask);
                             break;
-                        // список с задачами не относится ни к одному типу, поэтому его обработку пишем в default.
                         default:
-                            try {
-                                int id = Integer.parseInt(parts[0]);
-                                if (id > maxId) maxId = id;
-                                Type type = Type.valueOf(parts[1]);
-                                switch (type) {
-                                    case TASK:
-                                        Task receivedTask = CSVFormat.taskFromString(line, type);
-                                        fileBackedTaskManager.tasksCollect.put(id, receivedTask);
-                                        fileBackedTaskManager.tasks.put(id, receivedTask);
-                                        break;
-                                    case SUBTASK:
-                                        Subtask receivedSubtask = (Subtask) CSVFormat.taskFromString(line, type);
-                                        fileBackedTaskManager.tasksCollect.put(id, receivedSubtask);
-                                        fileBackedTaskManager.subtasks.put(id, receivedSubtask);
-                                        break;
-                                    case EPIC:
-                                        Epic receivedEpic = (Epic) CSVFormat.taskFromString(line, type);
-                                        fileBackedTaskManager.tasksCollect.put(id, receivedEpic);
-                                        fileBackedTaskManager.epics.put(id, receivedEpic);
-                                        break;
-                                    default:
-                                        String message = "Тип задачи не поддерживается при парсинге файла: " +
-                                                backedFile.getName() + " Строка: " + line;
-                                        System.out.println(message);
-                                        break;
-                                }
-                            } catch (Exception e) {
-                                throw new RuntimeException("Неизвестный тип данных при чтении: " +
-                                        backedFile.getName() + " Строка: " + line, e);
-                            }
+                            fileBackedTaskManager.epics.put(id, (Epic) receivedTask);
                     }
+                } catch (Exception e) {
+                    throw new RuntimeException("Неизвестный тип данных при чтении: " +
+                            file.getName() + " Строка: " + reader.getLine(), e);
                 }
             }
+            // списки подзадач эпиков собираем по индексу эпик -> подзадачи одним проходом,
+            // без updateEpic, который перезаписывал бы файл после каждого эпика
+            fileBackedTaskManager.restoreEpicSubtasks();
+            fileBackedTaskManager.restoreTaskIds();
             identifier = maxId;
             return fileBackedTaskManager;
         } catch (IOException e) {
@@ -94,121 +168,468 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
-    // Сохранение задач и истории в файл
+    // загрузка из двоичного снимка: записи уже разобраны, остается разложить их по хранилищам менеджера
+    private static FileBackedTaskManager loadFromBinary(File file, PersistenceConfig config) throws IOException {
+        BinarySnapshotFormat.Snapshot snapshot = BinarySnapshotFormat.read(file.toPath());
+        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file, config);
+        List<Task> records = snapshot.getRecords();
+        for (int i = 0; i < records.size(); i++) {
+            Task task = records.get(i);
+            fileBackedTaskManager.tasksCollect.put(task.getId(), task);
+            if (snapshot.isHistoryOnly(i)) {
+                continue;    // задача нужна только для восстановления истории
+            }
+            switch (task.getTaskType()) {
+                case TASK:
+                    fileBackedTaskManager.tasks.put(task.getId(), task);
+                    break;
+                case SUBTASK:
+                    Subtask subtask = (Subtask) task;
+                    fileBackedTaskManager.subtasks.put(subtask.getId(), subtask);
+                    fileBackedTaskManager.linkSubtask(subtask.getEpicId(), subtask.getId());
+                    break;
+                default:
+                    fileBackedTaskManager.epics.put(task.getId(), (Epic) task);
+            }
+        }
+        // приоритетные задачи записаны уже упорядоченными по времени начала
+        for (int id : snapshot.getPrioritizedIds()) {
+            fileBackedTaskManager.restoreTaskByPriority(fileBackedTaskManager.tasksCollect.get(id));
+        }
+        fileBackedTaskManager.restoreEpicSubtasks();
+        fileBackedTaskManager.restoreTaskIds();
+        for (int id : snapshot.getHistoryIds()) {
+            Task task = fileBackedTaskManager.tasksCollect.get(id);
+            if (task == null) {
+                throw new RuntimeException("Считать историю по id: " + id + " не удалось. ");
+            }
+            fileBackedTaskManager.historyManager.add(task);
+        }
+        identifier = snapshot.getLastId();
+        return fileBackedTaskManager;
+    }
+
+    // перевод файла менеджера из одного формата в другой (формат исходного файла определяется сам)
+    public static void convert(File source, File target, PersistenceConfig.StorageFormat format) {
+        FileBackedTaskManager manager = loadFromFile(source);
+        synchronized (manager) {
+            writeFile(target.toPath().toAbsolutePath(), manager.render(format), false);
+        }
+    }
+
+    // записывает в файл все накопленные изменения (в режиме WRITE_BEHIND - не дожидаясь фонового потока)
+    public void flush() {
+        if (config.getSaveMode() != PersistenceConfig.SaveMode.WRITE_BEHIND) {
+            synchronized (this) {
+                if (pendingChanges > 0) {
+                    writeSnapshot(render(config.getStorageFormat()), pendingChanges);
+                    pendingChanges = 0;
+                }
+            }
+            return;
+        }
+        synchronized (flushLock) {
+            byte[] snapshot;
+            int changes;
+            synchronized (this) {
+                changes = pendingChanges;
+                if (changes == 0) {
+                    return;
+                }
+                snapshot = render(config.getStorageFormat());
+                pendingChanges = 0;
+            }
+            // сам файл пишем уже без блокировки менеджера - запросы в это время не ждут диск
+            try {
+                writeSnapshot(snapshot, changes);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingChanges += changes;    // изменения остаются несохраненными до следующей попытки
+                }
+                throw e;
+            }
+        }
+    }
+
+    // останавливает фоновую запись и сохраняет оставшиеся изменения
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                flushExecutor.awaitTermination(config.getFlushIntervalMillis() + 1_000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // close вызван из самого shutdown hook - программа уже завершается
+            }
+        }
+        flush();
+    }
+
+    public FlushStatistics getFlushStatistics() {
+        return flushStatistics;
+    }
+
+    public PersistenceConfig getPersistenceConfig() {
+        return config;
+    }
+
+    // Сохранение задач и истории в файл (вызывается под блокировкой this после каждого изменения)
     private void save() {
-        try (final BufferedWriter writer = new BufferedWriter(
-                new FileWriter(backedFile, StandardCharsets.UTF_8))) {
-            ArrayList<Task> history = (ArrayList<Task>) getHistory();
-            // сохраняем задачи (подзадачи и эпики)
-            String headline = "id,type,name,status,description,epic,startTime,duration";
-            writer.write(headline);
-            writer.newLine();
-            for (Task task : history) {
-                writer.write(CSVFormat.taskToString(task));
-                writer.newLine();
+        pendingChanges++;
+        if (inBatch) {
+            return;    // пакет сохраняется один раз после последней операции
+        }
+        persist();
+    }
+
+    private void persist() {
+        if (config.getSaveMode() == PersistenceConfig.SaveMode.WRITE_BEHIND && !closed) {
+            // запись выполнит фоновый поток: по таймеру или сразу, если изменений накопилось много
+            if (pendingChanges >= config.getFlushChangesThreshold() && flushRequested.compareAndSet(false, true)) {
+                flushExecutor.execute(this::backgroundFlush);
+            }
+            return;
+        }
+        writeSnapshot(render(config.getStorageFormat()), pendingChanges);
+        pendingChanges = 0;
+    }
+
+    private void backgroundFlush() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // фоновый поток не должен остановиться из-за одной неудачной записи - повторим по таймеру
+            System.err.println("Фоновая запись файла " + backedFile + " не удалась, изменения запишутся при повторе");
+            e.printStackTrace();
+        }
+    }
+
+    // содержимое файла в выбранном формате
+    private byte[] render(PersistenceConfig.StorageFormat format) {
+        if (format == PersistenceConfig.StorageFormat.BINARY) {
+            return renderBinary();
+        }
+        return renderCsv().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // CSV: задачи (подзадачи и эпики), пустая строка и история
+    // история может быть ограничена по размеру, поэтому записываются все задачи менеджера,
+    // а из истории - только задачи, которых в менеджере уже нет (без них историю не восстановить)
+    private String renderCsv() {
+        List<Task> history = getHistory();
+        StringBuilder builder = new StringBuilder(HEADLINE.length() + 64 * (tasksCollect.size() + 2));
+        builder.append(HEADLINE).append(System.lineSeparator());
+        for (Epic epic : epics.values()) {
+            builder.append(CSVFormat.taskToString(epic)).append(System.lineSeparator());
+        }
+        for (Task task : tasks.values()) {
+            builder.append(CSVFormat.taskToString(task)).append(System.lineSeparator());
+        }
+        for (Subtask subtask : linkedSubtasks()) {
+            builder.append(CSVFormat.taskToString(subtask)).append(System.lineSeparator());
+        }
+        for (Task task : history) {
+            if (!isStored(task.getId())) {
+                builder.append(CSVFormat.taskToString(task)).append(System.lineSeparator());
+            }
+        }
+        // сохраняем историю отдельной строкой вконце файла
+        builder.append(System.lineSeparator());
+        builder.append(CSVFormat.historyToString(history));
+        return builder.toString();
+    }
+
+    private boolean isStored(int id) {
+        return tasks.containsKey(id) || subtasks.containsKey(id) || epics.containsKey(id);
+    }
+
+    // подзадачи в порядке их привязки к эпикам - в том же порядке они привяжутся при загрузке
+    private List<Subtask> linkedSubtasks() {
+        List<Subtask> linkedSubtasks = new ArrayList<>(subtasks.size());
+        for (Epic epic : epics.values()) {
+            forEachSubtaskId(epic.getId(), subtaskId -> {
+                Subtask subtask = subtasks.get(subtaskId);
+                if (subtask != null) {
+                    linkedSubtasks.add(subtask);
+                }
+            });
+        }
+        return linkedSubtasks;
+    }
+
+    // двоичный снимок: все задачи менеджера, подзадачи в порядке их привязки к эпикам,
+    // приоритетные задачи и история от первого просмотра к последнему
+    private byte[] renderBinary() {
+        List<Task> history = new ArrayList<>(getHistory());
+        Collections.reverse(history);
+        BinarySnapshotFormat.Snapshot snapshot = BinarySnapshotFormat.Snapshot.of(epics.values(), tasks.values(),
+                linkedSubtasks(), history, getPrioritizedTasks(), identifier);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 48 * snapshot.getRecords().size());
+        try {
+            BinarySnapshotFormat.write(out, snapshot);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка формирования снимка: " + backedFile.getName(), e);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeSnapshot(byte[] snapshot, int changes) {
+        long begin = System.nanoTime();
+        try {
+            writeFile(backedFile.toPath().toAbsolutePath(), snapshot,
+                    config.getSaveMode() == PersistenceConfig.SaveMode.FSYNC);
+        } catch (RuntimeException e) {
+            flushStatistics.recordFailure();
+            throw e;
+        }
+        flushStatistics.record(System.nanoTime() - begin, changes, snapshot.length);
+    }
+
+    // запись во временный файл рядом с основным и замена основного файла
+    private static void writeFile(Path target, byte[] content, boolean force) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (force) {
+                    channel.force(true);
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
             }
-            // сохраняем историю отдельной строкой вконце файла
-            writer.newLine();
-            writer.write(CSVFormat.historyToString(historyManager));
         } catch (IOException e) {
-            throw new RuntimeException("Ошибка записи файла: " + backedFile.getName(), e);
+            throw new ManagerSaveException("Ошибка записи файла: " + target.getFileName(), e);
         }
     }
 
     @Override
-    public Task getTask(int id) {
+    public synchronized Task getTask(int id) {
         Task task = super.getTask(id);
         save();
         return task;
     }
 
     @Override
-    public Subtask getSubtask(int id) {
+    public synchronized Subtask getSubtask(int id) {
         Subtask subtask = super.getSubtask(id);
         save();
         return subtask;
     }
 
     @Override
-    public Epic getEpic(int id) {
+    public synchronized Epic getEpic(int id) {
         Epic epic = super.getEpic(id);
         save();
         return epic;
     }
 
     @Override
-    public Task createTask(Task task) {
+    public synchronized Task createTask(Task task) {
         Task createdTask = super.createTask(task);
         save();
         return createdTask;
     }
 
     @Override
-    public void clearTasks() {
+    public synchronized void clearTasks() {
         super.clearTasks();
         save();
     }
 
     @Override
-    public void updateTask(Task newTask) {
+    public synchronized void updateTask(Task newTask) {
         super.updateTask(newTask);
         save();
     }
 
     @Override
-    public void removeTask(int id) {
+    public synchronized void removeTask(int id) {
         super.removeTask(id);
         save();
     }
 
     @Override
-    public Subtask createSubtask(Subtask subtask) {
+    public synchronized Subtask createSubtask(Subtask subtask) {
         Subtask createdSubtask = super.createSubtask(subtask);
         save();
         return createdSubtask;
     }
 
     @Override
-    public void clearSubtasks() {
+    public synchronized void clearSubtasks() {
         super.clearSubtasks();
         save();
     }
 
     @Override
-    public void updateSubtask(Subtask newSubtask) {
+    public synchronized void updateSubtask(Subtask newSubtask) {
         super.updateSubtask(newSubtask);
         save();
     }
 
     @Override
-    public void removeSubtask(int id) {
+    public synchronized void removeSubtask(int id) {
         super.removeSubtask(id);
         save();
     }
 
     @Override
-    public Epic createEpic(Epic epic) {
+    public synchronized Epic createEpic(Epic epic) {
         Epic createdEpic = super.createEpic(epic);
         save();
         return createdEpic;
     }
 
     @Override
-    public void clearEpics() {
+    public synchronized void clearEpics() {
         super.clearEpics();
         save();
     }
 
     @Override
-    public void removeEpic(int id) {
+    public synchronized void removeEpic(int id) {
         super.removeEpic(id);
         save();
     }
 
     @Override
-    public void updateEpic(Epic newEpic) {
+    public synchronized void updateEpic(Epic newEpic) {
         super.updateEpic(newEpic);
         save();
     }
 
+    // весь пакет - одна запись файла: если пакет не прошел проверку, файл не меняется
+    @Override
+    public synchronized List<Integer> applyBatch(TaskBatch batch) {
+        List<Integer> ids;
+        inBatch = true;
+        try {
+            ids = super.applyBatch(batch);
+        } finally {
+            inBatch = false;
+        }
+        if (!ids.isEmpty()) {
+            persist();
+        }
+        return ids;
+    }
+
+    // чтение под той же блокировкой, что и изменения: хранилища InMemoryTaskManager не потокобезопасны,
+    // а многопоточный HttpTaskServer читает их параллельно с изменениями. Обход forEach* идет по копии,
+    // снятой под блокировкой, чтобы медленный потребитель (запись ответа в сеть) не держал менеджер
+    @Override
+    public synchronized List<Task> getTasksList() {
+        return super.getTasksList();
+    }
+
+    @Override
+    public synchronized TaskPage<Task> getTasksPage(TaskQuery query) {
+        return super.getTasksPage(query);
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        getTasksList().forEach(action);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtaskList() {
+        return super.getSubtaskList();
+    }
+
+    @Override
+    public synchronized TaskPage<Subtask> getSubtasksPage(TaskQuery query) {
+        return super.getSubtasksPage(query);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        getSubtaskList().forEach(action);
+    }
+
+    @Override
+    public synchronized List<Subtask> getListSubtasksFromEpic(int epicId) {
+        return super.getListSubtasksFromEpic(epicId);
+    }
+
+    @Override
+    public synchronized List<Epic> getEpicList() {
+        return super.getEpicList();
+    }
+
+    @Override
+    public synchronized TaskPage<Epic> getEpicsPage(TaskQuery query) {
+        return super.getEpicsPage(query);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        getEpicList().forEach(action);
+    }
+
+    @Override
+    public synchronized Epic checkEpicStatus(Epic epic) {
+        return super.checkEpicStatus(epic);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public HistoryManager getHistoryManager() {
+        return lockedHistory;
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public void forEachPrioritized(Consumer<? super Task> action) {
+        getPrioritizedTasks().forEach(action);
+    }
+
+    @Override
+    public synchronized TaskPage<Task> getPrioritizedPage(TaskQuery query) {
+        return super.getPrioritizedPage(query);
+    }
+
+    @Override
+    public synchronized List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime after,
+                                                     LocalDateTime before, int limit) {
+        return super.findFreeSlots(durationMinutes, after, before, limit);
+    }
+
+    @Override
+    public synchronized long getVersion(TaskCollection collection) {
+        return super.getVersion(collection);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
 }
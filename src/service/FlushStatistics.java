@@ -0,0 +1,75 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Статистика записи файла FileBackedTaskManager: число записей, сколько изменений они покрыли,
+// время записи (последняя, средняя, максимальная и гистограмма для процентилей), размер последнего
+// записанного файла, а также число неудачных попыток.
+// Счетчики без блокировок: запись статистики не задерживает сохранение и чтение метрик
+public class FlushStatistics {
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder savedChanges = new LongAdder();
+    private final AtomicLong lastNanos = new AtomicLong();
+    private final AtomicLong lastBytes = new AtomicLong();
+    private final LatencyHistogram durations = new LatencyHistogram();
+
+    void record(long nanos, int changes) {
+        savedChanges.add(changes);
+        lastNanos.set(nanos);
+        durations.record(nanos);
+    }
+
+    void record(long nanos, int changes, long bytes) {
+        lastBytes.set(bytes);
+        record(nanos, changes);
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    public long getFlushes() {
+        return durations.getCount();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    // сколько изменений менеджера сохранено - при фоновой записи их больше, чем самих записей
+    public long getSavedChanges() {
+        return savedChanges.sum();
+    }
+
+    // размер последнего записанного файла в байтах
+    public long getLastBytes() {
+        return lastBytes.get();
+    }
+
+    public LatencyHistogram getDurations() {
+        return durations;
+    }
+
+    public double getLastMillis() {
+        return lastNanos.get() / 1_000_000.0;
+    }
+
+    public double getAverageMillis() {
+        long flushes = getFlushes();
+        return flushes == 0 ? 0 : durations.getTotalNanos() / 1_000_000.0 / flushes;
+    }
+
+    public double getMaxMillis() {
+        return durations.getMaxNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlushStatistics{flushes=%d, failures=%d, savedChanges=%d, lastBytes=%d, "
+                        + "lastMillis=%.3f, averageMillis=%.3f, maxMillis=%.3f}",
+                getFlushes(), getFailures(), getSavedChanges(), getLastBytes(), getLastMillis(),
+                getAverageMillis(), getMaxMillis());
+    }
+}
@@ -12,4 +12,10 @@ public interface HistoryManager {
 
     List<Task> getHistory();
 
+    // не больше limit последних просмотров, начиная с самого свежего
+    List<Task> getHistory(int limit);
+
+    // счетчик версии: увеличивается при каждом изменении порядка просмотров
+    long getVersion();
+
 }
@@ -4,8 +4,18 @@ import model.Task;
 
 import java.util.*;
 
+// История просмотров: двусвязный список от первого просмотра к последнему и индекс id -> узел.
+// Размер истории ограничен: при переполнении вытесняется самый старый просмотр.
+// Добавление, повторный просмотр и удаление выполняются за O(1): повторный просмотр только
+// переносит уже найденный узел в конец списка и не трогает индекс.
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> linkedHistory;
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final IntMap<Node> linkedHistory;
+    private final int capacity;
+    private int size;
+    private long version;
 
     @Override
     public boolean equals(Object o) {
@@ -23,7 +33,15 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     public InMemoryHistoryManager() {
-        linkedHistory = new HashMap<>();
+        this(UNLIMITED);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля: " + capacity);
+        }
+        this.capacity = capacity;
+        linkedHistory = new IntHashMap<>();
     }
 
     private static class Node {
@@ -55,72 +73,95 @@ public class InMemoryHistoryManager implements HistoryManager {
     Node first;
     Node last;
 
-    public void linkLast(Task task) {
-        final Node l = last;
-        final Node newNode = new Node(l, task, null);
-        last = newNode;
-        if (l == null)
-            first = newNode;
-        else
-            l.next = newNode;
-        linkedHistory.put(task.getId(), newNode);
-    }
-
-
     @Override
     public void add(Task task) {
         Node node = linkedHistory.get(task.getId());
-        removeNode(node);
-        linkLast(task);
-    }
-
-
-    private void removeNode(Node node) {
         if (node != null) {
-            Node nodePrev = node.prev;
-            Node nodeNext = node.next;
-            if (nodePrev != null && nodeNext != null) {
-                nodePrev.next = nodeNext;
-                nodeNext.prev = nodePrev;
-                linkedHistory.put(nodePrev.item.getId(), nodePrev);
-                linkedHistory.put(nodeNext.item.getId(), nodeNext);
-            }
-            if (nodePrev == null && nodeNext != null) {
-                nodeNext.prev = null;
-                linkedHistory.put(nodeNext.item.getId(), nodeNext);
-                first = nodeNext;
-            }
-            if (nodeNext == null && nodePrev != null) {
-                nodePrev.next = null;
-                linkedHistory.put(nodePrev.item.getId(), nodePrev);
-                last = nodePrev;
+            node.item = task;    // задача могла быть обновлена - храним последнюю версию
+            if (node != last) {
+                unlink(node);
+                append(node);
+                version++;
             }
-            if (nodePrev == null && nodeNext == null) {
-                first = null;
-                last = null;
-            }
-            linkedHistory.remove(node.item.getId());
+            return;
         }
+        if (size == capacity) {
+            removeNode(first);    // вытесняем самый старый просмотр
+        }
+        node = new Node(null, task, null);
+        append(node);
+        linkedHistory.put(task.getId(), node);
+        size++;
+        version++;
     }
 
     @Override
     public void remove(int id) {
-        Node node = linkedHistory.getOrDefault(id,
-                new Node(null, null, null));
-        if (node.item != null) {
-            removeNode(node);
-        }
+        removeNode(linkedHistory.get(id));
     }
 
-
     @Override
     public List<Task> getHistory() {
-        List<Task> history = new ArrayList<>();
+        return getHistory(size);
+    }
+
+    // последние limit просмотров, начиная с самого свежего: обходится только нужная часть списка
+    @Override
+    public List<Task> getHistory(int limit) {
+        List<Task> history = new ArrayList<>(Math.max(0, Math.min(limit, size)));
         Node temp = last;
-        while (temp != null) {
-            history.add(linkedHistory.get(temp.item.getId()).item);
+        while (temp != null && history.size() < limit) {
+            history.add(temp.item);
             temp = temp.prev;
         }
         return history;
     }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void removeNode(Node node) {
+        if (node != null) {
+            unlink(node);
+            linkedHistory.remove(node.item.getId());
+            size--;
+            version++;
+        }
+    }
+
+    private void append(Node node) {
+        node.prev = last;
+        node.next = null;
+        if (last == null) {
+            first = node;
+        } else {
+            last.next = node;
+        }
+        last = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev == null) {
+            first = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            last = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
 }
@@ -7,48 +7,112 @@ import model.*;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    protected final HashMap<Integer, Task> tasks;
-    protected final HashMap<Integer, Subtask> subtasks;
-    protected final HashMap<Integer, Epic> epics;
+    // хранилища с ключами int: поиск по id не упаковывает ключ (см. IntHashMap)
+    protected final IntMap<Task> tasks;
+    protected final IntMap<Subtask> subtasks;
+    protected final IntMap<Epic> epics;
+    protected final IntMap<SortedIntSet> epicSubtaskIds;
     protected static int identifier;
     protected final HistoryManager historyManager;
-    protected final TreeSet<Task> prioritizedTasks;
-    protected final Map<Integer, Task> tasksCollect;
+    protected final TimeIntervalIndex prioritizedTasks;
+    protected final IntMap<Task> tasksCollect;
+    // id задач каждого типа и статуса по возрастанию - для постраничной выдачи
+    private final TaskIdIndex taskIds;
+    // версии коллекций для условных запросов сервера: увеличиваются вместе с изменением индекса id,
+    // через который проходит каждое изменение задач, подзадач и эпиков
+    private final VersionCounters versions;
 
     public InMemoryTaskManager() {
-        this.tasks = new HashMap<>();
-        this.subtasks = new HashMap<>();
-        this.epics = new HashMap<>();
+        this(new IntHashMap<>(), new IntHashMap<>(), new IntHashMap<>(), new IntHashMap<>(),
+                Managers.getDefaultHistory());
+    }
+
+    // конструктор для наследников, которым нужны другие реализации хранилищ (например, потокобезопасные)
+    protected InMemoryTaskManager(IntMap<Task> tasks, IntMap<Subtask> subtasks, IntMap<Epic> epics,
+                                  IntMap<SortedIntSet> epicSubtaskIds, HistoryManager historyManager) {
+        this.tasks = tasks;
+        this.subtasks = subtasks;
+        this.epics = epics;
+        // id подзадач каждого эпика (по возрастанию, без упаковки в Integer),
+        // чтобы не перебирать все подзадачи ради одного эпика
+        this.epicSubtaskIds = epicSubtaskIds;
         identifier = 0;
-        this.historyManager = Managers.getDefaultHistory();
-        Comparator<Task> startTimeComparator = (o1, o2) -> {
-            Optional<LocalDateTime> time1 = Optional.ofNullable(o1.getStartTime());
-            Optional<LocalDateTime> time2 = Optional.ofNullable(o2.getStartTime());
-            if (time1.isPresent() && time2.isPresent()) {
-                if (time1.get().isAfter(time2.get())) return 1;
-                else return -1;
-            }
-            return 0;
-        };
-        this.prioritizedTasks = new TreeSet<>(startTimeComparator);
+        this.historyManager = historyManager;
+        // приоритетные задачи упорядочены по времени начала, пересечения проверяются по соседним интервалам
+        this.prioritizedTasks = new TimeIntervalIndex();
         // мапа для загрузки данных из файлового хранилища во время запука FileBackedTaskManager
-        tasksCollect = new HashMap<>();
+        tasksCollect = new IntHashMap<>();
+        this.taskIds = new TaskIdIndex();
+        this.versions = new VersionCounters();
     }
 
 
-    private int generateID() {
+    protected int generateID() {
         return ++identifier;
     }
 
+    // если создание задачи отменяется, то возвращаем идентификатор в прежнее состояние
+    protected void rollbackID(int id) {
+        identifier--;
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
 
+    // сначала весь пакет проверяется по текущему состоянию, затем применяется обычными методами менеджера:
+    // после проверки ни одна операция уже не завершится ошибкой, поэтому пакет не применяется частично.
+    // Эпик пересчитывается по каждой своей подзадаче пакета с обновлением статистики (без перебора подзадач)
+    @Override
+    public List<Integer> applyBatch(TaskBatch batch) {
+        BatchValidator.validate(batch, new BatchValidator.Target() {
+            @Override
+            public boolean contains(Type type, int id) {
+                switch (type) {
+                    case TASK:
+                        return tasks.containsKey(id);
+                    case SUBTASK:
+                        return subtasks.containsKey(id);
+                    default:
+                        return epics.containsKey(id);
+                }
+            }
+
+            @Override
+            public void forEachSubtaskId(int epicId, IntConsumer action) {
+                InMemoryTaskManager.this.forEachSubtaskId(epicId, action);
+            }
+
+            @Override
+            public int findCrossed(Task task, IntPredicate ignored) {
+                Task crossed = prioritizedTasks.findCrossed(task, ignored);
+                return crossed == null ? 0 : crossed.getId();
+            }
+        });
+        return applyValidatedBatch(batch);
+    }
+
+    // применение проверенного пакета - наследники оборачивают его своим сохранением
+    protected List<Integer> applyValidatedBatch(TaskBatch batch) {
+        return batch.applyTo(this);
+    }
+
+    @Override
+    public long getVersion(TaskCollection collection) {
+        if (collection == TaskCollection.HISTORY) {
+            return historyManager.getVersion();
+        }
+        return versions.get(collection);
+    }
+
     @Override
     public HistoryManager getHistoryManager() {
         return historyManager;
@@ -59,9 +123,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (tasks.containsKey(task.getId())) {
             throw new ValidationException("Задача c id=" + task.getId() + " уже создана!");
         }
-        task.setId(generateID());
-        addTaskByPriority(task);    // добавляем в приоритетные задачи
+        addNewTaskByPriority(task);    // выдаем id и добавляем в приоритетные задачи
         tasks.put(task.getId(), task);    // вносим задачу в память менеджера
+        indexTask(Type.TASK, task);
         historyManager.add(task);    // добавляем в историю
         return task;
     }
@@ -71,6 +135,16 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(tasks.values());
     }
 
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public TaskPage<Task> getTasksPage(TaskQuery query) {
+        return page(Type.TASK, query, tasks::get);
+    }
+
     @Override
     public Task getTask(int id) {
         Task task = tasks.get(id);
@@ -83,14 +157,12 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearTasks() {
-        // очищаем из приоритетного множества задачи
-        List<Task> priorityTasks = getPrioritizedTasks();
-        for (Task task : tasks.values()) {
-            priorityTasks.remove(task);
+        // убираем из приоритетных только задачи, подзадачи остаются на своих местах
+        for (Integer id : tasks.keySet()) {
+            removeTaskByPriority(id);
         }
-        prioritizedTasks.clear();
-        prioritizedTasks.addAll(priorityTasks);
         tasks.clear();    // очищаем сами задачи
+        clearTaskIds(Type.TASK);
     }
 
     @Override
@@ -102,6 +174,7 @@ public class InMemoryTaskManager implements TaskManager {
             // заменяем задачу в приоритетном множестве на случай, если в newTask изменился приоритет
             addTaskByPriority(newTask);
             tasks.put(newTask.getId(), newTask);    // обновляем
+            indexTask(Type.TASK, newTask);
             historyManager.add(newTask);
         } else {
             StringBuilder billId = new StringBuilder();
@@ -118,11 +191,9 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeTask(int id) {
         if (tasks.containsKey(id)) {
             // удаляем задачу из всех таблиц и списков
-            List<Task> priorityTasks = getPrioritizedTasks();
-            priorityTasks.remove(tasks.get(id));
-            prioritizedTasks.clear();
-            prioritizedTasks.addAll(priorityTasks);
+            removeTaskByPriority(id);
             tasks.remove(id);
+            unindexTask(Type.TASK, id);
             historyManager.remove(id);
         } else {
             throw new ManagerSaveException("Задачи с id = " + id + " для удаления не существует!");
@@ -136,17 +207,20 @@ public class InMemoryTaskManager implements TaskManager {
             throw new ValidationException("Подзадача c id=" + subtask.getId() + " уже создана!");
         }
         // Проверка прикрепленного эпика
-        if (subtasks.containsKey(subtask.getEpicId()) || !epics.containsKey(subtask.getEpicId())) {
+        if (subtask.getEpicId() == null || subtasks.containsKey(subtask.getEpicId())
+                || !epics.containsKey(subtask.getEpicId())) {
             throw new ManagerSaveException("В подзадаче неверно указан epicId=" + subtask.getEpicId() +
                     " Эпика с таким id не существует!");
         }
-        subtask.setId(generateID());
-        addTaskByPriority(subtask);    // добавляем в множество подзадачу
+        addNewTaskByPriority(subtask);    // выдаем id и добавляем в множество подзадачу
         // добавляем задачу в память
         subtasks.put(subtask.getId(), subtask);
-        // Обновляем эпик
-        Epic updatingEpic = epics.get(subtask.getEpicId());
-        updateEpic(updatingEpic);
+        linkSubtask(subtask.getEpicId(), subtask.getId());
+        // Обновляем статус и время эпика только по новой подзадаче
+        Epic epic = epics.get(subtask.getEpicId());
+        epic.addSubtask(subtask);
+        indexTask(Type.SUBTASK, subtask);
+        indexTask(Type.EPIC, epic);    // статус эпика мог измениться
         historyManager.add(subtask);    // делаем запись в истории
         return subtask;
     }
@@ -156,6 +230,22 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
+    // подзадачи одного эпика без временного окна берутся из индекса эпик -> подзадачи
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(TaskQuery query) {
+        if (query.getEpicId() != null && !query.hasWindow()) {
+            TaskPage.Candidates candidates = new TaskPage.Candidates();
+            forEachSubtaskId(query.getEpicId(), candidates::add);
+            return TaskPage.fromCandidates(candidates, query, subtasks::get);
+        }
+        return page(Type.SUBTASK, query, subtasks::get);
+    }
+
     @Override
     public Subtask getSubtask(int id) {
         Subtask subtask = subtasks.get(id);
@@ -169,23 +259,27 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void clearSubtasks() {
         for (Epic epic : epics.values()) {    // удаляем подзадачи из эпиков
-            ArrayList<Subtask> listSubtaskByEpic = epic.getSubtasks();
-            listSubtaskByEpic.clear();
+            epic.clearSubtasks();
+        }
+        for (SortedIntSet subtaskIds : epicSubtaskIds.values()) {
+            subtaskIds.clear();
         }
-        // очищаем из приоритетного множества подзадачи
-        List<Task> priorityTasks = getPrioritizedTasks();
-        for (Task subtask : subtasks.values()) {
-            priorityTasks.remove(subtask);
+        // убираем из приоритетных только подзадачи, задачи остаются на своих местах
+        for (Integer id : subtasks.keySet()) {
+            removeTaskByPriority(id);
         }
-        prioritizedTasks.clear();
-        prioritizedTasks.addAll(priorityTasks);
         subtasks.clear();    // удаляем подзадачи
+        clearTaskIds(Type.SUBTASK);
+        for (Epic epic : epics.values()) {    // эпики без подзадач снова NEW
+            indexTask(Type.EPIC, epic);
+        }
     }
 
     @Override
     public void updateSubtask(Subtask newSubtask) {
         // Проверка прикрепленного эпика
-        if (subtasks.containsKey(newSubtask.getEpicId()) || !epics.containsKey(newSubtask.getEpicId())) {
+        if (newSubtask.getEpicId() == null || subtasks.containsKey(newSubtask.getEpicId())
+                || !epics.containsKey(newSubtask.getEpicId())) {
             throw new ManagerSaveException("В подзадаче неверно указан epicId=" + newSubtask.getEpicId() +
                     " Эпика с таким id не существует!");
         }
@@ -206,17 +300,22 @@ public class InMemoryTaskManager implements TaskManager {
         // проверяем совпадают ли ключи эпиков в старой и новой подзадаче
         if (!oldSubtask.getEpicId().equals(newSubtask.getEpicId())) {
             // иначе удаляем старую подзадачу в старом эпике
-            Epic oldEpic = epics.get(oldSubtask.getEpicId());
-            ArrayList<Subtask> subtasksOldEpic = oldEpic.getSubtasks();
-            subtasksOldEpic.remove(oldSubtask);
-            oldEpic.setSubtasks(subtasksOldEpic);
-            epics.put(oldEpic.getId(), oldEpic);
+            epics.get(oldSubtask.getEpicId()).removeSubtask(oldSubtask);
+            // и переносим подзадачу в индексе из старого эпика в новый
+            unlinkSubtask(oldSubtask.getEpicId(), oldSubtask.getId());
+            linkSubtask(newSubtask.getEpicId(), newSubtask.getId());
         }
         // заменяем задачу в приоритетном множестве на случай, если в newSubtask изменился приоритет
         addTaskByPriority(newSubtask);
         // обновляем новую подзадачу
         subtasks.put(newSubtask.getId(), newSubtask);
-        updateEpic(epics.get(newSubtask.getEpicId()));
+        Epic epic = epics.get(newSubtask.getEpicId());
+        epic.updateSubtask(newSubtask);    // пересчет эпика по одной подзадаче
+        indexTask(Type.SUBTASK, newSubtask);
+        indexTask(Type.EPIC, epic);
+        if (!oldSubtask.getEpicId().equals(newSubtask.getEpicId())) {
+            indexTask(Type.EPIC, epics.get(oldSubtask.getEpicId()));
+        }
         historyManager.add(newSubtask);
     }
 
@@ -225,17 +324,13 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtasks.containsKey(id)) {
             // удаляем подзадачу из эпика и обновляем эпик
             int epicId = subtasks.get(id).getEpicId();
-            Epic epicAttached = epics.get(epicId);
-            ArrayList<Subtask> listSubtaskByEpic = epicAttached.getSubtasks();
-            listSubtaskByEpic.remove(subtasks.get(id));
-            epicAttached.setSubtasks(listSubtaskByEpic);
-            epics.put(epicAttached.getId(), checkEpicStatus(epicAttached));
+            epics.get(epicId).removeSubtask(subtasks.get(id));
+            unlinkSubtask(epicId, id);
             // удаляем подзадачу из всех таблиц и списков
-            List<Task> priorityTasks = getPrioritizedTasks();
-            priorityTasks.remove(subtasks.get(id));
-            prioritizedTasks.clear();
-            prioritizedTasks.addAll(priorityTasks);
+            removeTaskByPriority(id);
             subtasks.remove(id);
+            unindexTask(Type.SUBTASK, id);
+            indexTask(Type.EPIC, epics.get(epicId));
             historyManager.remove(id);
         } else {
             throw new ManagerSaveException("Подзадачи с id = " + id + " для удаления не существует!");
@@ -244,10 +339,43 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Subtask> getListSubtasksFromEpic(int epicID) {
-        return getSubtaskList().stream()
-                .filter(subtask -> subtask.getEpicId() == epicID)
-                .collect(Collectors.toList());
+        return collectEpicSubtasks(epicID);
+    }
 
+    // сбор подзадач эпика по индексу - перебираются только подзадачи этого эпика
+    private ArrayList<Subtask> collectEpicSubtasks(int epicID) {
+        SortedIntSet subtaskIds = epicSubtaskIds.get(epicID);
+        if (subtaskIds == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<Subtask> subtasksFromEpic = new ArrayList<>(subtaskIds.size());
+        subtaskIds.forEach(subtaskId -> subtasksFromEpic.add(subtasks.get(subtaskId)));
+        return subtasksFromEpic;
+    }
+
+    // привязка подзадачи к эпику в индексе эпик -> id подзадач
+    protected void linkSubtask(int epicId, int subtaskId) {
+        SortedIntSet subtaskIds = epicSubtaskIds.get(epicId);
+        if (subtaskIds == null) {
+            subtaskIds = new SortedIntSet();
+            epicSubtaskIds.put(epicId, subtaskIds);
+        }
+        subtaskIds.add(subtaskId);
+    }
+
+    // id подзадач эпика по возрастанию (у неизвестного эпика подзадач нет)
+    protected void forEachSubtaskId(int epicId, IntConsumer action) {
+        SortedIntSet subtaskIds = epicSubtaskIds.get(epicId);
+        if (subtaskIds != null) {
+            subtaskIds.forEach(action);
+        }
+    }
+
+    private void unlinkSubtask(int epicId, int subtaskId) {
+        SortedIntSet subtaskIds = epicSubtaskIds.get(epicId);
+        if (subtaskIds != null) {
+            subtaskIds.remove(subtaskId);
+        }
     }
 
     /* допущение при создании эпика - эпик создается с пустым списком подзадач.
@@ -262,7 +390,9 @@ public class InMemoryTaskManager implements TaskManager {
         }
         epic.setId(generateID());
         Epic newEpic = checkEpicStatus(epic);    // проверяем статус эпика и возвращаем корректный
+        epicSubtaskIds.putIfAbsent(newEpic.getId(), new SortedIntSet());
         epics.put(newEpic.getId(), newEpic);
+        indexTask(Type.EPIC, newEpic);
         historyManager.add(newEpic);    // добавляем историю
         return newEpic;
     }
@@ -272,6 +402,28 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(epics.values());
     }
 
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(action);
+    }
+
+    // фильтр эпиков по времени: эпики, у которых в окно попадает хотя бы одна подзадача.
+    // Эпик может встретиться в окне несколько раз, поэтому страница эпиков окна остается по id:
+    // id эпиков всех подзадач окна собираются и сортируются на каждый запрос
+    @Override
+    public TaskPage<Epic> getEpicsPage(TaskQuery query) {
+        if (query.hasWindow()) {
+            TaskPage.Candidates candidates = new TaskPage.Candidates();
+            prioritizedTasks.forEachCrossing(query.getFrom(), query.getTo(), task -> {
+                if (task instanceof Subtask) {
+                    candidates.add(task.getEpicId());
+                }
+            });
+            return TaskPage.fromCandidates(candidates, query, epics::get);
+        }
+        return TaskPage.fromIndex(taskIds.ids(Type.EPIC, query.getStatus()), query, epics::get);
+    }
+
     @Override
     public Epic getEpic(int id) {
         Epic epic = epics.get(id);
@@ -287,18 +439,24 @@ public class InMemoryTaskManager implements TaskManager {
         // если удаляются все эпики то соответственно и удаляются все подзадачи
         clearSubtasks();
         epics.clear();    // удаляем все эпики
+        epicSubtaskIds.clear();
+        clearTaskIds(Type.EPIC);
     }
 
     @Override
     public void removeEpic(int id) {
         if (epics.containsKey(id)) {
             // при удалении эпика удаляем связанные с ним подзадачи
-            Epic epic = epics.get(id);
-            ArrayList<Subtask> subtasksFromEpic = epic.getSubtasks();
-            for (Subtask subtask : subtasksFromEpic) {
-                subtasks.remove(subtask.getId());
+            SortedIntSet subtaskIds = epicSubtaskIds.remove(id);
+            if (subtaskIds != null) {
+                subtaskIds.forEach(subtaskId -> {
+                    subtasks.remove(subtaskId);
+                    removeTaskByPriority(subtaskId);    // освобождаем время удаленных подзадач
+                    unindexTask(Type.SUBTASK, subtaskId);
+                });
             }
             epics.remove(id);    // удаляем эпик
+            unindexTask(Type.EPIC, id);
             historyManager.remove(id);    // удаляем из истории
         } else {
             throw new ManagerSaveException("Подзадачи с id = " + id + " для удаления не существует!");
@@ -313,96 +471,164 @@ public class InMemoryTaskManager implements TaskManager {
                 throw new ValidationException("Обновляемый эпик равен одной из существующих подзадач!");
             }
         }
-        // обновляем список подзадач внутри эпика
-        ArrayList<Subtask> newSubtasks = new ArrayList<>();
-        for (Subtask subtask : subtasks.values()) {
-            if (newEpic.getId() == subtask.getEpicId()) {
-                newSubtasks.add(subtask);
-            }
-        }
-        newEpic.setSubtasks(newSubtasks);
-        Epic checkedEpic = checkEpicStatus(newEpic);    // проверяем корректность статуса эпика
-        checkedEpic.calculateTimesEpic();    // обновляем время выполнения эпика
+        // обновляем список подзадач внутри эпика, статус и время эпика пересчитываются по новому списку
+        newEpic.setSubtasks(collectEpicSubtasks(newEpic.getId()));
         // после этого обновляем сам эпик
-        epics.put(checkedEpic.getId(), checkedEpic);
+        epics.put(newEpic.getId(), newEpic);
+        indexTask(Type.EPIC, newEpic);
         //historyManager.add(checkedEpic);
     }
 
+    // полный пересчет статуса (и времени) эпика по списку его подзадач.
+    // При изменениях через менеджер эпик пересчитывается сам по одной измененной подзадаче,
+    // полный пересчет нужен только если подзадачи эпика меняли напрямую
     @Override
     public Epic checkEpicStatus(Epic epic) {
-        ArrayList<Subtask> subtaskFromEpic = epic.getSubtasks();
-        if (subtaskFromEpic != null) {
-            int subtasksNumber = epic.getSubtasks().size();
-            if (subtasksNumber == 0) {
-                epic.setStatus(TaskStatus.NEW);
-                return epic;
-            }
-            for (Subtask subtask : epic.getSubtasks()) {
-                if (subtask.getStatus() == TaskStatus.NEW && subtasksNumber == epic.getSubtasks().size()) {
-                    epic.setStatus(TaskStatus.NEW);
-                } else if (subtask.getStatus() == TaskStatus.DONE) {
-                    --subtasksNumber;
-                    if (subtasksNumber == 0) {
-                        epic.setStatus(TaskStatus.DONE);
-                        break;
-                    } else {
-                        epic.setStatus(TaskStatus.IN_PROGRESS);
-                    }
-                } else if (subtask.getStatus() == TaskStatus.IN_PROGRESS) {
-                    epic.setStatus(TaskStatus.IN_PROGRESS);
-                    break;
-                }
-            }
-        } else {
-            epic.setStatus(TaskStatus.NEW);
-            return epic;
+        if (epic.getSubtasks() == null) {
+            epic.setEmptySubtasks();
+        }
+        epic.calculateTimesEpic();
+        if (epics.get(epic.getId()) == epic) {
+            indexTask(Type.EPIC, epic);    // статус эпика из менеджера мог измениться
         }
         return epic;
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        if (prioritizedTasks.isEmpty()) {    // во время первого запуска программы, нужно обновить лист prioritizedTasks
-            List<Task> collect = tasksCollect.values().stream()
-                    .filter(task -> task.getStartTime() != null)
-                    // не учитываем эпики - они могут помешать добавлению новых задач и подзадач
-                    // (из-за своего периода = периоду от первой до последней подзадачи)
-                    // по факту этот период не равен времени выполнения всего эпика
-                    .filter(task -> task.getTaskType() != Type.EPIC)
-                    .collect(Collectors.toList());
-            prioritizedTasks.addAll(collect);
-        }
-        return new ArrayList<>(prioritizedTasks);
-    }
-
-
-    private void addTaskByPriority(Task task) {
-        if (task.getStartTime() != null && task.getTaskType() != Type.EPIC) {
-            // в стриме проходимся по всем уже записанным задачам, если метод isCrossedTasks() вернет true
-            // то задача попадет в итоговый emptyList. Далее если emptyList не пустой, то есть пересечение по времени
-            // соответственно такую задачу нельзя добавлять в приоритезированные
-            List<Task> emptyList = getPrioritizedTasks().stream()
-                    .filter(task1 -> task1.getStartTime() != null)
-                    .filter(checkedTask -> isCrossedTasks(checkedTask, task))
-                    .filter(checkedTask -> checkedTask.getId() != task.getId())    // исключаем одинаковые задачи
-                    .collect(Collectors.toList());
-            if (emptyList.isEmpty()) prioritizedTasks.add(task);
-            else {
-                identifier--;    // если создание задачи отменяется, то возвращать идентификатор в прежнее состояние
-                throw new ValidationException("Имеется пересечение по времени выполнения с другими задачами!");
+        return new ArrayList<>(prioritizedTasks.values());
+    }
+
+    @Override
+    public void forEachPrioritized(Consumer<? super Task> action) {
+        prioritizedTasks.values().forEach(action);
+    }
+
+    // страница по представлению индекса приоритетных: читаются только задачи окна после курсора
+    @Override
+    public TaskPage<Task> getPrioritizedPage(TaskQuery query) {
+        return TaskPage.fromOrdered(walkWindow(query), query, id -> {
+            Task task = tasks.get(id);
+            return task != null ? task : subtasks.get(id);
+        });
+    }
+
+    // обход задач временного окна после задачи-курсора в порядке времени начала
+    private Consumer<IntPredicate> walkWindow(TaskQuery query) {
+        Collection<Task> window = prioritizedTasks.window(query.getFrom(), query.getTo(), query.getAfter());
+        return action -> {
+            for (Task task : window) {
+                if (!action.test(task.getId())) {
+                    break;
+                }
             }
+        };
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime after, LocalDateTime before, int limit) {
+        TimeIntervalIndex.checkSlotQuery(durationMinutes, after, before, limit);
+        return prioritizedTasks.findFreeSlots(durationMinutes, after, before, limit);
+    }
+
+    // добавление задачи с заполненным временем начала в приоритетные (эпики не учитываем - они могут помешать
+    // добавлению новых задач и подзадач из-за своего периода от первой до последней подзадачи)
+    protected void addTaskByPriority(Task task) {
+        if (!TimeIntervalIndex.isScheduled(task)) {
+            prioritizedTasks.remove(task.getId());    // у обновленной задачи могли убрать время начала
+            return;
+        }
+        // задача сравнивается только с соседними по времени интервалами, если пересечение найдено,
+        // то такую задачу нельзя добавлять в приоритезированные
+        if (prioritizedTasks.findCrossed(task) != null) {
+            throw new ValidationException("Имеется пересечение по времени выполнения с другими задачами!");
+        }
+        prioritizedTasks.add(task);    // прежний интервал задачи заменяется
+    }
+
+    protected void removeTaskByPriority(int id) {
+        prioritizedTasks.remove(id);
+    }
+
+    // восстановление приоритетной задачи при загрузке из файла (пересечения были проверены до сохранения)
+    protected void restoreTaskByPriority(Task task) {
+        if (TimeIntervalIndex.isScheduled(task)) {
+            prioritizedTasks.add(task);
         }
     }
 
-    // если две задачи пересекаются по времени выполнения возвращаем true
-    private boolean isCrossedTasks(Task task1, Task task2) {
-        LocalDateTime t1 = task1.getStartTime();
-        LocalDateTime t2 = t1.plusMinutes(task1.getDurationToMinutes());
-        LocalDateTime t3 = task2.getStartTime();
-        LocalDateTime t4 = t3.plusMinutes(task2.getDurationToMinutes());
-        if (t1.equals(t3) || t2.equals(t4)) return true;
-        if (t1.isAfter(t3) && t1.isBefore(t4)) return true;
-        return t1.isBefore(t3) && t2.isAfter(t3);
+    // восстановление индекса id для постраничной выдачи по загруженным хранилищам (при загрузке из файла)
+    protected void restoreTaskIds() {
+        for (Type type : new Type[]{Type.TASK, Type.SUBTASK, Type.EPIC}) {
+            clearTaskIds(type);
+        }
+        for (Task task : tasks.values()) {
+            indexTask(Type.TASK, task);
+        }
+        for (Subtask subtask : subtasks.values()) {
+            indexTask(Type.SUBTASK, subtask);
+        }
+        for (Epic epic : epics.values()) {
+            indexTask(Type.EPIC, epic);
+        }
+    }
+
+    // изменения индекса id - наследники могут закрыть их своей блокировкой
+    protected void indexTask(Type type, Task task) {
+        taskIds.put(type, task.getId(), task.getStatus());
+        changed(type);
+    }
+
+    protected void unindexTask(Type type, int id) {
+        taskIds.remove(type, id);
+        changed(type);
+    }
+
+    protected void clearTaskIds(Type type) {
+        taskIds.clear(type);
+        changed(type);
+    }
+
+    // индекс id меняется после самих хранилищ, поэтому и версия увеличивается после изменения данных
+    private void changed(Type type) {
+        switch (type) {
+            case TASK:
+                versions.taskChanged();
+                break;
+            case SUBTASK:
+                versions.subtaskChanged();
+                break;
+            default:
+                versions.epicChanged();
+        }
+    }
+
+    // страница задач или подзадач: с временным окном - по времени начала из индекса приоритетных задач
+    // (задачи другого типа отсеивает lookup), иначе - из индекса id (по статусу - из индекса этого статуса)
+    private <T extends Task> TaskPage<T> page(Type type, TaskQuery query, IntFunction<T> lookup) {
+        if (query.hasWindow()) {
+            return TaskPage.fromOrdered(walkWindow(query), query, lookup);
+        }
+        return TaskPage.fromIndex(taskIds.ids(type, query.getStatus()), query, lookup);
+    }
+
+    // восстановление списков подзадач у всех эпиков по индексу эпик -> id подзадач (при загрузке из файла)
+    protected void restoreEpicSubtasks() {
+        for (Epic epic : epics.values()) {
+            epic.setSubtasks(collectEpicSubtasks(epic.getId()));
+        }
+    }
+
+    // при создании задачи сначала выдаем ей id, а если создание отменяется из-за пересечения по времени,
+    // то возвращаем идентификатор обратно
+    private void addNewTaskByPriority(Task task) {
+        task.setId(generateID());
+        try {
+            addTaskByPriority(task);
+        } catch (ValidationException e) {
+            rollbackID(task.getId());
+            throw e;
+        }
     }
 
     @Override
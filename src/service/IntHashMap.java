@@ -0,0 +1,348 @@
+package service;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// Хеш-таблица с открытой адресацией и ключами int для хранилищ менеджера задач.
+// Ключи и значения лежат в двух массивах: нет ни упакованных Integer, ни узла HashMap.Node на каждую запись.
+// Коллизии разрешаются линейным пробированием, удаленная запись помечается REMOVED и освобождается
+// при следующем перестроении таблицы. Помеченная ячейка сохраняет свой ключ: запись с этим ключом
+// может лежать только раньше по цепочке (вставка занимает первую помеченную ячейку), поэтому поиск
+// на ней заканчивается - иначе для последовательных id каждый поиск удаленного ключа проходил бы
+// всю сплошную серию занятых ячеек.
+// Ячейка выбирается так же, как в HashMap (key ^ key >>> 16), поэтому последовательные id обходятся
+// в том же порядке, что и раньше. Значения null не поддерживаются - null означает отсутствие ключа.
+public class IntHashMap<V> extends AbstractMap<Integer, V> implements IntMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final Object REMOVED = new Object();
+
+    private int[] keys;
+    private Object[] values;    // null - свободная ячейка, REMOVED - удаленная запись
+    private int size;
+    private int used;           // занятые ячейки вместе с удаленными
+    private int threshold;
+    private int modCount;
+
+    public IntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    @Override
+    public V get(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        Object value;
+        while ((value = values[i]) != null) {
+            if (keys[i] == key) {
+                return value == REMOVED ? null : cast(value);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "IntHashMap не хранит значения null");
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        int removed = -1;
+        Object current;
+        while ((current = values[i]) != null) {
+            if (current == REMOVED) {
+                if (removed < 0) {
+                    removed = i;    // запомнили место для вставки, но ключ может быть дальше по цепочке
+                }
+                if (keys[i] == key) {
+                    break;    // дальше по цепочке этого ключа нет
+                }
+            } else if (keys[i] == key) {
+                values[i] = value;
+                return cast(current);
+            }
+            i = (i + 1) & mask;
+        }
+        if (removed >= 0) {
+            i = removed;
+        } else {
+            used++;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        modCount++;
+        if (used > threshold) {
+            // если таблицу заполнили удаленные записи, то достаточно перестроить её того же размера
+            rehash(size >= threshold / 2 ? keys.length * 2 : keys.length);
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        Object value;
+        while ((value = values[i]) != null) {
+            if (keys[i] == key) {
+                if (value == REMOVED) {
+                    return null;
+                }
+                removeAt(i);
+                return cast(value);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (used > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+            used = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Entry<Integer, V> element(int slot) {
+                        return new SlotEntry(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                IntHashMap.this.clear();
+            }
+        };
+    }
+
+    // значения обходятся прямо по массиву, без создания записей
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    V element(int slot) {
+                        return cast(values[slot]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                IntHashMap.this.clear();
+            }
+        };
+    }
+
+    private void removeAt(int slot) {
+        values[slot] = REMOVED;
+        size--;
+        modCount++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            Object value = oldValues[j];
+            if (value != null && value != REMOVED) {
+                int i = slot(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = value;
+            }
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = capacity / 4 * 3;    // заполнение не больше 3/4, чтобы цепочки пробирования оставались короткими
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int slot(int key, int mask) {
+        return (key ^ (key >>> 16)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    // обход занятых ячеек таблицы с поддержкой удаления через итератор
+    private abstract class SlotIterator<E> implements Iterator<E> {
+
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        abstract E element(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public E next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return element(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);    // удаленная ячейка остается помеченной, порядок остальных не меняется
+            expectedModCount = modCount;
+            last = -1;
+        }
+
+        private int advance(int from) {
+            while (from < values.length && (values[from] == null || values[from] == REMOVED)) {
+                from++;
+            }
+            return from;
+        }
+    }
+
+    // запись, изменение значения которой попадает прямо в таблицу
+    private class SlotEntry implements Entry<Integer, V> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Integer getKey() {
+            return keys[slot];
+        }
+
+        @Override
+        public V getValue() {
+            return cast(values[slot]);
+        }
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value, "IntHashMap не хранит значения null");
+            V old = cast(values[slot]);
+            values[slot] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            return getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return keys[slot] ^ Objects.hashCode(values[slot]);
+        }
+
+        @Override
+        public String toString() {
+            return keys[slot] + "=" + values[slot];
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package service;
+
+import java.util.Map;
+
+// Мапа с ключами int: кроме обычных методов Map есть перегрузки с примитивным ключом,
+// поэтому вызовы вида tasks.get(id) с int id не упаковывают ключ в Integer.
+public interface IntMap<V> extends Map<Integer, V> {
+
+    V get(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    boolean containsKey(int key);
+}
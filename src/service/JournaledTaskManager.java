@@ -0,0 +1,782 @@
+package service;
+
+import converter.CSVFormat;
+import exception.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TimeSlot;
+import model.Type;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Менеджер задач с журналом изменений вместо полной перезаписи файла.
+// Каждое изменение (создание, обновление, удаление, очистка и чтение по id, которое меняет историю)
+// дописывается в конец журнала одной строкой: <номер>,<операция>,<данные>.
+// - журнал сбрасывается на диск (fsync) фоновым потоком раз в groupCommitMillis - одним fsync на группу записей;
+// - когда в текущем файле журнала набирается compactionThreshold записей, фоновый поток пишет снимок
+//   всего менеджера (<файл>.snapshot), начинает новый файл журнала, а старые удаляет;
+// - при запуске загружается снимок, а затем повторяются записи журнала с номерами после снимка;
+// - записи пакета изменений (applyBatch) обрамляются записями B и E: пакет без записи E
+//   (остановка посреди пакета) при запуске отбрасывается целиком.
+// Записи журнала повторяются теми же методами InMemoryTaskManager, а снимок раскладывается прямо по хранилищам
+// с историей из снимка, поэтому восстановленное состояние (приоритетные задачи, эпики, история)
+// совпадает с состоянием до остановки.
+// Все методы синхронизированы, поэтому менеджер можно отдавать многопоточному HttpTaskServer.
+public class JournaledTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    private static final String SNAPSHOT_HEADER = "SNAPSHOT";
+    private static final String CREATE = "C";
+    private static final String UPDATE = "U";
+    private static final String REMOVE = "D";
+    private static final String CLEAR = "X";
+    private static final String TOUCH = "G";           // чтение по id - задача переносится в конец истории
+    private static final String HISTORY_ORDER = "H";   // порядок истории в снимке
+    private static final String HISTORY_RECORD = "R";  // задача снимка, которая осталась только в истории
+    private static final String BATCH_BEGIN = "B";     // записи пакета изменений повторяются только вместе
+    private static final String BATCH_END = "E";
+
+    private final Path snapshotFile;
+    private final Path directory;
+    private final String segmentPrefix;
+    private final long groupCommitMillis;
+    private final int compactionThreshold;
+    private final FlushStatistics commitStatistics;
+    private final Object compactionLock;
+    private final AtomicBoolean compactionRequested;
+    private final ScheduledExecutorService background;
+    private final Thread shutdownHook;
+
+    // история для внешних вызовов (HistoryHandler, выгрузка) - под блокировкой менеджера
+    private final HistoryManager lockedHistory = new LockedHistoryManager(historyManager, this);
+    // состояние журнала (под блокировкой this)
+    private long lastSequence;
+    private int segmentNumber;
+    private int segmentRecords;
+    private int uncommittedRecords;
+    private FileChannel segmentChannel;
+    private Writer segmentWriter;
+    private boolean closed;
+    // id, которые выдаются при повторе записей создания из журнала
+    private int replayId;
+
+
+    public JournaledTaskManager(File baseFile) {
+        this(baseFile, 200, 10_000);
+    }
+
+    public JournaledTaskManager(File baseFile, long groupCommitMillis, int compactionThreshold) {
+        super();
+        if (groupCommitMillis < 1 || compactionThreshold < 1) {
+            throw new IllegalArgumentException("Период записи на диск и порог сжатия журнала должны быть больше нуля");
+        }
+        Path base = baseFile.toPath().toAbsolutePath();
+        this.directory = base.getParent();
+        this.snapshotFile = base.resolveSibling(base.getFileName() + ".snapshot");
+        this.segmentPrefix = base.getFileName() + ".journal.";
+        this.groupCommitMillis = groupCommitMillis;
+        this.compactionThreshold = compactionThreshold;
+        this.commitStatistics = new FlushStatistics();
+        this.compactionLock = new Object();
+        this.compactionRequested = new AtomicBoolean();
+
+        boolean hasJournal = recover();
+        openSegment(segmentNumber + 1);
+
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kanban-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::syncQuietly, groupCommitMillis, groupCommitMillis,
+                TimeUnit.MILLISECONDS);
+        // после запуска сворачиваем повторенный журнал в новый снимок
+        if (hasJournal) {
+            requestCompaction();
+        }
+        shutdownHook = new Thread(this::close, "kanban-journal-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // запись на диск всех дописанных в журнал изменений (групповой fsync)
+    public void sync() {
+        FileChannel channel;
+        int records;
+        synchronized (this) {
+            if (uncommittedRecords == 0) {
+                return;
+            }
+            flushWriter();
+            channel = segmentChannel;
+            records = uncommittedRecords;
+            uncommittedRecords = 0;
+        }
+        // сам fsync выполняем без блокировки менеджера - изменения в это время продолжают дописываться
+        long begin = System.nanoTime();
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            return;    // файл журнала уже сменился, при смене он был сброшен на диск целиком
+        } catch (IOException e) {
+            commitStatistics.recordFailure();
+            throw new ManagerSaveException("Ошибка записи журнала: " + snapshotFile.getFileName(), e);
+        }
+        commitStatistics.record(System.nanoTime() - begin, records);
+    }
+
+    // запись снимка менеджера и удаление файлов журнала, которые в него вошли
+    public void compact() {
+        synchronized (compactionLock) {
+            compactionRequested.set(false);
+            String snapshot;
+            int lastCompactedSegment;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                snapshot = renderSnapshot();
+                lastCompactedSegment = segmentNumber;
+                openSegment(segmentNumber + 1);    // новые изменения идут уже в следующий файл
+            }
+            writeSnapshot(snapshot);
+            for (int number : listSegments()) {
+                if (number <= lastCompactedSegment) {
+                    try {
+                        Files.deleteIfExists(segmentPath(number));
+                    } catch (IOException e) {
+                        System.err.println("Не удалось удалить файл журнала: " + segmentPath(number));
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    // останавливает фоновый поток и сбрасывает журнал на диск
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        background.shutdown();
+        try {
+            background.awaitTermination(groupCommitMillis + 5_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // close вызван из самого shutdown hook - программа уже завершается
+        }
+        synchronized (this) {
+            closeSegment();
+            closed = true;
+        }
+    }
+
+    // статистика групповых fsync: сколько записей журнала покрыл каждый сброс на диск и сколько он длился
+    public FlushStatistics getCommitStatistics() {
+        return commitStatistics;
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
+        Task task = super.getTask(id);
+        journal(TOUCH, Integer.toString(id));
+        return task;
+    }
+
+    @Override
+    public synchronized Subtask getSubtask(int id) {
+        Subtask subtask = super.getSubtask(id);
+        journal(TOUCH, Integer.toString(id));
+        return subtask;
+    }
+
+    @Override
+    public synchronized Epic getEpic(int id) {
+        Epic epic = super.getEpic(id);
+        journal(TOUCH, Integer.toString(id));
+        return epic;
+    }
+
+    @Override
+    public synchronized Task createTask(Task task) {
+        Task createdTask = super.createTask(task);
+        journal(CREATE, CSVFormat.taskToString(createdTask));
+        return createdTask;
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        super.clearTasks();
+        journal(CLEAR, Type.TASK.name());
+    }
+
+    @Override
+    public synchronized void updateTask(Task newTask) {
+        super.updateTask(newTask);
+        journal(UPDATE, CSVFormat.taskToString(newTask));
+    }
+
+    @Override
+    public synchronized void removeTask(int id) {
+        super.removeTask(id);
+        journal(REMOVE, Type.TASK + "," + id);
+    }
+
+    @Override
+    public synchronized Subtask createSubtask(Subtask subtask) {
+        Subtask createdSubtask = super.createSubtask(subtask);
+        journal(CREATE, CSVFormat.taskToString(createdSubtask));
+        return createdSubtask;
+    }
+
+    @Override
+    public synchronized void clearSubtasks() {
+        super.clearSubtasks();
+        journal(CLEAR, Type.SUBTASK.name());
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask newSubtask) {
+        super.updateSubtask(newSubtask);
+        journal(UPDATE, CSVFormat.taskToString(newSubtask));
+    }
+
+    @Override
+    public synchronized void removeSubtask(int id) {
+        super.removeSubtask(id);
+        journal(REMOVE, Type.SUBTASK + "," + id);
+    }
+
+    @Override
+    public synchronized Epic createEpic(Epic epic) {
+        Epic createdEpic = super.createEpic(epic);
+        journal(CREATE, CSVFormat.taskToString(createdEpic));
+        return createdEpic;
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        super.clearEpics();
+        journal(CLEAR, Type.EPIC.name());
+    }
+
+    @Override
+    public synchronized void removeEpic(int id) {
+        super.removeEpic(id);
+        journal(REMOVE, Type.EPIC + "," + id);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic newEpic) {
+        super.updateEpic(newEpic);
+        journal(UPDATE, CSVFormat.taskToString(newEpic));
+    }
+
+    @Override
+    public synchronized List<Integer> applyBatch(TaskBatch batch) {
+        return super.applyBatch(batch);
+    }
+
+    // чтение тоже синхронизировано - иначе поток запроса видит хранилища посреди изменения другого потока
+    // (ConcurrentModificationException при обходе, недописанные индексы). forEach* обходят копию списка
+    @Override
+    public synchronized List<Task> getTasksList() {
+        return super.getTasksList();
+    }
+
+    @Override
+    public synchronized TaskPage<Task> getTasksPage(TaskQuery query) {
+        return super.getTasksPage(query);
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        getTasksList().forEach(action);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtaskList() {
+        return super.getSubtaskList();
+    }
+
+    @Override
+    public synchronized TaskPage<Subtask> getSubtasksPage(TaskQuery query) {
+        return super.getSubtasksPage(query);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        getSubtaskList().forEach(action);
+    }
+
+    @Override
+    public synchronized List<Subtask> getListSubtasksFromEpic(int epicId) {
+        return super.getListSubtasksFromEpic(epicId);
+    }
+
+    @Override
+    public synchronized List<Epic> getEpicList() {
+        return super.getEpicList();
+    }
+
+    @Override
+    public synchronized TaskPage<Epic> getEpicsPage(TaskQuery query) {
+        return super.getEpicsPage(query);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        getEpicList().forEach(action);
+    }
+
+    @Override
+    public synchronized Epic checkEpicStatus(Epic epic) {
+        return super.checkEpicStatus(epic);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public HistoryManager getHistoryManager() {
+        return lockedHistory;
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public void forEachPrioritized(Consumer<? super Task> action) {
+        getPrioritizedTasks().forEach(action);
+    }
+
+    @Override
+    public synchronized TaskPage<Task> getPrioritizedPage(TaskQuery query) {
+        return super.getPrioritizedPage(query);
+    }
+
+    @Override
+    public synchronized List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime after,
+                                                     LocalDateTime before, int limit) {
+        return super.findFreeSlots(durationMinutes, after, before, limit);
+    }
+
+    @Override
+    public synchronized long getVersion(TaskCollection collection) {
+        return super.getVersion(collection);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    // пакет, прошедший проверку: его записи попадают в журнал между B и E и сбрасываются на диск
+    // одним групповым fsync вместе с остальными записями
+    @Override
+    protected List<Integer> applyValidatedBatch(TaskBatch batch) {
+        journal(BATCH_BEGIN, Integer.toString(batch.size()));
+        try {
+            return super.applyValidatedBatch(batch);
+        } finally {
+            journal(BATCH_END, "");
+        }
+    }
+
+    // при повторе записи создания задача получает тот же id, что и до остановки
+    @Override
+    protected int generateID() {
+        if (replayId > 0) {
+            int id = replayId;
+            replayId = 0;
+            identifier = Math.max(identifier, id);
+            return id;
+        }
+        return super.generateID();
+    }
+
+    // дописываем запись в буфер журнала, на диск её сбросит фоновый поток
+    private void journal(String operation, String payload) {
+        if (closed) {
+            throw new IllegalStateException("Журнал менеджера задач закрыт: " + snapshotFile.getFileName());
+        }
+        try {
+            segmentWriter.write(Long.toString(++lastSequence));
+            segmentWriter.write(',');
+            segmentWriter.write(operation);
+            segmentWriter.write(',');
+            segmentWriter.write(payload);
+            segmentWriter.write('\n');
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала: " + segmentPath(segmentNumber), e);
+        }
+        uncommittedRecords++;
+        if (++segmentRecords >= compactionThreshold) {
+            requestCompaction();
+        }
+    }
+
+    private void requestCompaction() {
+        if (compactionRequested.compareAndSet(false, true)) {
+            background.execute(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException e) {
+                    // журнал продолжает расти, сжатие будет запрошено снова одной из следующих записей
+                    System.err.println("Сжатие журнала не удалось");
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            // фоновый поток не должен остановиться из-за одной неудачной записи - повторим по таймеру
+            System.err.println("Сброс журнала на диск не удался");
+            e.printStackTrace();
+        }
+    }
+
+    // повтор одной записи (из снимка или журнала) методами InMemoryTaskManager без записи в журнал
+    private void apply(String operation, String payload) {
+        switch (operation) {
+            case CREATE:
+            case UPDATE:
+                Type type = Type.valueOf(payload.split(",", 3)[1]);
+                Task task = CSVFormat.taskFromString(payload, type);
+                if (operation.equals(CREATE)) {
+                    replayId = task.getId();
+                    task.setId(0);
+                    if (type == Type.TASK) super.createTask(task);
+                    if (type == Type.SUBTASK) super.createSubtask((Subtask) task);
+                    if (type == Type.EPIC) super.createEpic((Epic) task);
+                    replayId = 0;
+                } else {
+                    if (type == Type.TASK) super.updateTask(task);
+                    if (type == Type.SUBTASK) super.updateSubtask((Subtask) task);
+                    if (type == Type.EPIC) super.updateEpic((Epic) task);
+                }
+                break;
+            case REMOVE:
+                String[] parts = payload.split(",");
+                int id = Integer.parseInt(parts[1]);
+                switch (Type.valueOf(parts[0])) {
+                    case TASK:
+                        super.removeTask(id);
+                        break;
+                    case SUBTASK:
+                        super.removeSubtask(id);
+                        break;
+                    default:
+                        super.removeEpic(id);
+                }
+                break;
+            case CLEAR:
+                switch (Type.valueOf(payload)) {
+                    case TASK:
+                        super.clearTasks();
+                        break;
+                    case SUBTASK:
+                        super.clearSubtasks();
+                        break;
+                    default:
+                        super.clearEpics();
+                }
+                break;
+            case TOUCH:
+                touch(Integer.parseInt(payload));
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестная операция журнала: " + operation);
+        }
+    }
+
+    // перенос задачи в конец истории (задачи, удаленные до снимка, пропускаем)
+    private void touch(int id) {
+        if (tasks.containsKey(id)) {
+            super.getTask(id);
+        } else if (subtasks.containsKey(id)) {
+            super.getSubtask(id);
+        } else if (epics.containsKey(id)) {
+            super.getEpic(id);
+        }
+    }
+
+    // загрузка снимка и повтор журнала после него, возвращает true, если журнал был не пустой
+    private boolean recover() {
+        long snapshotSequence = 0;
+        try {
+            if (Files.exists(snapshotFile)) {
+                List<String> lines = Files.readAllLines(snapshotFile, StandardCharsets.UTF_8);
+                String[] header = lines.get(0).split(",");
+                snapshotSequence = Long.parseLong(header[1]);
+                restoreSnapshot(lines);
+                identifier = Math.max(identifier, Integer.parseInt(header[2]));
+            }
+            lastSequence = snapshotSequence;
+            List<Integer> segments = listSegments();
+            for (int number : segments) {
+                replaySegment(segmentPath(number));
+                segmentNumber = number;
+            }
+            return !segments.isEmpty();
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка чтения журнала: " + snapshotFile.getFileName(), e);
+        }
+    }
+
+    // снимок раскладывается прямо по хранилищам, как файл FileBackedTaskManager: создание задач через createTask
+    // дописывало бы их в историю, поэтому история восстанавливается только по строке H - в точности,
+    // вместе с задачами, которые остались лишь в истории (после clear* или вытеснения их нет в хранилищах)
+    private void restoreSnapshot(List<String> lines) {
+        String historyOrder = "";
+        for (int i = 1; i < lines.size(); i++) {
+            String[] record = lines.get(i).split(",", 2);
+            String payload = record.length > 1 ? record[1] : "";
+            switch (record[0]) {
+                case CREATE:
+                case HISTORY_RECORD:
+                    Task task = CSVFormat.taskFromString(payload, Type.valueOf(payload.split(",", 3)[1]));
+                    tasksCollect.put(task.getId(), task);
+                    if (record[0].equals(CREATE)) {
+                        restoreTask(task);
+                    }
+                    break;
+                case HISTORY_ORDER:
+                    historyOrder = payload;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестная запись снимка: " + record[0]);
+            }
+        }
+        restoreEpicSubtasks();
+        restoreTaskIds();
+        for (String historyId : historyOrder.split(",")) {
+            if (historyId.isEmpty()) {
+                continue;
+            }
+            // в снимках прежнего формата нет задач, оставшихся только в истории, - такие просмотры пропускаем
+            Task task = tasksCollect.get(Integer.parseInt(historyId));
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+        tasksCollect.clear();
+    }
+
+    private void restoreTask(Task task) {
+        switch (task.getTaskType()) {
+            case TASK:
+                tasks.put(task.getId(), task);
+                restoreTaskByPriority(task);
+                break;
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                subtasks.put(subtask.getId(), subtask);
+                linkSubtask(subtask.getEpicId(), subtask.getId());
+                restoreTaskByPriority(subtask);
+                break;
+            default:
+                epics.put(task.getId(), (Epic) task);
+                epicSubtaskIds.putIfAbsent(task.getId(), new SortedIntSet());
+        }
+    }
+
+    private void replaySegment(Path segment) throws IOException {
+        List<String> lines = Files.readAllLines(segment, StandardCharsets.UTF_8);
+        List<String[]> batch = null;    // записи начатого пакета, повторяются по записи его окончания
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            try {
+                String[] record = line.split(",", 3);
+                long sequence = Long.parseLong(record[0]);
+                if (sequence <= lastSequence) {
+                    continue;    // запись уже вошла в снимок
+                }
+                if (record[1].equals(BATCH_BEGIN)) {
+                    batch = new ArrayList<>();
+                } else if (record[1].equals(BATCH_END)) {
+                    for (String[] batchRecord : batch) {
+                        apply(batchRecord[1], batchRecord[2]);
+                    }
+                    batch = null;
+                    lastSequence = sequence;
+                } else if (batch != null) {
+                    batch.add(record);
+                } else {
+                    apply(record[1], record[2]);
+                    lastSequence = sequence;
+                }
+            } catch (RuntimeException e) {
+                // последняя запись могла оборваться при аварийной остановке - отбрасываем только её
+                // (содержимое записи не выводится - в ней названия и описания задач)
+                if (i == lines.size() - 1) {
+                    System.err.println("Отброшена незавершенная запись журнала " + segment.getFileName()
+                            + ", строка " + (i + 1) + ": " + e.getClass().getSimpleName());
+                    break;
+                }
+                throw new RuntimeException("Повреждена запись журнала " + segment.getFileName()
+                        + ", строка " + (i + 1), e);
+            }
+        }
+        if (batch != null) {
+            System.err.println("Отброшен незавершенный пакет изменений журнала " + segment.getFileName() + ": "
+                    + batch.size() + " записей");
+        }
+    }
+
+    // снимок: эпики, затем задачи и подзадачи (в порядке подзадач эпика), задачи, которые есть только в истории,
+    // и порядок истории
+    private String renderSnapshot() {
+        StringBuilder builder = new StringBuilder();
+        // вместе с номером последней записи сохраняем счетчик id, чтобы id удаленных задач не выдавались повторно
+        builder.append(SNAPSHOT_HEADER).append(',').append(lastSequence).append(',').append(identifier).append('\n');
+        for (Epic epic : epics.values()) {
+            builder.append(CREATE).append(',').append(CSVFormat.taskToString(epic)).append('\n');
+        }
+        for (Task task : tasks.values()) {
+            builder.append(CREATE).append(',').append(CSVFormat.taskToString(task)).append('\n');
+        }
+        for (SortedIntSet subtaskIds : epicSubtaskIds.values()) {
+            subtaskIds.forEach(subtaskId -> builder.append(CREATE).append(',')
+                    .append(CSVFormat.taskToString(subtasks.get(subtaskId))).append('\n'));
+        }
+        List<Task> history = historyManager.getHistory();
+        for (Task task : history) {
+            if (!tasks.containsKey(task.getId()) && !subtasks.containsKey(task.getId())
+                    && !epics.containsKey(task.getId())) {
+                builder.append(HISTORY_RECORD).append(',').append(CSVFormat.taskToString(task)).append('\n');
+            }
+        }
+        // история отдается от последнего просмотра к первому, а восстанавливать её нужно с самого раннего
+        builder.append(HISTORY_ORDER).append(',');
+        for (int i = history.size() - 1; i >= 0; i--) {
+            builder.append(history.get(i).getId()).append(',');
+        }
+        builder.append('\n');
+        return builder.toString();
+    }
+
+    private void writeSnapshot(String snapshot) {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(snapshot.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи снимка: " + snapshotFile.getFileName(), e);
+        }
+    }
+
+    // закрываем текущий файл журнала (сбросив его на диск) и открываем следующий
+    private void openSegment(int number) {
+        closeSegment();
+        try {
+            segmentChannel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка открытия журнала: " + segmentPath(number), e);
+        }
+        segmentWriter = new BufferedWriter(
+                new OutputStreamWriter(Channels.newOutputStream(segmentChannel), StandardCharsets.UTF_8), 64 * 1024);
+        segmentNumber = number;
+        segmentRecords = 0;
+    }
+
+    private void closeSegment() {
+        if (segmentChannel == null) {
+            return;
+        }
+        try {
+            flushWriter();
+            long begin = System.nanoTime();
+            segmentChannel.force(false);
+            if (uncommittedRecords > 0) {
+                commitStatistics.record(System.nanoTime() - begin, uncommittedRecords);
+                uncommittedRecords = 0;
+            }
+            segmentChannel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала: " + segmentPath(segmentNumber), e);
+        }
+        segmentChannel = null;
+        segmentWriter = null;
+    }
+
+    private void flushWriter() {
+        try {
+            segmentWriter.flush();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала: " + segmentPath(segmentNumber), e);
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(segmentPrefix + number);
+    }
+
+    // номера файлов журнала по возрастанию
+    private List<Integer> listSegments() {
+        List<Integer> numbers = new ArrayList<>();
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(segmentPrefix)) {
+                    try {
+                        numbers.add(Integer.parseInt(name.substring(segmentPrefix.length())));
+                    } catch (NumberFormatException e) {
+                        // посторонний файл с похожим именем
+                    }
+                }
+            }
+        }
+        numbers.sort(Integer::compare);
+        return numbers;
+    }
+}
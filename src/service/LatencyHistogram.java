@@ -0,0 +1,90 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма длительностей без блокировок: значение попадает в одну из фиксированных корзин
+// (от 50 мкс до 10 с), запись - пара атомарных сложений, поэтому замер не добавляет конкуренции
+// между потоками. Процентили считаются по корзинам с линейной интерполяцией внутри корзины,
+// как histogram_quantile в Prometheus: точность - ширина корзины
+public class LatencyHistogram {
+
+    // верхние границы корзин в наносекундах, последняя корзина - всё, что больше
+    private static final long[] BOUNDS = {
+            50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    // верхние границы корзин в наносекундах (без последней, бесконечной)
+    public static long[] getBounds() {
+        return BOUNDS.clone();
+    }
+
+    // число значений в каждой корзине (последняя - больше всех границ); корзины читаются по очереди,
+    // поэтому при параллельной записи снимок может не включать самые последние значения
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    // процентиль (quantile от 0 до 1) в наносекундах, 0 - если значений еще не было
+    public long getQuantileNanos(double quantile) {
+        long[] counts = getBucketCounts();
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        double rank = quantile * count;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && seen + counts[i] >= rank) {
+                if (i == BOUNDS.length) {
+                    return maxNanos.get();    // выше последней границы - оценкой служит максимум
+                }
+                long lower = i == 0 ? 0 : BOUNDS[i - 1];
+                return lower + Math.round((BOUNDS[i] - lower) * ((rank - seen) / counts[i]));
+            }
+            seen += counts[i];
+        }
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,66 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+
+// История, которую менеджер с синхронизированными методами отдает наружу (getHistoryManager):
+// каждое обращение идет под блокировкой самого менеджера, как и его собственные изменения истории
+class LockedHistoryManager implements HistoryManager {
+
+    private final HistoryManager historyManager;
+    private final Object lock;
+
+    LockedHistoryManager(HistoryManager historyManager, Object lock) {
+        this.historyManager = historyManager;
+        this.lock = lock;
+    }
+
+    @Override
+    public void add(Task task) {
+        synchronized (lock) {
+            historyManager.add(task);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        synchronized (lock) {
+            historyManager.remove(id);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (lock) {
+            return historyManager.getHistory();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        synchronized (lock) {
+            return historyManager.getHistory(limit);
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        synchronized (lock) {
+            return historyManager.getVersion();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LockedHistoryManager that = (LockedHistoryManager) o;
+        return historyManager.equals(that.historyManager);
+    }
+
+    @Override
+    public int hashCode() {
+        return historyManager.hashCode();
+    }
+}
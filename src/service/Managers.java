@@ -8,11 +8,32 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // менеджер для сервера, обрабатывающего запросы в несколько потоков
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // менеджер с хранением задач по столбцам - для очень больших досок
+    public static TaskManager getColumnar() {
+        return new ColumnarTaskManager(getHistoryCapacity());
+    }
+
+    // размер истории можно ограничить свойством -Dkanban.history.capacity, по умолчанию история не ограничена
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return new InMemoryHistoryManager(getHistoryCapacity());
+    }
+
+    public static int getHistoryCapacity() {
+        return Integer.getInteger("kanban.history.capacity", InMemoryHistoryManager.UNLIMITED);
     }
 
     public static TaskManager getBackedManager() {
-        return FileBackedTaskManager.loadFromFile(new File("tasksAndHistoryFile.csv"));
+        return FileBackedTaskManager.loadFromFile(new File("tasksAndHistoryFile.csv"),
+                PersistenceConfig.fromSystemProperties());
+    }
+
+    // менеджер с журналом изменений: при запуске загружается снимок и повторяется журнал после него
+    public static TaskManager getJournaledManager() {
+        return new JournaledTaskManager(new File("tasksAndHistoryJournal"));
     }
 }
@@ -0,0 +1,313 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Индекс интервалов приоритетных задач для ColumnarTaskManager: то же, что TimeIntervalIndex,
+// но без объектов задач - интервал хранится как начало и окончание в минутах от эпохи и id задачи.
+// Интервалы лежат в отсортированных по началу блоках из массивов (не больше CHUNK_SIZE записей в блоке):
+// поиск - двоичный по блокам и внутри блока, вставка и удаление сдвигают только один блок.
+// Начала интервалов в индексе различаются (совпадение начала считается пересечением).
+class MinuteIntervalIndex {
+
+    private static final int CHUNK_SIZE = 512;
+
+    private final ArrayList<Chunk> chunks;
+    private int size;
+
+    MinuteIntervalIndex() {
+        this.chunks = new ArrayList<>();
+    }
+
+    // id задачи, с которой пересекается интервал [start, end), либо 0
+    // (прежний интервал самой задачи с тем же id при проверке не учитывается)
+    int findCrossed(int id, long start, long end) {
+        long before = floor(start);
+        if (before >= 0 && idAt(before) == id) {
+            before = previous(before);
+        }
+        if (before >= 0 && isCrossed(before, start, end)) {
+            return idAt(before);
+        }
+        long after = next(before >= 0 ? before : -1);
+        if (after >= 0 && startAt(after) <= start) {
+            after = next(after);    // floor совпал с самой задачей и был пропущен выше
+        }
+        if (after >= 0 && idAt(after) == id) {
+            after = next(after);
+        }
+        if (after >= 0 && isCrossed(after, start, end)) {
+            return idAt(after);
+        }
+        return 0;
+    }
+
+    // то же с пропуском интервалов, для которых ignored возвращает true (как в TimeIntervalIndex):
+    // интервалы перебираются от окончания [start, end) назад, пока они не закончатся раньше start
+    int findCrossed(int id, long start, long end, IntPredicate ignored) {
+        for (long position = floor(end); position >= 0 && endAt(position) >= start; position = previous(position)) {
+            int entryId = idAt(position);
+            if (entryId != id && !ignored.test(entryId) && isCrossed(position, start, end)) {
+                return entryId;
+            }
+        }
+        return 0;
+    }
+
+    void add(int id, long start, long end) {
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk());
+        }
+        int c = chunkFor(start);
+        Chunk chunk = chunks.get(c < 0 ? 0 : c);
+        int i = chunk.insertionPoint(start);
+        chunk.insert(i, start, end, id);
+        size++;
+        if (chunk.size == CHUNK_SIZE) {
+            chunks.add((c < 0 ? 0 : c) + 1, chunk.splitHalf());
+        }
+    }
+
+    boolean remove(long start) {
+        int c = chunkFor(start);
+        if (c < 0) {
+            return false;
+        }
+        Chunk chunk = chunks.get(c);
+        int i = chunk.indexOf(start);
+        if (i < 0) {
+            return false;
+        }
+        chunk.delete(i);
+        size--;
+        if (chunk.size == 0) {
+            chunks.remove(c);
+        }
+        return true;
+    }
+
+    // id задач в порядке времени начала
+    void forEach(IntConsumer action) {
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                action.accept(chunk.ids[i]);
+            }
+        }
+    }
+
+    // id задач, интервал которых пересекается с окном [from, to), в порядке времени начала.
+    // Интервалы не пересекаются, поэтому обход начинается с последнего интервала, начавшегося не позже from
+    void forEachCrossing(long from, long to, IntConsumer action) {
+        long position = floor(from);
+        if (position < 0) {
+            position = next(-1);
+        }
+        for (; position >= 0 && startAt(position) < to; position = next(position)) {
+            if (endAt(position) > from) {
+                action.accept(idAt(position));
+            }
+        }
+    }
+
+    // свободные промежутки как в TimeIntervalIndex.findFreeSlots, в минутах от эпохи;
+    // before == Long.MAX_VALUE - окно справа не ограничено (у последнего промежутка тогда нет окончания).
+    // Проходит не больше maxScanned интервалов: тогда возвращает минуту, на которой остановился,
+    // а если поиск завершен - Long.MIN_VALUE
+    long forEachFreeSlot(long minutes, long after, long before, int limit, int maxScanned, SlotConsumer action) {
+        long position = floor(after);
+        if (position < 0) {
+            position = next(-1);
+        }
+        long cursor = after;
+        int count = 0;
+        int scanned = 0;
+        for (; position >= 0; position = next(position)) {
+            long start = startAt(position);
+            long end = endAt(position);
+            long busyFrom = end == start ? start - 1 : start;
+            long busyTo = end == start ? start + 1 : end;
+            if (busyFrom >= before) {
+                break;
+            }
+            if (++scanned > maxScanned) {
+                return cursor;
+            }
+            if (busyFrom - cursor >= minutes) {
+                action.accept(cursor, busyFrom);
+                if (++count == limit) {
+                    return Long.MIN_VALUE;
+                }
+            }
+            cursor = Math.max(cursor, busyTo);
+        }
+        if (before == Long.MAX_VALUE || before - cursor >= minutes) {
+            action.accept(cursor, before);
+        }
+        return Long.MIN_VALUE;
+    }
+
+    interface SlotConsumer {
+        void accept(long start, long end);
+    }
+
+    // id задач, которые могут пересекаться с окном [from, to), начиная с интервала, следующего за началом
+    // after (Long.MIN_VALUE - без курсора), в порядке времени начала, пока action возвращает true.
+    // Начальная позиция находится двоичным поиском, как в forEachCrossing; окончание проверяет вызывающий
+    void forEachInWindow(long from, long to, long after, IntPredicate action) {
+        long position = floor(from);
+        if (position < 0) {
+            position = next(-1);
+        }
+        if (after != Long.MIN_VALUE) {
+            long following = next(floor(after));    // позиции упорядочены так же, как начала интервалов
+            if (following < 0) {
+                return;
+            }
+            position = Math.max(position, following);
+        }
+        for (; position >= 0 && startAt(position) < to; position = next(position)) {
+            if (!action.test(idAt(position))) {
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        chunks.clear();
+        size = 0;
+    }
+
+    // пересечение определяется так же, как в TimeIntervalIndex
+    private boolean isCrossed(long position, long start, long end) {
+        long entryStart = startAt(position);
+        long entryEnd = endAt(position);
+        if (entryStart == start || entryEnd == end) return true;
+        return entryStart < end && start < entryEnd;
+    }
+
+    // позиция записи кодируется как (номер блока << 32 | номер в блоке), -1 - позиции нет
+    private long floor(long start) {
+        int c = chunkFor(start);
+        if (c < 0) {
+            return -1;
+        }
+        Chunk chunk = chunks.get(c);
+        return position(c, chunk.insertionPoint(start + 1) - 1);
+    }
+
+    private long previous(long position) {
+        int c = (int) (position >>> 32);
+        int i = (int) position;
+        if (i > 0) {
+            return position(c, i - 1);
+        }
+        return c > 0 ? position(c - 1, chunks.get(c - 1).size - 1) : -1;
+    }
+
+    // следующая позиция, для -1 - первая запись индекса
+    private long next(long position) {
+        if (position < 0) {
+            return size == 0 ? -1 : position(0, 0);
+        }
+        int c = (int) (position >>> 32);
+        int i = (int) position;
+        if (i + 1 < chunks.get(c).size) {
+            return position(c, i + 1);
+        }
+        return c + 1 < chunks.size() ? position(c + 1, 0) : -1;
+    }
+
+    private long startAt(long position) {
+        return chunks.get((int) (position >>> 32)).starts[(int) position];
+    }
+
+    private long endAt(long position) {
+        return chunks.get((int) (position >>> 32)).ends[(int) position];
+    }
+
+    private int idAt(long position) {
+        return chunks.get((int) (position >>> 32)).ids[(int) position];
+    }
+
+    private static long position(int chunk, int index) {
+        return ((long) chunk << 32) | index;
+    }
+
+    // последний блок, первое начало которого не больше start, либо -1
+    private int chunkFor(long start) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (chunks.get(middle).starts[0] <= start) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private static class Chunk {
+        final long[] starts = new long[CHUNK_SIZE];
+        final long[] ends = new long[CHUNK_SIZE];
+        final int[] ids = new int[CHUNK_SIZE];
+        int size;
+
+        // первая позиция с началом не меньше start
+        int insertionPoint(long start) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < start) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        int indexOf(long start) {
+            int i = insertionPoint(start);
+            return i < size && starts[i] == start ? i : -1;
+        }
+
+        void insert(int i, long start, long end, int id) {
+            System.arraycopy(starts, i, starts, i + 1, size - i);
+            System.arraycopy(ends, i, ends, i + 1, size - i);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            starts[i] = start;
+            ends[i] = end;
+            ids[i] = id;
+            size++;
+        }
+
+        void delete(int i) {
+            System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+            System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+
+        // вторая половина записей переносится в новый блок
+        Chunk splitHalf() {
+            Chunk second = new Chunk();
+            int half = size / 2;
+            second.size = size - half;
+            System.arraycopy(starts, half, second.starts, 0, second.size);
+            System.arraycopy(ends, half, second.ends, 0, second.size);
+            System.arraycopy(ids, half, second.ids, 0, second.size);
+            size = half;
+            return second;
+        }
+    }
+}
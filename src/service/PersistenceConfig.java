@@ -0,0 +1,88 @@
+package service;
+
+// Настройки сохранения FileBackedTaskManager в файл.
+public class PersistenceConfig {
+
+    public enum SaveMode {
+        SYNC,           // файл перезаписывается сразу после каждого изменения (прежнее поведение)
+        FSYNC,          // то же, но запись дополнительно сбрасывается на диск (fsync) до возврата из метода
+        WRITE_BEHIND    // изменения копятся и записываются фоновым потоком одним сохранением
+    }
+
+    public enum StorageFormat {
+        CSV,       // текстовый CSV файл (CSVFormat)
+        BINARY     // двоичный снимок всего состояния менеджера (BinarySnapshotFormat) - быстрый запуск
+    }
+
+    private final SaveMode saveMode;
+    // период фоновой записи для WRITE_BEHIND
+    private final long flushIntervalMillis;
+    // число накопленных изменений, после которого фоновая запись запускается не дожидаясь периода
+    private final int flushChangesThreshold;
+    // формат, в котором файл записывается (читаются оба формата - он определяется по содержимому файла)
+    private final StorageFormat storageFormat;
+
+    public PersistenceConfig(SaveMode saveMode, long flushIntervalMillis, int flushChangesThreshold) {
+        this(saveMode, flushIntervalMillis, flushChangesThreshold, StorageFormat.CSV);
+    }
+
+    public PersistenceConfig(SaveMode saveMode, long flushIntervalMillis, int flushChangesThreshold,
+                             StorageFormat storageFormat) {
+        if (flushIntervalMillis < 1 || flushChangesThreshold < 1) {
+            throw new IllegalArgumentException("Период и порог фоновой записи должны быть больше нуля");
+        }
+        this.saveMode = saveMode;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushChangesThreshold = flushChangesThreshold;
+        this.storageFormat = storageFormat;
+    }
+
+    public static PersistenceConfig defaults() {
+        return new PersistenceConfig(SaveMode.SYNC, 1_000, 1_000);
+    }
+
+    public static PersistenceConfig writeBehind(long flushIntervalMillis, int flushChangesThreshold) {
+        return new PersistenceConfig(SaveMode.WRITE_BEHIND, flushIntervalMillis, flushChangesThreshold);
+    }
+
+    // те же настройки с другим форматом файла
+    public PersistenceConfig withStorageFormat(StorageFormat storageFormat) {
+        return new PersistenceConfig(saveMode, flushIntervalMillis, flushChangesThreshold, storageFormat);
+    }
+
+    // настройки из параметров запуска, например: -Dkanban.save=WRITE_BEHIND -Dkanban.flush.interval=500
+    // -Dkanban.format=BINARY
+    public static PersistenceConfig fromSystemProperties() {
+        PersistenceConfig defaults = defaults();
+        return new PersistenceConfig(
+                SaveMode.valueOf(System.getProperty("kanban.save", defaults.saveMode.name())),
+                Long.getLong("kanban.flush.interval", defaults.flushIntervalMillis),
+                Integer.getInteger("kanban.flush.changes", defaults.flushChangesThreshold),
+                StorageFormat.valueOf(System.getProperty("kanban.format", defaults.storageFormat.name())));
+    }
+
+    public SaveMode getSaveMode() {
+        return saveMode;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public int getFlushChangesThreshold() {
+        return flushChangesThreshold;
+    }
+
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistenceConfig{" +
+                "saveMode=" + saveMode
+                + ", flushIntervalMillis=" + flushIntervalMillis
+                + ", flushChangesThreshold=" + flushChangesThreshold
+                + ", storageFormat=" + storageFormat + '}';
+    }
+}
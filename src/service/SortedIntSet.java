@@ -0,0 +1,169 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Упорядоченное множество int для индексов id: значения лежат в отсортированных блоках из массивов
+// (не больше CHUNK_SIZE значений в блоке), как интервалы в MinuteIntervalIndex.
+// Поиск - двоичный по блокам и внутри блока, вставка и удаление сдвигают только один блок.
+// id выдаются по возрастанию, поэтому новое значение почти всегда дописывается в конец последнего блока:
+// заполненный последний блок в этом случае не делится пополам, а за ним начинается новый.
+class SortedIntSet {
+
+    private static final int CHUNK_SIZE = 512;
+
+    private final ArrayList<Chunk> chunks;
+    private int size;
+
+    SortedIntSet() {
+        this.chunks = new ArrayList<>();
+    }
+
+    boolean add(int value) {
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk());
+        }
+        int c = Math.max(chunkFor(value), 0);
+        Chunk chunk = chunks.get(c);
+        int i = chunk.insertionPoint(value);
+        if (i < chunk.size && chunk.values[i] == value) {
+            return false;
+        }
+        if (chunk.size == CHUNK_SIZE) {
+            if (c == chunks.size() - 1 && i == chunk.size) {
+                chunk = new Chunk();    // новый id дописывается в конец - начинаем следующий блок
+                chunks.add(chunk);
+                i = 0;
+            } else {
+                chunks.add(c + 1, chunk.splitHalf());
+                if (i > chunk.size) {
+                    i -= chunk.size;
+                    chunk = chunks.get(c + 1);
+                }
+            }
+        }
+        chunk.insert(i, value);
+        size++;
+        return true;
+    }
+
+    boolean remove(int value) {
+        int c = chunkFor(value);
+        if (c < 0) {
+            return false;
+        }
+        Chunk chunk = chunks.get(c);
+        int i = chunk.insertionPoint(value);
+        if (i == chunk.size || chunk.values[i] != value) {
+            return false;
+        }
+        chunk.delete(i);
+        size--;
+        if (chunk.size == 0) {
+            chunks.remove(c);
+        }
+        return true;
+    }
+
+    boolean contains(int value) {
+        int c = chunkFor(value);
+        if (c < 0) {
+            return false;
+        }
+        Chunk chunk = chunks.get(c);
+        int i = chunk.insertionPoint(value);
+        return i < chunk.size && chunk.values[i] == value;
+    }
+
+    // значения больше after по возрастанию, пока action возвращает true
+    void forEachAfter(int after, IntPredicate action) {
+        if (after == Integer.MAX_VALUE) {
+            return;
+        }
+        for (int c = Math.max(chunkFor(after), 0); c < chunks.size(); c++) {
+            Chunk chunk = chunks.get(c);
+            for (int i = chunk.insertionPoint(after + 1); i < chunk.size; i++) {
+                if (!action.test(chunk.values[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // все значения по возрастанию
+    void forEach(IntConsumer action) {
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                action.accept(chunk.values[i]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        chunks.clear();
+        size = 0;
+    }
+
+    // последний блок, первое значение которого не больше value, либо -1
+    private int chunkFor(int value) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (chunks.get(middle).values[0] <= value) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private static class Chunk {
+        final int[] values = new int[CHUNK_SIZE];
+        int size;
+
+        // первая позиция со значением не меньше value
+        int insertionPoint(int value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        void insert(int i, int value) {
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = value;
+            size++;
+        }
+
+        void delete(int i) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+        }
+
+        // вторая половина значений переносится в новый блок
+        Chunk splitHalf() {
+            Chunk second = new Chunk();
+            int half = size / 2;
+            second.size = size - half;
+            System.arraycopy(values, half, second.values, 0, second.size);
+            size = half;
+            return second;
+        }
+    }
+}
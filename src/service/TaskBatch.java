@@ -0,0 +1,151 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Пакет изменений для TaskManager.applyBatch: создание, обновление, удаление и просмотр (перенос в конец
+// истории, как при getTask) задач, подзадач и эпиков в заданном порядке.
+// Пакет применяется целиком либо не применяется совсем: до первого изменения
+// все операции проверяются по состоянию менеджера с учетом предыдущих операций пакета (BatchValidator),
+// а файловые менеджеры сохраняют пакет одной записью.
+// Подзадача в пакете может ссылаться только на эпик, который уже есть в менеджере:
+// id новых эпиков выдаются при применении пакета.
+public class TaskBatch {
+
+    public enum Action {
+        CREATE,
+        UPDATE,
+        REMOVE,
+        VIEW
+    }
+
+    private final List<Operation> operations;
+
+    public TaskBatch() {
+        this.operations = new ArrayList<>();
+    }
+
+    // тип операции берется из задачи: TASK, SUBTASK (объект Subtask) или EPIC (объект Epic)
+    public TaskBatch create(Task task) {
+        return add(Action.CREATE, task);
+    }
+
+    public TaskBatch update(Task task) {
+        return add(Action.UPDATE, task);
+    }
+
+    public TaskBatch remove(Type type, int id) {
+        checkType(type, null);
+        operations.add(new Operation(Action.REMOVE, type, null, id));
+        return this;
+    }
+
+    // просмотр задачи того же типа - как вызов getTask, getSubtask или getEpic
+    public TaskBatch view(Type type, int id) {
+        checkType(type, null);
+        operations.add(new Operation(Action.VIEW, type, null, id));
+        return this;
+    }
+
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    // применение проверенного пакета обычными методами менеджера;
+    // возвращает id задачи каждой операции (у созданных - выданный менеджером)
+    List<Integer> applyTo(TaskManager manager) {
+        List<Integer> ids = new ArrayList<>(operations.size());
+        for (Operation operation : operations) {
+            Task task = operation.getTask();
+            switch (operation.getAction()) {
+                case CREATE:
+                    if (operation.getType() == Type.TASK) manager.createTask(task);
+                    if (operation.getType() == Type.SUBTASK) manager.createSubtask((Subtask) task);
+                    if (operation.getType() == Type.EPIC) manager.createEpic((Epic) task);
+                    ids.add(task.getId());
+                    break;
+                case UPDATE:
+                    if (operation.getType() == Type.TASK) manager.updateTask(task);
+                    if (operation.getType() == Type.SUBTASK) manager.updateSubtask((Subtask) task);
+                    if (operation.getType() == Type.EPIC) manager.updateEpic((Epic) task);
+                    ids.add(task.getId());
+                    break;
+                case VIEW:
+                    if (operation.getType() == Type.TASK) manager.getTask(operation.getId());
+                    if (operation.getType() == Type.SUBTASK) manager.getSubtask(operation.getId());
+                    if (operation.getType() == Type.EPIC) manager.getEpic(operation.getId());
+                    ids.add(operation.getId());
+                    break;
+                default:
+                    if (operation.getType() == Type.TASK) manager.removeTask(operation.getId());
+                    if (operation.getType() == Type.SUBTASK) manager.removeSubtask(operation.getId());
+                    if (operation.getType() == Type.EPIC) manager.removeEpic(operation.getId());
+                    ids.add(operation.getId());
+            }
+        }
+        return ids;
+    }
+
+    private TaskBatch add(Action action, Task task) {
+        Type type = task.getTaskType();
+        checkType(type, task);
+        operations.add(new Operation(action, type, task, task.getId()));
+        return this;
+    }
+
+    private static void checkType(Type type, Task task) {
+        boolean valid = type == Type.TASK || type == Type.SUBTASK || type == Type.EPIC;
+        if (valid && task != null) {
+            valid = (type == Type.SUBTASK) == (task instanceof Subtask) && (type == Type.EPIC) == (task instanceof Epic);
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Неверный тип задачи в пакете изменений: " + type);
+        }
+    }
+
+    // одна операция пакета: для создания и обновления - сама задача, для удаления и просмотра - тип и id
+    public static class Operation {
+
+        private final Action action;
+        private final Type type;
+        private final Task task;
+        private final int id;
+
+        private Operation(Action action, Type type, Task task, int id) {
+            this.action = action;
+            this.type = type;
+            this.task = task;
+            this.id = id;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
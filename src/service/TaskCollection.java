@@ -0,0 +1,10 @@
+package service;
+
+// Коллекции менеджера, которые клиенты читают целиком (списки и их страницы) и у которых есть счетчик версии
+public enum TaskCollection {
+    TASKS,
+    SUBTASKS,
+    EPICS,
+    PRIORITIZED,
+    HISTORY
+}
@@ -0,0 +1,63 @@
+package service;
+
+import model.TaskStatus;
+import model.Type;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Индекс id для постраничной выдачи: id задач каждого типа по возрастанию и отдельно - по каждому статусу.
+// Страница с курсором читает индекс начиная с id после курсора, поэтому стоит O(размер страницы),
+// а фильтр по статусу не перебирает задачи с другими статусами.
+class TaskIdIndex {
+
+    private final Map<Type, SortedIntSet> byType;
+    private final Map<Type, Map<TaskStatus, SortedIntSet>> byStatus;
+
+    TaskIdIndex() {
+        this.byType = new EnumMap<>(Type.class);
+        this.byStatus = new EnumMap<>(Type.class);
+        for (Type type : new Type[]{Type.TASK, Type.SUBTASK, Type.EPIC}) {
+            byType.put(type, new SortedIntSet());
+            Map<TaskStatus, SortedIntSet> statuses = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                statuses.put(status, new SortedIntSet());
+            }
+            byStatus.put(type, statuses);
+        }
+    }
+
+    // вносит id или переносит его под новый статус (null - задача без статуса, только в индексе типа).
+    // Прежний статус не запоминается: задачу могли изменить "на месте" до вызова update,
+    // поэтому id убирается из всех множеств статусов - их всего три
+    void put(Type type, int id, TaskStatus status) {
+        byType.get(type).add(id);
+        for (Map.Entry<TaskStatus, SortedIntSet> entry : byStatus.get(type).entrySet()) {
+            if (entry.getKey() == status) {
+                entry.getValue().add(id);
+            } else {
+                entry.getValue().remove(id);
+            }
+        }
+    }
+
+    void remove(Type type, int id) {
+        if (byType.get(type).remove(id)) {
+            for (SortedIntSet ids : byStatus.get(type).values()) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    void clear(Type type) {
+        byType.get(type).clear();
+        for (SortedIntSet ids : byStatus.get(type).values()) {
+            ids.clear();
+        }
+    }
+
+    // id задач типа type, при status != null - только с этим статусом
+    SortedIntSet ids(Type type, TaskStatus status) {
+        return status == null ? byType.get(type) : byStatus.get(type).get(status);
+    }
+}
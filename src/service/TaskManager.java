@@ -3,14 +3,24 @@ package service;
 import model.Epic;
 import model.Subtask;
 import model.Task;
+import model.TimeSlot;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TaskManager {
     Task createTask(Task task);
 
     List<Task> getTasksList();
 
+    // страница задач по возрастанию id с фильтрами запроса (без записи в историю);
+    // с временным окном задачи и подзадачи идут по времени начала, как в getPrioritizedPage
+    TaskPage<Task> getTasksPage(TaskQuery query);
+
+    // обход задач без копирования всего списка - для потоковой выдачи больших списков
+    void forEachTask(Consumer<? super Task> action);
+
     Task getTask(int id);
 
     void clearTasks();
@@ -23,6 +33,10 @@ public interface TaskManager {
 
     List<Subtask> getSubtaskList();
 
+    TaskPage<Subtask> getSubtasksPage(TaskQuery query);
+
+    void forEachSubtask(Consumer<? super Subtask> action);
+
     Subtask getSubtask(int id);
 
     void clearSubtasks();
@@ -37,6 +51,10 @@ public interface TaskManager {
 
     List<Epic> getEpicList();
 
+    TaskPage<Epic> getEpicsPage(TaskQuery query);
+
+    void forEachEpic(Consumer<? super Epic> action);
+
     Epic getEpic(int id);
 
     void clearEpics();
@@ -51,6 +69,31 @@ public interface TaskManager {
 
     List<Task> getPrioritizedTasks();
 
+    // приоритетные задачи в порядке времени начала без копирования списка
+    void forEachPrioritized(Consumer<? super Task> action);
+
+    // страница приоритетных задач в порядке времени начала с фильтрами запроса (окно from/to - по пересечению
+    // интервала выполнения); курсор after - id последней задачи предыдущей страницы
+    TaskPage<Task> getPrioritizedPage(TaskQuery query);
+
+    // не больше limit самых ранних свободных промежутков расписания, куда помещается задача длительностью
+    // durationMinutes, начиная с after и до before (null - без ограничения).
+    // Поиск проходит не больше 10 000 занятых интервалов после after: в плотном расписании промежутков может
+    // быть меньше limit, а если не найдено ни одного - ValidationException с временем, откуда продолжить поиск
+    List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime after, LocalDateTime before, int limit);
+
     HistoryManager getHistoryManager();
 
+    // пакет изменений применяется целиком либо не применяется совсем (см. TaskBatch);
+    // возвращает id задачи каждой операции пакета (у созданных - выданный менеджером)
+    List<Integer> applyBatch(TaskBatch batch);
+
+    // версия коллекции: растет при каждом её изменении, одинаковая версия - одинаковое содержимое
+    long getVersion(TaskCollection collection);
+
+    // можно ли вызывать методы менеджера из нескольких потоков одновременно (многопоточный HttpTaskServer)
+    default boolean isThreadSafe() {
+        return false;
+    }
+
 }
@@ -0,0 +1,118 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+// Страница задач: задачи по возрастанию id (или в порядке обхода другого индекса, см. fromOrdered)
+// и курсор следующей страницы (null - страница последняя)
+public class TaskPage<T extends Task> {
+
+    private final List<T> items;
+    private final Integer next;
+
+    public TaskPage(List<T> items, Integer next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Integer getNext() {
+        return next;
+    }
+
+    // страница по упорядоченному индексу id: читается только часть индекса после курсора.
+    // lookup возвращает задачу по id либо null, если задачи этого типа с таким id нет
+    static <T extends Task> TaskPage<T> fromIndex(SortedIntSet ids, TaskQuery query, IntFunction<T> lookup) {
+        Collector<T> collector = new Collector<>(query, lookup);
+        ids.forEachAfter(query.getAfter(), collector::offer);
+        return collector.toPage();
+    }
+
+    // страница по заранее отобранным id (задачи во временном окне, подзадачи эпика) в любом порядке
+    static <T extends Task> TaskPage<T> fromCandidates(Candidates candidates, TaskQuery query,
+                                                      IntFunction<T> lookup) {
+        int[] ids = new int[candidates.count];
+        int size = 0;
+        for (int i = 0; i < candidates.count; i++) {
+            if (candidates.ids[i] > query.getAfter()) {
+                ids[size++] = candidates.ids[i];
+            }
+        }
+        Arrays.sort(ids, 0, size);
+        Collector<T> collector = new Collector<>(query, lookup);
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && ids[i] == ids[i - 1]) {
+                continue;    // эпик мог быть отобран по нескольким подзадачам
+            }
+            if (!collector.offer(ids[i])) {
+                break;
+            }
+        }
+        return collector.toPage();
+    }
+
+    // страница по обходу в порядке другого индекса (приоритетные задачи - по времени начала):
+    // walk передает id задач по порядку, начиная после курсора, пока принимающий не вернет false
+    static <T extends Task> TaskPage<T> fromOrdered(Consumer<IntPredicate> walk, TaskQuery query,
+                                                   IntFunction<T> lookup) {
+        Collector<T> collector = new Collector<>(query, lookup);
+        walk.accept(collector::offer);
+        return collector.toPage();
+    }
+
+    // id, отобранные для страницы по другому индексу
+    static class Candidates {
+
+        private int[] ids = new int[16];
+        private int count;
+
+        void add(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+
+    // собирает limit подходящих задач и проверяет, есть ли за ними еще одна
+    private static class Collector<T extends Task> {
+
+        private final TaskQuery query;
+        private final IntFunction<T> lookup;
+        private final List<T> items;
+        private Integer next;
+
+        Collector(TaskQuery query, IntFunction<T> lookup) {
+            this.query = query;
+            this.lookup = lookup;
+            this.items = new ArrayList<>(Math.min(query.getLimit(), TaskQuery.DEFAULT_LIMIT));
+        }
+
+        // false - страница собрана, обход можно прекратить
+        boolean offer(int id) {
+            T task = lookup.apply(id);
+            if (task == null || !query.matches(task)) {
+                return true;
+            }
+            if (items.size() == query.getLimit()) {
+                next = items.get(items.size() - 1).getId();
+                return false;
+            }
+            items.add(task);
+            return true;
+        }
+
+        TaskPage<T> toPage() {
+            return new TaskPage<>(items, next);
+        }
+    }
+}
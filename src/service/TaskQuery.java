@@ -0,0 +1,123 @@
+package service;
+
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+
+import java.time.LocalDateTime;
+
+// Запрос одной страницы задач (подзадач, эпиков): фильтры и курсор.
+// Задачи на странице упорядочены по id, курсор - id последней задачи предыдущей страницы.
+// Задачи и подзадачи временного окна упорядочены по времени начала: курсор тот же, но продолжение
+// ищется по времени начала задачи-курсора, поэтому она должна оставаться среди приоритетных.
+// Все фильтры необязательны и применяются вместе:
+// - status - статус задачи;
+// - from/to - временное окно [from, to): задача попадает на страницу, если её интервал выполнения
+//   пересекается с окном (задачи без времени начала в окно не попадают), эпик - если в окно попадает
+//   хотя бы одна его подзадача;
+// - epicId - только подзадачи этого эпика.
+public class TaskQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    private final TaskStatus status;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final Integer epicId;
+    private final int after;
+    private final int limit;
+
+    public TaskQuery(TaskStatus status, LocalDateTime from, LocalDateTime to, Integer epicId, int after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть больше нуля: " + limit);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало временного окна должно быть раньше окончания");
+        }
+        this.status = status;
+        this.from = from;
+        this.to = to;
+        this.epicId = epicId;
+        this.after = after;
+        this.limit = limit;
+    }
+
+    // первая страница без фильтров
+    public static TaskQuery firstPage() {
+        return new TaskQuery(null, null, null, null, 0, DEFAULT_LIMIT);
+    }
+
+    public TaskQuery withStatus(TaskStatus status) {
+        return new TaskQuery(status, from, to, epicId, after, limit);
+    }
+
+    public TaskQuery withWindow(LocalDateTime from, LocalDateTime to) {
+        return new TaskQuery(status, from, to, epicId, after, limit);
+    }
+
+    public TaskQuery withEpicId(Integer epicId) {
+        return new TaskQuery(status, from, to, epicId, after, limit);
+    }
+
+    // следующая страница после задачи с id after
+    public TaskQuery withAfter(int after) {
+        return new TaskQuery(status, from, to, epicId, after, limit);
+    }
+
+    public TaskQuery withLimit(int limit) {
+        return new TaskQuery(status, from, to, epicId, after, limit);
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public int getAfter() {
+        return after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasWindow() {
+        return from != null || to != null;
+    }
+
+    // проверка задачи по всем фильтрам (курсор проверяется при обходе индекса)
+    public boolean matches(Task task) {
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        if (epicId != null && !(task instanceof Subtask && epicId.equals(task.getEpicId()))) {
+            return false;
+        }
+        return !hasWindow() || isInWindow(task.getStartTime(), task.getDurationToMinutes());
+    }
+
+    boolean isInWindow(LocalDateTime startTime, long durationMinutes) {
+        if (startTime == null) {
+            return false;
+        }
+        return (to == null || startTime.isBefore(to))
+                && (from == null || startTime.plusMinutes(durationMinutes).isAfter(from));
+    }
+
+    @Override
+    public String toString() {
+        return "TaskQuery{status=" + status + ", from=" + from + ", to=" + to + ", epicId=" + epicId +
+                ", after=" + after + ", limit=" + limit + "}";
+    }
+}
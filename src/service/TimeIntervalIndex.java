@@ -0,0 +1,264 @@
+package service;
+
+import converter.TimeAdapter;
+import exception.NotFoundException;
+import exception.ValidationException;
+import model.Task;
+import model.TimeSlot;
+import model.Type;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Индекс временных интервалов приоритетных задач (задачи и подзадачи с заполненным временем начала).
+// Задачи лежат в дереве по времени начала, а уже внесенные интервалы между собой не пересекаются,
+// поэтому для проверки новой задачи достаточно сравнить её с двумя соседями - O(log n) без копирования множества.
+class TimeIntervalIndex {
+
+    // сколько занятых интервалов может пройти один поиск свободных промежутков (см. findFreeSlots)
+    static final int MAX_SCANNED_INTERVALS = 10_000;
+
+    private final TreeMap<LocalDateTime, Task> byStartTime;
+    // время начала, под которым задача лежит в дереве: задачу могут изменить "на месте" до вызова update,
+    // поэтому удалять старый интервал нужно по сохраненному ключу, а не по текущему времени задачи
+    private final IntHashMap<LocalDateTime> startTimeById;    // ключ id не упаковывается в Integer
+
+    TimeIntervalIndex() {
+        this.byStartTime = new TreeMap<>();
+        this.startTimeById = new IntHashMap<>();
+    }
+
+    // в индекс попадают только задачи со временем начала, эпики не учитываем
+    static boolean isScheduled(Task task) {
+        return task.getStartTime() != null && task.getTaskType() != Type.EPIC;
+    }
+
+    // возвращает задачу, с которой пересекается интервал task, либо null
+    // (прежняя версия самой задачи с тем же id при проверке не учитывается)
+    Task findCrossed(Task task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = start.plusMinutes(task.getDurationToMinutes());
+        int id = task.getId();
+
+        Map.Entry<LocalDateTime, Task> before = byStartTime.floorEntry(start);
+        if (before != null && before.getValue().getId() == id) {
+            before = byStartTime.lowerEntry(before.getKey());
+        }
+        if (before != null && isCrossed(before, start, end)) {
+            return before.getValue();
+        }
+        Map.Entry<LocalDateTime, Task> after = byStartTime.higherEntry(start);
+        if (after != null && after.getValue().getId() == id) {
+            after = byStartTime.higherEntry(after.getKey());
+        }
+        if (after != null && isCrossed(after, start, end)) {
+            return after.getValue();
+        }
+        return null;
+    }
+
+    // то же с пропуском интервалов, для которых ignored возвращает true (их уберет или заменит пакет изменений):
+    // соседи могут быть пропущены, поэтому перебираются все интервалы от окончания task назад, пока они
+    // не закончатся раньше её начала - окончания непересекающихся интервалов упорядочены так же, как начала
+    Task findCrossed(Task task, IntPredicate ignored) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = start.plusMinutes(task.getDurationToMinutes());
+        for (Map.Entry<LocalDateTime, Task> entry : byStartTime.headMap(end, true).descendingMap().entrySet()) {
+            if (entry.getKey().plusMinutes(entry.getValue().getDurationToMinutes()).isBefore(start)) {
+                break;
+            }
+            int id = entry.getValue().getId();
+            if (id != task.getId() && !ignored.test(id) && isCrossed(entry, start, end)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    // вносим задачу в индекс, заменяя её прежний интервал
+    void add(Task task) {
+        remove(task.getId());
+        byStartTime.put(task.getStartTime(), task);
+        startTimeById.put(task.getId(), task.getStartTime());
+    }
+
+    boolean remove(int id) {
+        LocalDateTime startTime = startTimeById.remove(id);
+        if (startTime == null) {
+            return false;
+        }
+        byStartTime.remove(startTime);
+        return true;
+    }
+
+    // задачи в порядке времени начала (представление без копирования)
+    Collection<Task> values() {
+        return byStartTime.values();
+    }
+
+    // задачи, интервал которых пересекается с окном [from, to), в порядке времени начала
+    // (null вместо границы - окно с этой стороны не ограничено).
+    // Интервалы в индексе не пересекаются, поэтому окончания упорядочены так же, как начала:
+    // обход начинается с последней задачи, начавшейся не позже from, и идет до первой, начавшейся не раньше to
+    void forEachCrossing(LocalDateTime from, LocalDateTime to, Consumer<Task> action) {
+        NavigableMap<LocalDateTime, Task> window = byStartTime;
+        LocalDateTime first = from == null ? null : byStartTime.floorKey(from);
+        if (first != null) {
+            window = window.tailMap(first, true);
+        }
+        if (to != null) {
+            window = window.headMap(to, false);
+        }
+        for (Map.Entry<LocalDateTime, Task> entry : window.entrySet()) {
+            if (from == null || entry.getKey().plusMinutes(entry.getValue().getDurationToMinutes()).isAfter(from)) {
+                action.accept(entry.getValue());
+            }
+        }
+    }
+
+    // задачи, которые могут пересекаться с окном [from, to), начиная после задачи-курсора afterId
+    // (0 - с начала окна), в порядке времени начала: представление дерева без копирования - границы
+    // находятся за O(log n), обход k задач - O(k). Первой может оказаться задача, закончившаяся до from
+    // (последняя начавшаяся не позже from), её отсеивает проверка окна в запросе
+    Collection<Task> window(LocalDateTime from, LocalDateTime to, int afterId) {
+        LocalDateTime low = from == null ? null : byStartTime.floorKey(from);
+        boolean inclusive = true;
+        if (afterId != 0) {
+            LocalDateTime cursor = startTimeById.get(afterId);
+            if (cursor == null) {
+                throw new NotFoundException("Задачи курсора с id=" + afterId + " нет среди приоритетных");
+            }
+            if (low == null || !cursor.isBefore(low)) {
+                low = cursor;
+                inclusive = false;
+            }
+        }
+        if (low != null && to != null && !low.isBefore(to)) {
+            return Collections.emptyList();    // у поддерева нижняя граница не может быть больше верхней
+        }
+        NavigableMap<LocalDateTime, Task> window = low == null ? byStartTime : byStartTime.tailMap(low, inclusive);
+        if (to != null) {
+            window = window.headMap(to, false);
+        }
+        return window.values();
+    }
+
+    // не больше limit задач, начавшихся позже after (null - с самой ранней), в порядке времени начала;
+    // возвращает время начала последней переданной задачи - с него продолжается следующая часть обхода
+    LocalDateTime forEachAfter(LocalDateTime after, int limit, Consumer<Task> action) {
+        NavigableMap<LocalDateTime, Task> tail = after == null ? byStartTime : byStartTime.tailMap(after, false);
+        LocalDateTime last = after;
+        int count = 0;
+        for (Map.Entry<LocalDateTime, Task> entry : tail.entrySet()) {
+            if (count++ == limit) {
+                break;
+            }
+            action.accept(entry.getValue());
+            last = entry.getKey();
+        }
+        return last;
+    }
+
+    // проверка параметров поиска свободных промежутков (общая для менеджеров)
+    static void checkSlotQuery(long minutes, LocalDateTime after, LocalDateTime before, int limit) {
+        if (minutes < 1) {
+            throw new IllegalArgumentException("Длительность задачи должна быть больше нуля: " + minutes);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Число промежутков должно быть больше нуля: " + limit);
+        }
+        if (after == null) {
+            throw new IllegalArgumentException("Не указано начало поиска свободных промежутков");
+        }
+        if (before != null && !after.isBefore(before)) {
+            throw new IllegalArgumentException("Начало поиска должно быть раньше окончания");
+        }
+    }
+
+    // не больше limit самых ранних свободных промежутков не короче minutes внутри окна [after, before)
+    // (before == null - окно справа не ограничено, последний промежуток тогда без окончания).
+    // Поиск начинается с последнего интервала, начавшегося не позже after (O(log n)), и идет по соседям:
+    // промежуток - от окончания одного интервала до начала следующего.
+    // Задача без длительности пересекается со всем, что начинается или заканчивается в её время,
+    // поэтому занимает минуту до и после своего начала.
+    // Поиск линейный по пройденным интервалам, поэтому проходит не больше MAX_SCANNED_INTERVALS из них:
+    // в плотном расписании может вернуться меньше limit промежутков (см. scanLimitReached)
+    List<TimeSlot> findFreeSlots(long minutes, LocalDateTime after, LocalDateTime before, int limit) {
+        return findFreeSlots(minutes, after, before, limit, MAX_SCANNED_INTERVALS);
+    }
+
+    List<TimeSlot> findFreeSlots(long minutes, LocalDateTime after, LocalDateTime before, int limit,
+                                 int maxScanned) {
+        List<TimeSlot> slots = new ArrayList<>();
+        int scanned = 0;
+        LocalDateTime first = byStartTime.floorKey(after);
+        NavigableMap<LocalDateTime, Task> tail = first == null ? byStartTime : byStartTime.tailMap(first, true);
+        LocalDateTime cursor = after;
+        for (Map.Entry<LocalDateTime, Task> entry : tail.entrySet()) {
+            long duration = entry.getValue().getDurationToMinutes();
+            LocalDateTime busyFrom = duration == 0 ? entry.getKey().minusMinutes(1) : entry.getKey();
+            LocalDateTime busyTo = entry.getKey().plusMinutes(duration == 0 ? 1 : duration);
+            if (before != null && !busyFrom.isBefore(before)) {
+                break;
+            }
+            if (++scanned > maxScanned) {
+                return scanLimitReached(slots, cursor, maxScanned);
+            }
+            addSlot(slots, cursor, busyFrom, minutes);
+            if (slots.size() == limit) {
+                return slots;
+            }
+            if (busyTo.isAfter(cursor)) {
+                cursor = busyTo;
+            }
+        }
+        addSlot(slots, cursor, before, minutes);
+        return slots;
+    }
+
+    // поиск прошел предельное число интервалов: найденные промежутки - самые ранние в окне, отдаем их;
+    // если не найдено ни одного, отказываем с временем, с которого клиент может продолжить поиск (after)
+    static List<TimeSlot> scanLimitReached(List<TimeSlot> slots, LocalDateTime cursor, int maxScanned) {
+        if (slots.isEmpty()) {
+            throw new ValidationException("Свободных промежутков нет среди ближайших " + maxScanned
+                    + " занятых интервалов, продолжите поиск с after=" + cursor.format(TimeAdapter.DATE_TIME_FORMAT_1));
+        }
+        return slots;
+    }
+
+    private static void addSlot(List<TimeSlot> slots, LocalDateTime start, LocalDateTime end, long minutes) {
+        if (end == null || !start.plusMinutes(minutes).isAfter(end)) {
+            slots.add(new TimeSlot(start, end));
+        }
+    }
+
+    boolean contains(int id) {
+        return startTimeById.containsKey(id);
+    }
+
+    int size() {
+        return byStartTime.size();
+    }
+
+    void clear() {
+        byStartTime.clear();
+        startTimeById.clear();
+    }
+
+    // пересечение определяется так же, как и раньше при полном переборе:
+    // совпадает начало или окончание, либо начало одного интервала лежит внутри другого
+    private static boolean isCrossed(Map.Entry<LocalDateTime, Task> entry, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime entryStart = entry.getKey();
+        LocalDateTime entryEnd = entryStart.plusMinutes(entry.getValue().getDurationToMinutes());
+        if (entryStart.equals(start) || entryEnd.equals(end)) return true;
+        return entryStart.isBefore(end) && start.isBefore(entryEnd);
+    }
+}
@@ -0,0 +1,36 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Счетчики версий коллекций менеджера задач: любое изменение коллекции увеличивает её счетчик.
+// Счетчик увеличивается после изменения данных, поэтому по одной версии никогда не отдаются
+// данные старее этой версии (на этом построены ETag и кэш ответов сервера)
+class VersionCounters {
+
+    private final AtomicLongArray versions = new AtomicLongArray(TaskCollection.values().length);
+
+    // изменилась задача: меняются и список задач, и приоритетные задачи
+    void taskChanged() {
+        changed(TaskCollection.TASKS);
+        changed(TaskCollection.PRIORITIZED);
+    }
+
+    // изменилась подзадача: вместе с ней меняются статус и время её эпика
+    void subtaskChanged() {
+        changed(TaskCollection.SUBTASKS);
+        changed(TaskCollection.EPICS);
+        changed(TaskCollection.PRIORITIZED);
+    }
+
+    void epicChanged() {
+        changed(TaskCollection.EPICS);
+    }
+
+    long get(TaskCollection collection) {
+        return versions.get(collection.ordinal());
+    }
+
+    private void changed(TaskCollection collection) {
+        versions.incrementAndGet(collection.ordinal());
+    }
+}
@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Результат одного замера TaskManagerBenchmark: среднее время операции по итерациям замера
+// и стандартное отклонение между итерациями.
+// Результаты пишутся в CSV (одна строка - сценарий, менеджер и размер данных), чтобы сравнивать прогоны
+// между собой (TaskManagerBenchmark -compare) или загружать в таблицу
+public class BenchmarkResult {
+
+    static final String HEADLINE = "benchmark,manager,size,samples,score,error,unit";
+    static final String UNIT = "us/op";
+
+    private final String benchmark;
+    private final String manager;
+    private final int size;
+    private final int samples;
+    private final double score;
+    private final double error;
+
+    BenchmarkResult(String benchmark, String manager, int size, int samples, double score, double error) {
+        this.benchmark = benchmark;
+        this.manager = manager;
+        this.size = size;
+        this.samples = samples;
+        this.score = score;
+        this.error = error;
+    }
+
+    // среднее и отклонение по времени одной операции в каждой итерации (в наносекундах)
+    static BenchmarkResult of(String benchmark, String manager, int size, double[] nanosPerOperation) {
+        double sum = 0;
+        for (double value : nanosPerOperation) {
+            sum += value;
+        }
+        double mean = sum / nanosPerOperation.length;
+        double squares = 0;
+        for (double value : nanosPerOperation) {
+            squares += (value - mean) * (value - mean);
+        }
+        double deviation = nanosPerOperation.length > 1 ? Math.sqrt(squares / (nanosPerOperation.length - 1)) : 0;
+        return new BenchmarkResult(benchmark, manager, size, nanosPerOperation.length, mean / 1_000,
+                deviation / 1_000);
+    }
+
+    String key() {
+        return benchmark + "," + manager + "," + size;
+    }
+
+    double getScore() {
+        return score;
+    }
+
+    double getError() {
+        return error;
+    }
+
+    String toLine() {
+        return String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%s", key(), samples, score, error, UNIT);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-20s %-12s %,9d %12.3f ± %9.3f %s",
+                benchmark, manager, size, score, error, UNIT);
+    }
+
+    static void write(File file, List<BenchmarkResult> results) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            writer.write(HEADLINE);
+            writer.newLine();
+            for (BenchmarkResult result : results) {
+                writer.write(result.toLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    // результаты из CSV по ключу "сценарий,менеджер,размер" в порядке файла
+    static Map<String, BenchmarkResult> read(File file) throws IOException {
+        Map<String, BenchmarkResult> results = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (!HEADLINE.equals(line)) {
+                throw new IOException("Файл " + file.getName() + " не результаты TaskManagerBenchmark");
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                BenchmarkResult result = new BenchmarkResult(fields[0], fields[1], Integer.parseInt(fields[2]),
+                        Integer.parseInt(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[5]));
+                results.put(result.key(), result);
+            }
+        }
+        return results;
+    }
+
+    // сравнение двух прогонов: изменение времени операции в процентах.
+    // Изменение меньше суммы отклонений обоих прогонов помечается как шум
+    static List<String> compare(Map<String, BenchmarkResult> before, Map<String, BenchmarkResult> after) {
+        List<String> lines = new ArrayList<>();
+        for (BenchmarkResult old : before.values()) {
+            BenchmarkResult current = after.get(old.key());
+            if (current == null) {
+                lines.add(String.format("%-40s нет в новом прогоне", old.key()));
+                continue;
+            }
+            double change = (current.score - old.score) / old.score * 100;
+            boolean noise = Math.abs(current.score - old.score) <= old.error + current.error;
+            lines.add(String.format(Locale.ROOT, "%-40s %12.3f -> %12.3f %s  %+7.1f%%%s", old.key(), old.score,
+                    current.score, UNIT, change, noise ? "  (в пределах шума)" : ""));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import service.ColumnarTaskManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+// Сравнение InMemoryTaskManager и ColumnarTaskManager на 1 000 000 задач:
+// время заполнения, занятая менеджером куча после сборки мусора и время чтения всех задач по id.
+// Состав доски как в CsvLoadBenchmark: на каждые 50 задач эпик, 24 подзадачи и 25 задач,
+// половина со временем начала; наименования и описания повторяются (25 вариантов).
+// Запуск: java -Xmx3g -cp <classpath> benchmark.ColumnarFootprintBenchmark
+public class ColumnarFootprintBenchmark {
+
+    private static final int SIZE = 1_000_000;
+    private static final LocalDateTime BEGIN = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        measure("InMemoryTaskManager", InMemoryTaskManager::new);
+        measure("ColumnarTaskManager", ColumnarTaskManager::new);
+    }
+
+    private static void measure(String name, Supplier<TaskManager> factory) {
+        long before = usedHeap();
+        long begin = System.nanoTime();
+        TaskManager manager = fill(factory.get());
+        long filled = System.nanoTime() - begin;
+        long heap = usedHeap() - before;
+
+        begin = System.nanoTime();
+        long checksum = 0;
+        for (Task task : manager.getTasksList()) {
+            checksum += manager.getTask(task.getId()).getDurationToMinutes();
+        }
+        long read = System.nanoTime() - begin;
+        System.out.printf("%-22s заполнение %,6d мс, куча %,8d КБ (%d байт на задачу), чтение задач %,6d мс (%d)%n",
+                name, filled / 1_000_000, heap / 1024, heap / SIZE, read / 1_000_000, checksum % 1000);
+    }
+
+    private static TaskManager fill(TaskManager manager) {
+        int epicId = 0;
+        for (int id = 1; id <= SIZE; id++) {
+            String suffix = String.valueOf(id % 25);
+            if (id % 50 == 1) {
+                epicId = manager.createEpic(new Epic("Epic_" + suffix, "Описание эпика " + suffix)).getId();
+                continue;
+            }
+            Task task = id % 2 == 0 ? new Subtask("Subtask_" + suffix, "Описание подзадачи " + suffix, epicId)
+                    : new Task("Task_" + suffix, "Описание задачи " + suffix);
+            if (id % 4 < 2) {
+                task.setStartTime(BEGIN.plusMinutes(2L * id));
+                task.setDurationOfMinutes(1);
+            }
+            if (task instanceof Subtask) {
+                manager.createSubtask((Subtask) task);
+            } else {
+                manager.createTask(task);
+            }
+        }
+        return manager;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
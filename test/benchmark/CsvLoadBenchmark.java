@@ -0,0 +1,76 @@
+package benchmark;
+
+import converter.CSVFormat;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import service.FileBackedTaskManager;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// Замер загрузки FileBackedTaskManager.loadFromFile из сгенерированных файлов на 10 000, 100 000 и 1 000 000 строк.
+// В файле на каждые 50 строк приходится эпик, 24 подзадачи и 25 задач, половина задач и подзадач со временем,
+// в строке истории перечислены все id.
+// Запуск: java -Xmx2g -cp <classpath> benchmark.CsvLoadBenchmark
+public class CsvLoadBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 3;
+    private static final LocalDateTime BEGIN = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws IOException {
+        for (int rows : SIZES) {
+            File file = File.createTempFile("load-" + rows, ".csv");
+            file.deleteOnExit();
+            generate(file, rows);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long begin = System.nanoTime();
+                FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+                long elapsed = System.nanoTime() - begin;
+                best = Math.min(best, elapsed);
+                if (manager.getHistory().size() != rows) {
+                    throw new IllegalStateException("Загружены не все строки: " + manager.getHistory().size());
+                }
+            }
+            System.out.printf("%,10d строк (%,d КБ): %,d мс%n", rows, file.length() / 1024, best / 1_000_000);
+        }
+    }
+
+    static void generate(File file, int rows) throws IOException {
+        StringBuilder history = new StringBuilder("HISTORY");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            writer.write("id,type,name,status,description,epic,startTime,duration");
+            writer.newLine();
+            int epicId = 0;
+            for (int id = 1; id <= rows; id++) {
+                Task task;
+                if (id % 50 == 1) {
+                    epicId = id;
+                    task = new Epic("Epic_" + id, "Описание эпика " + id);
+                } else if (id % 2 == 0) {
+                    task = new Subtask("Subtask_" + id, "Описание подзадачи " + id, epicId);
+                } else {
+                    task = new Task("Task_" + id, "Описание задачи " + id);
+                }
+                task.setId(id);
+                task.setStatus(id % 3 == 0 ? TaskStatus.DONE : TaskStatus.NEW);
+                if (!(task instanceof Epic) && id % 4 < 2) {
+                    task.setStartTime(BEGIN.plusMinutes(2L * id));
+                    task.setDurationOfMinutes(1);
+                }
+                writer.write(CSVFormat.taskToString(task));
+                writer.newLine();
+                history.append(',').append(rows - id + 1);
+            }
+            writer.newLine();
+            writer.write(history.toString());
+        }
+    }
+}
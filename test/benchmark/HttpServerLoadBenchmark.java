@@ -0,0 +1,130 @@
+package benchmark;
+
+import server.HttpTaskServer;
+import server.ServerConfig;
+import service.Managers;
+import service.TaskManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Нагрузочный прогон HTTP сервера во всех режимах потоков: SINGLE, FIXED и PER_REQUEST.
+// Несколько клиентов параллельно шлют смесь запросов (чтение задачи по id, список задач,
+// список приоритетных задач и создание задачи), по итогам печатается пропускная способность и p99 задержки.
+// Сервер работает с потокобезопасным менеджером (Managers.getConcurrent()).
+// Запуск: java -cp <classpath> benchmark.HttpServerLoadBenchmark [клиентов] [запросов на клиента] [порт]
+public class HttpServerLoadBenchmark {
+
+    private static final int PRELOADED_TASKS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8090;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("клиентов: %d, запросов на клиента: %d, ядер: %d%n", clients, requestsPerClient, threads);
+        for (ServerConfig.ExecutorMode mode : ServerConfig.ExecutorMode.values()) {
+            ServerConfig config = new ServerConfig(port, clients, mode, threads);
+            // прогрев JIT, затем основной замер
+            run(config, clients, requestsPerClient / 10);
+            Result result = run(config, clients, requestsPerClient);
+            System.out.printf("%-12s %8.0f запр/с   p50 %6.2f мс   p99 %6.2f мс   ошибок %d%n",
+                    mode, result.throughput, result.percentile(0.50), result.percentile(0.99), result.errors);
+        }
+    }
+
+    static Result run(ServerConfig config, int clients, int requestsPerClient) throws InterruptedException {
+        TaskManager manager = Managers.getConcurrent();
+        PrioritizedTasksBenchmark.fill(manager, 0, PRELOADED_TASKS);
+        HttpTaskServer server = new HttpTaskServer(manager, config);
+        server.start();
+        try {
+            String baseUri = "http://localhost:" + config.getPort();
+            long[][] latencies = new long[clients][requestsPerClient];
+            AtomicInteger errors = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                final long[] clientLatencies = latencies[c];
+                final int clientNumber = c;
+                Thread worker = new Thread(() -> {
+                    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                    try {
+                        start.await();
+                        for (int i = 0; i < requestsPerClient; i++) {
+                            HttpRequest request = nextRequest(baseUri, clientNumber, i);
+                            long begin = System.nanoTime();
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            clientLatencies[i] = System.nanoTime() - begin;
+                            if (response.statusCode() >= 300) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long elapsed = System.nanoTime() - begin;
+            return new Result(latencies, elapsed, errors.get());
+        } finally {
+            server.stop();
+        }
+    }
+
+    // 70% чтение задачи по id, 10% список задач, 10% приоритетные задачи, 10% создание задачи
+    private static HttpRequest nextRequest(String baseUri, int client, int i) {
+        int kind = i % 10;
+        if (kind == 7) {
+            return get(baseUri + "/tasks");
+        }
+        if (kind == 8) {
+            return get(baseUri + "/prioritized");
+        }
+        if (kind == 9) {
+            String body = "{\"name\": \"Нагрузка " + client + "\", \"description\": \"Запрос " + i + "\"}";
+            return HttpRequest.newBuilder()
+                    .uri(URI.create(baseUri + "/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        return get(baseUri + "/tasks/" + (1 + (client * 31 + i) % PRELOADED_TASKS));
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder().uri(URI.create(uri)).GET().build();
+    }
+
+    static class Result {
+        final long[] sorted;
+        final double throughput;
+        final int errors;
+
+        Result(long[][] latencies, long elapsedNanos, int errors) {
+            this.sorted = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            this.throughput = sorted.length * 1_000_000_000.0 / elapsedNanos;
+            this.errors = errors;
+        }
+
+        // задержка в миллисекундах, которую не превышает доля p запросов
+        double percentile(double p) {
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import model.Task;
+import service.IntHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Сравнение HashMap<Integer, Task> и IntHashMap<Task> на 1 000 000 записей:
+// занимаемая таблицей память (по разнице занятой кучи после сборки мусора, без самих задач)
+// и скорость поиска по id в случайном порядке.
+// Запуск: java -Xmx2g -cp <classpath> benchmark.IntMapBenchmark
+public class IntMapBenchmark {
+
+    private static final int SIZE = 1_000_000;
+    private static final int LOOKUPS = 20_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Task[] tasks = new Task[SIZE + 1];
+        for (int id = 1; id <= SIZE; id++) {
+            tasks[id] = new Task("Task_" + id, "Описание " + id);
+            tasks[id].setId(id);
+        }
+        int[] keys = new int[LOOKUPS];
+        long seed = 42;
+        for (int i = 0; i < LOOKUPS; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            keys[i] = 1 + (int) ((seed >>> 33) % SIZE);
+        }
+
+        HashMap<Integer, Task> hashMap = measureFootprint("HashMap<Integer, Task>", HashMap::new, tasks);
+        IntHashMap<Task> intHashMap = measureFootprint("IntHashMap<Task>", IntHashMap::new, tasks);
+
+        measureLookups("HashMap<Integer, Task>.get(Integer)", id -> hashMap.get(id), keys);
+        measureLookups("IntHashMap<Task>.get(int)", intHashMap::get, keys);
+    }
+
+    private static <M extends Map<Integer, Task>> M measureFootprint(String name, Supplier<M> factory,
+                                                                     Task[] tasks) {
+        long before = usedHeap();
+        M map = factory.get();
+        for (int id = 1; id < tasks.length; id++) {
+            map.put(id, tasks[id]);
+        }
+        long after = usedHeap();
+        System.out.printf("%-40s %,8d КБ (%d байт на запись)%n", name, (after - before) / 1024,
+                (after - before) / (tasks.length - 1));
+        return map;
+    }
+
+    private static void measureLookups(String name, IntFunction<Task> lookup, int[] keys) {
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (int key : keys) {
+                checksum += lookup.apply(key).getId();
+            }
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        System.out.printf("%-40s %,8d млн поисков/с (контроль %d)%n", name,
+                keys.length * 1_000L / best, checksum % 1000);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import server.HttpTaskServer;
+import server.ServerConfig;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+// Замер ответа GET /tasks со списком из 50 000 задач: время ответа и объем мусора,
+// который создает сервер при сериализации (компактный ответ по умолчанию и ответ с отступами ?pretty).
+// Запуск: java -cp <classpath> benchmark.JsonResponseBenchmark [порт]
+public class JsonResponseBenchmark {
+
+    private static final int TASKS = 50_000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8091;
+        TaskManager manager = new InMemoryTaskManager();
+        PrioritizedTasksBenchmark.fill(manager, 0, TASKS);
+        HttpTaskServer server = new HttpTaskServer(manager,
+                new ServerConfig(port, 0, ServerConfig.ExecutorMode.SINGLE, 1));
+        server.start();
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            measure(client, "http://localhost:" + port + "/tasks", "компактный");
+            measure(client, "http://localhost:" + port + "/tasks?pretty", "с отступами");
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void measure(HttpClient client, String uri, String title) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(uri)).GET().build();
+        // прогрев JIT
+        for (int i = 0; i < ROUNDS / 2; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+        long bodySize = 0;
+        long allocatedBefore = allocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            bodySize = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%-12s ответ %d КБ: %.1f мс на запрос, выделено %d КБ на запрос (сервер и клиент)%n",
+                title, bodySize / 1024, elapsed / 1_000_000.0 / ROUNDS, allocated / 1024 / ROUNDS);
+    }
+
+    // суммарный объем памяти, выделенной всеми живыми потоками JVM
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(allocated, 0);
+        }
+        return total;
+    }
+}
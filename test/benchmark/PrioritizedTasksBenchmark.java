@@ -0,0 +1,42 @@
+package benchmark;
+
+import model.Task;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.time.LocalDateTime;
+
+// Замер стоимости создания приоритетной задачи в зависимости от числа уже внесенных интервалов.
+// При проверке пересечений только с соседями время на одну задачу не должно расти линейно от размера менеджера.
+// Запуск: java -Xmx3g -cp <classpath> benchmark.PrioritizedTasksBenchmark
+public class PrioritizedTasksBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int MEASURED_TASKS = 10_000;    // сколько задач замеряем поверх заполненного менеджера
+    private static final LocalDateTime BEGIN = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        // прогрев JIT на небольшом менеджере
+        fill(new InMemoryTaskManager(), 0, 50_000);
+
+        System.out.println("интервалов в менеджере | нс на создание задачи");
+        for (int size : SIZES) {
+            TaskManager manager = new InMemoryTaskManager();
+            fill(manager, 0, size);
+            long begin = System.nanoTime();
+            fill(manager, size, MEASURED_TASKS);
+            long elapsed = System.nanoTime() - begin;
+            System.out.printf("%22d | %d%n", size, elapsed / MEASURED_TASKS);
+        }
+    }
+
+    // задачи по одной минуте с разрывом в минуту, чтобы интервалы не пересекались
+    static void fill(TaskManager manager, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            Task task = new Task("Task_" + i, "Descript_" + i);
+            task.setStartTime(BEGIN.plusMinutes(2L * i));
+            task.setDurationOfMinutes(1);
+            manager.createTask(task);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package benchmark;
+
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+// Регрессионный замер удаления: 100 000 приоритетных задач удаляются по одной.
+// Удаление меняет индекс приоритетных задач на месте, поэтому общее время должно расти как n log n,
+// а не квадратично, как при пересборке множества на каждое удаление.
+// Запуск: java -cp <classpath> benchmark.RemoveTasksBenchmark
+public class RemoveTasksBenchmark {
+
+    private static final int TASKS = 100_000;
+
+    public static void main(String[] args) {
+        // прогрев JIT
+        run(10_000);
+
+        long elapsed = run(TASKS);
+        System.out.printf("удаление %d задач по одной: %d мс, %d нс на задачу%n",
+                TASKS, elapsed / 1_000_000, elapsed / TASKS);
+    }
+
+    static long run(int count) {
+        TaskManager manager = new InMemoryTaskManager();
+        PrioritizedTasksBenchmark.fill(manager, 0, count);
+        long begin = System.nanoTime();
+        for (int id = 1; id <= count; id++) {
+            manager.removeTask(id);
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (!manager.getPrioritizedTasks().isEmpty()) {
+            throw new IllegalStateException("После удаления в приоритетных остались задачи");
+        }
+        return elapsed;
+    }
+}
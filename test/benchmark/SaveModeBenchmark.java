@@ -0,0 +1,60 @@
+package benchmark;
+
+import model.Task;
+import service.FileBackedTaskManager;
+import service.JournaledTaskManager;
+import service.PersistenceConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Сравнение режимов сохранения FileBackedTaskManager и журнала JournaledTaskManager
+// на чтении задач по id (каждое чтение меняет историю).
+// Для каждого режима печатается время одной операции и статистика записи файла.
+// Запуск: java -cp <classpath> benchmark.SaveModeBenchmark [задач] [чтений]
+public class SaveModeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        PersistenceConfig[] configs = {
+                new PersistenceConfig(PersistenceConfig.SaveMode.SYNC, 1_000, 1_000),
+                new PersistenceConfig(PersistenceConfig.SaveMode.FSYNC, 1_000, 1_000),
+                PersistenceConfig.writeBehind(100, 1_000)
+        };
+        for (PersistenceConfig config : configs) {
+            File file = File.createTempFile("save-mode", ".csv");
+            file.deleteOnExit();
+            try (FileBackedTaskManager manager = new FileBackedTaskManager(file, config)) {
+                for (int i = 0; i < tasks; i++) {
+                    manager.getTask(manager.createTask(new Task("Task_" + i, "Descript_" + i)).getId());
+                }
+                long begin = System.nanoTime();
+                for (int i = 0; i < reads; i++) {
+                    manager.getTask(1 + i % tasks);
+                }
+                long elapsed = System.nanoTime() - begin;
+                manager.flush();
+                System.out.printf("%-12s %8.1f мкс на чтение   %s%n", config.getSaveMode(),
+                        elapsed / 1_000.0 / reads, manager.getFlushStatistics());
+            }
+        }
+
+        Path directory = Files.createTempDirectory("journal");
+        try (JournaledTaskManager manager = new JournaledTaskManager(directory.resolve("tasks").toFile())) {
+            for (int i = 0; i < tasks; i++) {
+                manager.getTask(manager.createTask(new Task("Task_" + i, "Descript_" + i)).getId());
+            }
+            long begin = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                manager.getTask(1 + i % tasks);
+            }
+            long elapsed = System.nanoTime() - begin;
+            manager.sync();
+            System.out.printf("%-12s %8.1f мкс на чтение   %s%n", "JOURNAL",
+                    elapsed / 1_000.0 / reads, manager.getCommitStatistics());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package benchmark;
+
+import service.FileBackedTaskManager;
+import service.PersistenceConfig;
+
+import java.io.File;
+import java.io.IOException;
+
+// Сравнение холодного запуска FileBackedTaskManager из CSV файла и из двоичного снимка того же состояния.
+// CSV файл генерируется так же, как в CsvLoadBenchmark, двоичный снимок получается его переводом.
+// Запуск: java -Xmx2g -cp <classpath> benchmark.SnapshotLoadBenchmark
+public class SnapshotLoadBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        for (int rows : SIZES) {
+            File csvFile = File.createTempFile("snapshot-" + rows, ".csv");
+            File binaryFile = File.createTempFile("snapshot-" + rows, ".knbn");
+            csvFile.deleteOnExit();
+            binaryFile.deleteOnExit();
+            CsvLoadBenchmark.generate(csvFile, rows);
+            FileBackedTaskManager.convert(csvFile, binaryFile, PersistenceConfig.StorageFormat.BINARY);
+
+            long csv = measure(csvFile, rows);
+            long binary = measure(binaryFile, rows);
+            System.out.printf("%,10d строк: CSV %,d КБ за %,d мс, BINARY %,d КБ за %,d мс (x%.1f)%n", rows,
+                    csvFile.length() / 1024, csv / 1_000_000, binaryFile.length() / 1024, binary / 1_000_000,
+                    (double) csv / binary);
+        }
+    }
+
+    private static long measure(File file, int rows) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+            best = Math.min(best, System.nanoTime() - begin);
+            if (manager.getHistory().size() != rows) {
+                throw new IllegalStateException("Загружены не все задачи: " + manager.getHistory().size());
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,293 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+import service.PersistenceConfig;
+import service.TaskBatch;
+import service.TaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Набор замеров основных операций TaskManager и истории на данных разного размера:
+// создание, чтение, обновление и удаление задач, подзадач и эпиков, getPrioritizedTasks, getHistory,
+// а для FileBackedTaskManager еще loadFromFile и сохранение файла.
+// Каждый сценарий выполняется для InMemoryTaskManager и FileBackedTaskManager (режим сохранения по умолчанию)
+// на каждом размере: данные готовятся заново перед каждой итерацией и в замер не входят,
+// первые итерации - прогрев JIT. Результат - время одной операции (среднее по итерациям и отклонение),
+// с -o результаты пишутся в CSV, -compare сравнивает два таких файла.
+// Запуск: java -cp <classpath> benchmark.TaskManagerBenchmark [-sizes 1000,10000] [-warmup 3] [-iterations 5]
+//                                                          [-only getTask,removeTask] [-o результаты.csv]
+//         java -cp <classpath> benchmark.TaskManagerBenchmark -compare старые.csv новые.csv
+public class TaskManagerBenchmark {
+
+    private static final LocalDateTime TASKS_BEGIN = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime SUBTASKS_BEGIN = LocalDateTime.of(2034, 1, 1, 0, 0);
+    private static final int MAX_OPERATIONS = 1_000;    // операций в итерации для дешевых сценариев
+    private static final int BULK_OPERATIONS = 10;    // для сценариев, которые обходят все данные
+    // файловый менеджер пишет файл целиком после каждого изменения - операций в итерации меньше
+    private static final int FILE_OPERATIONS = 50;
+
+    private static final List<Scenario> SCENARIOS = List.of(
+            new Scenario("createTask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.createTask(data.newTask(data.size + i))),
+            new Scenario("createSubtask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.createSubtask(data.newSubtask(data.size + i,
+                            data.epicIds[i % data.epicIds.length]))),
+            new Scenario("createEpic", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.createEpic(new Epic("Epic_" + i, "Описание эпика " + i))),
+            new Scenario("getTask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.getTask(data.pick(data.taskIds, i))),
+            new Scenario("getSubtask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.getSubtask(data.pick(data.subtaskIds, i))),
+            new Scenario("getEpic", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.getEpic(data.pick(data.epicIds, i))),
+            new Scenario("updateTask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.updateTask(data.changed(data.manager.getTask(data.taskIds[i])))),
+            new Scenario("updateSubtask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.updateSubtask((Subtask) data.changed(
+                            data.manager.getSubtask(data.subtaskIds[i])))),
+            new Scenario("updateEpic", false, size -> Math.min(size / 10, MAX_OPERATIONS),
+                    (data, i) -> data.manager.updateEpic((Epic) data.changed(data.manager.getEpic(data.epicIds[i])))),
+            new Scenario("removeTask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.removeTask(data.taskIds[i])),
+            new Scenario("removeSubtask", false, size -> Math.min(size, MAX_OPERATIONS),
+                    (data, i) -> data.manager.removeSubtask(data.subtaskIds[i])),
+            new Scenario("removeEpic", false, size -> Math.min(size / 10, MAX_OPERATIONS),
+                    (data, i) -> data.manager.removeEpic(data.epicIds[i])),
+            new Scenario("getPrioritizedTasks", false, size -> BULK_OPERATIONS,
+                    (data, i) -> data.manager.getPrioritizedTasks()),
+            new Scenario("getHistory", false, size -> BULK_OPERATIONS,
+                    (data, i) -> data.manager.getHistory()),
+            new Scenario("loadFromFile", true, size -> 1,
+                    (data, i) -> FileBackedTaskManager.loadFromFile(data.file)),
+            // запись файла целиком: изменение без сохранения (отложенная запись) и flush
+            new Scenario("save", true, size -> BULK_OPERATIONS,
+                    (data, i) -> {
+                        data.manager.updateTask(data.manager.getTask(data.taskIds[i]));
+                        ((FileBackedTaskManager) data.manager).flush();
+                    })
+    );
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("-compare")) {
+            Map<String, BenchmarkResult> before = BenchmarkResult.read(new File(args[1]));
+            Map<String, BenchmarkResult> after = BenchmarkResult.read(new File(args[2]));
+            BenchmarkResult.compare(before, after).forEach(System.out::println);
+            return;
+        }
+        int[] sizes = {1_000, 10_000};
+        int warmup = 3;
+        int iterations = 5;
+        List<String> only = null;
+        File output = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-sizes":
+                    sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-only":
+                    only = Arrays.asList(args[i + 1].split(","));
+                    break;
+                case "-o":
+                    output = new File(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+            }
+        }
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Scenario scenario : SCENARIOS) {
+            if (only != null && !only.contains(scenario.name)) {
+                continue;
+            }
+            for (Kind kind : Kind.values()) {
+                if (scenario.fileOnly && kind == Kind.IN_MEMORY) {
+                    continue;
+                }
+                for (int size : sizes) {
+                    BenchmarkResult result = measure(scenario, kind, size, warmup, iterations);
+                    System.out.println(result);
+                    results.add(result);
+                }
+            }
+        }
+        if (output != null) {
+            BenchmarkResult.write(output, results);
+            System.out.println("Результаты записаны в " + output.getAbsolutePath());
+        }
+    }
+
+    static BenchmarkResult measure(Scenario scenario, Kind kind, int size, int warmup, int iterations)
+            throws IOException {
+        int operations = Math.max(1, scenario.operations.count(size));
+        if (kind == Kind.FILE_BACKED) {
+            operations = Math.min(operations, FILE_OPERATIONS);
+        }
+        double[] samples = new double[iterations];
+        for (int iteration = -warmup; iteration < iterations; iteration++) {
+            Dataset data = Dataset.create(kind, size, scenario.name.equals("save"));
+            try {
+                long begin = System.nanoTime();
+                for (int i = 0; i < operations; i++) {
+                    scenario.body.run(data, i);
+                }
+                long elapsed = System.nanoTime() - begin;
+                if (iteration >= 0) {
+                    samples[iteration] = (double) elapsed / operations;
+                }
+            } finally {
+                data.close();
+            }
+        }
+        return BenchmarkResult.of(scenario.name, kind.label, size, samples);
+    }
+
+    enum Kind {
+        IN_MEMORY("InMemory"),
+        FILE_BACKED("FileBacked");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    private interface OperationCount {
+        int count(int size);
+    }
+
+    private interface Operation {
+        void run(Dataset data, int index) throws IOException;
+    }
+
+    private static class Scenario {
+        final String name;
+        final boolean fileOnly;    // loadFromFile и save есть только у файлового менеджера
+        final OperationCount operations;
+        final Operation body;
+
+        Scenario(String name, boolean fileOnly, OperationCount operations, Operation body) {
+            this.name = name;
+            this.fileOnly = fileOnly;
+            this.operations = operations;
+            this.body = body;
+        }
+    }
+
+    // данные замера: size задач и size подзадач (половина со временем) в size / 10 эпиках
+    static class Dataset {
+        TaskManager manager;
+        File file;
+        int size;
+        int[] taskIds;
+        int[] subtaskIds;
+        int[] epicIds;
+
+        static Dataset create(Kind kind, int size, boolean deferredSave) throws IOException {
+            Dataset data = new Dataset();
+            data.size = size;
+            if (kind == Kind.IN_MEMORY) {
+                data.manager = new InMemoryTaskManager();
+            } else {
+                data.file = File.createTempFile("benchmark", ".csv");
+                data.file.deleteOnExit();
+                // для замера save изменения копятся без записи, файл пишет только flush
+                PersistenceConfig config = deferredSave
+                        ? PersistenceConfig.writeBehind(3_600_000, Integer.MAX_VALUE) : PersistenceConfig.defaults();
+                data.manager = new FileBackedTaskManager(data.file, config);
+            }
+            // пакетами, чтобы файловый менеджер записал файл один раз, а не после каждой задачи
+            TaskBatch epics = new TaskBatch();
+            for (int i = 0; i < Math.max(1, size / 10); i++) {
+                epics.create(new Epic("Epic_" + i, "Описание эпика " + i));
+            }
+            data.epicIds = toArray(data.manager.applyBatch(epics));
+            TaskBatch tasks = new TaskBatch();
+            for (int i = 0; i < size; i++) {
+                tasks.create(data.newTask(i));
+            }
+            data.taskIds = toArray(data.manager.applyBatch(tasks));
+            TaskBatch subtasks = new TaskBatch();
+            for (int i = 0; i < size; i++) {
+                subtasks.create(data.newSubtask(i, data.epicIds[i % data.epicIds.length]));
+            }
+            data.subtaskIds = toArray(data.manager.applyBatch(subtasks));
+            if (data.manager instanceof FileBackedTaskManager) {
+                ((FileBackedTaskManager) data.manager).flush();
+            }
+            return data;
+        }
+
+        // задачи по одной минуте с разрывом в минуту, чтобы интервалы не пересекались
+        Task newTask(int index) {
+            Task task = new Task("Task_" + index, "Описание задачи " + index);
+            if (index % 2 == 0) {
+                task.setStartTime(TASKS_BEGIN.plusMinutes(2L * index));
+                task.setDurationOfMinutes(1);
+            }
+            return task;
+        }
+
+        Subtask newSubtask(int index, int epicId) {
+            Subtask subtask = new Subtask("Subtask_" + index, "Описание подзадачи " + index, epicId);
+            if (index % 2 == 0) {
+                subtask.setStartTime(SUBTASKS_BEGIN.plusMinutes(2L * index));
+                subtask.setDurationOfMinutes(1);
+            }
+            return subtask;
+        }
+
+        // копия задачи с другим статусом (время и эпик те же)
+        Task changed(Task task) {
+            Task copy;
+            if (task instanceof Epic) {
+                copy = new Epic(task.getName(), task.getDescription());
+            } else if (task instanceof Subtask) {
+                copy = new Subtask(task.getName(), task.getDescription(), task.getEpicId());
+            } else {
+                copy = new Task(task.getName(), task.getDescription());
+            }
+            copy.setId(task.getId());
+            copy.setStatus(task.getStatus() == TaskStatus.DONE ? TaskStatus.IN_PROGRESS : TaskStatus.DONE);
+            copy.setStartTime(task.getStartTime());
+            copy.setDurationOfMinutes(task.getDurationToMinutes());
+            return copy;
+        }
+
+        // id для чтения вразброс, одинаковый от прогона к прогону
+        int pick(int[] ids, int index) {
+            return ids[(int) ((index * 7919L) % ids.length)];
+        }
+
+        void close() {
+            if (manager instanceof FileBackedTaskManager) {
+                ((FileBackedTaskManager) manager).close();
+            }
+            if (file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+
+        private static int[] toArray(List<Integer> ids) {
+            return ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
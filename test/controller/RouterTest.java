@@ -0,0 +1,92 @@
+package controller;
+
+import controller.CommonHandler.Endpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Маршрутизатор запросов")
+class RouterTest {
+
+    private Router router;
+
+    @BeforeEach
+    void createRouter() {
+        router = new Router()
+                .route("GET", "/tasks", Endpoint.GET_TASKS)
+                .route("GET", "/tasks/{id}", Endpoint.GET_TASK_BY_ID)
+                .route("DELETE", "/tasks/{id}", Endpoint.DELETE_TASK)
+                .route("POST", "/tasks", Endpoint.POST)
+                .route("GET", "/epics/{id}/subtasks", Endpoint.GET_EPIC_SUBTASKS)
+                .route("GET", "/epics/history", Endpoint.GET_HISTORY);
+    }
+
+    @Test
+    @DisplayName("Должен находить эндпоинт по методу и шаблону пути и разбирать id")
+    void shouldMatchTemplatesAndParseId() {
+        assertEquals(Endpoint.GET_TASKS, Router.endpoint(router.match("GET", "/tasks")));
+        assertEquals(Endpoint.GET_TASKS, Router.endpoint(router.match("GET", "/tasks/")),
+                "Завершающий / не должен менять маршрут");
+        assertEquals(Endpoint.POST, Router.endpoint(router.match("POST", "/tasks")));
+
+        long route = router.match("GET", "/tasks/42");
+        assertEquals(Endpoint.GET_TASK_BY_ID, Router.endpoint(route));
+        assertEquals(42, Router.id(route));
+        assertEquals(Endpoint.DELETE_TASK, Router.endpoint(router.match("DELETE", "/tasks/42")));
+
+        route = router.match("GET", "/epics/" + Integer.MAX_VALUE + "/subtasks");
+        assertEquals(Endpoint.GET_EPIC_SUBTASKS, Router.endpoint(route));
+        assertEquals(Integer.MAX_VALUE, Router.id(route));
+        assertEquals(Endpoint.GET_HISTORY, Router.endpoint(router.match("GET", "/epics/history")),
+                "Литеральный сегмент должен иметь приоритет перед {id}");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать UNKNOWN, если маршрута нет")
+    void shouldReturnUnknownWhenNoRoute() {
+        String[][] requests = {
+                {"GET", "/"}, {"GET", "/unknown"}, {"GET", "/tasks/abc"}, {"GET", "/tasks/-1"},
+                {"GET", "/tasks/2147483648"}, {"GET", "/tasks//1"}, {"GET", "/tasks/1/2"}, {"POST", "/tasks/1"},
+                {"PUT", "/tasks"}, {"HEAD", "/tasks"}, {"GET", "/epics/1"}, {"GET", "tasks"}, {"GET", ""}
+        };
+        for (String[] request : requests) {
+            long route = router.match(request[0], request[1]);
+            assertEquals(Router.NOT_FOUND, route, request[0] + " " + request[1]);
+            assertEquals(Endpoint.UNKNOWN, Router.endpoint(route));
+        }
+    }
+
+    @Test
+    @DisplayName("Не должен принимать повторяющиеся и неверные маршруты")
+    void shouldRejectInvalidRoutes() {
+        assertThrows(IllegalArgumentException.class, () -> router.route("GET", "/tasks/{id}", Endpoint.UNKNOWN));
+        assertThrows(IllegalArgumentException.class, () -> router.route("GET", "/a/{id}/{id}", Endpoint.UNKNOWN));
+        assertThrows(IllegalArgumentException.class, () -> router.route("HEAD", "/tasks", Endpoint.UNKNOWN));
+        assertThrows(IllegalArgumentException.class, () -> router.route("GET", "tasks", Endpoint.UNKNOWN));
+    }
+
+    @Test
+    @DisplayName("Не должен выделять память при сопоставлении запроса")
+    void shouldMatchWithoutAllocation() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String path = "/epics/123/subtasks";
+        long checksum = 0;
+        for (int i = 0; i < 100_000; i++) {    // прогрев
+            checksum += router.match("GET", path);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        int matches = 100_000;
+        for (int i = 0; i < matches; i++) {
+            checksum += router.match("GET", path);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertNotEquals(0, checksum);
+        assertTrue(allocated < matches, "На сопоставления выделено " + allocated + " байт");
+    }
+}
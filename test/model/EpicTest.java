@@ -3,7 +3,12 @@ package model;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class EpicTest {
 
@@ -18,4 +23,76 @@ class EpicTest {
         assertEquals(epicExpected, epic, "У эпиков разный ID");
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Эпик должен пересчитывать статус и время по одной измененной подзадаче")
+    void shouldRecalculateEpicBySingleSubtask() {
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(1);
+        Subtask first = new Subtask("Подзадача1", "Описание1", 1, "01.05.2024 10:00", 60);
+        first.setId(2);
+        Subtask second = new Subtask("Подзадача2", "Описание2", 1, "01.05.2024 12:00", 30);
+        second.setId(3);
+
+        epic.addSubtask(first);
+        epic.addSubtask(second);
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Неверный статус эпика с новыми подзадачами");
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), epic.getStartTime(), "Неверное начало эпика");
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30), epic.getEndTime(), "Неверное окончание эпика");
+
+        Subtask doneSecond = new Subtask("Подзадача2", "Описание2", 1, "01.05.2024 13:00", 30);
+        doneSecond.setId(3);
+        doneSecond.setStatus(TaskStatus.DONE);
+        epic.updateSubtask(doneSecond);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Неверный статус эпика с NEW и DONE подзадачами");
+        assertEquals(LocalDateTime.of(2024, 5, 1, 13, 30), epic.getEndTime(), "Окончание эпика не обновлено");
+        assertEquals(2, epic.getSubtasks().size(), "Подзадача задвоилась при обновлении");
+
+        epic.removeSubtask(first);
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Неверный статус эпика с DONE подзадачами");
+        assertEquals(LocalDateTime.of(2024, 5, 1, 13, 0), epic.getStartTime(), "Начало эпика не обновлено");
+        assertEquals(30, epic.getDurationToMinutes(), "Неверная продолжительность эпика");
+
+        epic.clearSubtasks();
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Неверный статус эпика без подзадач");
+        assertNull(epic.getEndTime(), "У эпика без подзадач есть время окончания");
+    }
+
+    @Test
+    @DisplayName("Эпик должен заменять и удалять подзадачи по id без задвоения и потерь")
+    void shouldReplaceAndRemoveSubtasksById() {
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(1);
+        for (int id = 2; id <= 6; id++) {
+            Subtask subtask = new Subtask("Подзадача" + id, "Описание" + id, 1);
+            subtask.setId(id);
+            epic.addSubtask(subtask);
+        }
+        Subtask removed = new Subtask("Подзадача3", "Описание3", 1);
+        removed.setId(3);
+        epic.removeSubtask(removed);    // на место удаленной встает последняя подзадача
+        epic.removeSubtask(removed);    // повторное удаление ничего не меняет
+
+        Subtask done = new Subtask("Подзадача6", "Выполнена", 1);
+        done.setId(6);
+        done.setStatus(TaskStatus.DONE);
+        epic.updateSubtask(done);
+        Subtask added = new Subtask("Подзадача7", "Описание7", 1);
+        added.setId(7);
+        epic.updateSubtask(added);    // подзадачи еще нет в эпике - добавляется
+
+        assertEquals(List.of(2, 6, 4, 5, 7), epic.getSubtasks().stream().map(Task::getId)
+                .collect(Collectors.toList()), "Неверный список подзадач после замены и удаления");
+        assertEquals("Выполнена", epic.getSubtasks().get(1).getDescription(), "Подзадача не заменена");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Неверный статус эпика");
+
+        epic.getSubtasks().remove(0);    // список изменен в обход эпика
+        Subtask second = new Subtask("Подзадача2", "Описание2", 1);
+        second.setId(2);
+        epic.removeSubtask(second);
+        assertEquals(List.of(6, 4, 5, 7), epic.getSubtasks().stream().map(Task::getId)
+                .collect(Collectors.toList()), "Удалена не та подзадача после изменения списка в обход эпика");
+        epic.removeSubtask(done);
+        assertEquals(List.of(7, 4, 5), epic.getSubtasks().stream().map(Task::getId)
+                .collect(Collectors.toList()), "Позиции подзадач не восстановлены");
+    }
+}
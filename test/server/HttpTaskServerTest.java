@@ -12,20 +12,25 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import service.FileBackedTaskManager;
 import service.Managers;
 import service.TaskManager;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("Http сервер трекера задач")
 class HttpTaskServerTest {
@@ -306,6 +311,34 @@ class HttpTaskServerTest {
     }
 
 
+    @Test
+    @DisplayName("Должен отдавать подзадачи эпика страницами по курсору и проверять параметры страницы")
+    void shouldResponseGET_SubtasksPages() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(buildGET_Request(createURI("/subtasks?epicId=1&limit=5")),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "статус ответа != 200");
+        JsonObject page = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(5, page.getAsJsonArray("items").size(), "Неверный размер страницы");
+        int next = page.get("next").getAsInt();
+        assertEquals(6, next, "Неверный курсор следующей страницы");
+
+        response = client.send(buildGET_Request(createURI("/subtasks?epicId=1&limit=5&after=" + next)),
+                HttpResponse.BodyHandlers.ofString());
+        page = JsonParser.parseString(response.body()).getAsJsonObject();
+        List<Integer> ids = new ArrayList<>();
+        for (JsonElement element : page.getAsJsonArray("items")) {
+            ids.add(element.getAsJsonObject().get("id").getAsInt());
+        }
+        assertEquals(List.of(7, 8, 9), ids, "Неверная последняя страница");
+        assertTrue(page.get("next").isJsonNull(), "У последней страницы есть курсор");
+
+        response = client.send(buildGET_Request(createURI("/tasks?status=UNKNOWN")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Неверный статус принят сервером");
+    }
+
     @Test
     @DisplayName("Проверка исключений при построении некорректного POST запроса")
     void shouldCheckParsingException() throws IOException, InterruptedException {
@@ -667,7 +700,398 @@ class HttpTaskServerTest {
         HttpResponse<String> response6 = client.send(request6, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response6.statusCode(), "статус ответа != 404");
 
+    }
+
+    @Test
+    @DisplayName("Должен отдавать компактный JSON, а с отступами - только по запросу")
+    void ShouldResponseCompactJsonUnlessPrettyRequested() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        HttpResponse<String> compact = client.send(buildGET_Request(createURI("/tasks")),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> prettyByParam = client.send(buildGET_Request(createURI("/tasks?pretty")),
+                HttpResponse.BodyHandlers.ofString());
+        HttpRequest requestWithAccept = HttpRequest.newBuilder()
+                .GET()
+                .uri(createURI("/tasks"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .header("Accept", "application/json; pretty=true")
+                .build();
+        HttpResponse<String> prettyByHeader = client.send(requestWithAccept, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, compact.statusCode(), "статус ответа != 200");
+        assertFalse(compact.body().contains("\n"), "По умолчанию ответ должен быть без отступов");
+        assertTrue(prettyByParam.body().contains("\n"), "С параметром pretty ответ должен быть с отступами");
+        assertTrue(prettyByHeader.body().contains("\n"), "С заголовком Accept pretty=true ответ должен быть с отступами");
+        // содержимое ответа от формата не зависит
+        assertEquals(JsonParser.parseString(compact.body()), JsonParser.parseString(prettyByParam.body()),
+                "Компактный ответ и ответ с отступами отличаются по содержанию");
+        assertEquals(JsonParser.parseString(compact.body()), JsonParser.parseString(prettyByHeader.body()),
+                "Компактный ответ и ответ с отступами отличаются по содержанию");
+    }
+
+    @Test
+    @DisplayName("Должен отдавать ETag и отвечать 304, пока коллекция не изменилась")
+    void ShouldResponseNotModifiedByETag() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        HttpResponse<String> first = client.send(buildGET_Request(createURI("/tasks")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, first.statusCode(), "статус ответа != 200");
+        String etag = first.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag, "В ответе нет заголовка ETag");
+
+        HttpResponse<String> notModified = client.send(buildConditionalGET_Request("/tasks", etag),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode(), "статус ответа != 304");
+        assertTrue(notModified.body().isEmpty(), "В ответе 304 есть тело");
+        // повторный ответ той же версии отдается из кэша и совпадает с первым
+        HttpResponse<String> cached = client.send(buildGET_Request(createURI("/tasks")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(first.body(), cached.body(), "Ответ из кэша отличается от первого ответа");
+        assertEquals(etag, cached.headers().firstValue("ETag").orElse(null), "ETag изменился без изменений");
+        // у ответа с отступами свой ETag
+        assertEquals(200, client.send(buildConditionalGET_Request("/tasks?pretty", etag),
+                HttpResponse.BodyHandlers.ofString()).statusCode(), "статус ответа != 200");
+
+        manager.createTask(new Task("Новая задача", "Описание"));
+        HttpResponse<String> modified = client.send(buildConditionalGET_Request("/tasks", etag),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, modified.statusCode(), "статус ответа после изменения != 200");
+        assertNotEquals(etag, modified.headers().firstValue("ETag").orElse(null), "ETag не изменился");
+        assertEquals(manager.getTasksList().size(), JsonParser.parseString(modified.body()).getAsJsonArray().size(),
+                "В ответе после изменения нет новой задачи");
+
+        // история меняется при просмотре задачи
+        HttpResponse<String> history = client.send(buildGET_Request(createURI("/history")),
+                HttpResponse.BodyHandlers.ofString());
+        String historyETag = history.headers().firstValue("ETag").orElse(null);
+        assertEquals(304, client.send(buildConditionalGET_Request("/history", historyETag),
+                HttpResponse.BodyHandlers.ofString()).statusCode(), "статус ответа != 304");
+        manager.getTask(manager.getTasksList().stream().mapToInt(Task::getId).min().orElseThrow());
+        assertEquals(200, client.send(buildConditionalGET_Request("/history", historyETag),
+                HttpResponse.BodyHandlers.ofString()).statusCode(), "статус ответа после просмотра != 200");
+    }
 
+    @Test
+    @DisplayName("Должен применять пакет изменений POST /batch целиком либо не применять совсем")
+    void ShouldApplyPOST_Batch() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        int epicId = manager.getEpicList().get(0).getId();
+        int taskId = manager.getTasksList().get(0).getId();
+        int tasks = manager.getTasksList().size();
+        int subtasks = manager.getSubtaskList().size();
+        String batch = "[{\"action\": \"create\", \"type\": \"SUBTASK\", \"task\": {\"name\": \"Пакет 1\", " +
+                "\"description\": \"Описание\", \"epicId\": " + epicId + "}}," +
+                "{\"action\": \"create\", \"type\": \"TASK\", \"task\": {\"name\": \"Пакет 2\", " +
+                "\"description\": \"Описание\", \"startTime\": \"01.05.2024 10:00\", \"duration\": 30}}," +
+                "{\"action\": \"remove\", \"type\": \"TASK\", \"id\": " + taskId + "}]";
+        HttpResponse<String> response = client.send(buildPOST_Request(createURI("/batch"), batch),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "статус ответа != 200");
+        JsonArray ids = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(3, ids.size(), "Не для каждой операции возвращен id");
+        assertEquals(Integer.valueOf(epicId), manager.getSubtask(ids.get(0).getAsInt()).getEpicId(), "Подзадача не создана");
+        assertEquals(tasks, manager.getTasksList().size(), "Задача не создана или не удалена");
+
+        // вторая операция пересекается с задачей, созданной первым пакетом
+        String crossed = "[{\"action\": \"create\", \"type\": \"SUBTASK\", \"task\": {\"name\": \"Пакет 3\", " +
+                "\"description\": \"Описание\", \"epicId\": " + epicId + "}}," +
+                "{\"action\": \"create\", \"type\": \"TASK\", \"task\": {\"name\": \"Пакет 4\", " +
+                "\"description\": \"Описание\", \"startTime\": \"01.05.2024 10:15\", \"duration\": 30}}]";
+        HttpResponse<String> rejected = client.send(buildPOST_Request(createURI("/batch"), crossed),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(406, rejected.statusCode(), "статус ответа != 406");
+        assertEquals(subtasks + 1, manager.getSubtaskList().size(), "Пакет применен частично");
+
+        HttpResponse<String> badAction = client.send(buildPOST_Request(createURI("/batch"),
+                "[{\"action\": \"move\", \"type\": \"TASK\", \"id\": 1}]"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badAction.statusCode(), "статус ответа != 400");
     }
 
-}
\ No newline at end of file
+    // условный GET с заголовком If-None-Match
+    HttpRequest buildConditionalGET_Request(String path, String etag) {
+        return HttpRequest.newBuilder()
+                .GET()
+                .uri(createURI(path))
+                .version(HttpClient.Version.HTTP_1_1)
+                .header("Accept", "text/html; charset=UTF-8")
+                .header("If-None-Match", etag)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Должен выгружать доску в NDJSON и загружать её в другой менеджер")
+    void ShouldExportAndImportNDJSON() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        manager.getTask(manager.getTasksList().get(3).getId());
+        manager.getEpic(manager.getEpicList().get(0).getId());
+        manager.getSubtask(manager.getSubtaskList().get(5).getId());
+        HttpResponse<String> export = client.send(buildGET_Request(createURI("/export")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, export.statusCode(), "статус ответа != 200");
+        assertEquals(manager.getTasksList().size() + manager.getSubtaskList().size() +
+                manager.getEpicList().size() + 1, export.body().split("\n").length, "Выгружены не все строки");
+
+        TaskManager source = manager;
+        httpTaskServer.stop();
+        manager = Managers.getDefault();
+        httpTaskServer = new HttpTaskServer(manager);
+        httpTaskServer.start();
+        HttpResponse<String> imported = client.send(buildPOST_Request(createURI("/import"), export.body()),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, imported.statusCode(), "статус ответа != 200");
+        String[] progress = imported.body().split("\n");
+        JsonObject summary = JsonParser.parseString(progress[progress.length - 1]).getAsJsonObject();
+        assertTrue(summary.get("done").getAsBoolean(), "Загрузка не завершена");
+        assertEquals(source.getSubtaskList().size(), summary.get("subtasks").getAsInt(), "Неверный прогресс");
+
+        assertEquals(source.getTasksList().size(), manager.getTasksList().size(), "Загружены не все задачи");
+        assertEquals(source.getSubtaskList().size(), manager.getSubtaskList().size(), "Загружены не все подзадачи");
+        assertEquals(source.getEpicList().size(), manager.getEpicList().size(), "Загружены не все эпики");
+        for (Epic epic : manager.getEpicList()) {
+            Epic original = source.getEpicList().stream()
+                    .filter(e -> e.getName().equals(epic.getName())).findFirst().orElseThrow();
+            assertEquals(source.getListSubtasksFromEpic(original.getId()).size(),
+                    manager.getListSubtasksFromEpic(epic.getId()).size(), "Подзадачи привязаны не к тем эпикам");
+            assertEquals(original.getStatus(), epic.getStatus(), "Статус эпика не совпадает");
+        }
+        assertEquals(source.getPrioritizedTasks().stream().map(Task::getStartTime).collect(Collectors.toList()),
+                manager.getPrioritizedTasks().stream().map(Task::getStartTime).collect(Collectors.toList()),
+                "Приоритетные задачи не совпадают");
+        List<Task> history = manager.getHistory();
+        List<Task> sourceHistory = source.getHistory();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sourceHistory.get(i).getName(), history.get(i).getName(), "Порядок истории не сохранен");
+        }
+
+        // повторная загрузка пересекается по времени с уже загруженными задачами - пакет не применяется
+        HttpResponse<String> crossed = client.send(buildPOST_Request(createURI("/import"), export.body()),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(406, crossed.statusCode(), "статус ответа != 406");
+        assertEquals(source.getEpicList().size(), manager.getEpicList().size(), "Загружен пакет с ошибкой");
+
+        // подзадача раньше своего эпика
+        HttpResponse<String> broken = client.send(buildPOST_Request(createURI("/import"),
+                "{\"type\":\"SUBTASK\",\"id\":2,\"name\":\"П\",\"description\":\"О\",\"epicId\":1}\n" +
+                        "{\"type\":\"EPIC\",\"id\":1,\"name\":\"Э\",\"description\":\"О\"}"),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, broken.statusCode(), "статус ответа != 400");
+        assertEquals(source.getEpicList().size(), manager.getEpicList().size(), "Загружена строка с ошибкой");
+    }
+
+    @Test
+    @DisplayName("Должен переносить доску с просмотрами подзадач удаленного эпика")
+    void ShouldExportAndImportNDJSONAfterEpicRemoved() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        Epic removed = manager.getEpicList().stream()
+                .filter(epic -> epic.getName().equals("First эпик")).findFirst().orElseThrow();
+        Task task = manager.getTasksList().get(2);
+        manager.getSubtask(manager.getListSubtasksFromEpic(removed.getId()).get(0).getId());
+        manager.getTask(task.getId());
+        manager.getEpic(removed.getId());
+        manager.removeEpic(removed.getId());
+        HttpResponse<String> export = client.send(buildGET_Request(createURI("/export")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, export.statusCode(), "статус ответа != 200");
+
+        TaskManager source = manager;
+        httpTaskServer.stop();
+        manager = Managers.getDefault();
+        httpTaskServer = new HttpTaskServer(manager);
+        httpTaskServer.start();
+        HttpResponse<String> imported = client.send(buildPOST_Request(createURI("/import"), export.body()),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, imported.statusCode(), "статус ответа != 200");
+        String[] progress = imported.body().split("\n");
+        JsonObject summary = JsonParser.parseString(progress[progress.length - 1]).getAsJsonObject();
+        assertTrue(summary.get("done").getAsBoolean(), "Загрузка не завершена");
+        List<String> expected = source.getHistory().stream()
+                .filter(t -> source.getTasksList().contains(t) || source.getSubtaskList().contains(t)
+                        || source.getEpicList().contains(t))
+                .map(Task::getName).collect(Collectors.toList());
+        assertTrue(expected.size() < source.getHistory().size(), "В исходной истории нет удаленных подзадач");
+        assertEquals(expected, manager.getHistory().stream().map(Task::getName).collect(Collectors.toList()),
+                "История перенесена неверно");
+        assertEquals(task.getName(), manager.getHistory().get(0).getName(), "Порядок истории не сохранен");
+
+        // история с id, которого нет в файле, отклоняется до применения пакетов
+        HttpResponse<String> unknown = client.send(buildPOST_Request(createURI("/import"),
+                "{\"type\":\"EPIC\",\"id\":1,\"name\":\"Э\",\"description\":\"О\"}\n" +
+                        "{\"type\":\"HISTORY\",\"ids\":[1,100]}"),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, unknown.statusCode(), "статус ответа != 400");
+        assertEquals(2, manager.getEpicList().size(), "Загружен файл с неверной историей");
+    }
+
+    @Test
+    @DisplayName("Должен отдавать приоритетные задачи временного окна страницами")
+    void ShouldResponseGET_PrioritizedWindow() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        // подзадачи первого эпика 02.04.2024 с 11:00 до 11:33, с 12:00 до 12:33 и т.д.
+        String window = "/prioritized?from=2024-04-02T12:15&to=2024-04-02T15:00&limit=2";
+        HttpResponse<String> response = client.send(buildGET_Request(createURI(window)),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "статус ответа != 200");
+        JsonObject page = JsonParser.parseString(response.body()).getAsJsonObject();
+        JsonArray items = page.getAsJsonArray("items");
+        assertEquals(2, items.size(), "Неверный размер страницы");
+        assertEquals("02.04.2024 12:00", items.get(0).getAsJsonObject().get("startTime").getAsString());
+        assertEquals("02.04.2024 13:00", items.get(1).getAsJsonObject().get("startTime").getAsString());
+        assertEquals(items.get(1).getAsJsonObject().get("id").getAsInt(), page.get("next").getAsInt(),
+                "Курсор не указывает на последнюю задачу страницы");
+
+        HttpResponse<String> next = client.send(buildGET_Request(createURI(window + "&after=" +
+                page.get("next").getAsInt())), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, next.statusCode(), "статус ответа != 200");
+        JsonObject nextPage = JsonParser.parseString(next.body()).getAsJsonObject();
+        assertEquals(1, nextPage.getAsJsonArray("items").size(), "Неверный размер последней страницы");
+        assertEquals("02.04.2024 14:00", nextPage.getAsJsonArray("items").get(0).getAsJsonObject()
+                .get("startTime").getAsString());
+        assertFalse(nextPage.has("next") && !nextPage.get("next").isJsonNull(), "У последней страницы есть курсор");
+
+        HttpResponse<String> staleCursor = client.send(buildGET_Request(createURI(window + "&after=100500")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, staleCursor.statusCode(), "статус ответа != 404");
+        assertTrue(staleCursor.headers().firstValue("ETag").isEmpty(), "У ответа с ошибкой есть ETag");
+        HttpResponse<String> badWindow = client.send(buildGET_Request(createURI(
+                "/prioritized?from=2024-04-02T15:00&to=2024-04-02T12:00")), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badWindow.statusCode(), "статус ответа != 400");
+        HttpResponse<String> staleTaskCursor = client.send(buildGET_Request(createURI(
+                "/subtasks?from=2024-04-02T12:15&to=2024-04-02T15:00&after=100500")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, staleTaskCursor.statusCode(), "статус ответа != 404");
+    }
+
+    @Test
+    @DisplayName("Должен отдавать свободные промежутки расписания GET /slots")
+    void ShouldResponseGET_Slots() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        // подзадачи первого эпика 02.04.2024 с 11:00 до 11:33, с 12:00 до 12:33 и т.д.
+        HttpResponse<String> response = client.send(buildGET_Request(createURI("/slots?duration=20" +
+                "&after=2024-04-02T11:00&before=2024-04-02T14:00&limit=2")), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "статус ответа != 200");
+        JsonArray slots = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, slots.size(), "Неверное число промежутков");
+        assertEquals("02.04.2024 11:33", slots.get(0).getAsJsonObject().get("startTime").getAsString());
+        assertEquals("02.04.2024 12:00", slots.get(0).getAsJsonObject().get("endTime").getAsString());
+        assertEquals("02.04.2024 12:33", slots.get(1).getAsJsonObject().get("startTime").getAsString());
+
+        HttpResponse<String> tooLong = client.send(buildGET_Request(createURI("/slots?duration=30" +
+                "&after=2024-04-02T11:00&before=2024-04-02T14:00")), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, tooLong.statusCode(), "статус ответа != 200");
+        assertEquals(0, JsonParser.parseString(tooLong.body()).getAsJsonArray().size(),
+                "Найден промежуток короче задачи");
+
+        HttpResponse<String> noDuration = client.send(buildGET_Request(createURI("/slots")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, noDuration.statusCode(), "статус ответа != 400");
+        HttpResponse<String> badWindow = client.send(buildGET_Request(createURI("/slots?duration=20" +
+                "&after=2024-04-02T14:00&before=2024-04-02T11:00")), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badWindow.statusCode(), "статус ответа != 400");
+
+        // плотное расписание: задачи встык, свободно только после последней - дальше предела просмотра
+        LocalDateTime dense = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i <= 10_000; i++) {
+            Task task = new Task("Встык " + i, "Описание");
+            task.setStartTime(dense.plusMinutes(30L * i));
+            task.setDurationOfMinutes(30);
+            manager.createTask(task);
+        }
+        HttpResponse<String> denseResponse = client.send(buildGET_Request(createURI("/slots?duration=20" +
+                "&after=2030-01-01T00:00")), HttpResponse.BodyHandlers.ofString());
+        assertEquals(406, denseResponse.statusCode(), "статус ответа != 406");
+        assertTrue(JsonParser.parseString(denseResponse.body()).getAsString().contains("after=" + dense.plusMinutes(30L * 10_000)
+                .format(TimeAdapter.DATE_TIME_FORMAT_1)), "Нет времени, с которого продолжить поиск");
+    }
+
+    @Test
+    @DisplayName("Должен отдавать метрики запросов по эндпоинтам в формате Prometheus")
+    void ShouldResponseGET_Metrics() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        client.send(buildGET_Request(createURI("/tasks")), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> tasks = client.send(buildGET_Request(createURI("/tasks")),
+                HttpResponse.BodyHandlers.ofString());
+        client.send(buildGET_Request(createURI("/tasks/100500")), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(buildGET_Request(createURI("/metrics")),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "статус ответа != 200");
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"),
+                "Неверный тип содержимого");
+        String body = response.body();
+        assertTrue(body.contains("kanban_http_requests_total{context=\"/tasks\",endpoint=\"GET_TASKS\"} 2\n"),
+                "Нет числа запросов списка задач");
+        assertTrue(body.contains("kanban_http_errors_total{context=\"/tasks\",endpoint=\"GET_TASK_BY_ID\"} 1\n"),
+                "Нет числа ошибок");
+        assertTrue(body.contains("kanban_http_response_bytes_total{context=\"/tasks\",endpoint=\"GET_TASKS\"} " +
+                (2L * tasks.body().getBytes(StandardCharsets.UTF_8).length) + "\n"), "Неверное число байт ответов");
+        assertTrue(body.contains("kanban_http_request_duration_seconds_bucket{context=\"/tasks\"," +
+                "endpoint=\"GET_TASKS\",le=\"+Inf\"} 2\n"), "Нет гистограммы времени обработки");
+        assertTrue(body.contains("kanban_http_request_duration_quantile_seconds{context=\"/tasks\"," +
+                "endpoint=\"GET_TASKS\",quantile=\"0.99\"}"), "Нет процентиля p99");
+    }
+
+    @Test
+    @DisplayName("Должен параллельно обрабатывать запросы в пуле потоков")
+    void ShouldHandleConcurrentRequestsInFixedPool() {
+        // перезапускаем сервер в режиме пула потоков с потокобезопасным менеджером
+        httpTaskServer.stop();
+        manager = testInitialization(Managers.getConcurrent());
+        httpTaskServer = new HttpTaskServer(manager,
+                new ServerConfig(HttpTaskServer.PORT, 64, ServerConfig.ExecutorMode.FIXED, 4));
+        httpTaskServer.start();
+        int tasksBefore = manager.getTasksList().size();
+
+        client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String body = "{\"name\": \"Параллельная " + i + "\", \"description\": \"Описание " + i + "\"}";
+            responses.add(client.sendAsync(buildPOST_Request(createURI("/tasks"), body),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(201, response.join().statusCode(), "статус ответа != 201");
+        }
+
+        List<Task> tasks = manager.getTasksList();
+        assertEquals(tasksBefore + 100, tasks.size(), "Не все задачи созданы при параллельных запросах");
+        assertEquals(tasks.size(), tasks.stream().map(Task::getId).distinct().count(),
+                "При параллельных запросах выданы повторяющиеся id");
+    }
+
+    @Test
+    @DisplayName("Не должен запускаться в пуле потоков с непотокобезопасным менеджером")
+    void ShouldRejectFixedPoolWithNotThreadSafeManager() {
+        ServerConfig fixed = new ServerConfig(HttpTaskServer.PORT + 1, 0, ServerConfig.ExecutorMode.FIXED, 4);
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(), fixed),
+                "Сервер создан в пуле потоков с InMemoryTaskManager");
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(),
+                new ServerConfig(HttpTaskServer.PORT + 1, 0, ServerConfig.ExecutorMode.PER_REQUEST, 4)),
+                "Сервер создан с потоком на запрос и InMemoryTaskManager");
+    }
+
+    @Test
+    @DisplayName("Должен отвечать 500, если менеджер не смог записать файл, и 400 на ошибку запроса")
+    void ShouldResponse500_WhenManagerFileWriteFails() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        File file = File.createTempFile("http", ".csv");
+        File temp = new File(file.getPath() + ".tmp");
+        httpTaskServer.stop();
+        manager = new FileBackedTaskManager(file);
+        httpTaskServer = new HttpTaskServer(manager);
+        httpTaskServer.start();
+        assertTrue(temp.mkdir(), "Не удалось занять место временного файла");    // запись файла упадет
+        try {
+            String json = getGson().toJson(new Task("Задача", "Описание")).replace("\"id\": 0", "\"id\": null");
+            HttpResponse<String> failed = client.send(buildPOST_Request(createURI("/tasks"), json),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, failed.statusCode(), "статус ответа != 500");
+
+            HttpResponse<String> missing = client.send(buildDELETE_Request(createURI("/tasks/100500")),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, missing.statusCode(), "статус ответа != 400");
+        } finally {
+            assertTrue(temp.delete(), "Не удалось освободить место временного файла");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import exception.ManagerSaveException;
+import exception.NotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Асинхронный журнал")
+class AsyncLoggerTest {
+
+    @Test
+    @DisplayName("Должен писать строки JSON: ошибки клиента без стека, ERROR со стеком")
+    void shouldWriteStructuredRecords() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogger logger = new AsyncLogger(out);
+        NotFoundException notFound = new NotFoundException("Задачи с id=5 не существует");
+        assertEquals(0, notFound.getStackTrace().length, "Ошибка клиента не должна заполнять стек");
+        ManagerSaveException saveFailure = new ManagerSaveException("Ошибка записи", new IOException("диск"));
+        assertNotEquals(0, saveFailure.getStackTrace().length, "Сбой записи должен сохранять стек");
+
+        logger.log(AsyncLogger.Level.WARN, notFound.getMessage(), notFound, "status", "404", "path", "/tasks/5");
+        logger.log(AsyncLogger.Level.ERROR, saveFailure.getMessage(), saveFailure, "status", "500");
+        logger.close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonObject warn = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals("WARN", warn.get("level").getAsString());
+        assertEquals("Задачи с id=5 не существует", warn.get("message").getAsString());
+        assertEquals("404", warn.get("status").getAsString());
+        assertEquals("/tasks/5", warn.get("path").getAsString());
+        assertEquals(NotFoundException.class.getName(), warn.get("error").getAsString());
+        assertFalse(warn.has("trace"));
+        JsonObject error = JsonParser.parseString(lines[1]).getAsJsonObject();
+        assertEquals("ERROR", error.get("level").getAsString());
+        assertTrue(error.get("cause").getAsString().contains("диск"));
+        assertTrue(error.get("trace").getAsString().contains("AsyncLoggerTest"), "В ERROR должен быть стек");
+    }
+
+    @Test
+    @DisplayName("Должен отбрасывать записи сверх лимита и сообщать, сколько отброшено")
+    void shouldDropRecordsOverLimit() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogger logger = new AsyncLogger(out, 1_000, 10);
+        for (int i = 0; i < 500; i++) {
+            logger.log(AsyncLogger.Level.WARN, "Ошибка " + i, null);
+        }
+        logger.log(AsyncLogger.Level.ERROR, "Ошибка сервера", null);    // ERROR лимитом не ограничен
+        logger.close();
+        logger.log(AsyncLogger.Level.WARN, "После закрытия", null);
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        long written = text.lines().filter(line -> line.matches(".*\"Ошибка \\d+\".*")).count();
+        assertTrue(written >= 10 && written <= 20, "Записано " + written + " записей при лимите 10 в секунду");
+        assertTrue(text.contains("Ошибка сервера"));
+        assertEquals(500 - written + 1, logger.getDropped());
+        long reported = text.lines().filter(line -> line.contains("Отброшено записей журнала: "))
+                .mapToLong(line -> Long.parseLong(line.replaceAll(".*Отброшено записей журнала: (\\d+).*", "$1")))
+                .sum();
+        assertEquals(500 - written, reported, "Неверное число отброшенных записей в отчетах");
+        assertFalse(text.contains("После закрытия"));
+    }
+}
@@ -0,0 +1,229 @@
+package service;
+
+import converter.TimeAdapter;
+import exception.ValidationException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TimeSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Менеджер возвращает копии задач, поэтому проверки, которые в общем наборе меняют задачи "на месте",
+// здесь передают измененные копии в update-методы
+@DisplayName("Менеджер задач с хранением по столбцам")
+class ColumnarTaskManagerTest extends TaskManagerTest<ColumnarTaskManager> {
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new ColumnarTaskManager();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна создавать повторно эпики и задачи")
+    void shouldNotCreateRepeatedTasks() {
+        super.shouldNotCreateRepeatedTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна добавлять в эпик список из своего же эпика")
+    void shouldNotEpicAddedToItself() {
+        super.shouldNotEpicAddedToItself();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна прикреплять подзадачу к подзадаче в привязанный эпик")
+    void shouldNotSubtaskAddedToItsEpic() {
+        super.shouldNotSubtaskAddedToItsEpic();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно работать с задачами")
+    void shouldCreateGetUpdateAndRemoveTasks() {
+        super.shouldCreateGetUpdateAndRemoveTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно работать с эпиками и подзадачами")
+    void shouldCreateGetAndRemoveSubtaskEndEpic() {
+        super.shouldCreateGetAndRemoveSubtaskEndEpic();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно удалять подзадачи")
+    void shouldSubtaskRemove() {
+        final Epic epic = taskManager.createEpic(new Epic("Имя эпика", "Описание Эпика"));
+        for (int i = 1; i < 6; i++) {
+            taskManager.createSubtask(new Subtask("Подзадача " + i, "Описание " + i, epic.getId(),
+                    "02.04.2024 1" + i + ":00", 33));
+        }
+        Subtask subtask1 = taskManager.getListSubtasksFromEpic(epic.getId()).get(0);
+
+        taskManager.removeSubtask(subtask1.getId());
+
+        assertEquals(4, taskManager.getEpic(epic.getId()).getSubtasks().size(), "Подзадача не удаляется.");
+        assertEquals("Подзадача 2", taskManager.getListSubtasksFromEpic(epic.getId()).get(0).getName(),
+                "Удаляется неправильная подзадача");
+
+        taskManager.clearSubtasks();
+
+        assertEquals(0, taskManager.getEpic(epic.getId()).getSubtasks().size(), "Все подзадачи не удаляются.");
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Время удаленных подзадач осталось занятым");
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна переносить подзадачи между эпиками")
+    void shouldMoveSubtaskBetweenEpics() {
+        super.shouldMoveSubtaskBetweenEpics();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна удалять задачи из списка приоритетных без нарушения порядка")
+    void shouldRemovePrioritizedTasks() {
+        super.shouldRemovePrioritizedTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна рассчитывать статусы и время выполнения у эпиков")
+    void shouldCalculateEpicStatusAnd() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Описание эпика"));
+        for (int j = 1; j < 10; j++) {
+            taskManager.createSubtask(new Subtask("Subtask_" + j, "Description" + "." + j, epic.getId(),
+                    "01.01.2024 1" + j + ":01", 58));
+        }
+        assertEquals("19:59", taskManager.getEpic(epic.getId()).getEndTime().format(TimeAdapter.TIME_FORMAT_1),
+                "Ошибка в расчете endTime у эпика");
+        assertEquals(538, taskManager.getEpic(epic.getId()).getDurationToMinutes(),
+                "Ошибка в расчете продолжительности выполнения эпика");
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic.getId()).getStatus(),
+                "ошибка при расчете статуса Эпика NEW.");
+
+        List<Subtask> subtasks = taskManager.getListSubtasksFromEpic(epic.getId());
+        for (Subtask subtask : subtasks.subList(0, 4)) {
+            subtask.setStatus(TaskStatus.DONE);
+            taskManager.updateSubtask(subtask);
+        }
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus(),
+                "ошибка при расчете статуса Эпика IN_PROGRESS.");
+
+        for (Subtask subtask : subtasks) {
+            subtask.setStatus(TaskStatus.DONE);
+            taskManager.updateSubtask(subtask);
+        }
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus(),
+                "ошибка при расчете статуса Эпика DONE.");
+    }
+
+    @Override
+    @Test
+    @DisplayName("Должна проверять пересечение интервалов приоритизированных задач")
+    void shouldCheckTaskTimeInterval() {
+        for (int i = 1; i < 11; i += 2) {
+            taskManager.createTask(new Task("Task_" + i, "Descript_" + i,
+                    (i + 10) + ".01.2024 " + (i + 10) + ":01", 35));
+            taskManager.createTask(new Task("Task_" + (i + 1), "Descript_" + (i + 1)));
+        }
+        // одинаковое начало, одинаковое окончание, вложенный и частично перекрывающий интервалы
+        assertCrossed(2, LocalDateTime.of(2024, 1, 11, 11, 1), 35);
+        assertCrossed(4, LocalDateTime.of(2024, 1, 13, 13, 0), 36);
+        assertCrossed(6, LocalDateTime.of(2024, 1, 15, 14, 0), 360);
+        assertCrossed(8, LocalDateTime.of(2024, 1, 17, 17, 10), 360);
+
+        Task free = taskManager.getTask(10);
+        free.setStartTime(LocalDateTime.of(2024, 1, 11, 11, 36));    // сразу после окончания первой задачи
+        free.setDurationOfMinutes(10);
+        assertDoesNotThrow(() -> taskManager.updateTask(free), "Пересечение найдено для свободного интервала");
+        assertEquals(6, taskManager.getPrioritizedTasks().size(), "Задача не попала в приоритетные");
+    }
+
+    private void assertCrossed(int id, LocalDateTime startTime, long duration) {
+        Task task = taskManager.getTask(id);
+        task.setStartTime(startTime);
+        task.setDurationOfMinutes(duration);
+        assertThrows(ValidationException.class, () -> taskManager.updateTask(task),
+                "Не найдено пересечение интервалов для задачи " + id);
+        assertNull(taskManager.getTask(id).getStartTime(), "Задача с пересечением обновлена");
+    }
+
+    @Test
+    @DisplayName("Должна возвращать копии задач и хранить одинаковые строки один раз")
+    void shouldReturnCopiesAndDeduplicateStrings() {
+        Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание"));
+        for (int i = 0; i < 100; i++) {
+            taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        }
+        assertEquals(3, taskManager.getDistinctStringCount(), "Одинаковые строки не объединены");
+
+        Subtask copy = taskManager.getSubtask(2);
+        copy.setName("Изменено без update");
+        assertEquals("Подзадача", taskManager.getSubtask(2).getName(), "Изменение копии попало в менеджер");
+
+        taskManager.updateSubtask(copy);
+        assertEquals("Изменено без update", taskManager.getSubtask(2).getName(), "Подзадача не обновлена");
+        assertEquals(4, taskManager.getDistinctStringCount(), "Новое наименование не попало в пул строк");
+
+        taskManager.removeEpic(epic.getId());
+        taskManager.getHistoryManager().remove(2);
+        assertEquals(99, taskManager.getRowCount(),
+                "Удаленный эпик остался в таблице или потеряны подзадачи, оставшиеся в истории");
+    }
+
+    @Test
+    @DisplayName("Должна вести историю просмотров как InMemoryTaskManager")
+    void shouldKeepHistoryLikeInMemoryTaskManager() {
+        TaskManager expected = new InMemoryTaskManager();
+        for (TaskManager manager : List.of(expected, taskManager)) {
+            Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+            manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(), "01.02.2024 10:00", 15));
+            manager.createTask(new Task("Задача", "Описание"));
+            manager.createTask(new Task("Задача 2", "Описание"));
+            manager.getEpic(epic.getId());
+            manager.getTask(3);
+            manager.removeTask(4);
+            manager.clearTasks();    // очищенные задачи остаются в истории
+        }
+        assertEquals(ids(expected.getHistory()), ids(taskManager.getHistory()), "История отличается");
+        assertEquals(ids(expected.getPrioritizedTasks()), ids(taskManager.getPrioritizedTasks()),
+                "Приоритетные задачи отличаются");
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(1).getStatus(), "Неверный статус эпика");
+        assertEquals(5, taskManager.createTask(new Task("Новая", "Описание")).getId(), "Выдан неверный id");
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("должна останавливать поиск свободных промежутков в плотном расписании")
+    void shouldBoundFreeSlotScanInDenseCalendar() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i <= TimeIntervalIndex.MAX_SCANNED_INTERVALS; i++) {    // задачи встык
+            taskManager.createTask(new Task("Встык " + i, "Описание",
+                    start.plusMinutes(30L * i).format(TimeAdapter.DATE_TIME_FORMAT_1), 30));
+        }
+        LocalDateTime stop = start.plusMinutes(30L * TimeIntervalIndex.MAX_SCANNED_INTERVALS);
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> taskManager.findFreeSlots(20, start, null, 10), "Поиск не остановлен пределом");
+        assertTrue(e.getMessage().contains("after=" + stop.format(TimeAdapter.DATE_TIME_FORMAT_1)),
+                "Нет времени, с которого продолжить поиск: " + e.getMessage());
+        assertEquals(List.of(new TimeSlot(stop.plusMinutes(30), null)),
+                taskManager.findFreeSlots(20, stop, null, 10), "Поиск с указанного времени не продолжен");
+    }
+}
@@ -0,0 +1,244 @@
+package service;
+
+import exception.ManagerSaveException;
+import exception.ValidationException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Потокобезопасный менеджер задач")
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+
+    @Override
+    @Test
+    @DisplayName("не должна создавать повторно эпики и задачи")
+    void shouldNotCreateRepeatedTasks() {
+        super.shouldNotCreateRepeatedTasks();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна добавлять в эпик список из своего же эпика")
+    void shouldNotEpicAddedToItself() {
+        super.shouldNotEpicAddedToItself();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна прикреплять подзадачу к подзадаче в привязанный эпик")
+    void shouldNotSubtaskAddedToItsEpic() {
+        super.shouldNotSubtaskAddedToItsEpic();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно работать с задачами")
+    void shouldCreateGetUpdateAndRemoveTasks() {
+        super.shouldCreateGetUpdateAndRemoveTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно работать с эпиками и подзадачами")
+    void shouldCreateGetAndRemoveSubtaskEndEpic() {
+        super.shouldCreateGetAndRemoveSubtaskEndEpic();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно удалять подзадачи")
+    void shouldSubtaskRemove() {
+        super.shouldSubtaskRemove();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна переносить подзадачи между эпиками")
+    void shouldMoveSubtaskBetweenEpics() {
+        super.shouldMoveSubtaskBetweenEpics();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна удалять задачи из списка приоритетных без нарушения порядка")
+    void shouldRemovePrioritizedTasks() {
+        super.shouldRemovePrioritizedTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна рассчитывать статусы и время выполнения у эпиков")
+    void shouldCalculateEpicStatusAnd() {
+        super.shouldCalculateEpicStatusAnd();
+    }
+
+    @Override
+    @Test
+    @DisplayName("Должна проверять пересечение интервалов приоритизированных задач")
+    void shouldCheckTaskTimeInterval() {
+        super.shouldCheckTaskTimeInterval();
+    }
+
+    private static final int THREADS = 8;
+
+    // запуск одинаковой нагрузки в нескольких потоках одновременно
+    void runConcurrently(Callable<Void> work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return work.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);    // пробрасываем ошибки из потоков
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("не должна допускать пересечения интервалов при одновременном создании задач")
+    void shouldNotCrossIntervalsUnderContention() throws Exception {
+        final LocalDateTime begin = LocalDateTime.of(2024, 6, 1, 0, 0);
+        final Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));
+        final AtomicInteger created = new AtomicInteger();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 500; i++) {
+                Task task = random.nextBoolean() ? new Task("Task", "Descript")
+                        : new Subtask("Подзадача", "Описание", epic.getId());
+                task.setStartTime(begin.plusMinutes(random.nextInt(3000)));
+                task.setDurationOfMinutes(5 + random.nextInt(30));
+                try {
+                    if (task instanceof Subtask) {
+                        taskManager.createSubtask((Subtask) task);
+                    } else {
+                        taskManager.createTask(task);
+                    }
+                    created.incrementAndGet();
+                } catch (ValidationException e) {
+                    // пересечение по времени - ожидаемый отказ
+                }
+            }
+            return null;
+        });
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(created.get(), prioritized.size(), "Не все созданные задачи попали в приоритетные");
+        assertEquals(created.get(), taskManager.getTasksList().size() + taskManager.getSubtaskList().size(),
+                "Задачи потерялись или перезаписали друг друга при выдаче id");
+        for (int i = 1; i < prioritized.size(); i++) {
+            Task previous = prioritized.get(i - 1);
+            Task next = prioritized.get(i);
+            assertFalse(previous.getEndTime().isAfter(next.getStartTime()),
+                    "Пересекаются интервалы задач " + previous.getId() + " и " + next.getId());
+            assertNotEquals(previous.getEndTime(), next.getEndTime(), "Совпадает время окончания задач");
+        }
+        assertEquals(taskManager.getListSubtasksFromEpic(epic.getId()).size(),
+                taskManager.getEpic(epic.getId()).getSubtasks().size(), "Подзадачи эпика потерялись");
+    }
+
+    @Test
+    @DisplayName("должна корректно рассчитывать статусы эпиков при одновременных изменениях подзадач")
+    void shouldCalculateEpicStatusUnderContention() throws Exception {
+        final int epicsNumber = 16;
+        final List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < epicsNumber; i++) {
+            epicIds.add(taskManager.createEpic(new Epic("Эпик " + i, "Описание " + i)).getId());
+        }
+        final TaskStatus[] statuses = TaskStatus.values();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1000; i++) {
+                int epicId = epicIds.get(random.nextInt(epicsNumber));
+                List<Subtask> subtasksFromEpic = taskManager.getListSubtasksFromEpic(epicId);
+                int action = random.nextInt(4);
+                if (action < 2 || subtasksFromEpic.isEmpty()) {
+                    Subtask subtask = new Subtask("Подзадача", "Описание", epicId);
+                    subtask.setStatus(statuses[random.nextInt(statuses.length)]);
+                    taskManager.createSubtask(subtask);
+                    continue;
+                }
+                Subtask chosen = subtasksFromEpic.get(random.nextInt(subtasksFromEpic.size()));
+                try {
+                    if (action == 2) {
+                        // новая версия подзадачи, иногда в другом эпике
+                        Subtask newVersion = new Subtask("Подзадача", "Новое описание",
+                                epicIds.get(random.nextInt(epicsNumber)));
+                        newVersion.setId(chosen.getId());
+                        newVersion.setStatus(statuses[random.nextInt(statuses.length)]);
+                        taskManager.updateSubtask(newVersion);
+                    } else {
+                        taskManager.removeSubtask(chosen.getId());
+                    }
+                } catch (ManagerSaveException e) {
+                    // подзадачу уже удалил другой поток
+                }
+            }
+            return null;
+        });
+
+        int subtasksInEpics = 0;
+        for (int epicId : epicIds) {
+            List<Subtask> subtasksFromEpic = taskManager.getListSubtasksFromEpic(epicId);
+            subtasksInEpics += subtasksFromEpic.size();
+            long newCount = subtasksFromEpic.stream().filter(s -> s.getStatus() == TaskStatus.NEW).count();
+            long doneCount = subtasksFromEpic.stream().filter(s -> s.getStatus() == TaskStatus.DONE).count();
+            TaskStatus expected;
+            if (newCount == subtasksFromEpic.size()) {
+                expected = TaskStatus.NEW;
+            } else if (doneCount == subtasksFromEpic.size()) {
+                expected = TaskStatus.DONE;
+            } else {
+                expected = TaskStatus.IN_PROGRESS;
+            }
+            Epic epic = taskManager.getEpic(epicId);
+            assertEquals(expected, epic.getStatus(), "Неверный статус эпика " + epicId);
+            assertEquals(subtasksFromEpic.size(), epic.getSubtasks().size(),
+                    "Список подзадач эпика " + epicId + " разошелся с индексом");
+            for (Subtask subtask : subtasksFromEpic) {
+                assertEquals(epicId, subtask.getEpicId().intValue(), "Подзадача числится не в своем эпике");
+            }
+        }
+        assertEquals(taskManager.getSubtaskList().size(), subtasksInEpics, "Подзадачи без эпика в памяти менеджера");
+    }
+
+    @Test
+    @DisplayName("Должна обходить приоритетные задачи частями в порядке времени начала")
+    void shouldStreamPrioritizedTasksInBatches() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 600; i++) {    // больше двух частей обхода
+            Task task = new Task("Задача " + i, "Описание");
+            task.setStartTime(start.minusHours(i));    // создаем в обратном порядке времени
+            task.setDurationOfMinutes(30);
+            taskManager.createTask(task);
+        }
+        List<Task> streamed = new ArrayList<>();
+        taskManager.forEachPrioritized(streamed::add);
+
+        assertEquals(taskManager.getPrioritizedTasks(), streamed, "Обход отличается от списка приоритетных задач");
+    }
+}
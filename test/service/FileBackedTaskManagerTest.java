@@ -3,14 +3,27 @@ package service;
 import model.Epic;
 import model.Subtask;
 import model.Task;
+import model.TaskStatus;
+import model.Type;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisplayName("Резервная копия менеджера задач")
 class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
@@ -91,6 +104,214 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
                 "Сохранение и восстановление менеджера FileBackedTaskManager после удаления задач не работает");
     }
 
+    @Test
+    @DisplayName("Должна загружать файл с переводами строк Windows и привязывать подзадачи к эпикам")
+    void shouldLoadFileWithWindowsLineEndings() throws IOException {
+        File windowsFile = File.createTempFile("windows", ".csv");
+        String content = "id,type,name,status,description,epic,startTime,duration\r\n"
+                + "1,EPIC,Эпик,NEW,Описание эпика,null,null,0\r\n"
+                + "2,SUBTASK,Подзадача,DONE,Описание подзадачи,1,02.04.2024 11:00,33\r\n"
+                + "3,TASK,Задача,IN_PROGRESS,Описание задачи,null,null,0\r\n"
+                + "\r\n"
+                + "HISTORY,3,2,1";
+        Files.write(windowsFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(windowsFile);
+
+        Epic epic = manager.epics.get(1);
+        assertEquals(List.of(manager.subtasks.get(2)), epic.getSubtasks(), "Подзадача не привязана к эпику");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика не рассчитан по подзадачам");
+        assertEquals(LocalDateTime.of(2024, 4, 2, 11, 0), manager.subtasks.get(2).getStartTime(),
+                "Неверно прочитано время начала");
+        assertEquals("Описание задачи", manager.tasks.get(3).getDescription(), "Неверно прочитано описание");
+        assertEquals(List.of(3, 2, 1), manager.getHistory().stream().map(Task::getId).collect(Collectors.toList()),
+                "Неверно восстановлена история");
+        assertEquals(4, manager.createTask(new Task("Новая", "После загрузки")).getId(),
+                "После загрузки выдан неверный id");
+    }
+
+    @Test
+    @DisplayName("Должна в режиме отложенной записи сохранять несколько изменений одной записью при закрытии")
+    void shouldCoalesceChangesInWriteBehindMode() throws IOException {
+        File writeBehindFile = File.createTempFile("write-behind", ".csv");
+        // таймер и порог заведомо больше времени теста - записать файл может только close
+        FileBackedTaskManager manager = new FileBackedTaskManager(writeBehindFile,
+                PersistenceConfig.writeBehind(60_000, 1_000));
+        Task task = manager.createTask(new Task("First Task", "Go to gym", "01.01.1970 00:01", 240));
+        Epic epic = manager.createEpic(new Epic("First Epic", "Learn to drive a car"));
+        Subtask subtask = manager.createSubtask(new Subtask("First Subtask", "Give a license", epic.getId(),
+                "01.01.2001 00:00", 8505));
+        manager.getTask(task.getId());
+        manager.getSubtask(subtask.getId());
+        manager.getEpic(epic.getId());
+
+        assertEquals(0, manager.getFlushStatistics().getFlushes(), "Файл записан до фоновой записи");
+        assertEquals(0, writeBehindFile.length(), "Файл записан до фоновой записи");
+
+        manager.close();
+
+        assertEquals(1, manager.getFlushStatistics().getFlushes(), "Изменения не объединены в одну запись");
+        assertEquals(6, manager.getFlushStatistics().getSavedChanges(), "Записаны не все изменения");
+        assertEquals(FileBackedTaskManager.loadFromFile(writeBehindFile).historyManager, manager.historyManager,
+                "Сохранение и восстановление менеджера в режиме отложенной записи не работает");
+    }
+
+    @Test
+    @DisplayName("Должна в режиме отложенной записи записывать файл по достижении порога изменений")
+    void shouldFlushWhenChangesThresholdReached() throws IOException, InterruptedException {
+        File writeBehindFile = File.createTempFile("write-behind", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(writeBehindFile,
+                PersistenceConfig.writeBehind(60_000, 3));
+        for (int i = 0; i < 3; i++) {
+            manager.getTask(manager.createTask(new Task("Task_" + i, "Descript_" + i)).getId());
+        }
+        // фоновая запись запускается сразу после порога, ждем её не дольше 5 секунд
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (manager.getFlushStatistics().getFlushes() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(manager.getFlushStatistics().getFlushes() > 0, "Порог изменений не запустил запись файла");
+        manager.close();
+        assertEquals(FileBackedTaskManager.loadFromFile(writeBehindFile).historyManager, manager.historyManager,
+                "Сохранение и восстановление менеджера в режиме отложенной записи не работает");
+    }
+
+    @Test
+    @DisplayName("Должна сохранять пакет изменений одной записью файла")
+    void shouldSaveBatchInOneFlush() throws IOException {
+        File batchFile = File.createTempFile("batch", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(batchFile);
+        Epic epic = manager.createEpic(new Epic("First Epic", "Learn to drive a car"));
+        TaskBatch batch = new TaskBatch();
+        for (int i = 0; i < 100; i++) {
+            batch.create(new Subtask("Subtask_" + i, "Descript_" + i, epic.getId()));
+        }
+        manager.applyBatch(batch);
+
+        assertEquals(2, manager.getFlushStatistics().getFlushes(), "Пакет записан не одной записью");
+        assertEquals(101, manager.getFlushStatistics().getSavedChanges(), "Записаны не все изменения");
+        assertEquals(manager.getSubtaskList(), FileBackedTaskManager.loadFromFile(batchFile).getSubtaskList(),
+                "Подзадачи пакета не сохранены");
+
+        // просмотры пакетом (восстановление истории при загрузке NDJSON) - тоже одна запись
+        TaskBatch views = new TaskBatch();
+        for (Subtask subtask : manager.getSubtaskList()) {
+            views.view(Type.SUBTASK, subtask.getId());
+        }
+        views.view(Type.EPIC, epic.getId());
+        manager.applyBatch(views);
+
+        assertEquals(3, manager.getFlushStatistics().getFlushes(), "Просмотры записаны не одной записью");
+        assertEquals(epic, manager.getHistory().get(0), "Последний просмотр пакета не в начале истории");
+        assertEquals(FileBackedTaskManager.loadFromFile(batchFile).historyManager, manager.historyManager,
+                "История после просмотров пакетом не сохранена");
+    }
+
+    @Test
+    @DisplayName("Должна в режиме FSYNC записывать файл после каждого изменения")
+    void shouldFlushEveryChangeInFsyncMode() throws IOException {
+        File fsyncFile = File.createTempFile("fsync", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(fsyncFile,
+                new PersistenceConfig(PersistenceConfig.SaveMode.FSYNC, 1_000, 1_000));
+        Task task = manager.createTask(new Task("First Task", "Go to gym"));
+        manager.getTask(task.getId());
+
+        assertEquals(2, manager.getFlushStatistics().getFlushes(), "Не каждое изменение записано в файл");
+        assertEquals(fsyncFile.length(), manager.getFlushStatistics().getLastBytes(), "Неверный размер файла");
+        assertEquals(FileBackedTaskManager.loadFromFile(fsyncFile).historyManager, manager.historyManager,
+                "Сохранение и восстановление менеджера в режиме FSYNC не работает");
+    }
+
+    @Test
+    @DisplayName("Должна после неудачной записи сохранять изменения одним flush без повторной записи")
+    void shouldResetPendingChangesOnFlushAfterFailedSave() throws IOException {
+        File syncFile = File.createTempFile("sync", ".csv");
+        File temp = new File(syncFile.getPath() + ".tmp");
+        FileBackedTaskManager manager = new FileBackedTaskManager(syncFile);
+        assertTrue(temp.mkdir(), "Не удалось занять место временного файла");    // запись файла упадет
+        try {
+            manager.createTask(new Task("First Task", "Go to gym"));
+        } catch (RuntimeException e) {
+            // изменение остается несохраненным до следующей записи
+        }
+        assertTrue(temp.delete(), "Не удалось освободить место временного файла");
+        manager.flush();
+        manager.flush();
+
+        assertEquals(1, manager.getFlushStatistics().getFlushes(), "Повторный flush снова записал файл");
+        assertEquals(1, manager.getFlushStatistics().getSavedChanges(), "Изменение посчитано дважды");
+        assertEquals(manager.getTasksList(), FileBackedTaskManager.loadFromFile(syncFile).getTasksList(),
+                "Задача не сохранена");
+    }
+
+    @Test
+    @DisplayName("Должна сохранять и загружать двоичный снимок со всеми задачами, приоритетами и историей")
+    void shouldSaveAndLoadBinarySnapshot() throws IOException {
+        File binaryFile = File.createTempFile("binary", ".knbn");
+        FileBackedTaskManager manager = new FileBackedTaskManager(binaryFile,
+                PersistenceConfig.defaults().withStorageFormat(PersistenceConfig.StorageFormat.BINARY));
+        Task task = manager.createTask(new Task("Задача", "Описание задачи", "01.01.2024 10:00", 30));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask first = manager.createSubtask(new Subtask("Подзадача", "Одинаковое описание", epic.getId(),
+                "02.01.2024 10:00", 60));
+        Subtask second = manager.createSubtask(new Subtask("Подзадача", "Одинаковое описание", epic.getId()));
+        second.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(second);
+        manager.getTask(task.getId());
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(binaryFile);
+
+        assertEquals(manager.historyManager, copy.historyManager, "Неверно восстановлена история");
+        assertEquals(List.of(first, second), copy.epics.get(epic.getId()).getSubtasks(),
+                "Неверно восстановлены подзадачи эпика");
+        assertEquals(TaskStatus.IN_PROGRESS, copy.epics.get(epic.getId()).getStatus(),
+                "Статус эпика не рассчитан по подзадачам");
+        assertEquals(manager.getPrioritizedTasks(), copy.getPrioritizedTasks(),
+                "Неверно восстановлены приоритетные задачи");
+        assertEquals(LocalDateTime.of(2024, 1, 2, 10, 0), copy.subtasks.get(first.getId()).getStartTime(),
+                "Неверно прочитано время начала");
+        assertEquals(5, copy.createTask(new Task("Новая", "После загрузки")).getId(),
+                "После загрузки выдан неверный id");
+    }
+
+    @Test
+    @DisplayName("Должна сохранять в CSV файл задачи, которых уже нет в истории просмотров")
+    void shouldSaveTasksMissingFromHistory() throws IOException {
+        File csvFile = File.createTempFile("history", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(csvFile);
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        manager.getHistoryManager().remove(subtask.getId());    // как вытеснение из ограниченной истории
+        manager.getHistoryManager().remove(epic.getId());
+        manager.createTask(new Task("Задача", "Описание задачи"));
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(csvFile);
+
+        assertEquals(manager.historyManager, copy.historyManager, "Неверно восстановлена история");
+        assertEquals(List.of(subtask), copy.epics.get(epic.getId()).getSubtasks(),
+                "Задачи, вытесненные из истории, потеряны при загрузке");
+    }
+
+    @Test
+    @DisplayName("Должна переводить CSV файл в двоичный снимок и обратно без потери данных")
+    void shouldConvertBetweenCsvAndBinary() throws IOException {
+        taskManager.createTask(new Task("First Task", "Go to gym", "01.01.1970 00:01", 240));
+        Epic epic = taskManager.createEpic(new Epic("First Epic", "Learn to drive a car"));
+        taskManager.createSubtask(new Subtask("First Subtask", "Give a license", epic.getId(),
+                "01.01.2001 00:00", 8505));
+        taskManager.getTask(1);
+        File binaryFile = File.createTempFile("converted", ".knbn");
+        File csvFile = File.createTempFile("converted", ".csv");
+
+        FileBackedTaskManager.convert(file, binaryFile, PersistenceConfig.StorageFormat.BINARY);
+        FileBackedTaskManager.convert(binaryFile, csvFile, PersistenceConfig.StorageFormat.CSV);
+
+        assertEquals(taskManager.historyManager, FileBackedTaskManager.loadFromFile(binaryFile).historyManager,
+                "Двоичный снимок не совпадает с исходным CSV файлом");
+        assertEquals(Files.readAllLines(file.toPath()), Files.readAllLines(csvFile.toPath()),
+                "После обратного перевода CSV файл изменился");
+    }
+
     @Override
     @Test
     @DisplayName("не должна добавлять в эпик список из своего же эпика")
@@ -126,6 +347,20 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         super.shouldSubtaskRemove();
     }
 
+    @Override
+    @Test
+    @DisplayName("должна переносить подзадачи между эпиками")
+    void shouldMoveSubtaskBetweenEpics() {
+        super.shouldMoveSubtaskBetweenEpics();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна удалять задачи из списка приоритетных без нарушения порядка")
+    void shouldRemovePrioritizedTasks() {
+        super.shouldRemovePrioritizedTasks();
+    }
+
     @Override
     @Test
     @DisplayName("должна рассчитывать статусы и время выполнения у эпиков")
@@ -139,4 +374,43 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     void shouldCheckTaskTimeInterval() {
         super.shouldCheckTaskTimeInterval();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Должна читать задачи и историю параллельно с изменениями из других потоков")
+    void shouldReadWhileOtherThreadsWrite() throws Exception {
+        File concurrentFile = File.createTempFile("concurrent", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(concurrentFile,
+                PersistenceConfig.writeBehind(60_000, Integer.MAX_VALUE));
+        assertTrue(manager.isThreadSafe(), "Менеджер с файловым хранилищем должен быть потокобезопасным");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int writer = 0; writer < 2; writer++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    Task task = manager.createTask(new Task("Task_" + i, "Descript_" + i));
+                    manager.getTask(task.getId());
+                    if (i % 3 == 0) {
+                        manager.removeTask(task.getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int reader = 0; reader < 2; reader++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    manager.getTasksList();
+                    manager.forEachPrioritized(task -> { });
+                    manager.getHistoryManager().getHistory(10);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);    // ConcurrentModificationException из потока чтения упадет здесь
+        }
+        executor.shutdown();
+        manager.close();
+        assertEquals(2 * (2_000 - 667), manager.getTasksList().size(), "Задачи потерялись при параллельной записи");
+    }
+}
@@ -7,6 +7,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 @DisplayName("Память менеджера истории")
@@ -74,4 +77,39 @@ class InMemoryHistoryManagerTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Должна вытеснять самые старые просмотры при переполнении")
+    void shouldEvictOldestTasks() {
+        InMemoryHistoryManager boundedHistory = new InMemoryHistoryManager(2);
+        boundedHistory.add(task);
+        boundedHistory.add(epic);
+        boundedHistory.add(task);    // повторный просмотр делает задачу самой свежей
+        boundedHistory.add(subtask);
+
+        assertEquals(List.of(subtask.getId(), task.getId()), ids(boundedHistory.getHistory()),
+                "Вытеснен не самый старый просмотр");
+        assertEquals(2, boundedHistory.size(), "Размер истории превышает ограничение");
+
+        boundedHistory.remove(task.getId());
+        boundedHistory.add(epic);
+        assertEquals(List.of(epic.getId(), subtask.getId()), ids(boundedHistory.getHistory()),
+                "После удаления освободившееся место не используется");
+    }
+
+    @Test
+    @DisplayName("Должна возвращать только последние просмотры")
+    void shouldReturnRecentTasks() {
+        historyManager.add(task);
+        historyManager.add(epic);
+        historyManager.add(subtask);
+
+        assertEquals(List.of(subtask.getId(), epic.getId()), ids(historyManager.getHistory(2)),
+                "Неверные последние просмотры");
+        assertEquals(3, historyManager.getHistory(100).size(), "Ограничение больше размера истории не работает");
+        assertEquals(0, historyManager.getHistory(0).size(), "Нулевое ограничение не работает");
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).collect(Collectors.toList());
+    }
+}
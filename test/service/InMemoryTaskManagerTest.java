@@ -57,6 +57,20 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         super.shouldSubtaskRemove();
     }
 
+    @Override
+    @Test
+    @DisplayName("должна переносить подзадачи между эпиками")
+    void shouldMoveSubtaskBetweenEpics() {
+        super.shouldMoveSubtaskBetweenEpics();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна удалять задачи из списка приоритетных без нарушения порядка")
+    void shouldRemovePrioritizedTasks() {
+        super.shouldRemovePrioritizedTasks();
+    }
+
     @Override
     @Test
     @DisplayName("должна рассчитывать статусы и время выполнения у эпиков")
@@ -0,0 +1,115 @@
+package service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Хеш-таблица с ключами int")
+class IntHashMapTest {
+
+    IntHashMap<String> map;
+
+    @BeforeEach
+    void beforeEach() {
+        map = new IntHashMap<>();
+    }
+
+    @Test
+    @DisplayName("Должна добавлять, заменять, находить и удалять значения с ростом таблицы")
+    void shouldPutGetAndRemoveValues() {
+        for (int i = 1; i <= 10_000; i++) {
+            assertNull(map.put(i, "v" + i), "Новый ключ уже был в таблице");
+        }
+        assertEquals("v1", map.put(1, "first"), "Не возвращено прежнее значение");
+        assertEquals(10_000, map.size(), "Неверный размер таблицы");
+        assertEquals("first", map.get(1), "Значение не заменено");
+        assertEquals("v5000", map.get(Integer.valueOf(5000)), "Не найдено значение по Integer");
+        assertNull(map.get(10_001), "Найдено значение по отсутствующему ключу");
+        assertNull(map.get("1"), "Найдено значение по ключу другого типа");
+
+        for (int i = 1; i <= 10_000; i += 2) {
+            map.remove(i);
+        }
+        assertEquals(5_000, map.size(), "Удалены не все значения");
+        assertFalse(map.containsKey(1), "Удаленный ключ остался в таблице");
+        assertTrue(map.containsKey(2), "Удален лишний ключ");
+        assertEquals("v10000", map.get(10_000), "Потеряно значение после удалений");
+    }
+
+    @Test
+    @DisplayName("Должна повторно использовать ячейки удаленных записей")
+    void shouldReuseRemovedSlots() {
+        // многократное удаление и добавление одного ключа, как в истории просмотров, не должно переполнять таблицу
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i % 10, "v" + i);
+            map.remove(i % 10);
+            map.put(-i, "n" + i);
+            map.remove(-i);
+        }
+        assertTrue(map.isEmpty(), "Таблица не пуста после удаления всех ключей");
+        map.put(7, "seven");
+        assertEquals("seven", map.get(7), "Не найдено значение после множества удалений");
+    }
+
+    @Test
+    @DisplayName("Должна быстро находить и повторно добавлять удаленные ключи среди сплошной серии id")
+    void shouldStopProbingAtRemovedKey() {
+        // последовательные id занимают ячейки подряд: поиск удаленного ключа не должен проходить всю серию
+        for (int i = 1; i <= 200_000; i++) {
+            map.put(i, "v" + i);
+        }
+        for (int i = 1; i <= 200_000; i++) {
+            map.remove(i);
+            assertNull(map.get(i), "Удаленный ключ найден");
+            map.put(i, "n" + i);    // как перенос задачи в конец истории
+        }
+        assertEquals(200_000, map.size(), "Неверный размер таблицы");
+        assertEquals("n123456", map.get(123_456), "Значение не обновлено");
+    }
+
+    @Test
+    @DisplayName("Должна обходить последовательные id в том же порядке, что и HashMap")
+    void shouldIterateInHashMapOrder() {
+        Map<Integer, String> hashMap = new HashMap<>();
+        for (int i = 1; i <= 300; i++) {
+            map.put(i, "v" + i);
+            hashMap.put(i, "v" + i);
+        }
+        assertEquals(new ArrayList<>(hashMap.keySet()), new ArrayList<>(map.keySet()), "Порядок ключей отличается");
+        assertEquals(new ArrayList<>(hashMap.values()), new ArrayList<>(map.values()),
+                "Порядок значений отличается");
+        assertEquals(hashMap, map, "Таблица не равна HashMap с теми же записями");
+    }
+
+    @Test
+    @DisplayName("Должна удалять записи через итератор и менять значения через запись")
+    void shouldRemoveThroughIterator() {
+        for (int i = 1; i <= 100; i++) {
+            map.put(i, "v" + i);
+        }
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        List<Integer> visited = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            visited.add(entry.getKey());
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue("odd");
+            }
+        }
+        assertEquals(100, visited.size(), "Обойдены не все записи");
+        assertEquals(50, map.size(), "Удалены не все записи");
+        assertEquals("odd", map.get(99), "Значение не изменено через запись");
+        assertNull(map.get(100), "Запись не удалена через итератор");
+        assertThrows(NullPointerException.class, () -> map.put(1, null), "Таблица приняла значение null");
+    }
+}
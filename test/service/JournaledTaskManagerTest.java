@@ -0,0 +1,263 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Менеджер задач с журналом изменений")
+class JournaledTaskManagerTest extends TaskManagerTest<JournaledTaskManager> {
+
+    Path directory;
+
+    @Override
+    @Test
+    @DisplayName("не должна создавать повторно эпики и задачи")
+    void shouldNotCreateRepeatedTasks() {
+        super.shouldNotCreateRepeatedTasks();
+    }
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        taskManager = new JournaledTaskManager(directory.resolve("tasks").toFile());
+    }
+
+    @AfterEach
+    void afterEach() {
+        taskManager.close();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна добавлять в эпик список из своего же эпика")
+    void shouldNotEpicAddedToItself() {
+        super.shouldNotEpicAddedToItself();
+    }
+
+    @Override
+    @Test
+    @DisplayName("не должна прикреплять подзадачу к подзадаче в привязанный эпик")
+    void shouldNotSubtaskAddedToItsEpic() {
+        super.shouldNotSubtaskAddedToItsEpic();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно работать с задачами")
+    void shouldCreateGetUpdateAndRemoveTasks() {
+        super.shouldCreateGetUpdateAndRemoveTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно работать с эпиками и подзадачами")
+    void shouldCreateGetAndRemoveSubtaskEndEpic() {
+        super.shouldCreateGetAndRemoveSubtaskEndEpic();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна корректно удалять подзадачи")
+    void shouldSubtaskRemove() {
+        super.shouldSubtaskRemove();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна переносить подзадачи между эпиками")
+    void shouldMoveSubtaskBetweenEpics() {
+        super.shouldMoveSubtaskBetweenEpics();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна удалять задачи из списка приоритетных без нарушения порядка")
+    void shouldRemovePrioritizedTasks() {
+        super.shouldRemovePrioritizedTasks();
+    }
+
+    @Override
+    @Test
+    @DisplayName("должна рассчитывать статусы и время выполнения у эпиков")
+    void shouldCalculateEpicStatusAnd() {
+        super.shouldCalculateEpicStatusAnd();
+    }
+
+    @Override
+    @Test
+    @DisplayName("Должна проверять пересечение интервалов приоритизированных задач")
+    void shouldCheckTaskTimeInterval() {
+        super.shouldCheckTaskTimeInterval();
+    }
+
+    // набор изменений всех видов: создание, обновление, чтение, удаление
+    void fillManager(TaskManager manager) {
+        Task task = manager.createTask(new Task("First Task", "Go to gym", "01.01.1970 00:01", 240));
+        manager.createTask(new Task("Second Task", "Make kanban"));
+        Epic epic = manager.createEpic(new Epic("First Epic", "Learn to drive a car"));
+        Epic emptyEpic = manager.createEpic(new Epic("Empty Epic", "Empty description"));
+        Subtask subtask = manager.createSubtask(new Subtask("First Subtask", "Give a license", epic.getId(),
+                "01.01.2001 00:00", 8505));
+        manager.createSubtask(new Subtask("Second Subtask", "Buy a car", epic.getId(), "01.01.2000 00:00", 60));
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(task);
+        manager.getEpic(epic.getId());
+        manager.getTask(task.getId());
+        manager.removeEpic(emptyEpic.getId());
+        manager.createTask(new Task("Third Task", "After removal", "02.01.1970 00:01", 30));
+    }
+
+    void assertRestored(JournaledTaskManager expected, JournaledTaskManager restored) {
+        assertEquals(expected.getTasksList(), restored.getTasksList(), "Задачи не восстановлены");
+        assertEquals(expected.getSubtaskList(), restored.getSubtaskList(), "Подзадачи не восстановлены");
+        assertEquals(expected.getEpicList(), restored.getEpicList(), "Эпики не восстановлены");
+        assertEquals(expected.getPrioritizedTasks(), restored.getPrioritizedTasks(),
+                "Приоритетные задачи не восстановлены");
+        assertEquals(expected.getHistory(), restored.getHistory(), "История не восстановлена");
+    }
+
+    @Test
+    @DisplayName("Должна восстанавливать менеджер по журналу изменений")
+    void shouldRestoreManagerFromJournal() {
+        fillManager(taskManager);
+        taskManager.close();
+
+        JournaledTaskManager restored = new JournaledTaskManager(directory.resolve("tasks").toFile());
+        assertRestored(taskManager, restored);
+        // после восстановления id продолжают выдаваться с того же места
+        Task task = restored.createTask(new Task("Next Task", "After restart"));
+        assertEquals(8, task.getId(), "После восстановления выдан неверный id");
+        restored.close();
+    }
+
+    @Test
+    @DisplayName("Должна восстанавливать менеджер из снимка и журнала после сжатия")
+    void shouldRestoreManagerFromSnapshotAndJournalTail() throws IOException {
+        fillManager(taskManager);
+        taskManager.compact();
+        // изменения после снимка попадают в новый файл журнала
+        taskManager.removeTask(2);
+        taskManager.getSubtask(5);
+        taskManager.close();
+
+        List<String> files = Files.list(directory).map(path -> path.getFileName().toString())
+                .sorted().collect(Collectors.toList());
+        assertEquals(List.of("tasks.journal.2", "tasks.snapshot"), files,
+                "Старый файл журнала не удален после сжатия");
+
+        JournaledTaskManager restored = new JournaledTaskManager(directory.resolve("tasks").toFile());
+        assertRestored(taskManager, restored);
+        restored.close();
+    }
+
+    @Test
+    @DisplayName("Должна восстанавливать из снимка историю просмотров удаленных задач")
+    void shouldRestoreHistoryOfClearedTasksFromSnapshot() {
+        fillManager(taskManager);
+        Task viewed = taskManager.createTask(new Task("Viewed Task", "Cleared after view"));
+        taskManager.getTask(viewed.getId());
+        taskManager.clearTasks();    // задачи удалены, а просмотры остались в истории
+        taskManager.compact();
+        List<Task> history = taskManager.getHistory();
+        taskManager.close();
+
+        JournaledTaskManager restored = new JournaledTaskManager(directory.resolve("tasks").toFile());
+        assertEquals(history, restored.getHistory(), "История после снимка отличается от истории до остановки");
+        assertTrue(restored.getTasksList().isEmpty(), "Очищенные задачи восстановлены из истории");
+        assertRestored(taskManager, restored);
+        restored.close();
+    }
+
+    @Test
+    @DisplayName("Должна отбрасывать оборванную последнюю запись журнала")
+    void shouldSkipTornLastRecord() throws IOException {
+        fillManager(taskManager);
+        taskManager.close();
+        Files.write(directory.resolve("tasks.journal.1"), "99,C,100,TASK,Обрыв".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        JournaledTaskManager restored = new JournaledTaskManager(directory.resolve("tasks").toFile());
+        assertRestored(taskManager, restored);
+        restored.close();
+    }
+
+    @Test
+    @DisplayName("Должна отбрасывать пакет изменений, оборванный до записи его окончания")
+    void shouldSkipUnfinishedBatch() throws IOException {
+        fillManager(taskManager);
+        Epic epic = taskManager.getEpicList().get(0);
+        taskManager.applyBatch(new TaskBatch()
+                .create(new Subtask("Batch Subtask", "Descript", epic.getId()))
+                .create(new Task("Batch Task", "Descript")));
+        taskManager.close();
+        // пакет без записи E: две записи создания дописаны, а окончание пакета - нет
+        Files.write(directory.resolve("tasks.journal.1"), ("100,B,2\n101,C,100,TASK,Обрыв пакета,NEW,Descript,0,," +
+                "0\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        JournaledTaskManager restored = new JournaledTaskManager(directory.resolve("tasks").toFile());
+        assertRestored(taskManager, restored);
+        restored.close();
+    }
+
+    @Test
+    @DisplayName("Должна сбрасывать на диск накопленные записи одним fsync")
+    void shouldGroupCommitRecords() {
+        File baseFile = directory.resolve("group").toFile();
+        // таймер заведомо больше времени теста - на диск записи сбрасывает только sync
+        JournaledTaskManager manager = new JournaledTaskManager(baseFile, 60_000, 1_000);
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task("Task_" + i, "Descript_" + i));
+        }
+        manager.sync();
+
+        assertEquals(1, manager.getCommitStatistics().getFlushes(), "Записи не объединены в один fsync");
+        assertEquals(10, manager.getCommitStatistics().getSavedChanges(), "На диск сброшены не все записи");
+        manager.close();
+    }
+
+    @Test
+    @DisplayName("Должна отдавать списки и страницы, пока другой поток меняет задачи")
+    void shouldReadWhileAnotherThreadWrites() throws Exception {
+        assertTrue(taskManager.isThreadSafe(), "Менеджер с журналом должен быть потокобезопасным");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 3_000; i++) {
+                Task task = taskManager.createTask(new Task("Task_" + i, "Descript_" + i));
+                if (i % 2 == 0) {
+                    taskManager.removeTask(task.getId());
+                }
+            }
+            return null;
+        });
+        while (!writer.isDone()) {
+            taskManager.forEachTask(task -> assertNotNull(task.getName()));
+            taskManager.getTasksPage(TaskQuery.firstPage().withLimit(100));
+            taskManager.getHistoryManager().getHistory(10);
+        }
+        writer.get(60, TimeUnit.SECONDS);    // ошибки записи пробрасываются из потока
+        executor.shutdown();
+        assertEquals(1_500, taskManager.getTasksList().size(), "Задачи потерялись при параллельном чтении");
+    }
+}
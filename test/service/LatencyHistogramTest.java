@@ -0,0 +1,52 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Гистограмма длительностей")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Должна оценивать процентили с точностью до корзины")
+    void shouldEstimateQuantilesWithinBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getQuantileNanos(0.5), "У пустой гистограммы процентиль не 0");
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 10_000L);    // от 10 мкс до 10 мс
+        }
+        assertEquals(1_000, histogram.getCount(), "Учтены не все значения");
+        assertEquals(10_000_000L, histogram.getMaxNanos(), "Неверный максимум");
+        long p50 = histogram.getQuantileNanos(0.5);
+        long p99 = histogram.getQuantileNanos(0.99);
+        assertTrue(p50 > 2_500_000L && p50 <= 5_000_000L, "p50 вне корзины 2,5-5 мс: " + p50);
+        assertTrue(p99 > 5_000_000L && p99 <= 10_000_000L, "p99 вне корзины 5-10 мс: " + p99);
+        histogram.record(60_000_000_000L);
+        assertEquals(60_000_000_000L, histogram.getQuantileNanos(1.0), "Выше последней границы - не максимум");
+    }
+
+    @Test
+    @DisplayName("Не должна терять значения при параллельной записи")
+    void shouldCountConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i * 1_000L);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.getCount(), "Потеряны значения при параллельной записи");
+        assertEquals(4 * 1_000L * (9_999L * 10_000 / 2), histogram.getTotalNanos(), "Неверная сумма");
+    }
+}
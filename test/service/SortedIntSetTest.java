@@ -0,0 +1,58 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Упорядоченное множество int")
+class SortedIntSetTest {
+
+    @Test
+    @DisplayName("Должно хранить значения по возрастанию при вставке в середину и удалении")
+    void shouldKeepValuesSorted() {
+        SortedIntSet set = new SortedIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            int value = (i * 7919) % 10_007;    // вставка вразнобой делит заполненные блоки пополам
+            assertEquals(expected.add(value), set.add(value), "Неверный результат добавления " + value);
+        }
+        for (int value = 0; value < 10_007; value += 3) {
+            assertEquals(expected.remove(value), set.remove(value), "Неверный результат удаления " + value);
+        }
+        assertEquals(expected.size(), set.size(), "Неверный размер множества");
+        assertEquals(new ArrayList<>(expected), after(set, Integer.MIN_VALUE, Integer.MAX_VALUE),
+                "Порядок значений нарушен");
+        List<Integer> all = new ArrayList<>();
+        set.forEach(all::add);
+        assertEquals(new ArrayList<>(expected), all, "Полный обход нарушает порядок значений");
+        assertTrue(set.contains(expected.first()), "Не найдено значение из множества");
+        assertFalse(set.contains(3), "Найдено удаленное значение");
+    }
+
+    @Test
+    @DisplayName("Должно обходить значения после курсора и останавливаться по требованию")
+    void shouldIterateAfterCursor() {
+        SortedIntSet set = new SortedIntSet();
+        for (int i = 1; i <= 2_000; i++) {    // последовательные id дописываются в конец
+            set.add(i);
+        }
+        assertEquals(List.of(1_024, 1_025, 1_026), after(set, 1_023, 3), "Неверный обход после курсора");
+        assertEquals(List.of(), after(set, 2_000, 3), "Найдены значения после последнего");
+        set.clear();
+        assertEquals(0, set.size(), "Множество не очищено");
+    }
+
+    private static List<Integer> after(SortedIntSet set, int cursor, int limit) {
+        List<Integer> values = new ArrayList<>();
+        set.forEachAfter(cursor, value -> {
+            values.add(value);
+            return values.size() < limit;
+        });
+        return values;
+    }
+}
@@ -2,11 +2,14 @@ package service;
 
 import converter.TimeAdapter;
 import exception.ManagerSaveException;
+import exception.NotFoundException;
 import exception.ValidationException;
 import model.Epic;
 import model.Subtask;
 import model.Task;
 import model.TaskStatus;
+import model.TimeSlot;
+import model.Type;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -266,6 +269,75 @@ abstract class TaskManagerTest<T extends TaskManager> {
         }, "Расчет пересечения интервалов не сработал при частичном пересечении интервалов");
     }
 
+    @Test
+    @DisplayName("должна переносить подзадачи между эпиками")
+    void shouldMoveSubtaskBetweenEpics() {
+        final Epic epic1 = taskManager.createEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        final Epic epic2 = taskManager.createEpic(new Epic("Эпик 2", "Описание эпика 2"));
+        for (int i = 1; i < 4; i++) {
+            taskManager.createSubtask(new Subtask("Подзадача " + i, "Описание " + i, epic1.getId(),
+                    "0" + i + ".03.2024 10:00", 30));
+        }
+        final Subtask moved = taskManager.getListSubtasksFromEpic(epic1.getId()).get(1);
+
+        Subtask newVersion = new Subtask("Перенесенная подзадача", "Описание", epic2.getId(),
+                "02.03.2024 10:00", 30);
+        newVersion.setId(moved.getId());
+        taskManager.updateSubtask(newVersion);
+
+        assertEquals(2, taskManager.getListSubtasksFromEpic(epic1.getId()).size(),
+                "Подзадача осталась в старом эпике");
+        assertEquals(2, taskManager.getEpic(epic1.getId()).getSubtasks().size(),
+                "Подзадача осталась в списке старого эпика");
+        List<Subtask> subtasksEpic2 = taskManager.getListSubtasksFromEpic(epic2.getId());
+        assertEquals(1, subtasksEpic2.size(), "Подзадача не перенесена в новый эпик");
+        assertEquals("Перенесенная подзадача", subtasksEpic2.get(0).getName(),
+                "В новом эпике не обновленная версия подзадачи");
+        assertEquals(1, taskManager.getEpic(epic2.getId()).getSubtasks().size(),
+                "Подзадача не попала в список нового эпика");
+
+        taskManager.removeEpic(epic1.getId());
+        assertEquals(1, taskManager.getSubtaskList().size(), "Подзадачи удаленного эпика остались в памяти");
+        assertTrue(taskManager.getListSubtasksFromEpic(epic1.getId()).isEmpty(),
+                "У удаленного эпика остались подзадачи");
+    }
+
+    @Test
+    @DisplayName("должна удалять задачи из списка приоритетных без нарушения порядка")
+    void shouldRemovePrioritizedTasks() {
+        // id эпика - 1, задачи - четные id со 2 по 10, подзадачи - нечетные id с 3 по 11
+        final Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));
+        for (int i = 1; i < 6; i++) {
+            taskManager.createTask(new Task("Task_" + i, "Descript_" + i,
+                    "0" + i + ".02.2024 10:00", 30));
+            taskManager.createSubtask(new Subtask("Подзадача " + i, "Описание " + i, epic.getId(),
+                    "0" + i + ".02.2024 12:00", 30));
+        }
+        taskManager.removeTask(4);
+        taskManager.removeSubtask(7);
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(8, prioritized.size(), "Удаленные задачи остались в списке приоритетных");
+        assertTrue(prioritized.stream().noneMatch(task -> task.getId() == 4 || task.getId() == 7),
+                "Из списка приоритетных удалены не те задачи");
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertTrue(prioritized.get(i - 1).getStartTime().isBefore(prioritized.get(i).getStartTime()),
+                    "После удаления нарушен порядок приоритетных задач");
+        }
+        // время удаленной задачи освобождается
+        assertDoesNotThrow(() -> taskManager.createTask(new Task("Task", "На месте удаленной",
+                "02.02.2024 10:00", 30)), "Время удаленной задачи осталось занятым");
+
+        taskManager.clearTasks();
+        prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(4, prioritized.size(), "При очистке задач удалены подзадачи из приоритетных");
+        assertTrue(prioritized.stream().allMatch(task -> task instanceof Subtask),
+                "После очистки задач в приоритетных остались задачи");
+
+        taskManager.clearSubtasks();
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "После очистки подзадач список приоритетных не пуст");
+    }
+
     @Test
     @DisplayName("должна рассчитывать статусы и время выполнения у эпиков")
     void shouldCalculateEpicStatusAnd() {
@@ -322,4 +394,223 @@ abstract class TaskManagerTest<T extends TaskManager> {
                 "ошибка при втором расчете статуса Эпика IN_PROGRESS.");
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("должна отдавать задачи страницами с фильтрами по статусу, времени и эпику")
+    void shouldReturnFilteredPages() {
+        Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));
+        Epic otherEpic = taskManager.createEpic(new Epic("Эпик 2", "Описание эпика"));
+        for (int i = 1; i <= 5; i++) {    // id с 3 по 7, с 11:00 до 11:30, с 12:00 до 12:30 и т.д.
+            taskManager.createTask(new Task("Задача " + i, "Описание", "01.03.2024 1" + i + ":00", 30));
+        }
+        taskManager.createTask(new Task("Задача без времени", "Описание"));    // id 8
+        Subtask subtask = taskManager.createSubtask(new Subtask("Подзадача", "Описание", otherEpic.getId(),
+                "02.03.2024 10:00", 60));
+        taskManager.createSubtask(new Subtask("Подзадача без времени", "Описание", epic.getId()));
+        Task doneTask = taskManager.getTask(5);
+        doneTask.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(doneTask);
+        subtask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(subtask);
+
+        TaskPage<Task> first = taskManager.getTasksPage(TaskQuery.firstPage().withLimit(4));
+        assertEquals(List.of(3, 4, 5, 6), pageIds(first), "Неверная первая страница");
+        assertEquals(Integer.valueOf(6), first.getNext(), "Неверный курсор следующей страницы");
+        TaskPage<Task> second = taskManager.getTasksPage(TaskQuery.firstPage().withLimit(4).withAfter(first.getNext()));
+        assertEquals(List.of(7, 8), pageIds(second), "Неверная вторая страница");
+        assertNull(second.getNext(), "У последней страницы есть курсор");
+
+        assertEquals(List.of(5), pageIds(taskManager.getTasksPage(
+                TaskQuery.firstPage().withStatus(TaskStatus.DONE))), "Неверный фильтр по статусу");
+        // окно с 12:15 до 14:00 пересекает задачи с 12:00 до 12:30 и с 13:00 до 13:30
+        TaskQuery window = TaskQuery.firstPage().withWindow(LocalDateTime.of(2024, 3, 1, 12, 15),
+                LocalDateTime.of(2024, 3, 1, 14, 0));
+        assertEquals(List.of(4, 5), pageIds(taskManager.getTasksPage(window)), "Неверный фильтр по времени");
+        assertEquals(List.of(4), pageIds(taskManager.getTasksPage(window.withStatus(TaskStatus.NEW))),
+                "Неверный фильтр по времени и статусу");
+
+        assertEquals(List.of(10), pageIds(taskManager.getSubtasksPage(
+                TaskQuery.firstPage().withEpicId(epic.getId()))), "Неверный фильтр подзадач по эпику");
+        assertEquals(List.of(otherEpic.getId()), pageIds(taskManager.getEpicsPage(TaskQuery.firstPage()
+                .withWindow(LocalDateTime.of(2024, 3, 2, 10, 30), null))), "Неверный фильтр эпиков по времени");
+        assertEquals(List.of(epic.getId()), pageIds(taskManager.getEpicsPage(
+                TaskQuery.firstPage().withStatus(TaskStatus.NEW))), "Неверный фильтр эпиков по статусу");
+    }
+
+    @Test
+    @DisplayName("должна отдавать приоритетные задачи временного окна страницами по времени начала")
+    void shouldReturnPrioritizedPages() {
+        Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));    // id 1
+        for (int i = 5; i >= 1; i--) {    // id со 2 по 6, создаются в обратном порядке: с 15:00 до 11:00
+            taskManager.createTask(new Task("Задача " + i, "Описание", "01.03.2024 1" + i + ":00", 30));
+        }
+        Subtask subtask = taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(),
+                "01.03.2024 12:40", 10));    // id 7
+        taskManager.createTask(new Task("Задача без времени", "Описание"));
+
+        // окно с 12:15 до 14:00: задачи с 12:00 до 12:30 и с 13:00 до 13:30 и подзадача между ними
+        TaskQuery window = TaskQuery.firstPage().withWindow(LocalDateTime.of(2024, 3, 1, 12, 15),
+                LocalDateTime.of(2024, 3, 1, 14, 0)).withLimit(2);
+        TaskPage<Task> first = taskManager.getPrioritizedPage(window);
+        assertEquals(List.of(5, subtask.getId()), pageIds(first), "Неверная первая страница окна");
+        assertEquals(Integer.valueOf(subtask.getId()), first.getNext(), "Неверный курсор следующей страницы");
+        TaskPage<Task> second = taskManager.getPrioritizedPage(window.withAfter(first.getNext()));
+        assertEquals(List.of(4), pageIds(second), "Неверная вторая страница окна");
+        assertNull(second.getNext(), "У последней страницы есть курсор");
+
+        assertEquals(List.of(6, 5, subtask.getId(), 4, 3, 2), pageIds(taskManager.getPrioritizedPage(
+                TaskQuery.firstPage())), "Без окна должны выдаваться все приоритетные задачи по времени начала");
+        assertEquals(List.of(3, 2), pageIds(taskManager.getPrioritizedPage(TaskQuery.firstPage()
+                .withWindow(LocalDateTime.of(2024, 3, 1, 14, 0), null))), "Неверное окно без окончания");
+        assertEquals(List.of(subtask.getId()), pageIds(taskManager.getPrioritizedPage(
+                TaskQuery.firstPage().withEpicId(epic.getId()))), "Неверный фильтр по эпику");
+        assertTrue(taskManager.getPrioritizedPage(window.withAfter(2)).getItems().isEmpty(),
+                "После курсора за окном задач быть не должно");
+
+        taskManager.removeTask(5);
+        assertThrows(NotFoundException.class, () -> taskManager.getPrioritizedPage(window.withAfter(5)),
+                "Принят курсор удаленной задачи");
+    }
+
+    @Test
+    @DisplayName("должна отдавать задачи и подзадачи временного окна страницами по времени начала")
+    void shouldReturnWindowPagesByStartTime() {
+        Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));    // id 1
+        for (int i = 5; i >= 1; i--) {    // id со 2 по 6, создаются в обратном порядке: с 15:00 до 11:00
+            taskManager.createTask(new Task("Задача " + i, "Описание", "01.03.2024 1" + i + ":00", 30));
+        }
+        Subtask subtask = taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(),
+                "01.03.2024 12:40", 10));    // id 7
+
+        // окно с 11:15 до 15:00: задачи с 11:00 по 14:30 и подзадача, которая в страницу задач не попадает
+        TaskQuery window = TaskQuery.firstPage().withWindow(LocalDateTime.of(2024, 3, 1, 11, 15),
+                LocalDateTime.of(2024, 3, 1, 15, 0)).withLimit(2);
+        TaskPage<Task> first = taskManager.getTasksPage(window);
+        assertEquals(List.of(6, 5), pageIds(first), "Неверная первая страница окна");
+        assertEquals(Integer.valueOf(5), first.getNext(), "Неверный курсор следующей страницы");
+        TaskPage<Task> second = taskManager.getTasksPage(window.withAfter(first.getNext()));
+        assertEquals(List.of(4, 3), pageIds(second), "Подзадача окна попала на страницу задач");
+        assertNull(second.getNext(), "У последней страницы есть курсор");
+        assertEquals(List.of(subtask.getId()), pageIds(taskManager.getSubtasksPage(window.withAfter(6))),
+                "Неверная страница подзадач окна после курсора");
+
+        taskManager.removeTask(5);
+        assertThrows(NotFoundException.class, () -> taskManager.getTasksPage(window.withAfter(5)),
+                "Принят курсор удаленной задачи");
+    }
+
+    @Test
+    @DisplayName("должна находить самые ранние свободные промежутки расписания")
+    void shouldFindFreeSlots() {
+        taskManager.createTask(new Task("Задача 1", "Описание", "01.03.2024 10:00", 30));
+        taskManager.createTask(new Task("Задача 2", "Описание", "01.03.2024 10:45", 60));
+        taskManager.createTask(new Task("Без длительности", "Описание", "01.03.2024 12:00", 0));
+        taskManager.createSubtask(new Subtask("Подзадача", "Описание",
+                taskManager.createEpic(new Epic("Эпик", "Описание")).getId(), "01.03.2024 13:00", 60));
+
+        // промежуток 11:45-11:59 короче 15 минут: задача без длительности занимает минуту до и после 12:00
+        List<TimeSlot> slots = taskManager.findFreeSlots(15, LocalDateTime.of(2024, 3, 1, 9, 0), null, 10);
+        assertEquals(List.of(new TimeSlot(LocalDateTime.of(2024, 3, 1, 9, 0), LocalDateTime.of(2024, 3, 1, 10, 0)),
+                new TimeSlot(LocalDateTime.of(2024, 3, 1, 10, 30), LocalDateTime.of(2024, 3, 1, 10, 45)),
+                new TimeSlot(LocalDateTime.of(2024, 3, 1, 12, 1), LocalDateTime.of(2024, 3, 1, 13, 0)),
+                new TimeSlot(LocalDateTime.of(2024, 3, 1, 14, 0), null)), slots, "Неверные свободные промежутки");
+        assertEquals(slots.subList(0, 2), taskManager.findFreeSlots(15, LocalDateTime.of(2024, 3, 1, 9, 0),
+                null, 2), "Не соблюдается limit");
+        // поиск с середины задачи и до конца окна
+        assertEquals(List.of(new TimeSlot(LocalDateTime.of(2024, 3, 1, 12, 1), LocalDateTime.of(2024, 3, 1, 13, 0))),
+                taskManager.findFreeSlots(30, LocalDateTime.of(2024, 3, 1, 10, 15),
+                        LocalDateTime.of(2024, 3, 1, 13, 30), 10), "Неверные промежутки внутри окна");
+        assertTrue(taskManager.findFreeSlots(90, LocalDateTime.of(2024, 3, 1, 10, 0),
+                LocalDateTime.of(2024, 3, 1, 14, 0), 10).isEmpty(), "Найден промежуток короче задачи");
+
+        // задача, начатая в найденном промежутке, ни с чем не пересекается
+        for (TimeSlot slot : slots.subList(0, 3)) {
+            assertDoesNotThrow(() -> taskManager.createTask(new Task("В промежутке", "Описание",
+                    slot.getStartTime().format(TimeAdapter.DATE_TIME_FORMAT_1), 15)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlots(0,
+                LocalDateTime.of(2024, 3, 1, 9, 0), null, 10), "Принята нулевая длительность");
+    }
+
+    @Test
+    @DisplayName("должна увеличивать версию только у измененных коллекций")
+    void shouldIncreaseVersionsOfChangedCollections() {
+        Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));
+        Task task = taskManager.createTask(new Task("Задача", "Описание", "01.03.2024 10:00", 30));
+        long tasks = taskManager.getVersion(TaskCollection.TASKS);
+        long epics = taskManager.getVersion(TaskCollection.EPICS);
+        long prioritized = taskManager.getVersion(TaskCollection.PRIORITIZED);
+        long history = taskManager.getVersion(TaskCollection.HISTORY);
+
+        Subtask subtask = taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        assertEquals(tasks, taskManager.getVersion(TaskCollection.TASKS), "Версия задач изменилась без изменений");
+        assertTrue(taskManager.getVersion(TaskCollection.EPICS) > epics,
+                "Версия эпиков не изменилась вместе с подзадачей");
+        assertTrue(taskManager.getVersion(TaskCollection.HISTORY) > history, "Версия истории не изменилась");
+
+        history = taskManager.getVersion(TaskCollection.HISTORY);
+        taskManager.getSubtask(subtask.getId());    // последний просмотр - порядок истории не меняется
+        assertEquals(history, taskManager.getVersion(TaskCollection.HISTORY),
+                "Версия истории изменилась без изменения порядка");
+        taskManager.getTask(task.getId());
+        assertTrue(taskManager.getVersion(TaskCollection.HISTORY) > history, "Версия истории не изменилась");
+
+        task.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(task);
+        assertTrue(taskManager.getVersion(TaskCollection.TASKS) > tasks, "Версия задач не изменилась");
+        assertTrue(taskManager.getVersion(TaskCollection.PRIORITIZED) > prioritized,
+                "Версия приоритетных задач не изменилась");
+    }
+
+    @Test
+    @DisplayName("должна применять пакет изменений целиком либо не применять совсем")
+    void shouldApplyBatchAtomically() {
+        Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание эпика"));
+        Task moved = taskManager.createTask(new Task("Задача", "Описание", "01.03.2024 10:00", 60));
+        Task removed = taskManager.createTask(new Task("Удаляемая задача", "Описание", "01.03.2024 12:00", 60));
+
+        // освобожденное пакетом время (перенос и удаление задач) можно занять в том же пакете
+        Task movedUpdate = new Task("Задача", "Перенесена", "01.03.2024 14:00", 60);
+        movedUpdate.setId(moved.getId());
+        Subtask done = new Subtask("Подзадача 1", "Описание", epic.getId(), "01.03.2024 10:00", 60);
+        done.setStatus(TaskStatus.DONE);
+        List<Integer> ids = taskManager.applyBatch(new TaskBatch()
+                .update(movedUpdate)
+                .remove(Type.TASK, removed.getId())
+                .create(done)
+                .create(new Subtask("Подзадача 2", "Описание", epic.getId(), "01.03.2024 12:30", 30)));
+
+        assertEquals(4, ids.size(), "Не для каждой операции возвращен id");
+        assertEquals(Integer.valueOf(moved.getId()), ids.get(0), "Неверный id обновленной задачи");
+        assertEquals(2, taskManager.getListSubtasksFromEpic(epic.getId()).size(), "Подзадачи не созданы");
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus(),
+                "Статус эпика не пересчитан");
+        assertEquals(3, taskManager.getPrioritizedTasks().size(), "Неверный список приоритетных задач");
+
+        // пересечение последней операции с первой - пакет не применяется совсем
+        int subtasks = taskManager.getSubtaskList().size();
+        TaskBatch crossed = new TaskBatch()
+                .create(new Task("Новая задача", "Описание", "02.03.2024 10:00", 60))
+                .remove(Type.SUBTASK, ids.get(2))
+                .create(new Subtask("Подзадача 3", "Описание", epic.getId(), "02.03.2024 10:30", 30));
+        assertThrows(ValidationException.class, () -> taskManager.applyBatch(crossed),
+                "Пересечение внутри пакета не найдено");
+        assertEquals(subtasks, taskManager.getSubtaskList().size(), "Пакет применен частично");
+        assertEquals(1, taskManager.getTasksList().size(), "Пакет применен частично");
+
+        // после удаления эпика в пакете его подзадачи недоступны
+        TaskBatch removedEpic = new TaskBatch()
+                .remove(Type.EPIC, epic.getId())
+                .remove(Type.SUBTASK, ids.get(2));
+        assertThrows(ManagerSaveException.class, () -> taskManager.applyBatch(removedEpic),
+                "Удалена подзадача удаленного эпика");
+        assertEquals(1, taskManager.getEpicList().size(), "Пакет применен частично");
+    }
+
+    private static List<Integer> pageIds(TaskPage<? extends Task> page) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : page.getItems()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
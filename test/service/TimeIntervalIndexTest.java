@@ -0,0 +1,106 @@
+package service;
+
+import converter.TimeAdapter;
+import exception.ValidationException;
+import model.Epic;
+import model.Task;
+import model.TimeSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Индекс временных интервалов")
+class TimeIntervalIndexTest {
+
+    TimeIntervalIndex index;
+
+    Task createTask(int id, String startTime, long duration) {
+        Task task = new Task("Задача " + id, "Описание " + id, startTime, duration);
+        task.setId(id);
+        return task;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        index = new TimeIntervalIndex();
+    }
+
+    @Test
+    @DisplayName("Должен находить пересечение только с соседними интервалами")
+    void shouldFindCrossedNeighbours() {
+        // интервалы по часу с разрывом в час: 02:00-03:00, 04:00-05:00 и т.д.
+        for (int i = 1; i <= 100; i++) {
+            Task task = createTask(i, "01.01.2024 00:00", 60);
+            task.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(2L * i));
+            index.add(task);
+        }
+        assertEquals(100, index.size(), "Не все интервалы попали в индекс");
+
+        Task between = createTask(1000, "01.01.2024 03:00", 60);    // ровно в разрыв между 1 и 2 задачей
+        assertNull(index.findCrossed(between), "Найдено пересечение для свободного интервала");
+
+        Task sameStart = createTask(1001, "01.01.2024 04:00", 10);
+        assertEquals(2, index.findCrossed(sameStart).getId(), "Не найдено пересечение по времени начала");
+
+        Task sameEnd = createTask(1002, "01.01.2024 06:50", 10);
+        assertEquals(3, index.findCrossed(sameEnd).getId(), "Не найдено пересечение по времени окончания");
+
+        Task covering = createTask(1003, "01.01.2024 07:30", 120);
+        assertEquals(4, index.findCrossed(covering).getId(), "Не найдено частичное пересечение");
+    }
+
+    @Test
+    @DisplayName("Не должен учитывать прежний интервал самой задачи и должен освобождать время при удалении")
+    void shouldReplaceAndRemoveInterval() {
+        Task first = createTask(1, "01.01.2024 10:00", 60);
+        Task second = createTask(2, "01.01.2024 11:00", 60);
+        index.add(first);
+        index.add(second);
+
+        Task movedFirst = createTask(1, "01.01.2024 10:30", 30);
+        assertNull(index.findCrossed(movedFirst), "Задача пересекается сама с собой");
+        index.add(movedFirst);
+        assertEquals(2, index.size(), "Прежний интервал задачи не удален из индекса");
+
+        Task newTask = createTask(3, "01.01.2024 10:00", 30);
+        assertNull(index.findCrossed(newTask), "Старый интервал задачи остался занятым");
+
+        assertTrue(index.remove(2), "Интервал не удален");
+        assertFalse(index.contains(2), "Интервал остался в индексе после удаления");
+        assertNull(index.findCrossed(createTask(4, "01.01.2024 11:00", 60)),
+                "Удаленный интервал продолжает занимать время");
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать число интервалов, которые проходит поиск свободных промежутков")
+    void shouldBoundFreeSlotScan() {
+        // 1 000 получасовых интервалов встык, после 5-го и 500-го - свободный час
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime cursor = start;
+        for (int i = 1; i <= 1_000; i++) {
+            Task task = createTask(i, "01.01.2024 00:00", 30);
+            task.setStartTime(cursor);
+            index.add(task);
+            cursor = cursor.plusMinutes(i == 5 || i == 500 ? 90 : 30);
+        }
+        LocalDateTime firstGap = start.plusMinutes(150);
+
+        List<TimeSlot> slots = index.findFreeSlots(60, start, null, 10, 100);
+        assertEquals(List.of(new TimeSlot(firstGap, firstGap.plusMinutes(60))), slots,
+                "Промежутки до предела просмотра не отданы");
+        assertEquals(3, index.findFreeSlots(60, start, null, 10).size(),
+                "Без предела найдены не все промежутки");
+
+        LocalDateTime stop = firstGap.plusMinutes(60 + 30 * 100);
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> index.findFreeSlots(60, firstGap.plusMinutes(60), null, 10, 100),
+                "Поиск без найденных промежутков не остановлен пределом");
+        assertTrue(e.getMessage().contains("after=" + stop.format(TimeAdapter.DATE_TIME_FORMAT_1)),
+                "Нет времени, с которого продолжить поиск: " + e.getMessage());
+    }
+}